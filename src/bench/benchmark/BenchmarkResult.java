@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.util.Locale;
+
+// The measurements of one benchmark: the throughput of each measured iteration, and the allocation and
+// garbage collection over all of them. Results print as a row of a text table or as a line of CSV.
+public class BenchmarkResult {
+    private final String name;
+    private final double[] throughput;
+    private final long operations;
+    private final long elapsedNanos;
+    private final long allocatedBytes;
+    private final long gcCount;
+    private final long gcMillis;
+
+    // EFFECTS: constructs the results of the benchmark name
+    BenchmarkResult(String name, double[] throughput, long operations, long elapsedNanos, long allocatedBytes,
+                    long gcCount, long gcMillis) {
+        this.name = name;
+        this.throughput = throughput.clone();
+        this.operations = operations;
+        this.elapsedNanos = elapsedNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    // EFFECTS: returns the name of the benchmark
+    public String getName() {
+        return name;
+    }
+
+    // EFFECTS: returns the mean throughput of the measured iterations in operations per second
+    public double getOpsPerSecond() {
+        double total = 0;
+        for (double value : throughput) {
+            total += value;
+        }
+        return total / throughput.length;
+    }
+
+    // EFFECTS: returns the standard deviation of the throughput of the measured iterations
+    public double getOpsPerSecondError() {
+        double mean = getOpsPerSecond();
+        double squares = 0;
+        for (double value : throughput) {
+            squares += (value - mean) * (value - mean);
+        }
+        return throughput.length < 2 ? 0 : Math.sqrt(squares / (throughput.length - 1));
+    }
+
+    // EFFECTS: returns the bytes allocated per operation
+    public double getBytesPerOp() {
+        return (double) allocatedBytes / operations;
+    }
+
+    // EFFECTS: returns the allocation rate in megabytes per second
+    public double getAllocationRate() {
+        return allocatedBytes / 1e6 / (elapsedNanos / 1e9);
+    }
+
+    // EFFECTS: returns the number of garbage collections during the measured iterations
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    // EFFECTS: returns the milliseconds spent in garbage collection during the measured iterations
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    // EFFECTS: returns the heading of the text table of results
+    public static String tableHeader() {
+        return String.format(Locale.ROOT, "%-28s %16s %12s %14s %10s %6s %8s", "Benchmark", "ops/s", "error",
+                "alloc B/op", "alloc MB/s", "gc", "gc ms");
+    }
+
+    // EFFECTS: returns these results as a row of the text table
+    public String toTableRow() {
+        return String.format(Locale.ROOT, "%-28s %16.1f %12.1f %14.1f %10.1f %6d %8d", name, getOpsPerSecond(),
+                getOpsPerSecondError(), getBytesPerOp(), getAllocationRate(), gcCount, gcMillis);
+    }
+
+    // EFFECTS: returns the heading of the CSV results
+    public static String csvHeader() {
+        return "benchmark,ops_per_s,ops_per_s_error,alloc_bytes_per_op,alloc_mb_per_s,gc_count,gc_ms";
+    }
+
+    // EFFECTS: returns these results as a line of CSV
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%.3f,%.3f,%.3f,%.3f,%d,%d", name, getOpsPerSecond(),
+                getOpsPerSecondError(), getBytesPerOp(), getAllocationRate(), gcCount, gcMillis);
+    }
+}
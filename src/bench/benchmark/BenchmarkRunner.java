@@ -0,0 +1,121 @@
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Measures the throughput and allocation of workloads, in the manner of JMH run in a single fork.
+//
+// A workload is first calibrated: it is run in batches of doubling size until a batch takes at least
+// BATCH_NANOS, so that reading the clock costs little next to the work it times. It then runs for
+// warmupIterations iterations, which give the JIT compiler time to compile it and are thrown away, and
+// for iterations measured iterations of iterationMillis each. Allocation is read from the per-thread
+// allocation counters of the JVM, summed over every live thread so that work handed to pool threads is
+// counted too, and garbage collections from the collector MXBeans, like the GC profiler of JMH.
+public class BenchmarkRunner {
+    private static final long BATCH_NANOS = 1_000_000L;
+    private static final int MAX_BATCH = 1 << 30;
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Blackhole hole = new Blackhole();
+
+    // REQUIRES: warmupIterations >= 0, iterations > 0, iterationMillis > 0
+    // EFFECTS: constructs a runner with the given number and length of iterations
+    public BenchmarkRunner(int warmupIterations, int iterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    // EFFECTS: measures workload and returns its results under name; throws any exception the workload throws
+    public BenchmarkResult run(String name, Workload workload) throws Exception {
+        int batch = calibrate(workload);
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(workload, batch);
+        }
+        double[] throughput = new double[iterations];
+        long operations = 0;
+        long allocatedBefore = allocatedBytes();
+        long[] gcBefore = collections();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long[] measured = iterate(workload, batch);
+            throughput[i] = measured[0] * 1e9 / measured[1];
+            operations += measured[0];
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = Math.max(0, allocatedBytes() - allocatedBefore);
+        long[] gcAfter = collections();
+        return new BenchmarkResult(name, throughput, operations, elapsed, allocated,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    // EFFECTS: returns a value depending on every result consumed so far, to be printed so that no result
+    //          is ever unused
+    public int sink() {
+        return hole.sink();
+    }
+
+    // EFFECTS: returns the number of operations to run between readings of the clock
+    private int calibrate(Workload workload) throws Exception {
+        int batch = 1;
+        while (batch < MAX_BATCH) {
+            long start = System.nanoTime();
+            runBatch(workload, batch);
+            if (System.nanoTime() - start >= BATCH_NANOS) {
+                break;
+            }
+            batch *= 2;
+        }
+        return batch;
+    }
+
+    // EFFECTS: runs workload in batches for one iteration and returns the number of operations and the
+    //          nanoseconds they took
+    private long[] iterate(Workload workload, int batch) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            runBatch(workload, batch);
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] {operations, elapsed};
+    }
+
+    // EFFECTS: runs workload count times
+    private void runBatch(Workload workload, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            workload.run(hole);
+        }
+    }
+
+    // EFFECTS: returns the bytes allocated so far by the live threads, or 0 if the JVM does not count them;
+    //          threads that have ended are no longer counted
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+                threads.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    // EFFECTS: returns the number of garbage collections so far and the milliseconds they took
+    private static long[] collections() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[] {count, millis};
+    }
+}
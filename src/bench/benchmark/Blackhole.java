@@ -0,0 +1,31 @@
+package benchmark;
+
+// Consumes the results of benchmarked operations so that the JIT compiler cannot prove them unused and
+// remove the work that computed them. Consuming is cheap: it only mixes a hash into a field that is read
+// once at the end of the run.
+public final class Blackhole {
+    private int sink;
+
+    // MODIFIES: this
+    // EFFECTS: consumes value
+    public void consume(Object value) {
+        sink ^= System.identityHashCode(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes value
+    public void consume(int value) {
+        sink ^= value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes value
+    public void consume(boolean value) {
+        sink ^= value ? 1 : 0;
+    }
+
+    // EFFECTS: returns a value that depends on everything consumed
+    int sink() {
+        return sink;
+    }
+}
@@ -0,0 +1,174 @@
+package benchmark;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+import render.MarkdownRenderer;
+import render.SiteExporter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Benchmarks the hot paths of the model and persistence packages on a synthetic blog and prints ops/s and
+// allocation for each. Options are given as name=value arguments:
+//     articles=10000 content=1000 tags=3 vocabulary=200 skew=1.0   the blog to generate (see BlogGenerator)
+//     warmup=3 iterations=5 time=1000                               iterations and their length in ms
+//     filter=<regex>                                                only run benchmarks whose name matches
+//     csv=<path>                                                    also write the results as CSV
+// For example: java -cp out:lib/* benchmark.BlogBenchmarks articles=50000 filter=Json
+public class BlogBenchmarks {
+    private static final long SEED = 210;
+    private static final String PROBE_TAG = "benchmark-probe";
+
+    private final Map<String, String> options;
+    private final Blog blog;
+    private final Path jsonFile;
+    private final Path writtenFile;
+    private final Path siteDirectory;
+    private final int[] ids;
+
+    // EFFECTS: generates the blog described by options and writes it to a temporary file for reading
+    BlogBenchmarks(Map<String, String> options) throws IOException {
+        this.options = options;
+        blog = new BlogGenerator(SEED)
+                .articles(intOption("articles", 10000))
+                .contentSize(intOption("content", 1000))
+                .tags(intOption("tags", 3), intOption("vocabulary", 200),
+                        Double.parseDouble(option("skew", "1.0")))
+                .generate();
+        jsonFile = Files.createTempFile("benchmark", ".json");
+        writtenFile = Files.createTempFile("benchmark-written", ".json");
+        siteDirectory = Files.createTempDirectory("benchmark-site");
+        write(blog, jsonFile);
+        ids = new Random(SEED).ints(4096, 0, Math.max(1, blog.getArticles().size()))
+                .map(i -> blog.getArticles().get(i).getId()).toArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        BlogBenchmarks benchmarks = new BlogBenchmarks(parseOptions(args));
+        try {
+            benchmarks.runAll();
+        } finally {
+            benchmarks.deleteFiles();
+        }
+    }
+
+    // EFFECTS: returns the name=value options in args
+    static Map<String, String> parseOptions(String[] args) {
+        HashMap<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    // EFFECTS: returns the benchmarks by name, in the order they are run
+    Map<String, Workload> workloads() {
+        LinkedHashMap<String, Workload> workloads = new LinkedHashMap<>();
+        List<Article> articles = blog.getArticles();
+        int[] next = new int[1];
+        workloads.put("JsonReader.read", hole -> hole.consume(new JsonReader(jsonFile.toString()).read()));
+        workloads.put("JsonWriter.write", hole -> write(blog, writtenFile));
+        workloads.put("Blog.findArticleById", hole -> hole.consume(blog.findArticleById(ids[next[0]++ & 4095])));
+        workloads.put("Blog.findNextID", hole -> hole.consume(blog.findNextID()));
+        workloads.put("Article.addTag/deleteTag", hole -> {
+            Article article = articles.get(next[0]++ % articles.size());
+            hole.consume(article.addTag(new Tag(PROBE_TAG)));
+            hole.consume(article.deleteTag(PROBE_TAG));
+        });
+        workloads.put("Article.toJson", hole -> hole.consume(articles.get(next[0]++ % articles.size()).toJson()));
+        workloads.put("Blog.toJson", hole -> hole.consume(blog.toJson()));
+        workloads.put("SiteExporter.export (one edit)", exportAfterEdit(new SiteExporter(new MarkdownRenderer())));
+        return workloads;
+    }
+
+    // EFFECTS: returns a workload that edits one article and exports the blog with exporter; the first run
+    //          exports the whole site, and the runs after it only the pages the edit affects
+    private Workload exportAfterEdit(SiteExporter exporter) {
+        List<Article> articles = blog.getArticles();
+        int[] next = new int[1];
+        return hole -> {
+            Article article = articles.get(next[0]++ % articles.size());
+            String content = article.getContent();
+            article.edit(article.getTitle(), article.getAuthor(), content + " ", article.getDateEdited());
+            hole.consume(exporter.export(blog, siteDirectory));
+            article.edit(article.getTitle(), article.getAuthor(), content, article.getDateEdited());
+        };
+    }
+
+    // EFFECTS: runs every benchmark selected by the filter option, printing a row of results as each ends
+    private void runAll() throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner(intOption("warmup", 3), intOption("iterations", 5),
+                intOption("time", 1000));
+        Pattern filter = Pattern.compile(option("filter", ""));
+        ArrayList<BenchmarkResult> results = new ArrayList<>();
+        System.out.printf("Blog of %d articles, %d bytes as JSON%n", blog.getArticles().size(), Files.size(jsonFile));
+        System.out.println(BenchmarkResult.tableHeader());
+        for (Map.Entry<String, Workload> entry : workloads().entrySet()) {
+            if (filter.matcher(entry.getKey()).find()) {
+                BenchmarkResult result = runner.run(entry.getKey(), entry.getValue());
+                System.out.println(result.toTableRow());
+                results.add(result);
+            }
+        }
+        System.out.println("(blackhole " + runner.sink() + ")");
+        if (options.containsKey("csv")) {
+            writeCsv(results, Paths.get(options.get("csv")));
+        }
+    }
+
+    // EFFECTS: writes results to file as CSV
+    private static void writeCsv(List<BenchmarkResult> results, Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println(BenchmarkResult.csvHeader());
+            for (BenchmarkResult result : results) {
+                out.println(result.toCsv());
+            }
+        }
+    }
+
+    // EFFECTS: writes blog to file as JSON
+    private static void write(Blog blog, Path file) throws IOException {
+        JsonWriter writer = new JsonWriter(file.toString());
+        writer.open();
+        writer.write(blog);
+        writer.close();
+    }
+
+    // EFFECTS: removes the temporary files
+    private void deleteFiles() throws IOException {
+        Files.deleteIfExists(jsonFile);
+        Files.deleteIfExists(writtenFile);
+        try (Stream<Path> files = Files.walk(siteDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    // EFFECTS: returns the option called name, or fallback if it was not given
+    private String option(String name, String fallback) {
+        return options.getOrDefault(name, fallback);
+    }
+
+    // EFFECTS: returns the integer option called name, or fallback if it was not given
+    private int intOption(String name, int fallback) {
+        return Integer.parseInt(option(name, Integer.toString(fallback)));
+    }
+}
@@ -0,0 +1,108 @@
+package benchmark;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+// Generates synthetic blogs for the benchmarks. The same seed and settings always generate the same blog.
+// Articles are dated one after another going back from a fixed day, their content is made of words drawn
+// from a fixed vocabulary, and their tags are drawn from tagVocabulary names with a Zipf distribution of
+// the given skew, so a few tags are on many articles and most tags are on a few, as in a real blog.
+public class BlogGenerator {
+    private static final LocalDate LAST_DAY = LocalDate.of(2021, 1, 1);
+    static final String[] WORDS = ("the blog post about travel food code music film books garden "
+            + "coffee weekend project idea review notes summer winter city river mountain morning evening "
+            + "friend family work study recipe walk photo story question answer plan list").split(" ");
+
+    private final long seed;
+    private int articles = 1000;
+    private int contentSize = 1000;
+    private int tagsPerArticle = 3;
+    private int tagVocabulary = 200;
+    private double tagSkew = 1.0;
+
+    // EFFECTS: constructs a generator of blogs from seed with the default settings
+    public BlogGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    // REQUIRES: count >= 0
+    // MODIFIES: this
+    // EFFECTS: sets the number of articles and returns this
+    public BlogGenerator articles(int count) {
+        this.articles = count;
+        return this;
+    }
+
+    // REQUIRES: chars > 0
+    // MODIFIES: this
+    // EFFECTS: sets the approximate length of the content of each article in characters and returns this
+    public BlogGenerator contentSize(int chars) {
+        this.contentSize = chars;
+        return this;
+    }
+
+    // REQUIRES: 0 <= count <= vocabulary, vocabulary > 0 and skew >= 0
+    // MODIFIES: this
+    // EFFECTS: sets the number of tags on each article, the number of tag names they are drawn from and the
+    //          skew of the Zipf distribution they are drawn with (0 for uniform), and returns this
+    public BlogGenerator tags(int count, int vocabulary, double skew) {
+        this.tagsPerArticle = count;
+        this.tagVocabulary = vocabulary;
+        this.tagSkew = skew;
+        return this;
+    }
+
+    // EFFECTS: returns a new blog with the configured articles
+    public Blog generate() {
+        Random random = new Random(seed);
+        double[] tagWeights = cumulativeZipf(tagVocabulary, tagSkew);
+        Blog blog = new Blog("Benchmark blog");
+        for (int i = 0; i < articles; i++) {
+            int id = blog.allocateId();
+            LocalDate created = LAST_DAY.minusDays(articles - i);
+            Article article = new Article(id, "Article " + id, "Author " + random.nextInt(20),
+                    content(random), created, created.plusDays(random.nextInt(30)));
+            blog.addArticle(article);
+            for (int t = 0; t < tagsPerArticle; t++) {
+                article.addTag(new Tag("tag" + pick(tagWeights, random.nextDouble())));
+            }
+        }
+        return blog;
+    }
+
+    // EFFECTS: returns about contentSize characters of words chosen with random
+    private String content(Random random) {
+        StringBuilder content = new StringBuilder(contentSize + 16);
+        while (content.length() < contentSize) {
+            content.append(WORDS[random.nextInt(WORDS.length)]);
+            content.append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return content.toString();
+    }
+
+    // EFFECTS: returns the cumulative probabilities of ranks 0 to n - 1 under a Zipf distribution with skew
+    private static double[] cumulativeZipf(int n, double skew) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    // REQUIRES: 0 <= uniform < 1
+    // EFFECTS: returns the rank whose cumulative probability is the first to exceed uniform
+    private static int pick(double[] cumulative, double uniform) {
+        int found = Arrays.binarySearch(cumulative, uniform);
+        return Math.min(cumulative.length - 1, found >= 0 ? found + 1 : -found - 1);
+    }
+}
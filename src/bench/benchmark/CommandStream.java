@@ -0,0 +1,115 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Generates the commands of a soak run as the lines a user would type into BlogCli, in a mix given by
+// weights per command. The same seed, mix and blog size always generate the same commands, so two runs
+// are comparable. The stream keeps track of the ids of the articles it creates, so every command that
+// asks for an article gives the id of one that exists.
+//
+// Commands are one of
+//     n  write a new article          e  edit an article          t  tag an article
+//     l  list two pages of articles   r  read an article          f  search for a word
+//     s  save and wait for the save
+class CommandStream {
+    static final String DEFAULT_MIX = "n:10,e:20,t:10,l:10,r:30,f:15,s:5";
+    private static final String[] ORDERS = {"c", "o", "e"};
+    private static final int TOPICS = 200;
+
+    private final Random random;
+    private final String[] names;
+    private final double[] cumulative;
+    private int nextId;
+    private long sequence;
+
+    // REQUIRES: the blog has articles with ids 1 to articles, and mix is a comma-separated list of
+    //           command:weight pairs with positive total weight
+    // EFFECTS: constructs a stream of commands in the given mix for that blog
+    CommandStream(long seed, int articles, String mix) {
+        this.random = new Random(seed);
+        this.nextId = articles + 1;
+        Map<String, Double> weights = parseMix(mix);
+        names = weights.keySet().toArray(new String[0]);
+        cumulative = new double[names.length];
+        double total = 0;
+        for (int i = 0; i < names.length; i++) {
+            total += weights.get(names[i]);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < names.length; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    // EFFECTS: returns the weight of each command in mix
+    static Map<String, Double> parseMix(String mix) {
+        LinkedHashMap<String, Double> weights = new LinkedHashMap<>();
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split(":");
+            if (parts.length != 2 || !"netlrfs".contains(parts[0]) || parts[0].length() != 1) {
+                throw new IllegalArgumentException("Expected command:weight but got " + pair);
+            }
+            weights.put(parts[0], Double.parseDouble(parts[1]));
+        }
+        return weights;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next command as {name, the lines to type}
+    String[] next() {
+        sequence++;
+        int found = Arrays.binarySearch(cumulative, random.nextDouble());
+        String name = names[Math.min(names.length - 1, found >= 0 ? found + 1 : -found - 1)];
+        return new String[] {name, script(name)};
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the lines to type for the command called name
+    private String script(String name) {
+        switch (name) {
+            case "n":
+                nextId++;
+                return lines("n", "Soak article " + sequence, "Author " + random.nextInt(20), words(40));
+            case "e":
+                return lines("e", anyId(), random.nextBoolean() ? "Edited article " + sequence : "", "",
+                        words(40));
+            case "t":
+                // Tag names are unique, so the app never asks for another name
+                return lines("t", anyId(), "topic" + random.nextInt(TOPICS) + "-" + sequence);
+            case "l":
+                return lines("l", ORDERS[random.nextInt(ORDERS.length)], "", "", "n", "");
+            case "r":
+                return lines("r", anyId());
+            case "f":
+                return lines("f", BlogGenerator.WORDS[random.nextInt(BlogGenerator.WORDS.length)]);
+            default:
+                return lines("s");
+        }
+    }
+
+    // EFFECTS: returns the id of an article chosen at random from those that exist
+    private String anyId() {
+        return Integer.toString(1 + random.nextInt(nextId - 1));
+    }
+
+    // EFFECTS: returns count words chosen at random, separated by spaces
+    private String words(int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            words.append(i == 0 ? "" : " ").append(BlogGenerator.WORDS[random.nextInt(BlogGenerator.WORDS.length)]);
+        }
+        return words.toString();
+    }
+
+    // EFFECTS: returns the given lines, each ended by a newline
+    private static String lines(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+}
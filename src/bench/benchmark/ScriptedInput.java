@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+
+// The console input of an app driven by a script. Input is handed over a command at a time with submit();
+// the app reads it as if it were typed, and once it has read all of it and asks for more, it has finished
+// the command and is waiting at its next prompt. awaitIdle() waits for that moment, so the time from
+// submit() to the return of awaitIdle() is the time the app took to carry out the command.
+class ScriptedInput extends InputStream {
+    private byte[] pending = new byte[0];
+    private int position;
+    private boolean waiting;
+    private boolean closed;
+
+    // REQUIRES: the app has read all the input submitted before
+    // MODIFIES: this
+    // EFFECTS: hands text to the app as its next input
+    synchronized void submit(String text) {
+        pending = text.getBytes(StandardCharsets.UTF_8);
+        position = 0;
+        waiting = false;
+        notifyAll();
+    }
+
+    // EFFECTS: waits until the app has read all the input submitted and is waiting for more; throws
+    //          IOException if app ends first, such as when it fails or quits
+    synchronized void awaitIdle(Thread app) throws IOException {
+        while (!waiting) {
+            if (!app.isAlive()) {
+                throw new IOException("The app stopped before it asked for more input");
+            }
+            try {
+                wait(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the app");
+            }
+        }
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (position == pending.length) {
+            if (closed) {
+                return -1;
+            }
+            waiting = true;
+            notifyAll();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input");
+            }
+        }
+        int count = Math.min(length, pending.length - position);
+        System.arraycopy(pending, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public synchronized int available() {
+        return pending.length - position;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: ends the input; the app reads the end of the stream once it has read what was submitted
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
@@ -0,0 +1,330 @@
+package benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.JsonWriter;
+import ui.BlogCli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+// Drives BlogCli headlessly through a long stream of generated commands against a generated blog, and
+// writes a JSON report of how it held up: the p50, p99 and maximum latency of each command, the heap
+// high-water mark, the time spent in garbage collection, and how the files of the store grew, with a
+// sample of heap and file size every sample commands. Options are given as name=value arguments:
+//     articles=10000 content=1000 tags=3        the blog the app loads (see BlogGenerator)
+//     commands=10000 minutes=0                  stop after this many commands, or minutes if not 0
+//     mix=n:10,e:20,...  seed=210               the commands to generate (see CommandStream)
+//     sample=1000  dir=<path>                   how often to sample, and where to store the blog
+//     report=soak-report.json                   where to write the report
+//     baseline=<path>                           compare the run with the report of an earlier run
+// For example: java -Xmx2g -cp out:lib/* benchmark.SoakHarness articles=1000000 minutes=120
+public class SoakHarness {
+    private final Options options;
+    private final Path directory;
+    private final Path storeFile;
+    private final TreeMap<String, Latencies> latencies = new TreeMap<>();
+    private final JSONArray samples = new JSONArray();
+    private long[] gcBefore;
+    private long initialFileBytes;
+
+    // EFFECTS: constructs a harness for the run described by options
+    SoakHarness(Options options) throws IOException {
+        this.options = options;
+        directory = options.has("dir") ? Paths.get(options.get("dir", "")) : Files.createTempDirectory("soak");
+        Files.createDirectories(directory);
+        storeFile = directory.resolve("blog.json");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        SoakHarness harness = new SoakHarness(options);
+        JSONObject report;
+        try {
+            report = harness.run();
+        } finally {
+            if (!options.has("dir")) {
+                harness.deleteFiles();
+            }
+        }
+        Path reportFile = Paths.get(options.get("report", "soak-report.json"));
+        Files.write(reportFile, report.toString(2).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Wrote " + reportFile);
+        if (options.has("baseline")) {
+            JSONObject baseline = new JSONObject(new String(Files.readAllBytes(Paths.get(
+                    options.get("baseline", ""))), StandardCharsets.UTF_8));
+            System.out.print(compare(report, baseline));
+        }
+    }
+
+    // EFFECTS: writes the blog, runs the app through the commands and returns the report of the run
+    JSONObject run() throws Exception {
+        writeBlog();
+        ScriptedInput input = new ScriptedInput();
+        Thread app = new Thread(() -> new BlogCli(input, new PrintStream(new DiscardingStream()),
+                storeFile.toString()), "soak-cli");
+        startMeasuring();
+        long start = System.nanoTime();
+        app.start();
+        input.awaitIdle(app);
+        execute(input, app, "load", "l\n");
+        long commands = runCommands(input, app, start);
+        input.submit("q\n");
+        long quitStart = System.nanoTime();
+        app.join();
+        latency("quit").add(System.nanoTime() - quitStart);
+        return report(commands, System.nanoTime() - start);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: generates the blog and stores it where the app will load it from
+    private void writeBlog() throws IOException {
+        int articles = options.getInt("articles", 10000);
+        if (articles < 100) {
+            throw new IllegalArgumentException("The blog needs at least 100 articles to list pages of them");
+        }
+        long start = System.nanoTime();
+        JsonWriter writer = new JsonWriter(storeFile.toString());
+        writer.open();
+        writer.write(new BlogGenerator(options.getInt("seed", 210)).articles(articles)
+                .contentSize(options.getInt("content", 1000))
+                .tags(options.getInt("tags", 3), 200, 1.0).generate());
+        writer.close();
+        latency("generate").add(System.nanoTime() - start);
+        initialFileBytes = fileBytes();
+    }
+
+    // EFFECTS: runs generated commands until there have been enough of them or the time is up, and returns
+    //          how many ran
+    private long runCommands(ScriptedInput input, Thread app, long start) throws IOException {
+        CommandStream stream = new CommandStream(options.getInt("seed", 210), options.getInt("articles", 10000),
+                options.get("mix", CommandStream.DEFAULT_MIX));
+        long limit = options.getInt("commands", 10000);
+        long deadline = options.getInt("minutes", 0) * 60_000_000_000L;
+        int sampleEvery = options.getInt("sample", 1000);
+        long count = 0;
+        while (deadline > 0 ? System.nanoTime() - start < deadline : count < limit) {
+            String[] command = stream.next();
+            execute(input, app, command[0], command[1]);
+            count++;
+            if (count % sampleEvery == 0) {
+                sample(count, System.nanoTime() - start);
+            }
+        }
+        return count;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: hands script to the app and records how long it took to carry it out as a command called name
+    private void execute(ScriptedInput input, Thread app, String name, String script) throws IOException {
+        long start = System.nanoTime();
+        input.submit(script);
+        input.awaitIdle(app);
+        latency(name).add(System.nanoTime() - start);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the heap in use and the size of the store after count commands
+    private void sample(long count, long elapsedNanos) throws IOException {
+        JSONObject sample = new JSONObject();
+        sample.put("commands", count);
+        sample.put("elapsed_s", elapsedNanos / 1e9);
+        sample.put("heap_used_bytes", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        sample.put("file_bytes", fileBytes());
+        samples.put(sample);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts tracking the heap high-water mark and garbage collection from now on
+    private void startMeasuring() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        gcBefore = collections();
+    }
+
+    // EFFECTS: returns the report of a run of the given number of commands that took elapsedNanos
+    private JSONObject report(long commands, long elapsedNanos) throws IOException {
+        JSONObject report = new JSONObject();
+        report.put("options", options.toJson());
+        report.put("articles", options.getInt("articles", 10000));
+        report.put("mix", options.get("mix", CommandStream.DEFAULT_MIX));
+        report.put("seed", options.getInt("seed", 210));
+        report.put("commands", commands);
+        report.put("elapsed_s", elapsedNanos / 1e9);
+        JSONObject perCommand = new JSONObject();
+        latencies.forEach((name, values) -> perCommand.put(name, values.toJson()));
+        report.put("latency_ms", perCommand);
+        report.put("heap_peak_bytes", heapPeak());
+        report.put("heap_max_bytes", Runtime.getRuntime().maxMemory());
+        long[] gcAfter = collections();
+        report.put("gc_count", gcAfter[0] - gcBefore[0]);
+        report.put("gc_ms", gcAfter[1] - gcBefore[1]);
+        report.put("file_initial_bytes", initialFileBytes);
+        report.put("file_final_bytes", fileBytes());
+        report.put("file_growth_bytes", fileBytes() - initialFileBytes);
+        report.put("samples", samples);
+        return report;
+    }
+
+    // EFFECTS: returns the most heap used since measuring started, summed over the heap's memory pools
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            peak += pool.getType() == MemoryType.HEAP ? pool.getPeakUsage().getUsed() : 0;
+        }
+        return peak;
+    }
+
+    // EFFECTS: returns a table comparing the latencies, heap, garbage collection and file growth of report
+    //          with those of baseline
+    static String compare(JSONObject report, JSONObject baseline) {
+        StringBuilder table = new StringBuilder(String.format("%-28s %14s %14s %9s%n", "Measure", "baseline",
+                "this run", "change"));
+        JSONObject now = report.getJSONObject("latency_ms");
+        JSONObject before = baseline.getJSONObject("latency_ms");
+        for (String name : new TreeMap<>(now.toMap()).keySet()) {
+            for (String measure : new String[] {"p50", "p99"}) {
+                if (before.has(name)) {
+                    compareRow(table, name + " " + measure + " ms", before.getJSONObject(name).getDouble(measure),
+                            now.getJSONObject(name).getDouble(measure));
+                }
+            }
+        }
+        for (String measure : new String[] {"heap_peak_bytes", "gc_ms", "file_growth_bytes"}) {
+            compareRow(table, measure, baseline.getDouble(measure), report.getDouble(measure));
+        }
+        return table.toString();
+    }
+
+    // MODIFIES: table
+    // EFFECTS: adds a row comparing a measure of this run with the baseline to table
+    private static void compareRow(StringBuilder table, String measure, double before, double now) {
+        String change = before == 0 ? "-" : String.format("%+.1f%%", 100 * (now - before) / before);
+        table.append(String.format("%-28s %14.3f %14.3f %9s%n", measure, before, now, change));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the latencies recorded for the command called name
+    private Latencies latency(String name) {
+        return latencies.computeIfAbsent(name, n -> new Latencies());
+    }
+
+    // EFFECTS: removes the directory the blog was stored in
+    private void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    // EFFECTS: returns the total size of the files of the store: the snapshot, its journal and search index
+    private long fileBytes() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    // EFFECTS: returns the number of garbage collections so far and the milliseconds they took
+    private static long[] collections() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[] {count, millis};
+    }
+
+    // The latencies of one command, in nanoseconds
+    static final class Latencies {
+        private long[] values = new long[64];
+        private int size;
+
+        // MODIFIES: this
+        // EFFECTS: records a latency
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        // REQUIRES: 0 < percentile <= 100 and at least one latency has been recorded
+        // EFFECTS: returns the latency in milliseconds that percentile percent of the latencies are at or below
+        double percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+
+        // EFFECTS: returns the count, mean, p50, p99 and maximum of the latencies in milliseconds
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += values[i];
+            }
+            json.put("count", size);
+            json.put("mean", total / 1e6 / size);
+            json.put("p50", percentile(50));
+            json.put("p99", percentile(99));
+            json.put("max", percentile(100));
+            return json;
+        }
+    }
+
+    // The name=value options of a run
+    static final class Options {
+        private final TreeMap<String, String> values = new TreeMap<>();
+
+        // EFFECTS: parses the name=value options in args
+        Options(String[] args) {
+            values.putAll(BlogBenchmarks.parseOptions(args));
+        }
+
+        // EFFECTS: returns true if the option called name was given
+        boolean has(String name) {
+            return values.containsKey(name);
+        }
+
+        // EFFECTS: returns the option called name, or fallback if it was not given
+        String get(String name, String fallback) {
+            return values.getOrDefault(name, fallback);
+        }
+
+        // EFFECTS: returns the integer option called name, or fallback if it was not given
+        int getInt(String name, int fallback) {
+            return Integer.parseInt(get(name, Integer.toString(fallback)));
+        }
+
+        // EFFECTS: returns the options as JSON
+        JSONObject toJson() {
+            return new JSONObject(values);
+        }
+    }
+
+    // An output stream that throws away what is written to it, standing in for the console
+    private static final class DiscardingStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+        }
+    }
+}
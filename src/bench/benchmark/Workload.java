@@ -0,0 +1,10 @@
+package benchmark;
+
+// One operation to be measured. The runner calls it over and over, so it must leave whatever it works on
+// in the state it found it, and hand its result to the blackhole.
+@FunctionalInterface
+public interface Workload {
+
+    // EFFECTS: performs the operation once, consuming its result in hole
+    void run(Blackhole hole) throws Exception;
+}
@@ -1,23 +1,41 @@
 package model;
 
+import monitoring.BlogMetrics;
+import monitoring.TagEvent;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import persistence.BinaryOutput;
+import persistence.BinaryWritable;
 import persistence.Writable;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 
 // Article represents an article in a blog. It has a title, author, and content which are modifiable by the user.
-// The date created, date edited and id are managed automatically by the constructor and edit methods.
-public class Article implements Writable {
-    private static int nextId = 1;
+// The date created and date edited are managed automatically by the constructor and edit methods, and ids are
+// allocated by the Blog the article belongs to.
+// An article loaded lazily keeps only the position of its content in a ContentSource until it is edited.
+// Once an article is added to a blog, its tags are the blog's interned Tag instances and every change to
+// them, and to the date it was edited, is reported to the blog so that its indexes stay up to date.
+// Every edit keeps the text it replaces as a revision in the article's RevisionHistory, so earlier revisions
+// can be listed, viewed and restored. Every change also bumps the article's version, so that an editor can
+// tell whether the article has changed since it last looked (see ArticleEdit and persistence.BlogEditor).
+public class Article implements Writable, BinaryWritable {
     private int id;
     private String title;
     private String author;
     private String content;
+    private ContentSource contentSource;
+    private long contentOffset;
+    private int contentLength;
     private final LocalDate dateCreated;
     private LocalDate dateEdited;
     private ArrayList<Tag> tags;
+    private RevisionHistory history;
+    private volatile long version;
+    private Blog blog;
 
     // REQUIRES: title, author, and content are nonempty strings
     public Article(int id, String title, String author, String content, LocalDate dateCreated) {
@@ -42,21 +60,44 @@ public class Article implements Writable {
         this.tags = new ArrayList<>();
     }
 
-    // EFFECTS: returns the next id for a new article
-    public static int getNextId() {
-        return nextId++;
-    }
-
-    // MODIFIES: this
-    // EFFECTS: sets the next id for a new article
-    public static void setNextId(int id) {
-        nextId = id;
+    // REQUIRES: title and author are nonempty strings, and source holds nonempty content at offset
+    // EFFECTS: article constructor whose content stays in source and is only read in when it is asked for
+    public Article(int id, String title, String author, ContentSource source, long offset, int length,
+                   LocalDate dateCreated, LocalDate dateEdited) {
+        this(id, title, author, null, dateCreated, dateEdited);
+        this.contentSource = source;
+        this.contentOffset = offset;
+        this.contentLength = length;
     }
 
     // MODIFIES: this
     // EFFECTS: checks if the new tag collides with an existing tag (same name)
     //          and adds it to tags if there are no collisions
     public boolean addTag(Tag newTag) {
+        TagEvent event = new TagEvent();
+        event.begin();
+        long started = BlogMetrics.TAG.start();
+        boolean added = insertTag(newTag);
+        BlogMetrics.TAG.end(started, 0, 1);
+        commitTagEvent(event, newTag.getName(), true, added);
+        return added;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds newTag to tags unless the article already has a tag with the same name; returns true if
+    //          it was added
+    private boolean insertTag(Tag newTag) {
+        if (blog != null) {
+            // The blog's tag index answers the collision check without scanning the tags
+            if (blog.getTagIndex().contains(newTag.getName(), id)) {
+                return false;
+            }
+            Tag interned = blog.getTagIndex().intern(newTag.getName());
+            this.tags.add(interned);
+            version++;
+            blog.tagAdded(this, interned);
+            return true;
+        }
         // Check if a tag with the same name already exists
         for (Tag tag : tags) {
             if (tag.getName().equals(newTag.getName())) {
@@ -64,6 +105,7 @@ public class Article implements Writable {
             }
         }
         this.tags.add(newTag);
+        version++;
         return true;
     }
 
@@ -71,25 +113,140 @@ public class Article implements Writable {
     // MODIFIES: this
     // EFFECTS: removes the tag with the given name from the Article's list of tags if it exists
     public boolean deleteTag(String name) {
+        TagEvent event = new TagEvent();
+        event.begin();
+        long started = BlogMetrics.TAG.start();
+        boolean deleted = removeTag(name);
+        BlogMetrics.TAG.end(started, 0, 1);
+        commitTagEvent(event, name, false, deleted);
+        return deleted;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the tag with the given name from tags; returns true if it was there
+    private boolean removeTag(String name) {
+        if (blog != null && !blog.getTagIndex().contains(name, id)) {
+            return false;
+        }
         // Try to delete a tag
         for (Tag tag : this.tags) {
             if (tag.getName().equals(name)) {
                 this.tags.remove(tag);
+                version++;
+                if (blog != null) {
+                    blog.tagRemoved(this, tag);
+                }
                 return true;
             }
         }
         return false;
     }
 
+    // EFFECTS: records event for adding (if added) or deleting the tag called name, if it is being recorded
+    private void commitTagEvent(TagEvent event, String name, boolean added, boolean changed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.id = id;
+            event.tag = name;
+            event.added = added;
+            event.changed = changed;
+            event.commit();
+        }
+    }
+
     // REQUIRES: newTitle, newAuthor and newString are nonempty string
     // MODIFIES: this
     // EFFECTS: updates the title, author and content of the blog post with newTitle, newAuthor and newContent
     //          updates the dateEdited with today's date
     public void edit(String newTitle, String newAuthor, String newContent) {
-        this.title = newTitle;
-        this.author = newAuthor;
-        this.content = newContent;
-        this.dateEdited = LocalDate.now();
+        edit(newTitle, newAuthor, newContent, LocalDate.now());
+    }
+
+    // REQUIRES: newTitle, newAuthor and newString are nonempty string
+    // MODIFIES: this
+    // EFFECTS: updates the title, author and content of the blog post and sets dateEdited to the given date.
+    //          To be used when replaying an edit that was recorded earlier.
+    public void edit(String newTitle, String newAuthor, String newContent, LocalDate dateEdited) {
+        prepareEdit(newTitle, newAuthor, newContent, dateEdited).apply();
+    }
+
+    // REQUIRES: newTitle, newAuthor and newContent are nonempty strings
+    // EFFECTS: works out the edit that updates the title, author and content of the article and sets
+    //          dateEdited to the given date, without making it
+    public ArticleEdit prepareEdit(String newTitle, String newAuthor, String newContent, LocalDate dateEdited) {
+        return new ArticleEdit(this, newTitle, newAuthor, newContent, dateEdited);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes edit, which is current, keeping the text it replaces as the newest revision; to be used
+    //          by ArticleEdit only
+    void applyEdit(ArticleEdit edit) {
+        LocalDate previousDateEdited = this.dateEdited;
+        if (history == null) {
+            history = new RevisionHistory();
+        }
+        edit.addRevision(history);
+        this.title = edit.getTitle();
+        this.author = edit.getAuthor();
+        this.content = edit.getContent();
+        this.contentSource = null;
+        this.dateEdited = edit.getDateEdited();
+        version++;
+        if (blog != null) {
+            blog.dateEditedChanged(this, previousDateEdited);
+            blog.articleEdited(this);
+        }
+    }
+
+    // EFFECTS: returns the version of the article, which is 0 when it is created or loaded and goes up by one
+    //          with every edit and every tag added or removed
+    public long getVersion() {
+        return version;
+    }
+
+    // EFFECTS: returns the number of earlier revisions of the article
+    public int getRevisionCount() {
+        return history == null ? 0 : history.size();
+    }
+
+    // REQUIRES: 0 <= number < getRevisionCount()
+    // EFFECTS: returns revision number of the article
+    public Revision getRevision(int number) {
+        return history.get(number, title, author, getContent());
+    }
+
+    // EFFECTS: returns every earlier revision of the article, oldest first
+    public List<Revision> getRevisions() {
+        return history == null ? new ArrayList<>() : history.list(title, author, getContent());
+    }
+
+    // REQUIRES: 0 <= number < getRevisionCount()
+    // MODIFIES: this
+    // EFFECTS: edits the article back to the title, author and content of revision number; the text it
+    //          replaces becomes the newest revision, so restoring can be undone like any other edit
+    public void restore(int number) {
+        Revision revision = getRevision(number);
+        edit(revision.getTitle(), revision.getAuthor(), revision.getContent());
+    }
+
+    // EFFECTS: returns the history of earlier revisions, or null if the article has never been edited
+    public RevisionHistory getHistory() {
+        return history;
+    }
+
+    // REQUIRES: history leads back from the current title, author and content of the article
+    // MODIFIES: this
+    // EFFECTS: sets the history of earlier revisions; to be used when reading a saved article
+    public void setHistory(RevisionHistory history) {
+        this.history = history;
+        if (blog != null) {
+            blog.historyChanged(this);
+        }
+    }
+
+    // EFFECTS: returns a snapshot of the article as it is now
+    public ArticleSnapshot snapshot() {
+        return new ArticleSnapshot(this, content, contentSource, contentOffset, contentLength);
     }
 
     // EFFECTS: returns a string representation of the Article
@@ -108,13 +265,50 @@ public class Article implements Writable {
         json.put("id", id);
         json.put("title", title);
         json.put("author", author);
-        json.put("content", content);
+        json.put("content", getContent());
         json.put("dateCreated", dateCreated.toString());
         json.put("dateEdited", dateEdited.toString());
         json.put("tags", tagsToJson());
+        if (getRevisionCount() > 0) {
+            json.put("revisions", revisionsToJson());
+        }
         return json;
     }
 
+    // EFFECTS: writes this to a binary snapshot; the content goes last because it is by far the largest field
+    @Override
+    public void writeBinary(BinaryOutput out) throws IOException {
+        out.writeInt(id);
+        out.writeString(title);
+        out.writeStringRef(author);
+        out.writeInt((int) dateCreated.toEpochDay());
+        out.writeInt((int) dateEdited.toEpochDay());
+        out.writeInt(tags.size());
+        for (Tag tag : this.tags) {
+            tag.writeBinary(out);
+        }
+        out.writeString(getContent());
+        writeRevisions(out);
+    }
+
+    // EFFECTS: writes the revision history to a binary snapshot, after the fields that older readers know
+    private void writeRevisions(BinaryOutput out) throws IOException {
+        out.writeInt(getRevisionCount());
+        for (int i = 0; i < getRevisionCount(); i++) {
+            out.writeInt((int) history.getDateEdited(i).toEpochDay());
+            writeDelta(out, history.getTitle(i));
+            writeDelta(out, history.getAuthor(i));
+            writeDelta(out, history.getContent(i));
+        }
+    }
+
+    // EFFECTS: writes delta to a binary snapshot
+    private static void writeDelta(BinaryOutput out, TextDelta delta) throws IOException {
+        out.writeInt(delta.getPrefix());
+        out.writeInt(delta.getSuffix());
+        out.writeString(delta.getInserted());
+    }
+
     // EFFECTS: Renders tags to json array
     private JSONArray tagsToJson() {
         JSONArray tagArray = new JSONArray();
@@ -124,6 +318,29 @@ public class Article implements Writable {
         return tagArray;
     }
 
+    // EFFECTS: Renders revisions to json array; a delta that replaces the whole text is rendered as the text,
+    //          and any other delta as [prefix, suffix, inserted]
+    private JSONArray revisionsToJson() {
+        JSONArray revisions = new JSONArray();
+        for (int i = 0; i < history.size(); i++) {
+            JSONObject revision = new JSONObject();
+            revision.put("dateEdited", history.getDateEdited(i).toString());
+            revision.put("title", deltaToJson(history.getTitle(i)));
+            revision.put("author", deltaToJson(history.getAuthor(i)));
+            revision.put("content", deltaToJson(history.getContent(i)));
+            revisions.put(revision);
+        }
+        return revisions;
+    }
+
+    // EFFECTS: Renders delta to a json string or array
+    private static Object deltaToJson(TextDelta delta) {
+        if (delta.isReplacement()) {
+            return delta.getInserted();
+        }
+        return new JSONArray().put(delta.getPrefix()).put(delta.getSuffix()).put(delta.getInserted());
+    }
+
     public String getTitle() {
         return title;
     }
@@ -132,10 +349,20 @@ public class Article implements Writable {
         return author;
     }
 
+    // EFFECTS: returns the content, reading it in from its source if it is not held in memory
     public String getContent() {
+        if (content == null) {
+            return contentSource.loadContent(contentOffset, contentLength);
+        }
         return content;
     }
 
+    // EFFECTS: returns the number of characters of content held in memory; content that is left in the
+    //          snapshot file until it is needed is not counted
+    public int residentContentLength() {
+        return content == null ? 0 : content.length();
+    }
+
     public LocalDate getDateCreated() {
         return dateCreated;
     }
@@ -152,4 +379,15 @@ public class Article implements Writable {
         return tags;
     }
 
+    // EFFECTS: returns the blog this article belongs to, or null if it has not been added to one
+    public Blog getBlog() {
+        return blog;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the blog this article belongs to; to be used by Blog only
+    void setBlog(Blog blog) {
+        this.blog = blog;
+    }
+
 }
@@ -0,0 +1,137 @@
+package model;
+
+import monitoring.BlogMetrics;
+import monitoring.EditEvent;
+
+import java.time.LocalDate;
+
+// An edit of an article that has been worked out but not made yet. Working out an edit reads the content of
+// the article and compares it with the new content, for the revision that the edit records and for the
+// record of the edit in a journal, which takes time in proportion to the length of the article. Making it
+// only swaps in the new text, adds the revision and brings the indexes of the blog up to date. An editor can
+// therefore work out an edit without holding the lock that guards the blog and take the lock only to make
+// it (see persistence.BlogEditor). An edit can only be made while it is current, that is, while the article
+// is still at the version the edit was worked out from.
+//
+// An edit is only recorded in BlogMetrics and Flight Recorder once it is made, so that one turned down as no
+// longer current is not counted. Its time in BlogMetrics is the time taken to work it out and to make it,
+// without the time spent waiting for the lock in between.
+public final class ArticleEdit {
+    private final Article article;
+    private final long version;
+    private final int revision;
+    private final LocalDate previousDateEdited;
+    private final String title;
+    private final String author;
+    private final String content;
+    private final LocalDate dateEdited;
+    private final TextDelta[] revisionDeltas;
+    private final TextDelta[] deltas;
+    private final long preparedNanos;
+
+    // REQUIRES: title, author and content are nonempty strings
+    // EFFECTS: works out the edit that replaces the title, author and content of article and sets the date
+    //          it was edited; to be used by Article.prepareEdit only
+    ArticleEdit(Article article, String title, String author, String content, LocalDate dateEdited) {
+        long started = System.nanoTime();
+        this.article = article;
+        this.version = article.getVersion();
+        this.revision = article.getRevisionCount();
+        this.previousDateEdited = article.getDateEdited();
+        this.title = title;
+        this.author = author;
+        this.content = content;
+        this.dateEdited = dateEdited;
+        String[] from = {article.getTitle(), article.getAuthor(), article.getContent()};
+        String[] to = {title, author, content};
+        this.revisionDeltas = new TextDelta[from.length];
+        this.deltas = new TextDelta[from.length];
+        boolean keyframe = RevisionHistory.isKeyframe(revision);
+        for (int i = 0; i < from.length; i++) {
+            revisionDeltas[i] = keyframe ? TextDelta.replacing(from[i]) : TextDelta.between(to[i], from[i]);
+            deltas[i] = forward(revisionDeltas[i], from[i], to[i]);
+        }
+        this.preparedNanos = System.nanoTime() - started;
+    }
+
+    // EFFECTS: returns the delta from text from to text to, given the delta back from to to from. The two
+    //          share the same prefix and suffix, so only the replaced text has to be copied.
+    private static TextDelta forward(TextDelta back, String from, String to) {
+        if (back.isReplacement()) {
+            return TextDelta.between(from, to);
+        }
+        return new TextDelta(back.getPrefix(), back.getSuffix(),
+                to.substring(back.getPrefix(), to.length() - back.getSuffix()));
+    }
+
+    // EFFECTS: returns true if the article has not changed since this edit was worked out
+    public boolean isCurrent() {
+        return article.getVersion() == version;
+    }
+
+    // MODIFIES: this, the article and the blog it belongs to
+    // EFFECTS: makes this edit; throws IllegalStateException if it is no longer current
+    public void apply() {
+        if (!isCurrent()) {
+            throw new IllegalStateException(String.format("Article %d has changed since the edit was worked out",
+                    article.getId()));
+        }
+        EditEvent event = new EditEvent();
+        event.begin();
+        long started = System.nanoTime();
+        article.applyEdit(this);
+        BlogMetrics.EDIT.record(preparedNanos + System.nanoTime() - started, content.length(), 1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.id = article.getId();
+            event.contentLength = content.length();
+            event.commit();
+        }
+    }
+
+    // MODIFIES: history
+    // EFFECTS: adds the text that this edit replaces to history as its newest revision
+    void addRevision(RevisionHistory history) {
+        history.add(previousDateEdited, revisionDeltas[0], revisionDeltas[1], revisionDeltas[2]);
+    }
+
+    public Article getArticle() {
+        return article;
+    }
+
+    // EFFECTS: returns the number of the revision that the edit records, which keeps the text it replaces
+    public int getRevision() {
+        return revision;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDate getDateEdited() {
+        return dateEdited;
+    }
+
+    // EFFECTS: returns the delta from the title the edit replaces to the new title
+    public TextDelta getTitleDelta() {
+        return deltas[0];
+    }
+
+    // EFFECTS: returns the delta from the author the edit replaces to the new author
+    public TextDelta getAuthorDelta() {
+        return deltas[1];
+    }
+
+    // EFFECTS: returns the delta from the content the edit replaces to the new content
+    public TextDelta getContentDelta() {
+        return deltas[2];
+    }
+}
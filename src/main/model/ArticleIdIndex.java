@@ -0,0 +1,78 @@
+package model;
+
+// Maps article ids to articles in constant time without boxing the ids. The articles are kept packed in an
+// array, and an IntIntMap maps each id to the article's position in it; removing an article moves the last
+// one into its place, so the array never has holes.
+public class ArticleIdIndex {
+    private static final int MIN_CAPACITY = 16;
+
+    private final IntIntMap positions = new IntIntMap();
+    private Article[] articles;
+    private int size;
+
+    // EFFECTS: constructs an empty index
+    public ArticleIdIndex() {
+        articles = new Article[MIN_CAPACITY];
+    }
+
+    // EFFECTS: returns the article with the given id, or null if there is none
+    public Article get(int id) {
+        int position = positions.get(id);
+        return position == IntIntMap.NONE ? null : articles[position];
+    }
+
+    // EFFECTS: returns true if an article with the given id is in the index
+    public boolean contains(int id) {
+        return positions.get(id) != IntIntMap.NONE;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: maps the article's id to article, returning the article it replaced or null
+    public Article put(Article article) {
+        int position = positions.get(article.getId());
+        if (position != IntIntMap.NONE) {
+            Article previous = articles[position];
+            articles[position] = article;
+            return previous;
+        }
+        if (size == articles.length) {
+            Article[] grown = new Article[size * 2];
+            System.arraycopy(articles, 0, grown, 0, size);
+            articles = grown;
+        }
+        articles[size] = article;
+        positions.put(article.getId(), size);
+        size++;
+        return null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the article with the given id and returns it, or returns null if there is none
+    public Article remove(int id) {
+        int position = positions.remove(id);
+        if (position == IntIntMap.NONE) {
+            return null;
+        }
+        Article removed = articles[position];
+        size--;
+        if (position != size) {
+            articles[position] = articles[size];
+            positions.put(articles[position].getId(), position);
+        }
+        articles[size] = null;
+        return removed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every article from the index
+    public void clear() {
+        positions.clear();
+        articles = new Article[MIN_CAPACITY];
+        size = 0;
+    }
+
+    // EFFECTS: returns the number of articles in the index
+    public int size() {
+        return size;
+    }
+}
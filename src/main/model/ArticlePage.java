@@ -0,0 +1,29 @@
+package model;
+
+import java.util.ArrayList;
+
+// One page of articles listed by a TimelineQuery, along with the query for the page after it
+public final class ArticlePage {
+    private final ArrayList<Article> articles;
+    private final TimelineQuery next;
+
+    // EFFECTS: constructs a page of articles; next is null if this is the last page
+    ArticlePage(ArrayList<Article> articles, TimelineQuery next) {
+        this.articles = articles;
+        this.next = next;
+    }
+
+    public ArrayList<Article> getArticles() {
+        return articles;
+    }
+
+    // EFFECTS: returns the query for the next page, or null if there are no more articles
+    public TimelineQuery getNext() {
+        return next;
+    }
+
+    // EFFECTS: returns true if there are more articles after this page
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,107 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// An article as it was at one point in time. A snapshot never changes, so it can be read on any thread
+// without locks while the article itself goes on being edited. Taking one copies the fields and the list of
+// tags of the article, but not its text or its history: strings never change, content left on disk by a
+// lazy load stays there until it is asked for, and the history is only ever added to, so the snapshot keeps
+// the number of revisions the article had and reads no further.
+public final class ArticleSnapshot {
+    private static final Tag[] NO_TAGS = new Tag[0];
+
+    private final int id;
+    private final String title;
+    private final String author;
+    private final String content;
+    private final ContentSource contentSource;
+    private final long contentOffset;
+    private final int contentLength;
+    private final LocalDate dateCreated;
+    private final LocalDate dateEdited;
+    private final Tag[] tags;
+    private final RevisionHistory history;
+    private final int revisionCount;
+    private final long version;
+
+    // EFFECTS: takes a snapshot of article as it is now; to be used by Article.snapshot only
+    ArticleSnapshot(Article article, String content, ContentSource contentSource, long contentOffset,
+                    int contentLength) {
+        this.id = article.getId();
+        this.title = article.getTitle();
+        this.author = article.getAuthor();
+        this.content = content;
+        this.contentSource = contentSource;
+        this.contentOffset = contentOffset;
+        this.contentLength = contentLength;
+        this.dateCreated = article.getDateCreated();
+        this.dateEdited = article.getDateEdited();
+        this.tags = article.getTags().isEmpty() ? NO_TAGS : article.getTags().toArray(NO_TAGS);
+        this.history = article.getHistory();
+        this.revisionCount = article.getRevisionCount();
+        this.version = article.getVersion();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    // EFFECTS: returns the content, reading it in from its source if it was not held in memory
+    public String getContent() {
+        if (content == null) {
+            return contentSource.loadContent(contentOffset, contentLength);
+        }
+        return content;
+    }
+
+    // EFFECTS: returns the number of characters of content held in memory (see Article.residentContentLength())
+    public int residentContentLength() {
+        return content == null ? 0 : content.length();
+    }
+
+    public LocalDate getDateCreated() {
+        return dateCreated;
+    }
+
+    public LocalDate getDateEdited() {
+        return dateEdited;
+    }
+
+    // EFFECTS: returns the tags of the article, which cannot be modified
+    public List<Tag> getTags() {
+        return Collections.unmodifiableList(Arrays.asList(tags));
+    }
+
+    // EFFECTS: returns the number of earlier revisions the article had
+    public int getRevisionCount() {
+        return revisionCount;
+    }
+
+    // REQUIRES: 0 <= number < getRevisionCount()
+    // EFFECTS: returns revision number of the article
+    public Revision getRevision(int number) {
+        return history.get(number, revisionCount, title, author, getContent());
+    }
+
+    // EFFECTS: returns the history of the article, of which only the first getRevisionCount() revisions
+    //          belong to this snapshot, or null if the article had never been edited
+    public RevisionHistory getHistory() {
+        return history;
+    }
+
+    // EFFECTS: returns the version of the article (see Article.getVersion())
+    public long getVersion() {
+        return version;
+    }
+}
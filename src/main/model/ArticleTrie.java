@@ -0,0 +1,204 @@
+package model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// An immutable map from article id to ArticleSnapshot, as a trie of 32-way nodes that each take five bits
+// of the id, most significant first. Ids are handed out in order, so the trie is as dense as a vector and
+// iterates in id order. Putting or removing an article copies only the nodes on the path to it, one for every
+// five bits of the largest id (four for a blog of up to a million articles), and shares every other node with
+// the trie it was made from, which stays valid.
+//
+// Like a persistent vector, the trie keeps the block of 32 ids that the newest article falls in out of the
+// tree, in a tail of its own. Adding an article with a new id, or changing one of the newest articles, then
+// only copies the tail; the tail goes into the tree once an id past its block is added.
+final class ArticleTrie implements Iterable<ArticleSnapshot> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    static final ArticleTrie EMPTY = new ArticleTrie(new Object[WIDTH], BITS, new Object[WIDTH], 0, 0);
+
+    // Inner nodes hold child nodes and leaves (shift 0) hold snapshots; empty slots are null. The tree holds
+    // the ids below tailBase and the tail the WIDTH ids from tailBase on.
+    private final Object[] root;
+    private final int shift;
+    private final Object[] tail;
+    private final int tailBase;
+    private final int size;
+
+    private ArticleTrie(Object[] root, int shift, Object[] tail, int tailBase, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.tail = tail;
+        this.tailBase = tailBase;
+        this.size = size;
+    }
+
+    // EFFECTS: returns the number of articles in the trie
+    int size() {
+        return size;
+    }
+
+    // REQUIRES: id >= 0
+    // EFFECTS: returns the article with the given id, or null if there is none
+    ArticleSnapshot get(int id) {
+        if ((id & ~MASK) == tailBase) {
+            return (ArticleSnapshot) tail[id & MASK];
+        }
+        if (id >>> shift >= WIDTH) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(id >>> level) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (ArticleSnapshot) node[id & MASK];
+    }
+
+    // REQUIRES: article.getId() >= 0
+    // EFFECTS: returns this trie with article put in place of any article with the same id
+    ArticleTrie with(ArticleSnapshot article) {
+        int id = article.getId();
+        int base = id & ~MASK;
+        if (base == tailBase) {
+            Object[] newTail = tail.clone();
+            newTail[id & MASK] = article;
+            return new ArticleTrie(root, shift, newTail, tailBase, tail[id & MASK] == null ? size + 1 : size);
+        }
+        if (base > tailBase) {
+            Object[] newTail = new Object[WIDTH];
+            newTail[id & MASK] = article;
+            ArticleTrie tall = tallEnoughFor(tailBase);
+            Object[] newRoot = isEmpty(tail) ? tall.root : put(tall.root, tall.shift, tailBase, tail, BITS);
+            return new ArticleTrie(newRoot, tall.shift, newTail, base, size + 1);
+        }
+        ArticleTrie tall = tallEnoughFor(id);
+        return new ArticleTrie(put(tall.root, tall.shift, id, article, 0), tall.shift, tail, tailBase,
+                get(id) == null ? size + 1 : size);
+    }
+
+    // EFFECTS: returns this trie without the article with the given id
+    ArticleTrie without(int id) {
+        if (id < 0 || get(id) == null) {
+            return this;
+        }
+        if ((id & ~MASK) == tailBase) {
+            Object[] newTail = tail.clone();
+            newTail[id & MASK] = null;
+            return new ArticleTrie(root, shift, newTail, tailBase, size - 1);
+        }
+        Object[] newRoot = remove(root, shift, id);
+        return new ArticleTrie(newRoot == null ? new Object[WIDTH] : newRoot, shift, tail, tailBase, size - 1);
+    }
+
+    // EFFECTS: returns this trie with a tree tall enough to hold id
+    private ArticleTrie tallEnoughFor(int id) {
+        Object[] newRoot = root;
+        int newShift = shift;
+        while (id >>> newShift >= WIDTH) {
+            Object[] taller = new Object[WIDTH];
+            taller[0] = newRoot;
+            newRoot = taller;
+            newShift += BITS;
+        }
+        return newRoot == root ? this : new ArticleTrie(newRoot, newShift, tail, tailBase, size);
+    }
+
+    // EFFECTS: returns a copy of node, at the given shift, with value put in the slot for id on the given level
+    private static Object[] put(Object[] node, int shift, int id, Object value, int level) {
+        Object[] copy = node.clone();
+        int slot = (id >>> shift) & MASK;
+        if (shift == level) {
+            copy[slot] = value;
+        } else {
+            Object[] child = (Object[]) node[slot];
+            copy[slot] = put(child == null ? new Object[WIDTH] : child, shift - BITS, id, value, level);
+        }
+        return copy;
+    }
+
+    // REQUIRES: node, at the given shift, holds an article at id
+    // EFFECTS: returns a copy of node without the article at id, or null if nothing would be left in it
+    private static Object[] remove(Object[] node, int shift, int id) {
+        int slot = (id >>> shift) & MASK;
+        Object[] copy = node.clone();
+        copy[slot] = shift == 0 ? null : remove((Object[]) node[slot], shift - BITS, id);
+        return isEmpty(copy) ? null : copy;
+    }
+
+    // EFFECTS: returns true if every slot of node is empty
+    private static boolean isEmpty(Object[] node) {
+        for (Object child : node) {
+            if (child != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns an iterator over the articles in the trie in order of id
+    @Override
+    public Iterator<ArticleSnapshot> iterator() {
+        return new TrieIterator();
+    }
+
+    // Walks the tree depth first, keeping the node and the next slot to look at on each level, and then the
+    // tail, whose ids all come after those in the tree
+    private final class TrieIterator implements Iterator<ArticleSnapshot> {
+        private final Object[][] nodes = new Object[shift / BITS + 1][];
+        private final int[] slots = new int[nodes.length];
+        private int level;
+        private int tailSlot;
+        private ArticleSnapshot next;
+
+        TrieIterator() {
+            nodes[0] = root;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ArticleSnapshot next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ArticleSnapshot article = next;
+            advance();
+            return article;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: moves on to the next article in id order, or sets next to null if there are no more
+        private void advance() {
+            next = null;
+            while (level >= 0) {
+                if (slots[level] == WIDTH) {
+                    level--;
+                    continue;
+                }
+                Object child = nodes[level][slots[level]++];
+                if (child == null) {
+                    continue;
+                }
+                if (level == nodes.length - 1) {
+                    next = (ArticleSnapshot) child;
+                    return;
+                }
+                level++;
+                nodes[level] = (Object[]) child;
+                slots[level] = 0;
+            }
+            while (tailSlot < WIDTH && next == null) {
+                next = (ArticleSnapshot) tail[tailSlot++];
+            }
+        }
+    }
+}
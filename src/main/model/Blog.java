@@ -1,39 +1,354 @@
 package model;
 
+import monitoring.BlogMetrics;
+import monitoring.LookupEvent;
+import monitoring.OperationStats;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import persistence.BinaryOutput;
+import persistence.BinaryWritable;
 import persistence.Writable;
+import search.SearchIndex;
+import search.SearchResult;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 // Represents a blog with a title and a list of articles that make up the blog.
-public class Blog implements Writable {
+// The blog owns the allocation of article ids and keeps an index from id to article, so looking up an
+// article and handing out the next id both take constant time. It also interns the tags of its articles
+// and keeps an inverted index from each tag to the articles that carry it, for answering TagQuery's, and
+// sorted indexes of its articles by date created and date edited, for listing them a page at a time.
+// The full-text search index is either opened from disk by the store that loads the blog, or built on the
+// first search, so that loading a blog with lazily loaded content stays cheap. Either way it is kept up to
+// date as articles are added, edited, retagged and removed.
+// Every change also publishes a new BlogSnapshot, which readers take with snapshot() to see the blog as it
+// was at that point without holding a lock. The blog itself is still changed by one thread at a time.
+// Each change is also recorded as a typed BlogChange in a ChangeLog, from which ChangeCursor's deliver the
+// changes in batches, so that what is derived from the blog elsewhere can be kept up to date from the changes
+// rather than by reading the whole blog again.
+public class Blog implements Writable, BinaryWritable {
     private String title;
     private ArrayList<Article> articles;
+    private final ArticleIdIndex index;
+    private final TagIndex tagIndex;
+    private IdBitmap articleIds;
+    private final DateIndex createdIndex;
+    private final DateIndex editedIndex;
+    private SearchIndex searchIndex;
+    private volatile BlogSnapshot snapshot;
+    private final ChangeLog changes;
+    private int nextId;
 
     // REQUIRES: title is a non-empty string
     // EFFECTS: creates a new blog with the given title
     public Blog(String title) {
         this.title = title;
         this.articles = new ArrayList<>();
+        this.index = new ArticleIdIndex();
+        this.tagIndex = new TagIndex();
+        this.articleIds = new IdBitmap();
+        this.createdIndex = new DateIndex();
+        this.editedIndex = new DateIndex();
+        this.snapshot = new BlogSnapshot(title, ArticleTrie.EMPTY, 0);
+        this.changes = new ChangeLog();
+        this.nextId = 1;
     }
 
     // MODIFIES: this
-    // EFFECTS: adds an article to the list of articles in the blog
+    // EFFECTS: adds an article to the list of articles in the blog; returns false without adding it
+    //          if the blog already has an article with the same id
     public boolean addArticle(Article article) {
+        if (index.contains(article.getId())) {
+            return false;
+        }
+        ArticleSnapshot added = indexArticle(article);
+        if (searchIndex != null) {
+            searchIndex.add(added);
+        }
         return this.articles.add(article);
     }
 
+    // MODIFIES: this
+    // EFFECTS: removes the article from the blog; returns true if it was in the blog
+    public boolean removeArticle(Article article) {
+        if (index.get(article.getId()) != article) {
+            return false;
+        }
+        index.remove(article.getId());
+        articleIds.remove(article.getId());
+        createdIndex.remove(article.getDateCreated(), article.getId());
+        editedIndex.remove(article.getDateEdited(), article.getId());
+        for (Tag tag : article.getTags()) {
+            tagIndex.remove(tag, article.getId());
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(article.getId());
+        }
+        article.setBlog(null);
+        ArticleSnapshot removed = snapshot.get(article.getId());
+        record(snapshot.without(article.getId()), ChangeKind.ARTICLE_REMOVED, removed, null, null);
+        return this.articles.remove(article);
+    }
+
     // EFFECTS: Returns the article with the provided id,
     //          or throws an exception if no such article exists.
     public Article findArticleById(int id) throws NoSuchElementException {
-        for (Article article : this.articles) {
-            if (article.getId() == id) {
-                return article;
+        // Lookups are too quick to time every one; only the sampled ones are timed and sent to Flight Recorder
+        long started = BlogMetrics.LOOKUP.start();
+        if (started != OperationStats.NOT_TIMED) {
+            return findArticleByIdTimed(id, started);
+        }
+        Article article = index.get(id);
+        if (article == null) {
+            throw new NoSuchElementException(String.format("Could not find article with id %s", id));
+        }
+        return article;
+    }
+
+    // EFFECTS: looks up the article with the given id as findArticleById does, recording the lookup that
+    //          began at started in BlogMetrics and Flight Recorder
+    private Article findArticleByIdTimed(int id, long started) {
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        Article article = index.get(id);
+        BlogMetrics.LOOKUP.end(started, 0, article == null ? 0 : 1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.id = id;
+            event.found = article != null;
+            event.commit();
+        }
+        if (article == null) {
+            throw new NoSuchElementException(String.format("Could not find article with id %s", id));
+        }
+        return article;
+    }
+
+    // EFFECTS: returns true if the blog has an article with the given id
+    public boolean containsArticle(int id) {
+        return index.contains(id);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reserves and returns the id for a new article; ids are never handed out twice
+    public int allocateId() {
+        return nextId++;
+    }
+
+    // EFFECTS: returns the ids of the articles matching query
+    public IdBitmap findArticleIds(TagQuery query) {
+        return query.evaluate(tagIndex, articleIds).copy();
+    }
+
+    // REQUIRES: ids.length >= limit
+    // MODIFIES: ids
+    // EFFECTS: puts the ids of the first limit articles matching query with ids greater than after into ids,
+    //          in order of id, and returns how many there are. Nothing is copied and the ids before after are
+    //          skipped, so a page of the articles with a tag takes time in the size of the page, not the tag.
+    public int findArticleIds(TagQuery query, int after, int limit, int[] ids) {
+        return query.evaluate(tagIndex, articleIds).idsAfter(after, limit, ids);
+    }
+
+    // EFFECTS: returns the articles matching query, ordered by id
+    public ArrayList<Article> findArticles(TagQuery query) {
+        IdBitmap ids = query.evaluate(tagIndex, articleIds);
+        ArrayList<Article> matches = new ArrayList<>(ids.cardinality());
+        ids.forEach(id -> matches.add(index.get(id)));
+        return matches;
+    }
+
+    // REQUIRES: limit > 0
+    // EFFECTS: returns the first limit articles listed by query, and the query for the next page
+    public ArticlePage listArticles(TimelineQuery query, int limit) {
+        DateIndex dates = query.getTimeline() == Timeline.CREATED ? createdIndex : editedIndex;
+        // One key more than the page tells whether there is a next page
+        long[] keys = new long[limit + 1];
+        int count = dates.range(query.lowestKey(), query.highestKey(), query.isNewestFirst(), limit + 1, keys);
+        ArrayList<Article> page = new ArrayList<>(Math.min(count, limit));
+        for (int i = 0; i < count && i < limit; i++) {
+            page.add(index.get(DateIndex.idOf(keys[i])));
+        }
+        return new ArticlePage(page, count > limit ? query.after(keys[limit - 1]) : null);
+    }
+
+    // REQUIRES: limit > 0, and the caller holds the lock that changes to the blog are made under (such as the
+    //           store's, see WriteBehindSaver.update), since the first search builds the index
+    // EFFECTS: returns up to limit articles whose title, content, tags or author match query, most relevant first;
+    //          see SearchIndex.search for the query syntax
+    public List<SearchResult> search(String query, int limit) {
+        if (searchIndex == null) {
+            // The index is only made the blog's once it is complete, so that a store flushing it never sees
+            // one that is half built
+            searchIndex = buildSearchIndex(snapshot);
+        }
+        return searchIndex.search(query, limit);
+    }
+
+    // EFFECTS: returns a full-text search index of the articles in snapshot, which is taken from this blog.
+    //          Needs no lock, since a snapshot never changes, so an index can be built while the blog goes on
+    //          being changed and then be brought up to date and made the blog's by installSearchIndex.
+    public SearchIndex buildSearchIndex(BlogSnapshot snapshot) {
+        SearchIndex built = new SearchIndex(index::get);
+        for (ArticleSnapshot article : snapshot) {
+            built.add(article);
+        }
+        return built;
+    }
+
+    // REQUIRES: built was built by buildSearchIndex from the snapshot taken when cursor was created, and the
+    //           caller holds the lock that changes to the blog are made under
+    // MODIFIES: this, built
+    // EFFECTS: unless the blog already has a search index, brings built up to date with the changes delivered
+    //          by cursor (or builds it again if they can no longer be delivered) and makes it the blog's;
+    //          returns the blog's search index
+    public SearchIndex installSearchIndex(SearchIndex built, ChangeCursor cursor) {
+        if (searchIndex == null) {
+            SearchIndexFollower follower = new SearchIndexFollower(built);
+            cursor.deliver(follower);
+            searchIndex = follower.built;
+        }
+        return searchIndex;
+    }
+
+    // Brings a search index built from a snapshot up to date with the changes made to the blog since
+    private final class SearchIndexFollower implements ChangeListener {
+        private SearchIndex built;
+
+        SearchIndexFollower(SearchIndex built) {
+            this.built = built;
+        }
+
+        // MODIFIES: built
+        // EFFECTS: re-indexes the articles that were added, edited or retagged, and drops those removed
+        @Override
+        public void changed(List<BlogChange> changes) {
+            for (BlogChange change : changes) {
+                if (change.getKind() == ChangeKind.ARTICLE_REMOVED) {
+                    built.remove(change.getId());
+                } else if (change.getKind() != ChangeKind.TITLE_CHANGED) {
+                    built.update(change.getArticle());
+                }
             }
         }
-        throw new NoSuchElementException(String.format("Could not find article with id %s", id));
+
+        // MODIFIES: this
+        // EFFECTS: replaces the index with one built from snapshot
+        @Override
+        public void reset(BlogSnapshot snapshot) {
+            built = buildSearchIndex(snapshot);
+        }
+    }
+
+    // EFFECTS: returns the full-text search index, or null if it has not been opened or built yet
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // REQUIRES: searchIndex indexes exactly the articles of this blog
+    // MODIFIES: this
+    // EFFECTS: makes searchIndex the blog's full-text search index
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    // EFFECTS: returns the blog's tag dictionary and inverted index
+    public TagIndex getTagIndex() {
+        return tagIndex;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that article, which belongs to this blog, now carries the interned tag
+    void tagAdded(Article article, Tag tag) {
+        tagIndex.add(tag, article.getId());
+        articleChanged(article, ChangeKind.TAG_ADDED, tag.getName());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that article, which belongs to this blog, no longer carries the interned tag
+    void tagRemoved(Article article, Tag tag) {
+        tagIndex.remove(tag, article.getId());
+        articleChanged(article, ChangeKind.TAG_REMOVED, tag.getName());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the date article, which belongs to this blog, was edited on changed from previous
+    void dateEditedChanged(Article article, LocalDate previous) {
+        editedIndex.remove(previous, article.getId());
+        editedIndex.add(article.getDateEdited(), article.getId());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the title, author and content of article, which belongs to this blog, were edited
+    void articleEdited(Article article) {
+        articleChanged(article, ChangeKind.ARTICLE_EDITED, null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the history of article, which belongs to this blog, has been replaced
+    void historyChanged(Article article) {
+        publish(article, ChangeKind.ARTICLE_EDITED, null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records a change of the given kind to article, which belongs to this blog, and updates the
+    //          search index
+    private void articleChanged(Article article, ChangeKind kind, String tagName) {
+        ArticleSnapshot changed = publish(article, kind, tagName);
+        if (searchIndex != null) {
+            searchIndex.update(changed);
+        }
+    }
+
+    // EFFECTS: returns the blog as it is now. The snapshot never changes, however the blog is changed later,
+    //          and taking it costs the same however large the blog is.
+    public BlogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // EFFECTS: returns a cursor that delivers the changes made to the blog from now on
+    public ChangeCursor newChangeCursor() {
+        return new ChangeCursor(this, changes, snapshot.getChangeCount());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: publishes a snapshot of the blog in which article, which belongs to it, is as it is now after a
+    //          change of the given kind, and returns the snapshot of article
+    private ArticleSnapshot publish(Article article, ChangeKind kind, String tagName) {
+        ArticleSnapshot published = article.snapshot();
+        ArticleSnapshot previous = kind == ChangeKind.ARTICLE_ADDED ? null : snapshot.get(article.getId());
+        record(snapshot.with(published), kind, previous, published, tagName);
+        return published;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: publishes next, the snapshot after a change of the given kind, and records the change
+    private void record(BlogSnapshot next, ChangeKind kind, ArticleSnapshot previous, ArticleSnapshot article,
+                        String name) {
+        snapshot = next;
+        changes.append(new BlogChange(next.getChangeCount() - 1, kind, previous, article, name));
+    }
+
+    // MODIFIES: this, article
+    // EFFECTS: adds article to the indexes, replacing its tags with the blog's interned instances, and returns
+    //          the snapshot of it that is published
+    private ArticleSnapshot indexArticle(Article article) {
+        index.put(article);
+        articleIds.add(article.getId());
+        createdIndex.add(article.getDateCreated(), article.getId());
+        editedIndex.add(article.getDateEdited(), article.getId());
+        nextId = Integer.max(nextId, article.getId() + 1);
+        ArrayList<Tag> tags = article.getTags();
+        for (int i = 0; i < tags.size(); i++) {
+            Tag interned = tagIndex.intern(tags.get(i).getName());
+            tags.set(i, interned);
+            tagIndex.add(interned, article.getId());
+        }
+        article.setBlog(this);
+        return publish(article, ChangeKind.ARTICLE_ADDED, null);
     }
 
     // EFFECTS: returns JSON representation of blog
@@ -45,6 +360,16 @@ public class Blog implements Writable {
         return json;
     }
 
+    // EFFECTS: writes this to a binary snapshot, each article as its own record
+    @Override
+    public void writeBinary(BinaryOutput out) throws IOException {
+        out.writeString(this.title);
+        out.writeInt(this.articles.size());
+        for (Article article : articles) {
+            out.writeRecord(article);
+        }
+    }
+
     // EFFECTS: returns articles in this blog as a JSON array
     private JSONArray articlesToJson() {
         JSONArray jsonArray = new JSONArray();
@@ -56,13 +381,10 @@ public class Blog implements Writable {
         return jsonArray;
     }
 
-    // EFFECTS: Finds the ID of the next article added to the blog (i.e. highest article id + 1)
+    // EFFECTS: Finds the ID of the next article added to the blog (i.e. highest article id + 1,
+    //          or higher if ids have been allocated for articles that were not added)
     public int findNextID() {
-        int maxSoFar = 0;
-        for (Article article : this.articles) {
-            maxSoFar = Integer.max(maxSoFar, article.getId());
-        }
-        return maxSoFar + 1;
+        return nextId;
     }
 
     public String getTitle() {
@@ -71,14 +393,34 @@ public class Blog implements Writable {
 
     public void setTitle(String title) {
         this.title = title;
+        record(snapshot.withTitle(title), ChangeKind.TITLE_CHANGED, null, null, title);
     }
 
+    // EFFECTS: returns the articles in the blog; the list must not be modified directly,
+    //          use addArticle and removeArticle so that the id index stays up to date
     public ArrayList<Article> getArticles() {
         return articles;
     }
 
+    // MODIFIES: this
+    // EFFECTS: replaces the articles in the blog and rebuilds the id index
     public void setArticles(ArrayList<Article> articles) {
+        for (Article article : this.articles) {
+            article.setBlog(null);
+        }
         this.articles = articles;
+        articleIds = new IdBitmap();
+        createdIndex.clear();
+        editedIndex.clear();
+        searchIndex = null;
+        snapshot = new BlogSnapshot(title, ArticleTrie.EMPTY, snapshot.getChangeCount());
+        index.clear();
+        tagIndex.clearPostings();
+        for (Article article : articles) {
+            indexArticle(article);
+        }
+        // Replaying the changes made before would not lead here; cursors must start again from a snapshot
+        changes.invalidate(snapshot.getChangeCount());
     }
 
 
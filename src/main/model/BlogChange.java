@@ -0,0 +1,57 @@
+package model;
+
+// One change made to a blog: what kind of change it was, the article it was made to as it was before and
+// after it, and, for a tag, the name of the tag. Changes are numbered in the order they were made, from 0
+// for the first change made to the blog, and a BlogSnapshot counts the changes it contains, so the change
+// numbered BlogSnapshot.getChangeCount() is the first one made after the snapshot was taken.
+public final class BlogChange {
+    private final long sequence;
+    private final ChangeKind kind;
+    private final ArticleSnapshot previous;
+    private final ArticleSnapshot article;
+    private final String name;
+
+    // EFFECTS: constructs change number sequence of the given kind, made to an article that was previous
+    //          before it and is article after it; name is the name of the tag added or removed, or the new
+    //          title of the blog
+    BlogChange(long sequence, ChangeKind kind, ArticleSnapshot previous, ArticleSnapshot article, String name) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.previous = previous;
+        this.article = article;
+        this.name = name;
+    }
+
+    // EFFECTS: returns the number of the change, counting from 0 for the first change made to the blog
+    public long getSequence() {
+        return sequence;
+    }
+
+    public ChangeKind getKind() {
+        return kind;
+    }
+
+    // REQUIRES: getKind() is not TITLE_CHANGED
+    // EFFECTS: returns the id of the article the change was made to
+    public int getId() {
+        return article != null ? article.getId() : previous.getId();
+    }
+
+    // EFFECTS: returns the article as it was before the change, or null if it was added by the change or
+    //          the change was to the title of the blog
+    public ArticleSnapshot getPrevious() {
+        return previous;
+    }
+
+    // EFFECTS: returns the article as it was after the change, or null if it was removed by the change or
+    //          the change was to the title of the blog
+    public ArticleSnapshot getArticle() {
+        return article;
+    }
+
+    // EFFECTS: returns the name of the tag added or removed, the new title of the blog if the title was
+    //          changed, or null for any other change
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,77 @@
+package model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A blog as it was at one point in time: its title and a snapshot of each of its articles, in order of id.
+// Every change to a blog publishes a new snapshot that shares all but a few nodes with the one before (see
+// ArticleTrie), so taking one with Blog.snapshot() costs nothing, and readers such as saving, exporting and
+// searching see one consistent version of the blog for as long as they need without holding any lock. A
+// snapshot also counts the changes made to the blog up to it, which places it in the stream of changes that
+// a ChangeCursor delivers.
+public final class BlogSnapshot implements Iterable<ArticleSnapshot> {
+    private final String title;
+    private final ArticleTrie articles;
+    private final long changeCount;
+
+    // EFFECTS: constructs a snapshot of a blog with the given title and articles, after changeCount changes
+    BlogSnapshot(String title, ArticleTrie articles, long changeCount) {
+        this.title = title;
+        this.articles = articles;
+        this.changeCount = changeCount;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    // EFFECTS: returns the number of articles
+    public int size() {
+        return articles.size();
+    }
+
+    // EFFECTS: returns true if there is an article with the given id
+    public boolean containsArticle(int id) {
+        return get(id) != null;
+    }
+
+    // EFFECTS: returns the article with the given id; throws NoSuchElementException if there is none
+    public ArticleSnapshot findArticleById(int id) throws NoSuchElementException {
+        ArticleSnapshot article = get(id);
+        if (article == null) {
+            throw new NoSuchElementException(String.format("Could not find article with id %s", id));
+        }
+        return article;
+    }
+
+    // EFFECTS: returns the number of changes made to the blog up to this snapshot
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    // EFFECTS: returns an iterator over the articles in order of id
+    @Override
+    public Iterator<ArticleSnapshot> iterator() {
+        return articles.iterator();
+    }
+
+    // EFFECTS: returns the article with the given id, or null if there is none
+    ArticleSnapshot get(int id) {
+        return id >= 0 ? articles.get(id) : null;
+    }
+
+    // EFFECTS: returns the snapshot after the change that gives this one the given title
+    BlogSnapshot withTitle(String title) {
+        return new BlogSnapshot(title, articles, changeCount + 1);
+    }
+
+    // EFFECTS: returns the snapshot after the change that puts article in place of any article with the same id
+    BlogSnapshot with(ArticleSnapshot article) {
+        return new BlogSnapshot(title, articles.with(article), changeCount + 1);
+    }
+
+    // EFFECTS: returns the snapshot after the change that removes the article with the given id
+    BlogSnapshot without(int id) {
+        return new BlogSnapshot(title, articles.without(id), changeCount + 1);
+    }
+}
@@ -0,0 +1,45 @@
+package model;
+
+import java.util.List;
+
+// A position in the stream of changes made to a blog, from which a ChangeListener is brought up to date. Each
+// call of deliver() hands the listener every change made since the last call in one batch, so a listener
+// that is brought up to date now and then, rather than after every change, updates what it derives from the
+// blog in the size of the changes rather than the size of the blog. A blog only keeps its most recent
+// changes (see ChangeLog), so a cursor left behind for too long, or one whose blog had its articles
+// replaced, resets its listener from a snapshot instead.
+//
+// A cursor can be used on any thread, but by only one thread at a time.
+public final class ChangeCursor {
+    private final Blog blog;
+    private final ChangeLog log;
+    private long next;
+
+    // EFFECTS: constructs a cursor over the changes made to blog, recorded in log, from change number next on
+    ChangeCursor(Blog blog, ChangeLog log, long next) {
+        this.blog = blog;
+        this.log = log;
+        this.next = next;
+    }
+
+    // MODIFIES: this, listener
+    // EFFECTS: passes listener the changes made to the blog since the cursor was created or last delivered
+    //          changes, if there are any; if some of them can no longer be delivered, resets listener from a
+    //          snapshot of the blog as it is now and goes on from there
+    public void deliver(ChangeListener listener) {
+        List<BlogChange> changes = log.read(next);
+        if (changes == null) {
+            BlogSnapshot snapshot = blog.snapshot();
+            next = snapshot.getChangeCount();
+            listener.reset(snapshot);
+        } else if (!changes.isEmpty()) {
+            next += changes.size();
+            listener.changed(changes);
+        }
+    }
+
+    // EFFECTS: returns the number of the next change the cursor will deliver
+    public long getPosition() {
+        return next;
+    }
+}
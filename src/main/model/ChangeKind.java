@@ -0,0 +1,11 @@
+package model;
+
+// The kinds of change a blog reports to its ChangeCursor's (see BlogChange)
+public enum ChangeKind {
+    ARTICLE_ADDED,
+    ARTICLE_EDITED,
+    ARTICLE_REMOVED,
+    TAG_ADDED,
+    TAG_REMOVED,
+    TITLE_CHANGED
+}
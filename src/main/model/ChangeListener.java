@@ -0,0 +1,15 @@
+package model;
+
+import java.util.List;
+
+// Keeps something derived from a blog, such as an index, a cache or a view, up to date with the changes made
+// to the blog, as delivered to it by a ChangeCursor.
+public interface ChangeListener {
+    // EFFECTS: called with the changes made to the blog since the last call, oldest first
+    void changed(List<BlogChange> changes);
+
+    // EFFECTS: called instead of changed() when some of the changes made since the last call can no longer be
+    //          delivered; what is derived from the blog should be built again from snapshot, which contains
+    //          every change before the ones the next call of changed() will be given
+    void reset(BlogSnapshot snapshot);
+}
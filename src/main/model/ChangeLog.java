@@ -0,0 +1,56 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The last CAPACITY changes made to a blog, in a ring that each change overwrites the oldest slot of. The
+// blog is changed by one thread at a time, which appends a change by storing it in its slot and then
+// publishing the new count of changes through a volatile field, so appending takes no lock and allocates
+// nothing but the change itself. Readers on any thread read the count and then the slots below it; a change
+// found in a slot is immutable, and its sequence number tells whether the writer has already lapped the
+// reader and overwritten the slot with a newer change, in which case the reader has to start again from a
+// snapshot. The ring keeps the snapshots in the changes it holds alive until they are overwritten.
+final class ChangeLog {
+    static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    private final BlogChange[] ring = new BlogChange[CAPACITY];
+    private volatile long published;
+    private volatile long validFrom;
+
+    // MODIFIES: this
+    // EFFECTS: appends change, whose sequence number follows that of the change appended before it
+    void append(BlogChange change) {
+        ring[(int) change.getSequence() & MASK] = change;
+        published = change.getSequence() + 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes the changes numbered below sequence impossible to read, because replaying them would not
+    //          lead to the blog as it is
+    void invalidate(long sequence) {
+        validFrom = sequence;
+    }
+
+    // EFFECTS: returns the changes appended so far from the one numbered from on, oldest first, or null if any
+    //          of them can no longer be read
+    List<BlogChange> read(long from) {
+        long end = published;
+        if (end <= from) {
+            return from < validFrom ? null : Collections.emptyList();
+        }
+        if (from < validFrom || end - from > CAPACITY) {
+            return null;
+        }
+        List<BlogChange> changes = new ArrayList<>((int) (end - from));
+        for (long sequence = from; sequence < end; sequence++) {
+            BlogChange change = ring[(int) sequence & MASK];
+            if (change == null || change.getSequence() != sequence) {
+                return null;
+            }
+            changes.add(change);
+        }
+        return from < validFrom ? null : changes;
+    }
+}
@@ -0,0 +1,8 @@
+package model;
+
+// Supplies the content of articles that is kept outside the heap until it is needed
+public interface ContentSource {
+    // REQUIRES: offset and length describe the content of an article in this source
+    // EFFECTS: returns the content stored at offset; throws UncheckedIOException if it cannot be read
+    String loadContent(long offset, int length);
+}
@@ -0,0 +1,188 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// A sorted index of articles by date. Each article is a key that packs the epoch day of its date into the
+// high 32 bits and its id into the low 32 bits, so keys order by date and then by id and a key is a stable
+// position in the index: paging on from the last key seen is not thrown off by articles added or removed
+// before it. Keys are kept in a list of sorted blocks of at most BLOCK_SIZE longs, so adding or removing a
+// key moves at most one block, and reading a page costs a binary search plus the size of the page.
+public class DateIndex {
+    static final long FIRST = Long.MIN_VALUE;
+    static final long LAST = Long.MAX_VALUE;
+    private static final int BLOCK_SIZE = 256;
+
+    private long[][] blocks;
+    private int[] sizes;
+    private int blockCount;
+    private int size;
+
+    // EFFECTS: constructs an empty index
+    public DateIndex() {
+        clear();
+    }
+
+    // EFFECTS: returns the key of the article with the given id and date
+    static long key(LocalDate date, int id) {
+        return (date.toEpochDay() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // EFFECTS: returns the smallest key on date
+    static long firstKeyOn(LocalDate date) {
+        return date.toEpochDay() << 32;
+    }
+
+    // EFFECTS: returns the largest key on date
+    static long lastKeyOn(LocalDate date) {
+        return firstKeyOn(date) | 0xFFFFFFFFL;
+    }
+
+    // EFFECTS: returns the article id in key
+    static int idOf(long key) {
+        return (int) key;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the article with the given id on date; returns false if it was already there
+    public boolean add(LocalDate date, int id) {
+        long key = key(date, id);
+        int b = findBlock(key);
+        if (Arrays.binarySearch(blocks[b], 0, sizes[b], key) >= 0) {
+            return false;
+        }
+        if (sizes[b] == BLOCK_SIZE) {
+            // Keys added in date order fill blocks completely instead of leaving them half empty
+            boolean appending = b == blockCount - 1 && key > blocks[b][BLOCK_SIZE - 1];
+            split(b, appending ? BLOCK_SIZE : BLOCK_SIZE / 2);
+            if (key > blocks[b][sizes[b] - 1]) {
+                b++;
+            }
+        }
+        int position = -Arrays.binarySearch(blocks[b], 0, sizes[b], key) - 1;
+        System.arraycopy(blocks[b], position, blocks[b], position + 1, sizes[b] - position);
+        blocks[b][position] = key;
+        sizes[b]++;
+        size++;
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the article with the given id on date; returns false if it was not there
+    public boolean remove(LocalDate date, int id) {
+        long key = key(date, id);
+        int b = findBlock(key);
+        int position = Arrays.binarySearch(blocks[b], 0, sizes[b], key);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(blocks[b], position + 1, blocks[b], position, sizes[b] - position - 1);
+        sizes[b]--;
+        size--;
+        if (sizes[b] == 0 && blockCount > 1) {
+            removeBlock(b);
+        }
+        return true;
+    }
+
+    // EFFECTS: returns the number of articles in the index
+    public int size() {
+        return size;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every article from the index
+    public void clear() {
+        blocks = new long[][] {new long[BLOCK_SIZE]};
+        sizes = new int[1];
+        blockCount = 1;
+        size = 0;
+    }
+
+    // REQUIRES: out.length >= limit
+    // MODIFIES: out
+    // EFFECTS: copies up to limit keys in [from, to] into out, in increasing order or, if descending, in
+    //          decreasing order, and returns how many were copied
+    int range(long from, long to, boolean descending, int limit, long[] out) {
+        if (from > to) {
+            return 0;
+        }
+        return descending ? rangeDescending(from, to, limit, out) : rangeAscending(from, to, limit, out);
+    }
+
+    // EFFECTS: copies up to limit keys in [from, to] into out in increasing order and returns how many
+    private int rangeAscending(long from, long to, int limit, long[] out) {
+        int count = 0;
+        int b = findBlock(from);
+        int found = Arrays.binarySearch(blocks[b], 0, sizes[b], from);
+        int i = found >= 0 ? found : -found - 1;
+        for (; b < blockCount && count < limit; b++, i = 0) {
+            for (; i < sizes[b] && count < limit; i++) {
+                if (blocks[b][i] > to) {
+                    return count;
+                }
+                out[count++] = blocks[b][i];
+            }
+        }
+        return count;
+    }
+
+    // EFFECTS: copies up to limit keys in [from, to] into out in decreasing order and returns how many
+    private int rangeDescending(long from, long to, int limit, long[] out) {
+        int count = 0;
+        int b = findBlock(to);
+        int found = Arrays.binarySearch(blocks[b], 0, sizes[b], to);
+        int i = found >= 0 ? found : -found - 2;
+        while (b >= 0 && count < limit) {
+            for (; i >= 0 && count < limit; i--) {
+                if (blocks[b][i] < from) {
+                    return count;
+                }
+                out[count++] = blocks[b][i];
+            }
+            b--;
+            i = b >= 0 ? sizes[b] - 1 : -1;
+        }
+        return count;
+    }
+
+    // EFFECTS: returns the first block whose last key is at least key, or the last block if there is none
+    private int findBlock(long key) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sizes[middle] == 0 || blocks[middle][sizes[middle] - 1] >= key) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the keys of the full block b from index at on into a new block after it
+    private void split(int b, int at) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            sizes = Arrays.copyOf(sizes, blockCount * 2);
+        }
+        System.arraycopy(blocks, b + 1, blocks, b + 2, blockCount - b - 1);
+        System.arraycopy(sizes, b + 1, sizes, b + 2, blockCount - b - 1);
+        blocks[b + 1] = new long[BLOCK_SIZE];
+        System.arraycopy(blocks[b], at, blocks[b + 1], 0, BLOCK_SIZE - at);
+        sizes[b + 1] = BLOCK_SIZE - at;
+        sizes[b] = at;
+        blockCount++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the empty block b
+    private void removeBlock(int b) {
+        System.arraycopy(blocks, b + 1, blocks, b, blockCount - b - 1);
+        System.arraycopy(sizes, b + 1, sizes, b, blockCount - b - 1);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+}
@@ -0,0 +1,447 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// A compressed set of article ids, laid out like a Roaring bitmap. Ids are grouped by their high 16 bits;
+// each group is stored as a sorted array of its low 16 bits while it is sparse, and as a 65536-bit bitmap
+// once it holds more than ARRAY_LIMIT ids. Set operations work group by group and produce new bitmaps,
+// leaving their operands unchanged.
+public class IdBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    // EFFECTS: constructs an empty bitmap
+    public IdBitmap() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds id to the set; returns true if it was not already present
+    public boolean add(int id) {
+        char high = (char) (id >>> 16);
+        int i = Arrays.binarySearch(keys, 0, size, high);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, high, new Container());
+        }
+        return containers[i].add((char) id);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes id from the set; returns true if it was present
+    public boolean remove(int id) {
+        int i = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        if (i < 0 || !containers[i].remove((char) id)) {
+            return false;
+        }
+        if (containers[i].cardinality == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        }
+        return true;
+    }
+
+    // EFFECTS: returns true if id is in the set
+    public boolean contains(int id) {
+        int i = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    // EFFECTS: returns the number of ids in the set
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    // EFFECTS: returns true if the set is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // EFFECTS: returns the ids that are in both this and other
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendIfNotEmpty(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // EFFECTS: returns the ids that are in this, other, or both
+    public IdBitmap or(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendIfNotEmpty(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.appendIfNotEmpty(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendIfNotEmpty(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // EFFECTS: returns the ids that are in this but not in other
+    public IdBitmap andNot(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.appendIfNotEmpty(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.appendIfNotEmpty(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    // EFFECTS: returns a copy of this bitmap
+    public IdBitmap copy() {
+        return or(new IdBitmap());
+    }
+
+    // EFFECTS: calls action with every id in the set, in increasing order of their unsigned value
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    // EFFECTS: returns the ids in the set, in the same order as forEach
+    public int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int[] next = new int[1];
+        forEach(id -> ids[next[0]++] = id);
+        return ids;
+    }
+
+    // REQUIRES: ids.length >= limit, and every id in the set is non-negative
+    // MODIFIES: ids
+    // EFFECTS: puts the first limit ids in the set that are greater than after into ids, in increasing order,
+    //          and returns how many there are; seeks to after instead of going through the ids before it
+    public int idsAfter(int after, int limit, int[] ids) {
+        if (after == Integer.MAX_VALUE) {
+            return 0;
+        }
+        int from = Math.max(0, after + 1);
+        char high = (char) (from >>> 16);
+        int i = Arrays.binarySearch(keys, 0, size, high);
+        i = i >= 0 ? i : -i - 1;
+        int count = 0;
+        for (; i < size && count < limit; i++) {
+            char low = keys[i] == high ? (char) from : 0;
+            count = containers[i].collect(keys[i] << 16, low, ids, count, limit);
+        }
+        return count;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: inserts container for high at position i
+    private void insertContainer(int i, char high, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = high;
+        containers[i] = container;
+        size++;
+    }
+
+    // REQUIRES: high is greater than every key in this bitmap
+    // MODIFIES: this
+    // EFFECTS: appends container unless it is empty
+    private void appendIfNotEmpty(char high, Container container) {
+        if (container.cardinality > 0) {
+            insertContainer(size, high, container);
+        }
+    }
+
+    // The low 16 bits of the ids that share the same high 16 bits. Exactly one of array and bits is used:
+    // a sorted array while there are at most ARRAY_LIMIT values, and a bitmap after that.
+    private static final class Container {
+        private char[] array = new char[4];
+        private long[] bits;
+        private int cardinality;
+
+        // MODIFIES: this
+        // EFFECTS: adds value; returns true if it was not already present
+        boolean add(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    return false;
+                }
+                bits[value >>> 6] |= mask;
+                cardinality++;
+                return true;
+            }
+            int i = Arrays.binarySearch(array, 0, cardinality, value);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmap();
+                return add(value);
+            }
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(array, i, array, i + 1, cardinality - i);
+            array[i] = value;
+            cardinality++;
+            return true;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: removes value; returns true if it was present
+        boolean remove(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) == 0) {
+                    return false;
+                }
+                bits[value >>> 6] &= ~mask;
+                cardinality--;
+                if (cardinality <= ARRAY_LIMIT) {
+                    toArray();
+                }
+                return true;
+            }
+            int i = Arrays.binarySearch(array, 0, cardinality, value);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(array, i + 1, array, i, cardinality - i - 1);
+            cardinality--;
+            return true;
+        }
+
+        // EFFECTS: returns true if value is present
+        boolean contains(char value) {
+            if (bits != null) {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, value) >= 0;
+        }
+
+        // EFFECTS: returns the values present in both this and other
+        Container and(Container other) {
+            if (bits != null && other.bits != null) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] = bits[w] & other.bits[w];
+                }
+                return fromBits(words);
+            }
+            Container small = bits == null ? this : other;
+            Container large = small == this ? other : this;
+            Container result = new Container();
+            result.array = new char[Math.max(1, small.cardinality)];
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.array[i])) {
+                    result.array[result.cardinality++] = small.array[i];
+                }
+            }
+            return result;
+        }
+
+        // EFFECTS: returns the values present in this, other, or both
+        Container or(Container other) {
+            if (bits == null && other.bits == null && cardinality + other.cardinality <= ARRAY_LIMIT) {
+                Container result = new Container();
+                result.array = new char[Math.max(1, cardinality + other.cardinality)];
+                int i = 0;
+                int j = 0;
+                while (i < cardinality || j < other.cardinality) {
+                    char next;
+                    if (j == other.cardinality || (i < cardinality && array[i] < other.array[j])) {
+                        next = array[i++];
+                    } else if (i == cardinality || array[i] > other.array[j]) {
+                        next = other.array[j++];
+                    } else {
+                        next = array[i++];
+                        j++;
+                    }
+                    result.array[result.cardinality++] = next;
+                }
+                return result;
+            }
+            long[] words = bitsCopy();
+            if (other.bits != null) {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] |= other.bits[w];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    words[other.array[i] >>> 6] |= 1L << other.array[i];
+                }
+            }
+            return fromBits(words);
+        }
+
+        // EFFECTS: returns the values present in this but not in other
+        Container andNot(Container other) {
+            if (bits != null) {
+                long[] words = bitsCopy();
+                if (other.bits != null) {
+                    for (int w = 0; w < BITMAP_WORDS; w++) {
+                        words[w] &= ~other.bits[w];
+                    }
+                } else {
+                    for (int i = 0; i < other.cardinality; i++) {
+                        words[other.array[i] >>> 6] &= ~(1L << other.array[i]);
+                    }
+                }
+                return fromBits(words);
+            }
+            Container result = new Container();
+            result.array = new char[Math.max(1, cardinality)];
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(array[i])) {
+                    result.array[result.cardinality++] = array[i];
+                }
+            }
+            return result;
+        }
+
+        // EFFECTS: returns a copy of this container
+        Container copy() {
+            Container result = new Container();
+            result.cardinality = cardinality;
+            if (bits != null) {
+                result.bits = bits.clone();
+                result.array = null;
+            } else {
+                result.array = Arrays.copyOf(array, Math.max(1, cardinality));
+            }
+            return result;
+        }
+
+        // EFFECTS: calls action with base + value for every value, in increasing order
+        void forEach(int base, IntConsumer action) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(base | array[i]);
+                }
+                return;
+            }
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        // REQUIRES: ids.length >= limit
+        // MODIFIES: ids
+        // EFFECTS: puts base + value for the values from low on into ids, in increasing order and starting at
+        //          position count, until ids holds limit of them; returns the number of ids it holds
+        int collect(int base, char low, int[] ids, int count, int limit) {
+            if (bits == null) {
+                int i = Arrays.binarySearch(array, 0, cardinality, low);
+                for (i = i >= 0 ? i : -i - 1; i < cardinality && count < limit; i++) {
+                    ids[count++] = base | array[i];
+                }
+                return count;
+            }
+            int w = low >>> 6;
+            // A shift by low only shifts by its lowest six bits, its position within the word
+            long word = bits[w] & (-1L << low);
+            while (count < limit) {
+                if (word != 0) {
+                    ids[count++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                } else if (++w < BITMAP_WORDS) {
+                    word = bits[w];
+                } else {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        // EFFECTS: returns the values of this container as a bitmap, copying it if it is already one
+        private long[] bitsCopy() {
+            if (bits != null) {
+                return bits.clone();
+            }
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[array[i] >>> 6] |= 1L << array[i];
+            }
+            return words;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: switches to the bitmap representation
+        private void toBitmap() {
+            bits = bitsCopy();
+            array = null;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: switches to the sorted array representation
+        private void toArray() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            array = values;
+            bits = null;
+        }
+
+        // EFFECTS: returns a container holding the values set in words, in whichever form suits its size
+        private static Container fromBits(long[] words) {
+            Container result = new Container();
+            result.bits = words;
+            result.array = null;
+            for (long word : words) {
+                result.cardinality += Long.bitCount(word);
+            }
+            if (result.cardinality <= ARRAY_LIMIT) {
+                result.toArray();
+            }
+            return result;
+        }
+    }
+}
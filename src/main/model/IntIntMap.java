@@ -0,0 +1,164 @@
+package model;
+
+// Maps int keys to non-negative int values with an open-addressing hash table over primitive int[]s, so that
+// lookups, insertions and removals take constant time without boxing. Collisions are resolved with linear
+// probing, and removal shifts later entries of the probe sequence back instead of leaving tombstones. Key 0
+// marks an empty slot in the table, so its value is kept in a field of its own.
+//
+// Used for the id index of a blog (see ArticleIdIndex) and for finding the row of an article in the GUI's list.
+public final class IntIntMap {
+    public static final int NONE = -1;
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int zeroValue = NONE;
+
+    // EFFECTS: constructs an empty map
+    public IntIntMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    // EFFECTS: returns the value of key, or NONE if key is not in the map
+    public int get(int key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int slot = find(key);
+        return slot < 0 ? NONE : values[slot];
+    }
+
+    // REQUIRES: value >= 0
+    // MODIFIES: this
+    // EFFECTS: maps key to value, returning the value it replaced or NONE
+    public int put(int key, int value) {
+        if (key == EMPTY) {
+            int previous = zeroValue;
+            zeroValue = value;
+            size += previous == NONE ? 1 : 0;
+            return previous;
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        slot = probeForInsert(key);
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return NONE;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes key and returns its value, or returns NONE if key is not in the map
+    public int remove(int key) {
+        if (key == EMPTY) {
+            int removed = zeroValue;
+            zeroValue = NONE;
+            size -= removed == NONE ? 0 : 1;
+            return removed;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return NONE;
+        }
+        int removed = values[slot];
+        shiftBack(slot);
+        size--;
+        return removed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every key from the map
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        zeroValue = NONE;
+    }
+
+    // EFFECTS: returns the number of keys in the map
+    public int size() {
+        return size;
+    }
+
+    // REQUIRES: key != EMPTY
+    // EFFECTS: returns the slot holding key, or a negative number if key is not in the map
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the first empty slot in the probe sequence of key
+    private int probeForInsert(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: empties slot, moving back any later entry whose probe sequence passes through it
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            // Move the entry into the gap unless its home slot lies cyclically in (gap, next]
+            boolean homeBetween = gap <= next ? (gap < home && home <= next) : (gap < home || home <= next);
+            if (!homeBetween) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves every entry into a table of the given capacity
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        int oldSize = size;
+        allocate(capacity);
+        size = oldSize;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = probeForInsert(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // REQUIRES: capacity is a power of two
+    // MODIFIES: this
+    // EFFECTS: replaces the table with an empty one of the given capacity
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    // EFFECTS: scrambles the bits of key so that sequential keys spread over the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,49 @@
+package model;
+
+import java.time.LocalDate;
+
+// An earlier revision of an article: its title, author and content as they were until the edit that
+// replaced them, and the date they were last edited. Revisions are numbered from 0, the article as it was
+// created, in the order they were replaced.
+public final class Revision {
+    private final int number;
+    private final String title;
+    private final String author;
+    private final String content;
+    private final LocalDate dateEdited;
+
+    // EFFECTS: constructs revision number of an article
+    Revision(int number, String title, String author, String content, LocalDate dateEdited) {
+        this.number = number;
+        this.title = title;
+        this.author = author;
+        this.content = content;
+        this.dateEdited = dateEdited;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDate getDateEdited() {
+        return dateEdited;
+    }
+
+    // EFFECTS: returns a string representation of the revision
+    @Override
+    public String toString() {
+        return String.format("%d (%s): %s by %s", number, dateEdited, title, author);
+    }
+}
@@ -0,0 +1,187 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// The earlier revisions of an article, oldest first. Each revision is stored as a TextDelta per field that
+// turns the text of the revision after it (or of the article itself, for the newest) back into its own text,
+// so recording an edit costs about the size of the edit rather than a copy of the article. Deltas only point
+// at newer text, which never changes, so recording a revision never rewrites the ones before it.
+//
+// Every KEYFRAME_INTERVAL-th revision is stored as whole text instead (deltas that replace everything). A
+// revision is rebuilt by starting from the nearest keyframe after it, or from the article, and applying at
+// most KEYFRAME_INTERVAL deltas, so viewing any revision takes bounded time however long the history grows.
+//
+// Revisions are only ever added, and each is published to other threads by the size that counts it, so a
+// snapshot of an article (see ArticleSnapshot) can keep reading the first size() revisions, with the text
+// the article had then, while the article goes on being edited. Adding revisions still takes one thread.
+public class RevisionHistory {
+    public static final int KEYFRAME_INTERVAL = 32;
+
+    private volatile Entry[] entries = new Entry[4];
+    private volatile int size;
+
+    // EFFECTS: returns the number of revisions
+    public int size() {
+        return size;
+    }
+
+    // EFFECTS: returns the number of characters of text the deltas hold
+    public long storedLength() {
+        return storedLength(size);
+    }
+
+    // REQUIRES: 0 <= count <= size()
+    // EFFECTS: returns the number of characters of text the deltas of the first count revisions hold
+    public long storedLength(int count) {
+        return count == 0 ? 0 : entries[count - 1].storedLength;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the text of an article that is being replaced by newer text as its next revision
+    public void record(LocalDate dateEdited, String title, String author, String content,
+                       String newerTitle, String newerAuthor, String newerContent) {
+        if (isKeyframe(size)) {
+            add(dateEdited, TextDelta.replacing(title), TextDelta.replacing(author), TextDelta.replacing(content));
+        } else {
+            add(dateEdited, TextDelta.between(newerTitle, title), TextDelta.between(newerAuthor, author),
+                    TextDelta.between(newerContent, content));
+        }
+    }
+
+    // EFFECTS: returns true if revision number is stored as whole text rather than as deltas
+    public static boolean isKeyframe(int number) {
+        return number % KEYFRAME_INTERVAL == KEYFRAME_INTERVAL - 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a revision, stored as deltas from the text after it, as the newest; to be used when
+    //          reading a saved history
+    public void add(LocalDate dateEdited, TextDelta title, TextDelta author, TextDelta content) {
+        Entry[] current = entries;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+            entries = current;
+        }
+        long stored = storedLength(size) + title.getInserted().length() + author.getInserted().length()
+                + content.getInserted().length();
+        current[size] = new Entry(dateEdited, title, author, content, stored);
+        size++;
+    }
+
+    // REQUIRES: 0 <= number < size(), and title, author and content are the current text of the article
+    // EFFECTS: returns revision number of the article
+    public Revision get(int number, String title, String author, String content) {
+        return get(number, size, title, author, content);
+    }
+
+    // REQUIRES: 0 <= number < count <= size(), and title, author and content are the text of the article
+    //           when it had count revisions
+    // EFFECTS: returns revision number of the article, ignoring any revisions after the first count
+    public Revision get(int number, int count, String title, String author, String content) {
+        Entry[] entries = this.entries;
+        int start = number;
+        while (start < count && !entries[start].isKeyframe()) {
+            start++;
+        }
+        StringBuilder[] text = start < count ? entries[start].replacements() : texts(title, author, content);
+        for (int i = Math.min(start, count) - 1; i >= number; i--) {
+            entries[i].applyTo(text);
+        }
+        return entries[number].revision(number, text);
+    }
+
+    // REQUIRES: title, author and content are the current text of the article
+    // EFFECTS: returns every revision of the article, oldest first
+    public List<Revision> list(String title, String author, String content) {
+        return list(size, title, author, content);
+    }
+
+    // REQUIRES: count <= size(), and title, author and content are the text of the article when it had count
+    //           revisions
+    // EFFECTS: returns the first count revisions of the article, oldest first
+    public List<Revision> list(int count, String title, String author, String content) {
+        Entry[] entries = this.entries;
+        ArrayList<Revision> revisions = new ArrayList<>(count);
+        StringBuilder[] text = texts(title, author, content);
+        for (int i = count - 1; i >= 0; i--) {
+            entries[i].applyTo(text);
+            revisions.add(entries[i].revision(i, text));
+        }
+        Collections.reverse(revisions);
+        return revisions;
+    }
+
+    // REQUIRES: 0 <= number < size()
+    // EFFECTS: returns the date revision number was last edited
+    public LocalDate getDateEdited(int number) {
+        return entries[number].dateEdited;
+    }
+
+    // REQUIRES: 0 <= number < size()
+    // EFFECTS: returns the delta from the title after revision number to its title
+    public TextDelta getTitle(int number) {
+        return entries[number].title;
+    }
+
+    // REQUIRES: 0 <= number < size()
+    // EFFECTS: returns the delta from the author after revision number to its author
+    public TextDelta getAuthor(int number) {
+        return entries[number].author;
+    }
+
+    // REQUIRES: 0 <= number < size()
+    // EFFECTS: returns the delta from the content after revision number to its content
+    public TextDelta getContent(int number) {
+        return entries[number].content;
+    }
+
+    // EFFECTS: returns the given text as builders that deltas can be applied to
+    private static StringBuilder[] texts(String title, String author, String content) {
+        return new StringBuilder[] {new StringBuilder(title), new StringBuilder(author), new StringBuilder(content)};
+    }
+
+    // One revision, as deltas from the text of the revision after it, with the number of characters the deltas
+    // of it and every revision before it hold
+    private static final class Entry {
+        private final LocalDate dateEdited;
+        private final TextDelta title;
+        private final TextDelta author;
+        private final TextDelta content;
+        private final long storedLength;
+
+        Entry(LocalDate dateEdited, TextDelta title, TextDelta author, TextDelta content, long storedLength) {
+            this.dateEdited = dateEdited;
+            this.title = title;
+            this.author = author;
+            this.content = content;
+            this.storedLength = storedLength;
+        }
+
+        // EFFECTS: returns true if the text of this revision is stored whole
+        boolean isKeyframe() {
+            return title.isReplacement() && author.isReplacement() && content.isReplacement();
+        }
+
+        // EFFECTS: returns the text of this revision, which must be a keyframe, as builders
+        StringBuilder[] replacements() {
+            return texts(title.getInserted(), author.getInserted(), content.getInserted());
+        }
+
+        // MODIFIES: text
+        // EFFECTS: turns the text of the revision after this one into the text of this one
+        void applyTo(StringBuilder[] text) {
+            title.applyTo(text[0]);
+            author.applyTo(text[1]);
+            content.applyTo(text[2]);
+        }
+
+        // EFFECTS: returns this revision, numbered number, with the given text
+        Revision revision(int number, StringBuilder[] text) {
+            return new Revision(number, text[0].toString(), text[1].toString(), text[2].toString(), dateEdited);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package model;
 
 import org.json.JSONObject;
+import persistence.BinaryOutput;
+import persistence.BinaryWritable;
 import persistence.Writable;
 
 import java.awt.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 // Represents a tag on an article having a name and a color
-public class Tag implements Writable {
+// Tags that belong to a blog are interned by its TagIndex: there is one instance per name, carrying the id
+// that the index uses for it. A tag that has not been interned has an id of UNINTERNED.
+public class Tag implements Writable, BinaryWritable {
+    public static final int UNINTERNED = -1;
 
     private String name;
+    private final int id;
 
     // REQUIRES: name is a nonempty string
     // EFFECTS: creates a tag with the given name
     public Tag(String name) {
+        this(UNINTERNED, name);
+    }
+
+    // REQUIRES: name is a nonempty string
+    // EFFECTS: creates an interned tag with the given id and name
+    Tag(int id, String name) {
+        this.id = id;
         this.name = name;
     }
 
@@ -26,8 +40,18 @@ public class Tag implements Writable {
         return tag;
     }
 
+    // EFFECTS: writes this to a binary snapshot
+    @Override
+    public void writeBinary(BinaryOutput out) throws IOException {
+        out.writeStringRef(name);
+    }
+
     public String getName() {
         return name;
     }
 
+    public int getId() {
+        return id;
+    }
+
 }
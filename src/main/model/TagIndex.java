@@ -0,0 +1,91 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+// The blog-wide tag dictionary and inverted index. Every tag name is interned to a single Tag instance
+// with a small integer id, and each tag id maps to a compressed bitmap of the ids of the articles that
+// carry it. The blog keeps the index up to date as tags are added to and removed from its articles.
+public class TagIndex {
+    private final HashMap<String, Tag> tagsByName;
+    private final ArrayList<Tag> tags;
+    private final ArrayList<IdBitmap> postings;
+
+    // EFFECTS: constructs an empty index
+    public TagIndex() {
+        tagsByName = new HashMap<>();
+        tags = new ArrayList<>();
+        postings = new ArrayList<>();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the interned tag with the given name, creating it if it does not exist yet
+    public Tag intern(String name) {
+        Tag tag = tagsByName.get(name);
+        if (tag == null) {
+            tag = new Tag(tags.size(), name);
+            tagsByName.put(name, tag);
+            tags.add(tag);
+            postings.add(new IdBitmap());
+        }
+        return tag;
+    }
+
+    // EFFECTS: returns the interned tag with the given name, or null if no tag has that name
+    public Tag getTag(String name) {
+        return tagsByName.get(name);
+    }
+
+    // REQUIRES: tag was interned by this index
+    // MODIFIES: this
+    // EFFECTS: records that the article with the given id carries tag; returns false if it already did
+    public boolean add(Tag tag, int articleId) {
+        return postings.get(tag.getId()).add(articleId);
+    }
+
+    // REQUIRES: tag was interned by this index
+    // MODIFIES: this
+    // EFFECTS: records that the article with the given id no longer carries tag
+    public boolean remove(Tag tag, int articleId) {
+        return postings.get(tag.getId()).remove(articleId);
+    }
+
+    // EFFECTS: returns true if the article with the given id carries the tag with the given name
+    public boolean contains(String name, int articleId) {
+        Tag tag = tagsByName.get(name);
+        return tag != null && postings.get(tag.getId()).contains(articleId);
+    }
+
+    // EFFECTS: returns the ids of the articles that carry the tag with the given name
+    public IdBitmap articlesWith(String name) {
+        Tag tag = tagsByName.get(name);
+        return tag == null ? new IdBitmap() : postings.get(tag.getId()).copy();
+    }
+
+    // EFFECTS: returns the number of articles that carry the tag with the given name
+    public int countArticlesWith(String name) {
+        Tag tag = tagsByName.get(name);
+        return tag == null ? 0 : postings.get(tag.getId()).cardinality();
+    }
+
+    // EFFECTS: returns every interned tag, in the order they were first seen
+    public List<Tag> getTags() {
+        return Collections.unmodifiableList(tags);
+    }
+
+    // EFFECTS: returns the bitmap for tag without copying it; it must not be modified by the caller
+    IdBitmap postingsFor(String name) {
+        Tag tag = tagsByName.get(name);
+        return tag == null ? null : postings.get(tag.getId());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forgets which articles carry which tags, keeping the interned tags themselves
+    public void clearPostings() {
+        for (int i = 0; i < postings.size(); i++) {
+            postings.set(i, new IdBitmap());
+        }
+    }
+}
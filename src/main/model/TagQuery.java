@@ -0,0 +1,62 @@
+package model;
+
+// A boolean query over article tags, built from tag names with and, or and not, e.g.
+//     TagQuery.and(TagQuery.tag("Travel"), TagQuery.not(TagQuery.tag("Draft")))
+// A query is evaluated against a blog's TagIndex with bitmap operations, never by scanning articles.
+public abstract class TagQuery {
+
+    // EFFECTS: returns a query matching the articles that carry the tag with the given name
+    public static TagQuery tag(String name) {
+        return new TagQuery() {
+            @Override
+            IdBitmap evaluate(TagIndex index, IdBitmap all) {
+                IdBitmap postings = index.postingsFor(name);
+                return postings == null ? new IdBitmap() : postings;
+            }
+        };
+    }
+
+    // REQUIRES: queries is nonempty
+    // EFFECTS: returns a query matching the articles that match every one of queries
+    public static TagQuery and(TagQuery... queries) {
+        return new TagQuery() {
+            @Override
+            IdBitmap evaluate(TagIndex index, IdBitmap all) {
+                IdBitmap result = queries[0].evaluate(index, all);
+                for (int i = 1; i < queries.length && !result.isEmpty(); i++) {
+                    result = result.and(queries[i].evaluate(index, all));
+                }
+                return result;
+            }
+        };
+    }
+
+    // REQUIRES: queries is nonempty
+    // EFFECTS: returns a query matching the articles that match at least one of queries
+    public static TagQuery or(TagQuery... queries) {
+        return new TagQuery() {
+            @Override
+            IdBitmap evaluate(TagIndex index, IdBitmap all) {
+                IdBitmap result = queries[0].evaluate(index, all);
+                for (int i = 1; i < queries.length; i++) {
+                    result = result.or(queries[i].evaluate(index, all));
+                }
+                return result;
+            }
+        };
+    }
+
+    // EFFECTS: returns a query matching the articles that do not match query
+    public static TagQuery not(TagQuery query) {
+        return new TagQuery() {
+            @Override
+            IdBitmap evaluate(TagIndex index, IdBitmap all) {
+                return all.andNot(query.evaluate(index, all));
+            }
+        };
+    }
+
+    // EFFECTS: returns the ids of the articles matching this query; all holds the ids of every article.
+    //          The result may share structure with the index and must not be modified.
+    abstract IdBitmap evaluate(TagIndex index, IdBitmap all);
+}
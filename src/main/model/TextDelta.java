@@ -0,0 +1,80 @@
+package model;
+
+// A change from one string to another, stored as the number of characters at the start and at the end that
+// the two have in common and the text that replaces everything in between. A small edit to a long article
+// is stored as two numbers and the few characters that were typed. A delta with nothing in common replaces
+// the whole string, so it can be applied to any string and stands on its own.
+public final class TextDelta {
+    private final int prefix;
+    private final int suffix;
+    private final String inserted;
+
+    // REQUIRES: prefix >= 0 and suffix >= 0
+    // EFFECTS: constructs a delta that keeps the first prefix and last suffix characters of a string and
+    //          replaces what is between them with inserted
+    public TextDelta(int prefix, int suffix, String inserted) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.inserted = inserted;
+    }
+
+    // EFFECTS: returns the smallest delta of this form that turns from into to. The shared prefix and
+    //          suffix never split a surrogate pair, so inserted is always valid text that can be encoded.
+    public static TextDelta between(String from, String to) {
+        int limit = Math.min(from.length(), to.length());
+        int prefix = 0;
+        while (prefix < limit && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(to.charAt(prefix - 1))) {
+            prefix--;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(to.charAt(to.length() - suffix))) {
+            suffix--;
+        }
+        return new TextDelta(prefix, suffix, to.substring(prefix, to.length() - suffix));
+    }
+
+    // EFFECTS: returns a delta that replaces any string with text
+    public static TextDelta replacing(String text) {
+        return new TextDelta(0, 0, text);
+    }
+
+    // REQUIRES: getPrefix() + getSuffix() <= text.length()
+    // EFFECTS: returns the string this delta turns text into
+    public String applyTo(String text) {
+        if (isReplacement()) {
+            return inserted;
+        }
+        return text.substring(0, prefix) + inserted + text.substring(text.length() - suffix);
+    }
+
+    // REQUIRES: getPrefix() + getSuffix() <= text.length()
+    // MODIFIES: text
+    // EFFECTS: turns text into the string this delta describes, in place
+    void applyTo(StringBuilder text) {
+        text.replace(prefix, text.length() - suffix, inserted);
+    }
+
+    // EFFECTS: returns true if this delta keeps nothing of the string it is applied to
+    public boolean isReplacement() {
+        return prefix == 0 && suffix == 0;
+    }
+
+    public int getPrefix() {
+        return prefix;
+    }
+
+    public int getSuffix() {
+        return suffix;
+    }
+
+    public String getInserted() {
+        return inserted;
+    }
+}
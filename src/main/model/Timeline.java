@@ -0,0 +1,14 @@
+package model;
+
+import java.time.LocalDate;
+
+// The dates a blog keeps its articles sorted by
+public enum Timeline {
+    CREATED,
+    EDITED;
+
+    // EFFECTS: returns the date of article on this timeline
+    public LocalDate dateOf(Article article) {
+        return this == CREATED ? article.getDateCreated() : article.getDateEdited();
+    }
+}
@@ -0,0 +1,93 @@
+package model;
+
+import java.time.LocalDate;
+
+// A page-by-page listing of a blog's articles in the order of one of its timelines, e.g.
+//     TimelineQuery.edited().newestFirst()
+//     TimelineQuery.created().between(LocalDate.of(2021, 3, 1), LocalDate.of(2021, 3, 31))
+// Articles on the same date are ordered by id. A query is immutable; the ArticlePage returned for it holds
+// the query for the next page, which resumes after the last article of the page rather than at an offset,
+// so pages neither skip nor repeat articles when articles before the cursor are added or removed.
+public final class TimelineQuery {
+    private final Timeline timeline;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final boolean newestFirst;
+    private final long after;
+    private final boolean started;
+
+    // EFFECTS: constructs a query with the given fields
+    private TimelineQuery(Timeline timeline, LocalDate from, LocalDate to, boolean newestFirst, long after,
+                          boolean started) {
+        this.timeline = timeline;
+        this.from = from;
+        this.to = to;
+        this.newestFirst = newestFirst;
+        this.after = after;
+        this.started = started;
+    }
+
+    // EFFECTS: returns a query listing every article, oldest created first
+    public static TimelineQuery created() {
+        return new TimelineQuery(Timeline.CREATED, null, null, false, 0, false);
+    }
+
+    // EFFECTS: returns a query listing every article, least recently edited first
+    public static TimelineQuery edited() {
+        return new TimelineQuery(Timeline.EDITED, null, null, false, 0, false);
+    }
+
+    // EFFECTS: returns this query restricted to articles dated from from to to, inclusive; a null bound
+    //          leaves that end of the range open
+    public TimelineQuery between(LocalDate from, LocalDate to) {
+        return new TimelineQuery(timeline, from, to, newestFirst, after, started);
+    }
+
+    // EFFECTS: returns this query listing the most recent articles first
+    public TimelineQuery newestFirst() {
+        return new TimelineQuery(timeline, from, to, true, after, started);
+    }
+
+    // EFFECTS: returns this query resuming after the article with the given key
+    TimelineQuery after(long key) {
+        return new TimelineQuery(timeline, from, to, newestFirst, key, true);
+    }
+
+    // EFFECTS: returns this query resuming after cursor, which getCursor() returned for the query of a next
+    //          page; lets a listing be continued in a later request, e.g. by a client of a server
+    public TimelineQuery resume(long cursor) {
+        return after(cursor);
+    }
+
+    // EFFECTS: returns this query starting at article, which is listed first, so that the page holding an article
+    //          can be shown without listing every page before it
+    public TimelineQuery startingAt(Article article) {
+        long key = DateIndex.key(timeline.dateOf(article), article.getId());
+        return after(newestFirst ? key + 1 : key - 1);
+    }
+
+    // EFFECTS: returns the position this query resumes after, for resume() to turn back into the query
+    public long getCursor() {
+        return after;
+    }
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    public boolean isNewestFirst() {
+        return newestFirst;
+    }
+
+    // EFFECTS: returns the smallest key of the page in a DateIndex
+    long lowestKey() {
+        long lowest = from == null ? DateIndex.FIRST : DateIndex.firstKeyOn(from);
+        return started && !newestFirst ? Math.max(lowest, after + 1) : lowest;
+    }
+
+    // EFFECTS: returns the largest key of the page in a DateIndex
+    long highestKey() {
+        long highest = to == null ? DateIndex.LAST : DateIndex.lastKeyOn(to);
+        return started && newestFirst ? Math.min(highest, after - 1) : highest;
+    }
+}
@@ -0,0 +1,73 @@
+package monitoring;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+// The stats of the operations that load, save, look up, edit, tag and render articles. The stats are collected
+// from the moment the class is first used, and an MBean serving them is registered with the platform
+// MBean server at the same time, so they can be read with standard JVM tooling without any setup.
+public final class BlogMetrics implements BlogMetricsMXBean {
+    public static final String OBJECT_NAME = "personalblog:type=BlogMetrics";
+    private static final int LOOKUP_SAMPLE_RATE = 64;
+
+    public static final OperationStats LOAD = new OperationStats("load", 1);
+    public static final OperationStats SAVE = new OperationStats("save", 1);
+    public static final OperationStats LOOKUP = new OperationStats("lookup", LOOKUP_SAMPLE_RATE);
+    public static final OperationStats EDIT = new OperationStats("edit", 1);
+    public static final OperationStats TAG = new OperationStats("tag", 1);
+    public static final OperationStats RENDER = new OperationStats("render", 1);
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new BlogMetrics(),
+                    new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            // The stats are still collected, they just cannot be read over JMX
+        }
+    }
+
+    // EFFECTS: constructs the MBean; there is only ever the one that is registered
+    private BlogMetrics() {
+    }
+
+    @Override
+    public OperationSnapshot getLoad() {
+        return LOAD.snapshot();
+    }
+
+    @Override
+    public OperationSnapshot getSave() {
+        return SAVE.snapshot();
+    }
+
+    @Override
+    public OperationSnapshot getLookup() {
+        return LOOKUP.snapshot();
+    }
+
+    @Override
+    public OperationSnapshot getEdit() {
+        return EDIT.snapshot();
+    }
+
+    @Override
+    public OperationSnapshot getTag() {
+        return TAG.snapshot();
+    }
+
+    @Override
+    public OperationSnapshot getRender() {
+        return RENDER.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        LOAD.reset();
+        SAVE.reset();
+        LOOKUP.reset();
+        EDIT.reset();
+        TAG.reset();
+        RENDER.reset();
+    }
+}
@@ -0,0 +1,28 @@
+package monitoring;
+
+// The management interface of BlogMetrics: the stats of each instrumented operation, as seen in JConsole,
+// VisualVM or any other JMX client under the name BlogMetrics.OBJECT_NAME
+public interface BlogMetricsMXBean {
+
+    // EFFECTS: returns the stats of reading a blog from file
+    OperationSnapshot getLoad();
+
+    // EFFECTS: returns the stats of writing a blog to file
+    OperationSnapshot getSave();
+
+    // EFFECTS: returns the stats of looking up articles by id
+    OperationSnapshot getLookup();
+
+    // EFFECTS: returns the stats of editing articles
+    OperationSnapshot getEdit();
+
+    // EFFECTS: returns the stats of adding and deleting tags
+    OperationSnapshot getTag();
+
+    // EFFECTS: returns the stats of rendering article content that was not already cached
+    OperationSnapshot getRender();
+
+    // MODIFIES: this
+    // EFFECTS: clears the stats of every operation
+    void reset();
+}
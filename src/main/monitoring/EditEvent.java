@@ -0,0 +1,21 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A Flight Recorder event for editing an article
+@Name("personalblog.Edit")
+@Label("Article Edit")
+@Category({"Personal Blog", "Model"})
+@Description("Changing the title, author and content of an article")
+public class EditEvent extends jdk.jfr.Event {
+    @Label("Article Id")
+    public int id;
+
+    @Label("Content Length")
+    @DataAmount
+    public long contentLength;
+}
@@ -0,0 +1,24 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A Flight Recorder event for reading a blog from file
+@Name("personalblog.Load")
+@Label("Blog Load")
+@Category({"Personal Blog", "Persistence"})
+@Description("Reading a blog from a JSON file or binary snapshot")
+public class LoadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Articles")
+    public int articles;
+}
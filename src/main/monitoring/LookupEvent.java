@@ -0,0 +1,25 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A Flight Recorder event for looking up an article by id. Lookups happen millions of times a second, so
+// only the lookups that BlogMetrics samples for timing are recorded, the event is off unless a recording
+// turns it on, and it is recorded without a stack trace.
+@Name("personalblog.Lookup")
+@Label("Article Lookup")
+@Category({"Personal Blog", "Model"})
+@Description("Looking up an article of a blog by its id")
+@Enabled(false)
+@StackTrace(false)
+public class LookupEvent extends jdk.jfr.Event {
+    @Label("Article Id")
+    public int id;
+
+    @Label("Found")
+    public boolean found;
+}
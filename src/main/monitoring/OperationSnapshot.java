@@ -0,0 +1,86 @@
+package monitoring;
+
+// The stats of one kind of operation at one moment, as served by the BlogMetrics MBean. Latencies are in
+// microseconds; percentiles are read from the histogram, whose bucket i counts the timed operations that
+// took at least 2^i and less than 2^(i+1) nanoseconds, and are reported as the upper bound of their bucket
+// or as the longest latency if that is less.
+public class OperationSnapshot {
+    private final long count;
+    private final long timedCount;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long bytes;
+    private final long articles;
+    private final long[] histogram;
+
+    // EFFECTS: constructs a snapshot of the given figures
+    OperationSnapshot(long count, long timedCount, long totalNanos, long maxNanos, long bytes, long articles,
+                      long[] histogram) {
+        this.count = count;
+        this.timedCount = timedCount;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.bytes = bytes;
+        this.articles = articles;
+        this.histogram = histogram;
+    }
+
+    // EFFECTS: returns the number of operations
+    public long getCount() {
+        return count;
+    }
+
+    // EFFECTS: returns the number of operations that were timed
+    public long getTimedCount() {
+        return timedCount;
+    }
+
+    // EFFECTS: returns the mean latency of the timed operations
+    public double getMeanMicros() {
+        return timedCount == 0 ? 0 : totalNanos / 1e3 / timedCount;
+    }
+
+    // EFFECTS: returns the median latency
+    public double getP50Micros() {
+        return percentile(50);
+    }
+
+    // EFFECTS: returns the 99th percentile latency
+    public double getP99Micros() {
+        return percentile(99);
+    }
+
+    // EFFECTS: returns the longest latency
+    public double getMaxMicros() {
+        return maxNanos / 1e3;
+    }
+
+    // EFFECTS: returns the number of bytes read or written by the timed operations
+    public long getBytes() {
+        return bytes;
+    }
+
+    // EFFECTS: returns the number of articles read or written by the timed operations
+    public long getArticles() {
+        return articles;
+    }
+
+    // EFFECTS: returns the number of timed operations in each bucket of the latency histogram
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    // REQUIRES: 0 < percent <= 100
+    // EFFECTS: returns the latency that percent percent of the timed operations took at most
+    private double percentile(double percent) {
+        long rank = (long) Math.ceil(percent / 100 * timedCount);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(maxNanos, 2L << i) / 1e3;
+            }
+        }
+        return 0;
+    }
+}
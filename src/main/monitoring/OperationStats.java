@@ -0,0 +1,104 @@
+package monitoring;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and a latency histogram for one kind of operation, safe to update from any number of threads
+// at once. Latencies go into buckets by powers of two: bucket i counts latencies of at least 2^i and less
+// than 2^(i+1) nanoseconds, so percentiles read from the histogram are accurate to within a factor of two.
+//
+// Operations that take only nanoseconds, such as looking up an article, would be slowed down noticeably by
+// reading the clock every time; they are counted every time but timed only one time in sampleRate.
+public class OperationStats {
+    static final int BUCKETS = 62;
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final String name;
+    private final int sampleRate;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder timedCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder articles = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    // REQUIRES: sampleRate >= 1
+    // EFFECTS: constructs empty stats for the operation called name, timing one operation in sampleRate
+    public OperationStats(String name, int sampleRate) {
+        this.name = name;
+        this.sampleRate = sampleRate;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    // EFFECTS: returns the name of the operation
+    public String getName() {
+        return name;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts an operation; returns the time it started to pass to end(), or NOT_TIMED if it is
+    //          counted without being timed
+    public long start() {
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            return System.nanoTime();
+        }
+        count.increment();
+        return NOT_TIMED;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: ends the operation that start() returned started for, recording the bytes and articles it
+    //          read or wrote
+    public void end(long started, long bytes, long articles) {
+        if (started != NOT_TIMED) {
+            record(System.nanoTime() - started, bytes, articles);
+        }
+    }
+
+    // REQUIRES: nanos >= 0
+    // MODIFIES: this
+    // EFFECTS: records an operation that took nanos and read or wrote the given bytes and articles
+    public void record(long nanos, long bytes, long articles) {
+        count.increment();
+        timedCount.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        this.bytes.add(bytes);
+        this.articles.add(articles);
+        buckets[bucket(nanos)].increment();
+    }
+
+    // EFFECTS: returns the bucket of the histogram that a latency of nanos goes into
+    static int bucket(long nanos) {
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+    }
+
+    // EFFECTS: returns the stats recorded so far; operations that end while the snapshot is taken may be
+    //          counted in some of its figures and not others
+    public OperationSnapshot snapshot() {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = buckets[i].sum();
+        }
+        return new OperationSnapshot(count.sum(), timedCount.sum(), totalNanos.sum(), maxNanos.get(),
+                bytes.sum(), articles.sum(), histogram);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: clears the stats
+    public void reset() {
+        count.reset();
+        timedCount.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        bytes.reset();
+        articles.reset();
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+    }
+}
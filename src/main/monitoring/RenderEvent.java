@@ -0,0 +1,22 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A Flight Recorder event for rendering the Markdown content of an article that was not in the render cache
+@Name("personalblog.Render")
+@Label("Markdown Render")
+@Category({"Personal Blog", "Rendering"})
+@Description("Rendering Markdown content to HTML on a render cache miss")
+public class RenderEvent extends jdk.jfr.Event {
+    @Label("Markdown Length")
+    @DataAmount
+    public long markdownLength;
+
+    @Label("HTML Length")
+    @DataAmount
+    public long htmlLength;
+}
@@ -0,0 +1,24 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A Flight Recorder event for writing a blog to file
+@Name("personalblog.Save")
+@Label("Blog Save")
+@Category({"Personal Blog", "Persistence"})
+@Description("Writing a blog to a JSON file")
+public class SaveEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Articles")
+    public int articles;
+}
@@ -0,0 +1,27 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A Flight Recorder event for adding a tag to or deleting a tag from an article
+@Name("personalblog.Tag")
+@Label("Article Tag")
+@Category({"Personal Blog", "Model"})
+@Description("Adding a tag to or deleting a tag from an article")
+public class TagEvent extends jdk.jfr.Event {
+    @Label("Article Id")
+    public int id;
+
+    @Label("Tag")
+    public String tag;
+
+    @Label("Added")
+    @Description("True if the tag was being added, false if it was being deleted")
+    public boolean added;
+
+    @Label("Changed")
+    @Description("True if the article's tags changed")
+    public boolean changed;
+}
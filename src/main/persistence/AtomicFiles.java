@@ -0,0 +1,25 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Replaces files with ones written next to them. Everything that saves a file in full writes it to a
+// temporary sibling first and then moves that over the file, so that a reader never sees a half-written one.
+public final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    // MODIFIES: the file system
+    // EFFECTS: moves source over target, atomically if the file system allows it
+    public static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Encodes values for a binary snapshot. Strings that are likely to repeat (authors, tag names) are written
+// as references into a string table that is collected while writing and emitted once at the end, so each
+// distinct value is stored only once. Each record is prefixed with its length so that a reader can skip
+// over it without decoding it. Snapshots are limited to 2 GB, the most that can be memory-mapped at once.
+public class BinaryOutput {
+    private final CountingStream counter;
+    private final DataOutputStream out;
+    private final HashMap<String, Integer> tableIndex = new HashMap<>();
+    private final ArrayList<String> table = new ArrayList<>();
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private DataOutputStream current;
+
+    // EFFECTS: constructs an output that writes to out
+    public BinaryOutput(OutputStream out) {
+        this.counter = new CountingStream(out);
+        this.out = new DataOutputStream(counter);
+        this.current = this.out;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes an int
+    public void writeInt(int value) throws IOException {
+        current.writeInt(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a string inline as its UTF-8 length followed by its bytes
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        current.writeInt(bytes.length);
+        current.write(bytes);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a reference to value in the string table, adding it to the table if required
+    public void writeStringRef(String value) throws IOException {
+        Integer index = tableIndex.get(value);
+        if (index == null) {
+            index = table.size();
+            table.add(value);
+            tableIndex.put(value, index);
+        }
+        current.writeInt(index);
+    }
+
+    // REQUIRES: not called from within another record
+    // MODIFIES: this
+    // EFFECTS: writes writable as a record prefixed with its length in bytes
+    public void writeRecord(BinaryWritable writable) throws IOException {
+        recordBytes.reset();
+        current = record;
+        try {
+            writable.writeBinary(this);
+            record.flush();
+        } finally {
+            current = out;
+        }
+        out.writeInt(recordBytes.size());
+        recordBytes.writeTo(out);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the raw bytes, which are not part of any record
+    public void writeRaw(byte[] bytes) throws IOException {
+        out.write(bytes);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the string table followed by a footer holding the offset of the table, and flushes
+    public void finish() throws IOException {
+        long tableOffset = counter.count;
+        out.writeInt(table.size());
+        for (String value : table) {
+            writeString(value);
+        }
+        out.writeLong(tableOffset);
+        out.flush();
+    }
+
+    // EFFECTS: returns the number of bytes written so far, outside of any record being written
+    public long size() {
+        return counter.count;
+    }
+
+    // Counts the bytes written through it in a long, since DataOutputStream.size() stops at Integer.MAX_VALUE
+    private static final class CountingStream extends FilterOutputStream {
+        private long count;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
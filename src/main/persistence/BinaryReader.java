@@ -0,0 +1,190 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import model.RevisionHistory;
+import model.Tag;
+import model.TextDelta;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+// Reads in a blog stored as a binary snapshot (see BinaryWriter for the layout). The file is memory-mapped
+// and decoded in place, so there is no text to parse and no intermediate copy of the data. In lazy mode
+// article content is not decoded at all; it is read out of the mapping by a LazyContentSource when needed.
+public class BinaryReader {
+    private static final int FOOTER_SIZE = 8;
+    private String source;
+    private boolean lazyContent;
+    private LazyContentSource contentSource;
+
+    // EFFECTS: constructs a BinaryReader to read a blog in from file
+    public BinaryReader(String source) {
+        this(source, false);
+    }
+
+    // EFFECTS: constructs a BinaryReader to read a blog in from file, leaving article content in the
+    //          mapped file until it is needed if lazyContent is true
+    public BinaryReader(String source, boolean lazyContent) {
+        this.source = source;
+        this.lazyContent = lazyContent;
+    }
+
+    // EFFECTS: returns true if the file at source starts with the binary snapshot magic number
+    public static boolean isBinarySnapshot(String source) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BinaryWriter.MAGIC.length);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // keep reading until the header is full or the file ends
+            }
+            return !header.hasRemaining() && header.flip().equals(ByteBuffer.wrap(BinaryWriter.MAGIC));
+        }
+    }
+
+    // EFFECTS: Reads blog from binary snapshot file; throws IOException if the file is not a valid snapshot
+    public Blog read() throws IOException {
+        return read(LoadListener.NONE);
+    }
+
+    // EFFECTS: Reads blog from binary snapshot file, passing each article to listener as soon as it has
+    //          been read; throws InterruptedIOException if the thread is interrupted before the blog has
+    //          been read, and IOException if the file is not a valid snapshot
+    public Blog read(LoadListener listener) throws IOException {
+        Path path = Paths.get(source);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to map: " + source);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            contentSource = lazyContent ? new LazyContentSource(buffer, LazyContentSource.Encoding.UTF8,
+                    LazyContentSource.DEFAULT_CACHE_CHARS) : null;
+            return parseBlog(buffer, listener);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot " + source, e);
+        }
+    }
+
+    // EFFECTS: parses blog from the mapped snapshot, passing each article to listener, and returns it. An
+    //          article whose id was taken by an earlier one is added once every record has been read, with a
+    //          fresh id above every id in the snapshot, so that no article that has an id of its own is renumbered.
+    private Blog parseBlog(ByteBuffer buffer, LoadListener listener) throws IOException {
+        checkHeader(buffer);
+        String[] table = readStringTable(buffer);
+        Blog blog = new Blog(readString(buffer));
+        int count = buffer.getInt();
+        ArrayList<Integer> duplicates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int start = buffer.position();
+            int end = start + Integer.BYTES + buffer.getInt(start);
+            int id = buffer.getInt(start + Integer.BYTES);
+            if (blog.containsArticle(id)) {
+                duplicates.add(start);
+                buffer.position(end);
+            } else {
+                listener.articleRead(addArticle(blog, buffer, table, id), end, buffer.limit());
+            }
+            LoadListener.checkNotCancelled();
+        }
+        for (int start : duplicates) {
+            buffer.position(start);
+            listener.articleRead(addArticle(blog, buffer, table, blog.allocateId()), buffer.position(),
+                    buffer.limit());
+        }
+        return blog;
+    }
+
+    // EFFECTS: throws IOException unless buffer starts with the magic number and a supported version
+    private void checkHeader(ByteBuffer buffer) throws IOException {
+        byte[] magic = new byte[BinaryWriter.MAGIC.length];
+        buffer.get(magic);
+        if (!ByteBuffer.wrap(magic).equals(ByteBuffer.wrap(BinaryWriter.MAGIC))) {
+            throw new IOException("Not a binary snapshot: " + source);
+        }
+        int version = buffer.getInt();
+        if (version > BinaryWriter.VERSION) {
+            throw new IOException(String.format("Unsupported snapshot version %d in %s", version, source));
+        }
+    }
+
+    // EFFECTS: reads the string table located by the footer, leaving the buffer position unchanged
+    private String[] readStringTable(ByteBuffer buffer) {
+        int resume = buffer.position();
+        buffer.position((int) buffer.getLong(buffer.limit() - FOOTER_SIZE));
+        String[] table = new String[buffer.getInt()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = readString(buffer);
+        }
+        buffer.position(resume);
+        return table;
+    }
+
+    // MODIFIES: blog
+    // EFFECTS: parses the article record at the position of buffer, adds it to blog under the given id, leaves
+    //          buffer at the end of the record and returns the article
+    private Article addArticle(Blog blog, ByteBuffer buffer, String[] table, int id) {
+        int end = buffer.getInt() + buffer.position();
+        buffer.getInt();
+        String title = readString(buffer);
+        String author = table[buffer.getInt()];
+        LocalDate dateCreated = LocalDate.ofEpochDay(buffer.getInt());
+        LocalDate dateEdited = LocalDate.ofEpochDay(buffer.getInt());
+        int tagCount = buffer.getInt();
+        String[] tagNames = new String[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            tagNames[i] = table[buffer.getInt()];
+        }
+        Article article;
+        if (contentSource != null) {
+            int length = buffer.getInt();
+            article = new Article(id, title, author, contentSource, buffer.position(), length,
+                    dateCreated, dateEdited);
+            buffer.position(buffer.position() + length);
+        } else {
+            article = new Article(id, title, author, readString(buffer), dateCreated, dateEdited);
+        }
+        for (String name : tagNames) {
+            article.addTag(new Tag(name));
+        }
+        if (buffer.position() < end) {
+            article.setHistory(readHistory(buffer));
+        }
+        // Skip any fields added by later versions of the record
+        buffer.position(end);
+        blog.addArticle(article);
+        return article;
+    }
+
+    // EFFECTS: reads the revision history that follows the content of an article record
+    private static RevisionHistory readHistory(ByteBuffer buffer) {
+        RevisionHistory history = new RevisionHistory();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            LocalDate dateEdited = LocalDate.ofEpochDay(buffer.getInt());
+            history.add(dateEdited, readDelta(buffer), readDelta(buffer), readDelta(buffer));
+        }
+        return history;
+    }
+
+    // EFFECTS: reads a delta written as its prefix, suffix and inserted text
+    private static TextDelta readDelta(ByteBuffer buffer) {
+        int prefix = buffer.getInt();
+        int suffix = buffer.getInt();
+        return new TextDelta(prefix, suffix, readString(buffer));
+    }
+
+    // EFFECTS: reads a length-prefixed UTF-8 string
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
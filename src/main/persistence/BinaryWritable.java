@@ -0,0 +1,10 @@
+package persistence;
+
+import java.io.IOException;
+
+// Interface for an object that can be written to a binary snapshot
+public interface BinaryWritable {
+    // MODIFIES: out
+    // EFFECTS: writes this to out in the binary snapshot format
+    void writeBinary(BinaryOutput out) throws IOException;
+}
@@ -0,0 +1,94 @@
+package persistence;
+
+import model.Blog;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Writes a Blog out to a binary snapshot file. The layout is:
+//     magic, version, blog title, article count,
+//     one length-prefixed record per article, ending with its revision history,
+//     string table, offset of the string table
+// Like JsonWriter, the snapshot is written to a temporary sibling and moved over the destination on close, and
+// the temporary file is deleted if the write or the close fails.
+public class BinaryWriter {
+    static final byte[] MAGIC = "BLOGSNAP".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // The most that BinaryReader can map at once; a larger snapshot is never moved over the last good one
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+    private FileChannel channel;
+    private BinaryOutput output;
+    private Path temp;
+    private String destination;
+
+    // EFFECTS: constructs writer to write to destination
+    public BinaryWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens writer; throws IOException if destination file cannot be opened
+    public void open() throws IOException {
+        try {
+            temp = Paths.get(destination + ".tmp");
+        } catch (InvalidPathException e) {
+            throw new FileNotFoundException(e.getMessage());
+        }
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        output = new BinaryOutput(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes binary representation of blog to file; if that fails, or the snapshot would be too large
+    //          to be read back, aborts the writer and throws IOException
+    public void write(Blog blog) throws IOException {
+        try {
+            output.writeRaw(MAGIC);
+            output.writeInt(VERSION);
+            blog.writeBinary(output);
+            output.finish();
+            if (output.size() > MAX_SIZE) {
+                throw new IOException("Snapshot of " + output.size() + " bytes is too large: " + destination);
+            }
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer, replacing the destination with the newly written file; if that fails, aborts the
+    //          writer, leaving the destination as it was
+    public void close() throws IOException {
+        try {
+            channel.force(true);
+            channel.close();
+            AtomicFiles.replace(temp, Paths.get(destination));
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer without replacing the destination, and deletes the partly written file
+    public void abort() {
+        try {
+            channel.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // The save has already failed; a temporary file that cannot be removed is overwritten by the next
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package persistence;
+
+import model.Article;
+import model.ArticleEdit;
+import model.Blog;
+import model.Tag;
+
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Edits the articles of a blog for several editors at once, such as the HTTP server and the GUI, without
+// losing any of their changes. Every change to an article bumps its version (see Article.getVersion()), and
+// the changes made here are compare-and-set: each names the version of the article it was based on and is
+// turned down, by returning CONFLICT, if the article has changed since. An editor that is turned down looks
+// at the article again and decides what to do.
+//
+// Only the preparation of edits runs in parallel. Article ids are spread over a fixed number of lock stripes,
+// and an edit holds the stripe of its article while it checks the version, reads the old content and works
+// out the revision and journal record (see ArticleEdit), so edits of different articles do that work at the
+// same time. Every change is then made inside saver.update(), under the store's lock like any other change,
+// because the indexes of the blog and the journal are shared by every article: applying edits and adding or
+// removing tags is serialized. The version is checked again there, so changes made to the article some other
+// way are never overwritten either.
+public class BlogEditor {
+    public static final long CONFLICT = -1;
+
+    private final Blog blog;
+    private final JournalStore store;
+    private final WriteBehindSaver saver;
+    private final Object[] stripes;
+
+    // EFFECTS: constructs an editor of blog, which is tracked by store and saved by saver, with four lock
+    //          stripes per processor
+    public BlogEditor(Blog blog, JournalStore store, WriteBehindSaver saver) {
+        this(blog, store, saver, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // REQUIRES: stripes > 0
+    // EFFECTS: constructs an editor of blog, which is tracked by store and saved by saver, with at least the
+    //          given number of lock stripes
+    public BlogEditor(Blog blog, JournalStore store, WriteBehindSaver saver, int stripes) {
+        this.blog = blog;
+        this.store = store;
+        this.saver = saver;
+        this.stripes = new Object[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Object();
+        }
+    }
+
+    // EFFECTS: returns the current version of the article with the given id; throws NoSuchElementException
+    //          if there is none
+    public long getVersion(int id) {
+        return find(id).getVersion();
+    }
+
+    // REQUIRES: title, author and content are nonempty strings
+    // MODIFIES: this, the blog
+    // EFFECTS: if the article with the given id is at expectedVersion, edits its title, author and content,
+    //          records the edit in the store and returns the new version; otherwise returns CONFLICT and
+    //          changes nothing. Throws NoSuchElementException if there is no article with the given id.
+    public long edit(int id, long expectedVersion, String title, String author, String content) {
+        synchronized (stripe(id)) {
+            Article article = find(id);
+            if (article.getVersion() != expectedVersion) {
+                return CONFLICT;
+            }
+            ArticleEdit edit = article.prepareEdit(title, author, content, LocalDate.now());
+            return saver.update(() -> {
+                if (!edit.isCurrent()) {
+                    return CONFLICT;
+                }
+                edit.apply();
+                store.articleEdited(edit);
+                return article.getVersion();
+            });
+        }
+    }
+
+    // REQUIRES: name is a nonempty string
+    // MODIFIES: this, the blog
+    // EFFECTS: if the article with the given id is at expectedVersion, adds a tag with the given name to it,
+    //          records that in the store and returns the new version, which is expectedVersion if the article
+    //          already has the tag; otherwise returns CONFLICT and changes nothing. Throws
+    //          NoSuchElementException if there is no article with the given id.
+    public long addTag(int id, long expectedVersion, String name) {
+        return change(id, expectedVersion, article -> {
+            if (article.addTag(new Tag(name))) {
+                store.tagAdded(article, name);
+            }
+        });
+    }
+
+    // REQUIRES: name is a nonempty string
+    // MODIFIES: this, the blog
+    // EFFECTS: if the article with the given id is at expectedVersion, removes the tag with the given name
+    //          from it, records that in the store and returns the new version, which is expectedVersion if
+    //          the article has no such tag; otherwise returns CONFLICT and changes nothing. Throws
+    //          NoSuchElementException if there is no article with the given id.
+    public long deleteTag(int id, long expectedVersion, String name) {
+        return change(id, expectedVersion, article -> {
+            if (article.deleteTag(name)) {
+                store.tagDeleted(article, name);
+            }
+        });
+    }
+
+    // MODIFIES: this, the blog
+    // EFFECTS: applies change, which changes the given article and records it in the store, to the article
+    //          with the given id if it is at expectedVersion and returns its version afterwards; otherwise
+    //          returns CONFLICT
+    private long change(int id, long expectedVersion, Consumer<Article> change) {
+        Article article = find(id);
+        return saver.update(() -> {
+            if (article.getVersion() != expectedVersion) {
+                return CONFLICT;
+            }
+            change.accept(article);
+            return article.getVersion();
+        });
+    }
+
+    // EFFECTS: returns the article with the given id, looked up under the store's lock so that it cannot
+    //          race with articles being added or removed; throws NoSuchElementException if there is none
+    private Article find(int id) throws NoSuchElementException {
+        synchronized (store) {
+            return blog.findArticleById(id);
+        }
+    }
+
+    // EFFECTS: returns the lock stripe of the article with the given id. Ids are handed out in order, so
+    //          taking the low bits spreads the articles evenly.
+    private Object stripe(int id) {
+        return stripes[id & (stripes.length - 1)];
+    }
+}
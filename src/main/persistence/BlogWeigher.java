@@ -0,0 +1,65 @@
+package persistence;
+
+import model.ArticleSnapshot;
+import model.Blog;
+import model.BlogChange;
+
+import java.util.List;
+
+// Estimates how much heap a blog takes up, so that a Workspace can keep the blogs it has open within a
+// budget. An estimate only needs to be proportionate: it is compared with the budget and with the
+// estimates of other blogs, never with what the heap actually holds.
+@FunctionalInterface
+public interface BlogWeigher {
+    long BLOG_OVERHEAD = 16 * 1024;
+    long ARTICLE_OVERHEAD = 400;
+    long TAG_OVERHEAD = 24;
+    long REVISION_OVERHEAD = 120;
+
+    // The default weigher: a fixed cost per blog, article, tag and revision for the objects, index entries and
+    // published snapshots (see Blog.snapshot()) that hold them, plus two bytes per character of the strings held
+    // in memory. Content left on disk by a lazy load costs nothing until it is edited. Each article is weighed
+    // on its own, so a blog is weighed again from its changes by taking off the weight of each article changed
+    // as it was before and adding its weight after.
+    BlogWeigher ESTIMATE = new BlogWeigher() {
+        @Override
+        public long weigh(Blog blog) {
+            long weight = BLOG_OVERHEAD;
+            for (ArticleSnapshot article : blog.snapshot()) {
+                weight += estimate(article);
+            }
+            return weight;
+        }
+
+        @Override
+        public long reweigh(Blog blog, long weight, List<BlogChange> changes) {
+            for (BlogChange change : changes) {
+                weight += estimate(change.getArticle()) - estimate(change.getPrevious());
+            }
+            return weight;
+        }
+    };
+
+    // EFFECTS: returns the estimated size of blog in bytes
+    long weigh(Blog blog);
+
+    // EFFECTS: returns the estimated size of blog in bytes, where it was estimated at weight before changes
+    //          were made to it. Unless overridden, weighs the whole blog again.
+    default long reweigh(Blog blog, long weight, List<BlogChange> changes) {
+        return weigh(blog);
+    }
+
+    // EFFECTS: returns the estimated size of article in bytes as ESTIMATE weighs it, or 0 if article is null
+    static long estimate(ArticleSnapshot article) {
+        if (article == null) {
+            return 0;
+        }
+        long weight = ARTICLE_OVERHEAD + TAG_OVERHEAD * article.getTags().size()
+                + 2L * (article.getTitle().length() + article.getAuthor().length() + article.residentContentLength());
+        if (article.getHistory() != null) {
+            weight += REVISION_OVERHEAD * article.getRevisionCount()
+                    + 2L * article.getHistory().storedLength(article.getRevisionCount());
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,640 @@
+package persistence;
+
+import model.Article;
+import model.ArticleEdit;
+import model.Blog;
+import model.BlogSnapshot;
+import model.Revision;
+import model.Tag;
+import model.TextDelta;
+import search.SearchIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+// Persists a blog as a JSON snapshot plus an append-only journal of the changes made since that snapshot,
+// so saving a change costs the size of the change rather than the size of the blog.
+//
+// Every record is framed as [payload length][CRC32 of payload][payload]. On load the snapshot is read
+// and the journal is replayed up to the first record that is incomplete or fails its checksum; anything
+// after that point was torn by a crash mid-write and is truncated away. Records are buffered by the
+// append methods and made durable by commit(), which batches the records of every thread that is
+// committing at the same time into a single write and fsync (group commit). Once the journal grows past
+// a threshold it is compacted into a fresh snapshot, written from a BlogSnapshot so that the store's lock
+// is only held while the snapshot is taken. Replaying a record either sets state or, for an edit,
+// applies a delta stamped with the revision it was made from and is skipped once the article is past that
+// revision, so replaying a journal over a snapshot that already contains its changes (a crash between
+// writing a snapshot and truncating the journal) still yields the same blog.
+//
+// An edit is journaled as the change from the article's newest earlier revision (see RevisionHistory), so
+// saving a small edit to a long article costs the size of the edit rather than a copy of the article.
+//
+// The blog's search index, once it has one, is flushed to a directory next to the snapshot after every
+// commit, stamped with the size and identity of the snapshot and journal it matches. load() opens the
+// stored index only if the files still carry that stamp; otherwise the index is rebuilt on the first search.
+public class JournalStore implements Closeable {
+    private static final byte CREATE = 1;
+    private static final byte EDIT = 2;
+    private static final byte TAG_ADDED = 3;
+    private static final byte TAG_DELETED = 4;
+    private static final byte DELETE = 5;
+    private static final byte EDIT_DELTA = 6;
+    private static final int FRAME_HEADER = 8;
+    private static final long DEFAULT_COMPACT_THRESHOLD = 4L * 1024 * 1024;
+
+    private final String snapshotPath;
+    private final Path journalPath;
+    private final Path searchPath;
+    private final long compactThreshold;
+    private boolean lazyContent;
+    private Blog blog;
+    private boolean detached;
+    private FileChannel journal;
+    private final ArrayList<ByteBuffer> pending = new ArrayList<>();
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean committing;
+    private boolean compacting;
+
+    // EFFECTS: constructs a store whose snapshot lives at snapshotPath and journal next to it
+    public JournalStore(String snapshotPath) {
+        this(snapshotPath, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    // REQUIRES: compactThreshold > 0
+    // EFFECTS: constructs a store that compacts the journal once it is larger than compactThreshold bytes
+    public JournalStore(String snapshotPath, long compactThreshold) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = Paths.get(snapshotPath + ".journal");
+        this.searchPath = Paths.get(snapshotPath + ".search");
+        this.compactThreshold = compactThreshold;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets whether load() leaves article content in the snapshot file until it is needed
+    public void setLazyContent(boolean lazyContent) {
+        this.lazyContent = lazyContent;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the snapshot, replays the journal over it and returns the resulting blog;
+    //          a torn record at the end of the journal is discarded
+    public Blog load() throws IOException {
+        return load(LoadListener.NONE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: like load(), but passes each article of the snapshot to listener as soon as it has been
+    //          read, before the journal is replayed over them. If the thread is interrupted, stops with
+    //          an InterruptedIOException and the store tracks no blog until the next load() or start().
+    public synchronized Blog load(LoadListener listener) throws IOException {
+        awaitCompaction();
+        closeJournal();
+        closeSearchIndex();
+        Blog loaded = new JsonReader(snapshotPath, lazyContent).read(listener);
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long valid = replay(loaded);
+        if (valid < journal.size()) {
+            journal.truncate(valid);
+        }
+        journal.position(valid);
+        loaded.setSearchIndex(openSearchIndex(loaded));
+        blog = loaded;
+        detached = false;
+        pending.clear();
+        durableSeq = appendedSeq;
+        return loaded;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts tracking a blog that has never been saved; nothing is journaled for it and the
+    //          existing snapshot is left alone until the first commit writes a fresh one
+    public synchronized void start(Blog blog) {
+        awaitCompaction();
+        if (this.blog != blog) {
+            closeSearchIndex();
+        }
+        this.blog = blog;
+        detached = true;
+        pending.clear();
+        durableSeq = appendedSeq;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that article was added to the blog
+    public void articleCreated(Article article) {
+        append(encode(CREATE, article.getId(), out -> {
+            writeString(out, article.getTitle());
+            writeString(out, article.getAuthor());
+            writeString(out, article.getContent());
+            out.writeLong(article.getDateCreated().toEpochDay());
+            out.writeLong(article.getDateEdited().toEpochDay());
+            out.writeInt(article.getTags().size());
+            for (Tag tag : article.getTags()) {
+                writeString(out, tag.getName());
+            }
+        }));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the edit that replaced the newest earlier revision of article with its current title,
+    //          author, content and dateEdited, as a delta if it has such a revision
+    public void articleEdited(Article article) {
+        int base = article.getRevisionCount() - 1;
+        if (base >= 0) {
+            Revision previous = article.getRevision(base);
+            append(encode(EDIT_DELTA, article.getId(), out -> {
+                out.writeInt(base);
+                out.writeLong(article.getDateEdited().toEpochDay());
+                writeDelta(out, TextDelta.between(previous.getTitle(), article.getTitle()));
+                writeDelta(out, TextDelta.between(previous.getAuthor(), article.getAuthor()));
+                writeDelta(out, TextDelta.between(previous.getContent(), article.getContent()));
+            }));
+            return;
+        }
+        append(encode(EDIT, article.getId(), out -> {
+            writeString(out, article.getTitle());
+            writeString(out, article.getAuthor());
+            writeString(out, article.getContent());
+            out.writeLong(article.getDateEdited().toEpochDay());
+        }));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records edit, which has just been made, as a delta from the revision it recorded. The deltas
+    //          were worked out with the edit, so recording it does not compare the texts again.
+    public void articleEdited(ArticleEdit edit) {
+        append(encode(EDIT_DELTA, edit.getArticle().getId(), out -> {
+            out.writeInt(edit.getRevision());
+            out.writeLong(edit.getDateEdited().toEpochDay());
+            writeDelta(out, edit.getTitleDelta());
+            writeDelta(out, edit.getAuthorDelta());
+            writeDelta(out, edit.getContentDelta());
+        }));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that a tag with the given name was added to article
+    public void tagAdded(Article article, String name) {
+        append(encode(TAG_ADDED, article.getId(), out -> writeString(out, name)));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the tag with the given name was removed from article
+    public void tagDeleted(Article article, String name) {
+        append(encode(TAG_DELETED, article.getId(), out -> writeString(out, name)));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that article was removed from the blog
+    public void articleDeleted(Article article) {
+        append(encode(DELETE, article.getId(), out -> { }));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes every record appended so far durable. Concurrent callers are batched so that one
+    //          of them writes and syncs the records of all of them. A blog that has never been saved, or
+    //          a journal that has outgrown the threshold, is compacted into a new snapshot instead.
+    public void commit() throws IOException {
+        ByteBuffer[] batch;
+        long batchSeq;
+        synchronized (this) {
+            if (detached) {
+                batch = null;
+                batchSeq = 0;
+            } else {
+                long target = appendedSeq;
+                awaitCommitter(target);
+                if (durableSeq >= target) {
+                    return;
+                }
+                committing = true;
+                batch = pending.toArray(new ByteBuffer[0]);
+                pending.clear();
+                batchSeq = appendedSeq;
+            }
+        }
+        if (batch == null) {
+            compact();
+            return;
+        }
+        long start = journal.position();
+        try {
+            writeFully(batch);
+            journal.force(false);
+        } catch (IOException | RuntimeException e) {
+            rollback(start, e);
+            finishBatch(batch, batchSeq, false);
+            throw e;
+        }
+        finishBatch(batch, batchSeq, true);
+        if (journal.size() > compactThreshold) {
+            compact();
+        } else {
+            flushSearchIndex();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the blog out as a new snapshot and empties the journal of the changes it contains. The
+    //          blog is written from a snapshot taken under the store's lock (see Blog.snapshot()), and the
+    //          lock is let go while it is written, so changes can go on being made and recorded in the
+    //          meantime; they are committed to the emptied journal. Commits wait until the snapshot is written.
+    public void compact() throws IOException {
+        BlogSnapshot snapshot;
+        long snapshotSeq;
+        int covered;
+        boolean wasDetached;
+        synchronized (this) {
+            awaitCommitter(Long.MAX_VALUE);
+            committing = true;
+            compacting = true;
+            snapshot = blog.snapshot();
+            snapshotSeq = appendedSeq;
+            covered = pending.size();
+            wasDetached = detached;
+            detached = false;
+        }
+        boolean written = false;
+        try {
+            JsonWriter writer = new JsonWriter(snapshotPath);
+            writer.open();
+            writer.write(snapshot);
+            writer.close();
+            written = true;
+        } finally {
+            finishCompaction(written, snapshotSeq, covered, wasDetached);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: if the snapshot taken when appendedSeq was snapshotSeq, with the first covered pending records
+    //          in it, was written, empties the journal and drops those records; otherwise puts back whether the
+    //          store was detached. Either way lets commits go on.
+    private synchronized void finishCompaction(boolean written, long snapshotSeq, int covered, boolean wasDetached)
+            throws IOException {
+        try {
+            if (!written) {
+                if (wasDetached) {
+                    detached = true;
+                    pending.clear();
+                    durableSeq = appendedSeq;
+                }
+                return;
+            }
+            if (journal == null) {
+                journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            journal.truncate(0);
+            journal.position(0);
+            journal.force(true);
+            pending.subList(0, covered).clear();
+            durableSeq = Math.max(durableSeq, snapshotSeq);
+        } finally {
+            committing = false;
+            compacting = false;
+            notifyAll();
+        }
+        flushSearchIndex();
+    }
+
+    // EFFECTS: returns the size of the journal file in bytes, including records not yet committed
+    public synchronized long journalSize() throws IOException {
+        long size = journal == null ? 0 : journal.size();
+        for (ByteBuffer record : pending) {
+            size += record.remaining();
+        }
+        return size;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the journal; records that have not been committed are discarded
+    @Override
+    public synchronized void close() throws IOException {
+        awaitCompaction();
+        closeJournal();
+        closeSearchIndex();
+    }
+
+    // EFFECTS: returns the stamp that identifies the current contents of the snapshot and journal
+    private String storeStamp() throws IOException {
+        BasicFileAttributes snapshot = Files.readAttributes(Paths.get(snapshotPath), BasicFileAttributes.class);
+        return String.format("%d:%d:%s:%d", snapshot.size(), snapshot.lastModifiedTime().toMillis(),
+                snapshot.fileKey(), journal.size());
+    }
+
+    // EFFECTS: returns the stored search index for loaded if it matches the snapshot and journal, or null
+    private SearchIndex openSearchIndex(Blog loaded) {
+        try {
+            return SearchIndex.open(searchPath, storeStamp(),
+                    id -> loaded.containsArticle(id) ? loaded.findArticleById(id) : null);
+        } catch (IOException e) {
+            // An unreadable index is rebuilt from the articles on the first search
+            return null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the changes to the blog's search index since the last commit next to the snapshot;
+    //          if that fails, the stored index is invalidated so that it is rebuilt rather than trusted
+    private synchronized void flushSearchIndex() {
+        SearchIndex index = blog.getSearchIndex();
+        if (index == null) {
+            return;
+        }
+        try {
+            index.flush(searchPath, storeStamp());
+        } catch (IOException e) {
+            SearchIndex.invalidate(searchPath);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the search index of the current blog, if any, from writing to disk, so that it cannot
+    //          overwrite the index of the next blog, and waits for its background work to finish
+    private void closeSearchIndex() {
+        if (blog != null && blog.getSearchIndex() != null) {
+            try {
+                blog.getSearchIndex().close();
+            } catch (IOException e) {
+                // Interrupted while waiting; the index no longer writes to disk either way
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: frames payload and queues it to be written by the next commit
+    private synchronized void append(byte[] payload) {
+        if (detached) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        frame.flip();
+        pending.add(frame);
+        appendedSeq++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: waits while another thread is committing, until records up to target are durable
+    private synchronized void awaitCommitter(long target) throws InterruptedIOException {
+        while (committing && durableSeq < target) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for journal commit");
+            }
+        }
+    }
+
+    // EFFECTS: waits until no compaction is writing a snapshot, so that the blog is not swapped out or the
+    //          journal closed under it; an interrupt is kept for the caller to see rather than cutting it short
+    private synchronized void awaitCompaction() {
+        boolean interrupted = false;
+        while (compacting) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: publishes the outcome of a batch and wakes any waiting committers; a batch that failed
+    //          is put back in front of the queue so that a later commit retries it
+    private synchronized void finishBatch(ByteBuffer[] batch, long batchSeq, boolean written) {
+        committing = false;
+        if (written) {
+            durableSeq = Math.max(durableSeq, batchSeq);
+        } else {
+            for (int i = batch.length - 1; i >= 0; i--) {
+                batch[i].rewind();
+                pending.add(0, batch[i]);
+            }
+        }
+        notifyAll();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops whatever part of a failed batch reached the journal, so that a retry does not follow
+    //          a torn record; a failure to do so is attached to cause
+    private void rollback(long start, Exception cause) {
+        try {
+            journal.truncate(start);
+            journal.position(start);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes every remaining byte of buffers to the journal with gathering writes
+    private void writeFully(ByteBuffer[] buffers) throws IOException {
+        int first = 0;
+        while (first < buffers.length) {
+            journal.write(buffers, first, buffers.length - first);
+            while (first < buffers.length && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
+    }
+
+    // MODIFIES: blog
+    // EFFECTS: applies each intact journal record to blog and returns the offset just past the last one
+    private long replay(Blog blog) throws IOException {
+        long size = journal.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        while (offset + FRAME_HEADER <= size) {
+            header.clear();
+            readFully(header, offset);
+            int length = header.getInt(0);
+            if (length <= 0 || offset + FRAME_HEADER + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + FRAME_HEADER);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4) || !apply(blog, payload.array())) {
+                break;
+            }
+            offset += FRAME_HEADER + length;
+        }
+        return offset;
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: fills buffer with journal bytes starting at position
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (journal.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+
+    // MODIFIES: blog
+    // EFFECTS: applies a single record to blog; returns false if the record is not recognized
+    private boolean apply(Blog blog, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        int id = in.readInt();
+        Article article = findArticle(blog, id);
+        switch (type) {
+            case CREATE:
+                applyCreate(blog, article, id, in);
+                return true;
+            case EDIT:
+                String title = readString(in);
+                String author = readString(in);
+                String content = readString(in);
+                LocalDate dateEdited = LocalDate.ofEpochDay(in.readLong());
+                if (article != null) {
+                    article.edit(title, author, content, dateEdited);
+                }
+                return true;
+            case TAG_ADDED:
+            case TAG_DELETED:
+                String name = readString(in);
+                if (article != null && type == TAG_ADDED) {
+                    article.addTag(new Tag(name));
+                } else if (article != null) {
+                    article.deleteTag(name);
+                }
+                return true;
+            case DELETE:
+                if (article != null) {
+                    blog.removeArticle(article);
+                }
+                return true;
+            case EDIT_DELTA:
+                applyEditDelta(article, in);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // MODIFIES: blog
+    // EFFECTS: adds the article described by a create record, replacing any existing article with its id
+    private void applyCreate(Blog blog, Article existing, int id, DataInputStream in) throws IOException {
+        String title = readString(in);
+        String author = readString(in);
+        String content = readString(in);
+        LocalDate dateCreated = LocalDate.ofEpochDay(in.readLong());
+        LocalDate dateEdited = LocalDate.ofEpochDay(in.readLong());
+        Article article = new Article(id, title, author, content, dateCreated, dateEdited);
+        int tagCount = in.readInt();
+        for (int i = 0; i < tagCount; i++) {
+            article.addTag(new Tag(readString(in)));
+        }
+        if (existing != null) {
+            blog.removeArticle(existing);
+        }
+        blog.addArticle(article);
+    }
+
+    // MODIFIES: article
+    // EFFECTS: applies the edit described by a delta record to article, unless article is null or is not at
+    //          the revision the edit was made from, which means the record is already in the snapshot
+    private void applyEditDelta(Article article, DataInputStream in) throws IOException {
+        int base = in.readInt();
+        LocalDate dateEdited = LocalDate.ofEpochDay(in.readLong());
+        TextDelta title = readDelta(in);
+        TextDelta author = readDelta(in);
+        TextDelta content = readDelta(in);
+        if (article != null && article.getRevisionCount() == base) {
+            article.edit(title.applyTo(article.getTitle()), author.applyTo(article.getAuthor()),
+                    content.applyTo(article.getContent()), dateEdited);
+        }
+    }
+
+    // EFFECTS: returns the article with the given id, or null if the blog has none
+    private static Article findArticle(Blog blog, int id) {
+        return blog.containsArticle(id) ? blog.findArticleById(id) : null;
+    }
+
+    // EFFECTS: encodes a record of the given type for the article with the given id
+    private static byte[] encode(byte type, int id, RecordBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            out.writeInt(id);
+            body.writeTo(out);
+        } catch (IOException e) {
+            // Writing to an in-memory stream cannot fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes s as a length-prefixed UTF-8 string
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // EFFECTS: reads a length-prefixed UTF-8 string
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes delta as its prefix, suffix and inserted text
+    private static void writeDelta(DataOutputStream out, TextDelta delta) throws IOException {
+        out.writeInt(delta.getPrefix());
+        out.writeInt(delta.getSuffix());
+        writeString(out, delta.getInserted());
+    }
+
+    // EFFECTS: reads a delta written by writeDelta
+    private static TextDelta readDelta(DataInputStream in) throws IOException {
+        int prefix = in.readInt();
+        int suffix = in.readInt();
+        return new TextDelta(prefix, suffix, readString(in));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the journal file if it is open
+    private void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    // Writes the type-specific part of a journal record
+    private interface RecordBody {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,146 @@
+package persistence;
+
+import java.nio.ByteBuffer;
+
+// Accumulates JSON text as UTF-8 bytes in a direct ByteBuffer that grows as required. Callers are
+// responsible for the layout (indentation, commas); this class handles string escaping and encoding.
+public class JsonOutput {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int STRING_CHUNK = 1024;
+    private ByteBuffer buffer;
+
+    // EFFECTS: constructs an output with room for initialCapacity bytes before it has to grow
+    public JsonOutput(int initialCapacity) {
+        buffer = ByteBuffer.allocateDirect(Math.max(64, initialCapacity));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the given count of spaces
+    public JsonOutput indent(int spaces) {
+        ensureCapacity(spaces);
+        for (int i = 0; i < spaces; i++) {
+            buffer.put((byte) ' ');
+        }
+        return this;
+    }
+
+    // REQUIRES: s only contains ASCII characters that need no escaping
+    // MODIFIES: this
+    // EFFECTS: appends s as-is
+    public JsonOutput raw(String s) {
+        ensureCapacity(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buffer.put((byte) s.charAt(i));
+        }
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends n as a JSON number
+    public JsonOutput number(int n) {
+        return raw(Integer.toString(n));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends s as a quoted, escaped JSON string
+    public JsonOutput string(String s) {
+        ensureCapacity(1);
+        buffer.put((byte) '"');
+        int i = 0;
+        while (i < s.length()) {
+            // Room is made for the worst case, every char a \\uXXXX escape, a chunk at a time, so that a long
+            // string only needs about as many bytes as it encodes to
+            int end = Math.min(s.length(), i + STRING_CHUNK);
+            ensureCapacity((end - i) * 6);
+            while (i < end) {
+                i = putChar(s, i);
+            }
+        }
+        ensureCapacity(1);
+        buffer.put((byte) '"');
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a property name followed by a colon, indented by the given count of spaces
+    public JsonOutput name(int spaces, String name) {
+        return indent(spaces).string(name).raw(": ");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: flips the buffer for reading and returns it; this output must not be used afterwards
+    public ByteBuffer finish() {
+        buffer.flip();
+        return buffer;
+    }
+
+    // REQUIRES: there is room for six more bytes, or for four if s[i] starts a surrogate pair
+    // MODIFIES: this
+    // EFFECTS: appends s[i], or the surrogate pair starting at it, escaped and encoded as UTF-8, and returns
+    //          the index of the next char
+    private int putChar(String s, int i) {
+        char c = s.charAt(i);
+        if (c == '"' || c == '\\') {
+            buffer.put((byte) '\\').put((byte) c);
+        } else if (c < 0x20) {
+            putControl(c);
+        } else if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, s.charAt(i + 1));
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            return i + 2;
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return i + 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the escape sequence for control character c
+    private void putControl(char c) {
+        buffer.put((byte) '\\');
+        switch (c) {
+            case '\b':
+                buffer.put((byte) 'b');
+                break;
+            case '\f':
+                buffer.put((byte) 'f');
+                break;
+            case '\n':
+                buffer.put((byte) 'n');
+                break;
+            case '\r':
+                buffer.put((byte) 'r');
+                break;
+            case '\t':
+                buffer.put((byte) 't');
+                break;
+            default:
+                buffer.put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the buffer so that at least needed more bytes fit
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,496 @@
+package persistence;
+
+import org.json.JSONException;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+// A pull parser that hands out the tokens of a JSON document one at a time. The document is decoded
+// straight from the underlying byte stream through a small fixed-size buffer, so callers can walk
+// arbitrarily large files without ever holding the whole text (or a JSONObject tree) in memory.
+public class JsonPullParser implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    // The kinds of token that a JSON document is made up of
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL,
+        END_DOCUMENT }
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long bufferOffset;
+    private final StringBuilder text = new StringBuilder();
+    private int[] stack = new int[32];
+    private int depth;
+    private Token peeked;
+
+    // EFFECTS: constructs a parser that reads a single JSON document from in
+    public JsonPullParser(InputStream in) {
+        this.in = in;
+        this.stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the type of the next token without consuming it;
+    //          throws JSONException if the document is malformed
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = stack[depth - 1];
+        switch (scope) {
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                peeked = peekInArray(scope);
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                peeked = peekInObject(scope);
+                break;
+            case DANGLING_NAME:
+                expect(':');
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                peeked = peekValue();
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                peeked = peekValue();
+                break;
+            default:
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("Expected end of document");
+                }
+                peeked = Token.END_DOCUMENT;
+        }
+        return peeked;
+    }
+
+    // EFFECTS: returns true if the current array or object has another element
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the opening brace of an object
+    public void beginObject() throws IOException {
+        consume(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the closing brace of an object
+    public void endObject() throws IOException {
+        consume(Token.END_OBJECT);
+        depth--;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the opening bracket of an array
+    public void beginArray() throws IOException {
+        consume(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the closing bracket of an array
+    public void endArray() throws IOException {
+        consume(Token.END_ARRAY);
+        depth--;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next property name
+    public String nextName() throws IOException {
+        consume(Token.NAME);
+        return readString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next string value
+    public String nextString() throws IOException {
+        consume(Token.STRING);
+        return readString();
+    }
+
+    // EFFECTS: returns the number of bytes of the stream that have been consumed so far
+    public long position() {
+        return bufferOffset + pos;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next string value without decoding it, and returns the position of its raw
+    //          (still escaped) bytes between the quotes, counted from the start of the stream
+    public Span nextStringSpan() throws IOException {
+        consume(Token.STRING);
+        long start = bufferOffset + pos;
+        skipString();
+        return new Span(start, (int) (bufferOffset + pos - 1 - start));
+    }
+
+    // EFFECTS: decodes the raw bytes of a JSON string (without its quotes), as located by nextStringSpan
+    public static String decodeString(byte[] raw) throws IOException {
+        byte[] quoted = new byte[raw.length + 2];
+        quoted[0] = '"';
+        System.arraycopy(raw, 0, quoted, 1, raw.length);
+        quoted[quoted.length - 1] = '"';
+        return new JsonPullParser(new ByteArrayInputStream(quoted)).nextString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next number and returns it as an int
+    public int nextInt() throws IOException {
+        consume(Token.NUMBER);
+        try {
+            return Integer.parseInt(text.toString());
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected an int but was " + text);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next boolean value and returns it
+    public boolean nextBoolean() throws IOException {
+        consume(Token.BOOLEAN);
+        return text.charAt(0) == 't';
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next value, including every element of a nested array or object
+    public void skipValue() throws IOException {
+        int nested = 0;
+        do {
+            Token token = peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    nested++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    nested++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    nested--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    nested--;
+                    break;
+                case NAME:
+                case STRING:
+                    peeked = null;
+                    skipString();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of document");
+                default:
+                    peeked = null;
+            }
+        } while (nested > 0);
+    }
+
+    // EFFECTS: closes the underlying stream
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next token inside an array
+    private Token peekInArray(int scope) throws IOException {
+        stack[depth - 1] = NONEMPTY_ARRAY;
+        int c = nextNonWhitespace();
+        if (c == ']') {
+            return Token.END_ARRAY;
+        }
+        if (c == -1) {
+            throw syntaxError("Unexpected end of document");
+        }
+        if (scope == NONEMPTY_ARRAY) {
+            if (c != ',') {
+                throw syntaxError("Expected ',' or ']'");
+            }
+        } else {
+            pos--;
+        }
+        return peekValue();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next token inside an object
+    private Token peekInObject(int scope) throws IOException {
+        int c = nextNonWhitespace();
+        if (c == '}') {
+            return Token.END_OBJECT;
+        }
+        if (scope == NONEMPTY_OBJECT) {
+            if (c != ',') {
+                throw syntaxError("Expected ',' or '}'");
+            }
+            c = nextNonWhitespace();
+        }
+        if (c != '"') {
+            throw syntaxError("Expected a property name");
+        }
+        stack[depth - 1] = DANGLING_NAME;
+        return Token.NAME;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the token that begins the next value; literals are read into text
+    private Token peekValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                readLiteral(c);
+                expectLiteral(c == 't' ? "true" : "false");
+                return Token.BOOLEAN;
+            case 'n':
+                readLiteral(c);
+                expectLiteral("null");
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readLiteral(c);
+                    return Token.NUMBER;
+                }
+                throw syntaxError(c == -1 ? "Unexpected end of document" : "Unexpected character");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an unquoted literal starting with first into text
+    private void readLiteral(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        while (fillIfNeeded()) {
+            byte b = buffer[pos];
+            if (b == ',' || b == '}' || b == ']' || b == ':' || b <= ' ') {
+                break;
+            }
+            text.append((char) b);
+            pos++;
+        }
+    }
+
+    // EFFECTS: throws JSONException if text does not spell out literal
+    private void expectLiteral(String literal) {
+        if (!literal.contentEquals(text)) {
+            throw syntaxError("Unexpected literal " + text);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the peeked token, throwing JSONException if it is not expected
+    private void consume(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: pushes a new scope on to the stack, growing it if required
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] grown = new int[depth * 2];
+            System.arraycopy(stack, 0, grown, 0, depth);
+            stack = grown;
+        }
+        stack[depth++] = scope;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: decodes the remainder of a string whose opening quote has been consumed
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int b = readByte();
+            if (b == '"') {
+                return text.toString();
+            } else if (b == '\\') {
+                readEscape();
+            } else if (b == -1) {
+                throw syntaxError("Unterminated string");
+            } else if (b < 0x80) {
+                text.append((char) b);
+            } else {
+                readMultiByte(b);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips the remainder of a string whose opening quote has been consumed
+    private void skipString() throws IOException {
+        while (true) {
+            int b = readByte();
+            if (b == '"') {
+                return;
+            } else if (b == '\\') {
+                readByte();
+            } else if (b == -1) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: decodes an escape sequence whose backslash has been consumed and appends it to text
+    private void readEscape() throws IOException {
+        int b = readByte();
+        switch (b) {
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(readByte(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Malformed unicode escape");
+                    }
+                    code = (code << 4) | digit;
+                }
+                text.append((char) code);
+                break;
+            case '"':
+            case '\\':
+            case '/':
+                text.append((char) b);
+                break;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: decodes a multi-byte UTF-8 sequence that starts with lead and appends it to text
+    private void readMultiByte(int lead) throws IOException {
+        int extra;
+        int codePoint;
+        if ((lead & 0xE0) == 0xC0) {
+            extra = 1;
+            codePoint = lead & 0x1F;
+        } else if ((lead & 0xF0) == 0xE0) {
+            extra = 2;
+            codePoint = lead & 0x0F;
+        } else if ((lead & 0xF8) == 0xF0) {
+            extra = 3;
+            codePoint = lead & 0x07;
+        } else {
+            throw syntaxError("Malformed UTF-8 input");
+        }
+        for (int i = 0; i < extra; i++) {
+            int b = readByte();
+            if ((b & 0xC0) != 0x80) {
+                throw syntaxError("Malformed UTF-8 input");
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        text.appendCodePoint(codePoint);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next non-whitespace character and throws JSONException if it is not c
+    private void expect(char c) throws IOException {
+        if (nextNonWhitespace() != c) {
+            throw syntaxError("Expected '" + c + "'");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next non-whitespace byte, or -1 at the end of the stream
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            int b = readByte();
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next byte, or -1 at the end of the stream
+    private int readByte() throws IOException {
+        if (!fillIfNeeded()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refills the buffer when it has been used up; returns false at the end of the stream
+    private boolean fillIfNeeded() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        bufferOffset += limit;
+        pos = 0;
+        limit = 0;
+        int n = in.read(buffer, 0, BUFFER_SIZE);
+        if (n <= 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    // EFFECTS: returns an exception describing a syntax error at the current position
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at byte " + (bufferOffset + pos));
+    }
+
+    // The position of a value's raw bytes within the stream
+    public static class Span {
+        private final long offset;
+        private final int length;
+
+        // EFFECTS: constructs a span of length bytes starting at offset
+        public Span(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
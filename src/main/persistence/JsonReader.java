@@ -2,86 +2,291 @@ package persistence;
 
 import model.Article;
 import model.Blog;
+import model.RevisionHistory;
+import model.Tag;
+import model.TextDelta;
+import monitoring.BlogMetrics;
+import monitoring.LoadEvent;
+import org.json.JSONException;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.util.stream.Stream;
-
-import model.Tag;
-import org.json.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 // Reads in a blog stored as a JSON text file
 // This class is based on the JSONSerializationDemo project
 // https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
+// The file is decoded token by token with a JsonPullParser, so each article is built directly from the
+// stream and only one article's worth of text is held in memory at any time. In lazy mode the content of
+// each article is not decoded at all; the article keeps its position in the file and a LazyContentSource
+// reads it in when it is first asked for.
 public class JsonReader {
+    private static final List<String> REVISION_FIELDS = Arrays.asList("title", "author", "content");
     private String source;
+    private boolean lazyContent;
+    private LazyContentSource contentSource;
+    private LoadListener listener = LoadListener.NONE;
+    private long size;
 
     // EFFECTS: constructs a JsonReader to read a blog in from file
     public JsonReader(String source) {
+        this(source, false);
+    }
+
+    // EFFECTS: constructs a JsonReader to read a blog in from file, leaving article content on disk
+    //          until it is needed if lazyContent is true
+    public JsonReader(String source, boolean lazyContent) {
         this.source = source;
+        this.lazyContent = lazyContent;
     }
 
-    // EFFECTS: Reads blog from JSON file
+    // EFFECTS: Reads blog from JSON file; a binary snapshot is detected and loaded with a BinaryReader instead
     public Blog read() throws IOException {
-        String jsonData = readFile(source);
-        JSONObject jsonObject = new JSONObject(jsonData);
-        return parseBlog(jsonObject);
+        return read(LoadListener.NONE);
     }
 
-    // EFFECTS: reads source file into a string a returns the result
-    private String readFile(String source) throws IOException {
-        StringBuilder contentBuilder = new StringBuilder();
-
-        try (Stream<String> stream = Files.lines(Paths.get(source), StandardCharsets.UTF_8)) {
-            stream.forEach(s -> contentBuilder.append(s));
+    // EFFECTS: Reads blog from JSON file, passing each article to listener as soon as it has been read;
+    //          throws InterruptedIOException if the thread is interrupted before the blog has been read
+    public Blog read(LoadListener listener) throws IOException {
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        long started = BlogMetrics.LOAD.start();
+        Blog blog = readBlog(listener);
+        long bytes = Files.size(Paths.get(source));
+        BlogMetrics.LOAD.end(started, bytes, blog.getArticles().size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = source;
+            event.bytes = bytes;
+            event.articles = blog.getArticles().size();
+            event.commit();
         }
+        return blog;
+    }
 
-        return contentBuilder.toString();
+    // EFFECTS: reads blog from file as read(listener) does, without recording the load in BlogMetrics
+    private Blog readBlog(LoadListener listener) throws IOException {
+        if (BinaryReader.isBinarySnapshot(source)) {
+            return new BinaryReader(source, lazyContent).read(listener);
+        }
+        this.listener = listener;
+        size = Files.size(Paths.get(source));
+        contentSource = null;
+        if (lazyContent) {
+            contentSource = LazyContentSource.map(Paths.get(source), LazyContentSource.Encoding.JSON_STRING);
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(source));
+             JsonPullParser parser = new JsonPullParser(in)) {
+            return parseBlog(parser);
+        }
     }
 
-    // EFFECTS: parses blog from JSON object and returns it
-    private Blog parseBlog(JSONObject jsonObject) {
-        String title = jsonObject.getString("title");
-        Blog blog = new Blog(title);
-        addArticles(blog, jsonObject);
+    // EFFECTS: parses blog from the JSON stream and returns it
+    private Blog parseBlog(JsonPullParser parser) throws IOException {
+        // The title may come after the articles, so it is filled in once it has been seen
+        Blog blog = new Blog("");
+        String title = null;
+        parser.beginObject();
+        while (parser.hasNext()) {
+            String name = parser.nextName();
+            switch (name) {
+                case "title":
+                    title = parser.nextString();
+                    break;
+                case "articles":
+                    addArticles(blog, parser);
+                    break;
+                default:
+                    parser.skipValue();
+            }
+        }
+        parser.endObject();
+        blog.setTitle(require(title, "title"));
         return blog;
     }
 
     // MODIFIES: blog
-    // EFFECTS: parses blog articles from JSON object and adds them to the blog
-    private void addArticles(Blog blog, JSONObject jsonObject) {
-        JSONArray jsonArray = jsonObject.getJSONArray("articles");
-        for (Object json : jsonArray) {
-            JSONObject nextArticle = (JSONObject) json;
-            addArticle(blog, nextArticle);
+    // EFFECTS: parses blog articles from the JSON stream and adds them to the blog one at a time. Older saves
+    //          could contain duplicate ids; an article whose id was taken by an earlier one is added once the
+    //          whole file has been read, with a fresh id above every id in the file, so that no article that
+    //          has an id of its own is renumbered.
+    private void addArticles(Blog blog, JsonPullParser parser) throws IOException {
+        ArrayList<ParsedArticle> duplicates = new ArrayList<>();
+        parser.beginArray();
+        while (parser.hasNext()) {
+            ParsedArticle parsed = parseArticle(parser);
+            int id = require(parsed.id, "id");
+            if (blog.containsArticle(id)) {
+                duplicates.add(parsed);
+            } else {
+                listener.articleRead(parsed.addTo(blog, id, contentSource), parser.position(), size);
+            }
+            LoadListener.checkNotCancelled();
+        }
+        parser.endArray();
+        for (ParsedArticle parsed : duplicates) {
+            listener.articleRead(parsed.addTo(blog, blog.allocateId(), contentSource), parser.position(), size);
         }
     }
 
-    // MODIFIES: blog
-    // EFFECTS: parses article from JSON object and adds it to blog
-    private void addArticle(Blog blog, JSONObject jsonObject) {
-        int id = jsonObject.getInt("id");
-        String title = jsonObject.getString("title");
-        String author = jsonObject.getString("author");
-        String content = jsonObject.getString("content");
-        String created = jsonObject.getString("dateCreated");
-        LocalDate dateCreated = LocalDate.parse(created);
-        String edited = jsonObject.getString("dateEdited");
-        LocalDate dateEdited = LocalDate.parse(edited);
-        Article article = new Article(id, title, author, content, dateCreated, dateEdited);
-
-        JSONArray jsonArray = jsonObject.getJSONArray("tags");
-        for (Object json : jsonArray) {
-            JSONObject nextTag = (JSONObject) json;
-            String name = nextTag.getString("name");
-            article.addTag(new Tag(name));
+    // EFFECTS: parses an article from the JSON stream
+    private ParsedArticle parseArticle(JsonPullParser parser) throws IOException {
+        ParsedArticle parsed = new ParsedArticle();
+        parser.beginObject();
+        while (parser.hasNext()) {
+            String name = parser.nextName();
+            switch (name) {
+                case "id":
+                    parsed.id = parser.nextInt();
+                    break;
+                case "content":
+                    if (contentSource != null) {
+                        parsed.contentSpan = parser.nextStringSpan();
+                    } else {
+                        parsed.content = parser.nextString();
+                    }
+                    break;
+                case "tags":
+                    parsed.tagNames = parseTags(parser);
+                    break;
+                case "revisions":
+                    parsed.history = parseRevisions(parser);
+                    break;
+                default:
+                    parseField(parsed, name, parser);
+            }
         }
+        parser.endObject();
+        return parsed;
+    }
 
-        blog.addArticle(article);
+    // MODIFIES: parsed
+    // EFFECTS: parses the string field called name of an article into parsed, or skips it if it is not known
+    private static void parseField(ParsedArticle parsed, String name, JsonPullParser parser) throws IOException {
+        switch (name) {
+            case "title":
+                parsed.title = parser.nextString();
+                break;
+            case "author":
+                parsed.author = parser.nextString();
+                break;
+            case "dateCreated":
+                parsed.created = parser.nextString();
+                break;
+            case "dateEdited":
+                parsed.edited = parser.nextString();
+                break;
+            default:
+                parser.skipValue();
+        }
+    }
+
+    // The fields of an article as parsed, kept until the id the article is added to the blog under is settled
+    private static final class ParsedArticle {
+        private Integer id;
+        private String title;
+        private String author;
+        private String content;
+        private JsonPullParser.Span contentSpan;
+        private String created;
+        private String edited;
+        private ArrayList<String> tagNames;
+        private RevisionHistory history;
+
+        // MODIFIES: blog
+        // EFFECTS: adds the article to blog under the given id, with its content left in contentSource if
+        //          that is not null, and returns it
+        Article addTo(Blog blog, int articleId, LazyContentSource contentSource) {
+            LocalDate dateCreated = LocalDate.parse(require(created, "dateCreated"));
+            LocalDate dateEdited = LocalDate.parse(require(edited, "dateEdited"));
+            Article article;
+            if (contentSource != null) {
+                JsonPullParser.Span span = require(contentSpan, "content");
+                article = new Article(articleId, require(title, "title"), require(author, "author"),
+                        contentSource, span.getOffset(), span.getLength(), dateCreated, dateEdited);
+            } else {
+                article = new Article(articleId, require(title, "title"), require(author, "author"),
+                        require(content, "content"), dateCreated, dateEdited);
+            }
+            article.setHistory(history);
+            for (String tagName : require(tagNames, "tags")) {
+                article.addTag(new Tag(tagName));
+            }
+            blog.addArticle(article);
+            return article;
+        }
+    }
+
+    // EFFECTS: parses the names of an article's tags from the JSON stream
+    private ArrayList<String> parseTags(JsonPullParser parser) throws IOException {
+        ArrayList<String> names = new ArrayList<>();
+        parser.beginArray();
+        while (parser.hasNext()) {
+            String name = null;
+            parser.beginObject();
+            while (parser.hasNext()) {
+                if (parser.nextName().equals("name")) {
+                    name = parser.nextString();
+                } else {
+                    parser.skipValue();
+                }
+            }
+            parser.endObject();
+            names.add(require(name, "name"));
+        }
+        parser.endArray();
+        return names;
+    }
+
+    // EFFECTS: parses the revision history of an article from the JSON stream
+    private RevisionHistory parseRevisions(JsonPullParser parser) throws IOException {
+        RevisionHistory history = new RevisionHistory();
+        parser.beginArray();
+        while (parser.hasNext()) {
+            String edited = null;
+            TextDelta[] deltas = new TextDelta[3];
+            parser.beginObject();
+            while (parser.hasNext()) {
+                String name = parser.nextName();
+                int field = REVISION_FIELDS.indexOf(name);
+                if (field >= 0) {
+                    deltas[field] = parseDelta(parser);
+                } else if (name.equals("dateEdited")) {
+                    edited = parser.nextString();
+                } else {
+                    parser.skipValue();
+                }
+            }
+            parser.endObject();
+            history.add(LocalDate.parse(require(edited, "dateEdited")), require(deltas[0], "title"),
+                    require(deltas[1], "author"), require(deltas[2], "content"));
+        }
+        parser.endArray();
+        return history;
+    }
 
+    // EFFECTS: parses a delta, written as the whole text or as [prefix, suffix, inserted], from the JSON stream
+    private static TextDelta parseDelta(JsonPullParser parser) throws IOException {
+        if (parser.peek() == JsonPullParser.Token.STRING) {
+            return TextDelta.replacing(parser.nextString());
+        }
+        parser.beginArray();
+        TextDelta delta = new TextDelta(parser.nextInt(), parser.nextInt(), parser.nextString());
+        parser.endArray();
+        return delta;
+    }
+
+    // EFFECTS: returns value, or throws JSONException if the required key was missing
+    private static <T> T require(T value, String key) {
+        if (value == null) {
+            throw new JSONException(String.format("JSONObject[\"%s\"] not found.", key));
+        }
+        return value;
     }
 
 }
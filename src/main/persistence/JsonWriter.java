@@ -1,16 +1,47 @@
 package persistence;
 
+import model.ArticleSnapshot;
 import model.Blog;
-import org.json.JSONObject;
+import model.BlogSnapshot;
+import model.RevisionHistory;
+import model.Tag;
+import model.TextDelta;
+import monitoring.BlogMetrics;
+import monitoring.SaveEvent;
 
-import java.io.*;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 // Writes a Blog out to a JSON text file
 // This class is based on the JSONSerializationDemo project
 // https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
+// Articles are serialized in chunks on a fork-join pool, each chunk into its own direct ByteBuffer, and
+// the buffers are handed to the file channel in order with a gathering write. Only a bounded window of
+// chunks is in flight at once, so the document is never held in memory as a whole. The file is written
+// to a temporary sibling and moved over the destination on close, so a failed save never leaves a
+// half-written blog behind; if the write or the close fails, the temporary file is closed and deleted. The
+// articles are written, in order of id, from a snapshot of the blog (see
+// BlogSnapshot), so the blog can go on being changed while it is written.
 public class JsonWriter {
-    private static final int TAB = 4;
-    private PrintWriter writer;
+    private static final int CHUNK_SIZE = 256;
+    private static final int BYTES_PER_ARTICLE = 512;
+    private static final int ARTICLE_INDENT = 8;
+    private static final int FIELD_INDENT = 12;
+    private static final int TAG_INDENT = 16;
+    private FileChannel channel;
+    private Path temp;
     private String destination;
 
     // EFFECTS: constructs writer to write to destination
@@ -19,28 +50,204 @@ public class JsonWriter {
     }
 
     // MODIFIES: this
-    // EFFECTS: opens writer; throws FileNotFoundException if destination file
+    // EFFECTS: opens writer; throws IOException if destination file
     // cannot be opened
-    public void open() throws FileNotFoundException {
-        writer = new PrintWriter(new File(destination));
+    public void open() throws IOException {
+        try {
+            temp = Paths.get(destination + ".tmp");
+        } catch (InvalidPathException e) {
+            throw new FileNotFoundException(e.getMessage());
+        }
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
     }
 
     // MODIFIES: this
-    // EFFECTS: writes JSON representation of blog to file
-    public void write(Blog blog) {
-        JSONObject json = blog.toJson();
-        saveToFile(json.toString(TAB));
+    // EFFECTS: writes JSON representation of blog, as it is now, to file
+    public void write(Blog blog) throws IOException {
+        write(blog.snapshot());
     }
 
     // MODIFIES: this
-    // EFFECTS: closes writer
-    public void close() {
-        writer.close();
+    // EFFECTS: writes JSON representation of the blog in snapshot to file; if that fails, aborts the writer
+    public void write(BlogSnapshot snapshot) throws IOException {
+        SaveEvent event = new SaveEvent();
+        event.begin();
+        long started = BlogMetrics.SAVE.start();
+        try {
+            writeBlog(snapshot);
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+        BlogMetrics.SAVE.end(started, channel.position(), snapshot.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = destination;
+            event.bytes = channel.position();
+            event.articles = snapshot.size();
+            event.commit();
+        }
     }
 
     // MODIFIES: this
-    // EFFECTS: writes string to file
-    private void saveToFile(String json) {
-        writer.print(json);
+    // EFFECTS: writes JSON representation of the blog in snapshot to file without recording the save in
+    //          BlogMetrics
+    private void writeBlog(BlogSnapshot snapshot) throws IOException {
+        JsonOutput header = new JsonOutput(64);
+        header.raw("{\n").name(4, "title").string(snapshot.getTitle()).raw(",\n").name(4, "articles").raw("[");
+        writeFully(new ByteBuffer[] {header.finish()});
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int window = CHUNK_SIZE * Math.max(1, pool.getParallelism()) * 2;
+        List<ArticleSnapshot> articles = new ArrayList<>(Math.min(window, snapshot.size()));
+        boolean first = true;
+        for (Iterator<ArticleSnapshot> it = snapshot.iterator(); it.hasNext(); ) {
+            articles.add(it.next());
+            if (articles.size() == window || !it.hasNext()) {
+                writeFully(encodeWindow(pool, articles, first));
+                articles.clear();
+                first = false;
+            }
+        }
+
+        JsonOutput footer = new JsonOutput(16);
+        footer.raw(snapshot.size() == 0 ? "]\n}" : "\n    ]\n}");
+        writeFully(new ByteBuffer[] {footer.finish()});
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer, replacing the destination with the newly written file; if that fails, aborts the
+    //          writer, leaving the destination as it was
+    public void close() throws IOException {
+        try {
+            channel.force(true);
+            channel.close();
+            AtomicFiles.replace(temp, Paths.get(destination));
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer without replacing the destination, and deletes the partly written file
+    public void abort() {
+        try {
+            channel.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // The save has already failed; a temporary file that cannot be removed is overwritten by the next
+        }
+    }
+
+    // EFFECTS: encodes articles, the first in the blog if first, into one buffer per chunk, in parallel when
+    //          there is more than one chunk, and returns the buffers in article order
+    private ByteBuffer[] encodeWindow(ForkJoinPool pool, List<ArticleSnapshot> articles, boolean first) {
+        int end = articles.size();
+        int chunks = (end + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks == 1) {
+            return new ByteBuffer[] {encodeChunk(articles, 0, end, first)};
+        }
+        List<ForkJoinTask<ByteBuffer>> tasks = new ArrayList<>(chunks);
+        for (int from = 0; from < end; from += CHUNK_SIZE) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(end, from + CHUNK_SIZE);
+            tasks.add(pool.submit(() -> encodeChunk(articles, chunkStart, chunkEnd, first && chunkStart == 0)));
+        }
+        ByteBuffer[] buffers = new ByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            buffers[i] = tasks.get(i).join();
+        }
+        return buffers;
+    }
+
+    // EFFECTS: encodes articles[start, end), the first in the blog if first, as comma-separated JSON objects
+    private static ByteBuffer encodeChunk(List<ArticleSnapshot> articles, int start, int end, boolean first) {
+        JsonOutput out = new JsonOutput((end - start) * BYTES_PER_ARTICLE);
+        for (int i = start; i < end; i++) {
+            out.raw(first && i == start ? "\n" : ",\n");
+            encodeArticle(out, articles.get(i));
+        }
+        return out.finish();
+    }
+
+    // MODIFIES: out
+    // EFFECTS: encodes article as a pretty-printed JSON object
+    private static void encodeArticle(JsonOutput out, ArticleSnapshot article) {
+        out.indent(ARTICLE_INDENT).raw("{\n");
+        out.name(FIELD_INDENT, "id").number(article.getId()).raw(",\n");
+        out.name(FIELD_INDENT, "title").string(article.getTitle()).raw(",\n");
+        out.name(FIELD_INDENT, "author").string(article.getAuthor()).raw(",\n");
+        out.name(FIELD_INDENT, "content").string(article.getContent()).raw(",\n");
+        out.name(FIELD_INDENT, "dateCreated").string(article.getDateCreated().toString()).raw(",\n");
+        out.name(FIELD_INDENT, "dateEdited").string(article.getDateEdited().toString()).raw(",\n");
+        out.name(FIELD_INDENT, "tags");
+        encodeTags(out, article);
+        if (article.getRevisionCount() > 0) {
+            out.raw(",\n").name(FIELD_INDENT, "revisions");
+            encodeRevisions(out, article.getHistory(), article.getRevisionCount());
+        }
+        out.raw("\n").indent(ARTICLE_INDENT).raw("}");
+    }
+
+    // MODIFIES: out
+    // EFFECTS: encodes the tags of article as a JSON array
+    private static void encodeTags(JsonOutput out, ArticleSnapshot article) {
+        if (article.getTags().isEmpty()) {
+            out.raw("[]");
+            return;
+        }
+        out.raw("[");
+        boolean first = true;
+        for (Tag tag : article.getTags()) {
+            out.raw(first ? "\n" : ",\n").indent(TAG_INDENT).raw("{").string("name").raw(": ")
+                    .string(tag.getName()).raw("}");
+            first = false;
+        }
+        out.raw("\n").indent(FIELD_INDENT).raw("]");
+    }
+
+    // MODIFIES: out
+    // EFFECTS: encodes the first count revisions of history as a JSON array of revisions, each on one line; a
+    //          delta that replaces the whole text is encoded as the text, and any other delta as
+    //          [prefix, suffix, inserted]
+    private static void encodeRevisions(JsonOutput out, RevisionHistory history, int count) {
+        out.raw("[");
+        for (int i = 0; i < count; i++) {
+            out.raw(i == 0 ? "\n" : ",\n").indent(TAG_INDENT).raw("{").string("dateEdited").raw(": ")
+                    .string(history.getDateEdited(i).toString());
+            out.raw(", ").string("title").raw(": ");
+            encodeDelta(out, history.getTitle(i));
+            out.raw(", ").string("author").raw(": ");
+            encodeDelta(out, history.getAuthor(i));
+            out.raw(", ").string("content").raw(": ");
+            encodeDelta(out, history.getContent(i));
+            out.raw("}");
+        }
+        out.raw("\n").indent(FIELD_INDENT).raw("]");
+    }
+
+    // MODIFIES: out
+    // EFFECTS: encodes delta as a JSON string or array
+    private static void encodeDelta(JsonOutput out, TextDelta delta) {
+        if (delta.isReplacement()) {
+            out.string(delta.getInserted());
+        } else {
+            out.raw("[").number(delta.getPrefix()).raw(", ").number(delta.getSuffix()).raw(", ")
+                    .string(delta.getInserted()).raw("]");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes every remaining byte of buffers to the file with gathering writes
+    private void writeFully(ByteBuffer[] buffers) throws IOException {
+        int first = 0;
+        while (first < buffers.length) {
+            channel.write(buffers, first, buffers.length - first);
+            while (first < buffers.length && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
     }
 }
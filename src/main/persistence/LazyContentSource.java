@@ -0,0 +1,131 @@
+package persistence;
+
+import model.ContentSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Serves article content straight out of a memory-mapped blog file. Bodies are decoded when they are first
+// asked for and kept in a least-recently-used cache that is bounded by the total number of characters it
+// holds, so resident memory depends on the number of articles rather than on the size of their text.
+//
+// A single mapping is limited to 2 GB, so a larger file is mapped as several consecutive regions, and content
+// that straddles the end of one region is put together from both. The mapping stays valid after the file is
+// replaced by a save, because writers move a new file over the old one rather than rewriting it in place.
+//
+// Windows refuses to replace or delete a file while a mapping of it is open, and a mapping is only released
+// once it has been garbage collected, so there every save after a lazy load would fail. Lazy loading is
+// therefore only on by default where a mapped file can be replaced (see ENABLED_BY_DEFAULT).
+public class LazyContentSource implements ContentSource {
+    public static final boolean ENABLED_BY_DEFAULT = !System.getProperty("os.name", "").startsWith("Windows");
+    public static final int DEFAULT_CACHE_CHARS = 4 * 1024 * 1024;
+    private static final int REGION_BYTES = 1 << 30;
+
+    // How content is encoded in the file
+    public enum Encoding { UTF8, JSON_STRING }
+
+    private final ByteBuffer[] regions;
+    private final int regionBytes;
+    private final Encoding encoding;
+    private final int cacheChars;
+    private final LinkedHashMap<Long, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedChars;
+
+    // REQUIRES: cacheChars >= 0
+    // EFFECTS: constructs a source over data that caches up to cacheChars characters of decoded content
+    public LazyContentSource(ByteBuffer data, Encoding encoding, int cacheChars) {
+        this(new ByteBuffer[] {data}, Math.max(data.capacity(), 1), encoding, cacheChars);
+    }
+
+    // REQUIRES: regionBytes > 0, and every region but the last holds exactly regionBytes bytes
+    // EFFECTS: constructs a source over the consecutive regions of a file, as map does for a large one
+    LazyContentSource(ByteBuffer[] regions, int regionBytes, Encoding encoding, int cacheChars) {
+        this.regions = new ByteBuffer[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            this.regions[i] = regions[i].asReadOnlyBuffer();
+        }
+        this.regionBytes = regionBytes;
+        this.encoding = encoding;
+        this.cacheChars = cacheChars;
+    }
+
+    // EFFECTS: maps the file at path, in as many regions as its size takes, and returns a source over it with
+    //          the default cache size; throws IOException if the file cannot be mapped
+    public static LazyContentSource map(Path path, Encoding encoding) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] regions = new ByteBuffer[(int) Math.max(1, (size + REGION_BYTES - 1) / REGION_BYTES)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i * REGION_BYTES;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_BYTES, size - start));
+            }
+            return new LazyContentSource(regions, REGION_BYTES, encoding, DEFAULT_CACHE_CHARS);
+        }
+    }
+
+    // EFFECTS: returns the content stored at offset, decoding it unless it is in the cache
+    @Override
+    public String loadContent(long offset, int length) {
+        synchronized (cache) {
+            String cached = cache.get(offset);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String content = decode(offset, length);
+        synchronized (cache) {
+            if (content.length() <= cacheChars && cache.put(offset, content) == null) {
+                cachedChars += content.length();
+                evict();
+            }
+        }
+        return content;
+    }
+
+    // EFFECTS: returns the number of characters currently held in the cache
+    public int getCachedChars() {
+        synchronized (cache) {
+            return cachedChars;
+        }
+    }
+
+    // EFFECTS: decodes length bytes of content starting at offset
+    private String decode(long offset, int length) {
+        byte[] raw = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long at = offset + copied;
+            ByteBuffer view = regions[(int) (at / regionBytes)].duplicate();
+            view.position((int) (at % regionBytes));
+            int chunk = Math.min(length - copied, view.remaining());
+            view.get(raw, copied, chunk);
+            copied += chunk;
+        }
+        if (encoding == Encoding.UTF8) {
+            return new String(raw, StandardCharsets.UTF_8);
+        }
+        try {
+            return JsonPullParser.decodeString(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops least recently used entries until the cache fits within its budget
+    private void evict() {
+        Iterator<Map.Entry<Long, String>> eldest = cache.entrySet().iterator();
+        while (cachedChars > cacheChars && eldest.hasNext()) {
+            cachedChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package persistence;
+
+import model.Article;
+
+import java.io.InterruptedIOException;
+
+// Receives the articles of a blog one at a time while a reader parses them, so that a blog can be shown
+// before it has finished loading. Readers stop with an InterruptedIOException once the loading thread has
+// been interrupted, which is how a load is cancelled.
+public interface LoadListener {
+    LoadListener NONE = (article, position, size) -> { };
+
+    // EFFECTS: called after article has been read and added to the blog; position is how far the reader
+    //          has got through the snapshot and size is the size of the snapshot, both in bytes
+    void articleRead(Article article, long position, long size);
+
+    // EFFECTS: throws InterruptedIOException if the current thread has been interrupted
+    static void checkNotCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Loading was cancelled");
+        }
+    }
+}
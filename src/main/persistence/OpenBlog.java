@@ -0,0 +1,85 @@
+package persistence;
+
+import model.Blog;
+import model.BlogChange;
+import model.BlogSnapshot;
+import model.ChangeCursor;
+import model.ChangeListener;
+
+import java.io.IOException;
+import java.util.List;
+
+// A blog that a Workspace has open, with the store it is saved in and the saver that saves its changes in
+// the background. Changes to the blog are made through the saver as usual. The handle stays valid until the
+// workspace evicts or closes the blog; after that, ask the workspace to open it again.
+public class OpenBlog {
+    private final String name;
+    private final Blog blog;
+    private final JournalStore store;
+    private final WriteBehindSaver saver;
+    private final ChangeCursor changes;
+    private long weight;
+    private boolean weighed;
+
+    // EFFECTS: constructs a handle on blog, saved in store by saver, under name
+    OpenBlog(String name, Blog blog, JournalStore store, WriteBehindSaver saver) {
+        this.name = name;
+        this.blog = blog;
+        this.store = store;
+        this.saver = saver;
+        this.changes = blog.newChangeCursor();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Blog getBlog() {
+        return blog;
+    }
+
+    public JournalStore getStore() {
+        return store;
+    }
+
+    public WriteBehindSaver getSaver() {
+        return saver;
+    }
+
+    // EFFECTS: returns the weight of the blog when it was last weighed
+    long getWeight() {
+        return weight;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: weighs the blog with weigher from the changes made to it since it was last weighed, all over
+    //          again the first time or if the changes are no longer known
+    void reweigh(BlogWeigher weigher) {
+        if (!weighed) {
+            weight = weigher.weigh(blog);
+            weighed = true;
+            return;
+        }
+        changes.deliver(new ChangeListener() {
+            @Override
+            public void changed(List<BlogChange> batch) {
+                weight = weigher.reweigh(blog, weight, batch);
+            }
+
+            @Override
+            public void reset(BlogSnapshot snapshot) {
+                weight = weigher.weigh(blog);
+            }
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves the changes still waiting to be saved, then closes the store; if the save fails the
+    //          store is left open and the changes are kept, and IOException is thrown
+    void close() throws IOException {
+        // A failed await leaves the saver running, so that the changes can still be saved later
+        saver.await();
+        saver.close();
+        store.close();
+    }
+}
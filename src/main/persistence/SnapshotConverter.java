@@ -0,0 +1,46 @@
+package persistence;
+
+import model.Blog;
+
+import java.io.IOException;
+
+// Command line tool that converts a blog between the JSON and binary snapshot formats.
+// Usage: SnapshotConverter (to-binary | to-json) <source> <destination>
+public class SnapshotConverter {
+
+    public static void main(String[] args) {
+        if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-json"))) {
+            System.err.println("Usage: SnapshotConverter (to-binary | to-json) <source> <destination>");
+            System.exit(2);
+        }
+        try {
+            if (args[0].equals("to-binary")) {
+                toBinary(args[1], args[2]);
+            } else {
+                toJson(args[1], args[2]);
+            }
+            System.out.println(String.format("Converted %s to %s", args[1], args[2]));
+        } catch (IOException e) {
+            System.err.println("Unable to convert " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // EFFECTS: reads the blog at source (in either format) and writes it to destination as a binary snapshot
+    public static void toBinary(String source, String destination) throws IOException {
+        Blog blog = new JsonReader(source).read();
+        BinaryWriter writer = new BinaryWriter(destination);
+        writer.open();
+        writer.write(blog);
+        writer.close();
+    }
+
+    // EFFECTS: reads the blog at source (in either format) and writes it to destination as JSON
+    public static void toJson(String source, String destination) throws IOException {
+        Blog blog = new JsonReader(source).read();
+        JsonWriter writer = new JsonWriter(destination);
+        writer.open();
+        writer.write(blog);
+        writer.close();
+    }
+}
@@ -0,0 +1,217 @@
+package persistence;
+
+import model.Blog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// A directory of blogs, each stored by a JournalStore as <name>.json with its journal and search index next
+// to it. Blogs are opened by name and stay open in memory, most recently used last, while the sum of their
+// weights, as estimated by a BlogWeigher, is within the heap budget. Opening a blog that takes the sum past
+// the budget evicts the least recently used blogs until it is back within it; the blog just opened is
+// never evicted, even if it is over the budget on its own. A blog's changes are saved before it is evicted,
+// and a blog whose changes cannot be saved stays open and is reported to the error handler.
+//
+// Blogs are weighed when they are opened and again whenever they are opened from memory, so a blog that
+// grows while it is in use is charged for its growth the next time it is switched to. Weighing a blog again
+// only goes through the changes made to it since it was last weighed (see model.ChangeCursor), and takes as
+// long as those changes do with a weigher that can work from them, such as BlogWeigher.ESTIMATE.
+public class Workspace implements Closeable {
+    public static final String EXTENSION = ".json";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9 _.-]*");
+
+    private final Path directory;
+    private final long heapBudget;
+    private final BlogWeigher weigher;
+    private final long saveWindowMillis;
+    private final Consumer<IOException> errorHandler;
+    private final LinkedHashMap<String, OpenBlog> open = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private boolean lazyContent = LazyContentSource.ENABLED_BY_DEFAULT;
+
+    // REQUIRES: heapBudget > 0, saveWindowMillis >= 0
+    // EFFECTS: constructs a workspace of the blogs in directory that keeps the blogs it has open within
+    //          heapBudget bytes as weighed by weigher, saves changes saveWindowMillis after they are made, and
+    //          reports failed saves to errorHandler
+    public Workspace(Path directory, long heapBudget, BlogWeigher weigher, long saveWindowMillis,
+                     Consumer<IOException> errorHandler) {
+        this.directory = directory;
+        this.heapBudget = heapBudget;
+        this.weigher = weigher;
+        this.saveWindowMillis = saveWindowMillis;
+        this.errorHandler = errorHandler;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets whether blogs are loaded with their content left on disk until it is needed; by default
+    //          they are wherever the file holding the content can still be replaced by a save
+    public synchronized void setLazyContent(boolean lazyContent) {
+        this.lazyContent = lazyContent;
+    }
+
+    // EFFECTS: returns the names of the blogs stored in the directory, in alphabetical order
+    public List<String> listBlogs() throws IOException {
+        ArrayList<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                names.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            }
+        } catch (NoSuchFileException e) {
+            return names;
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    // EFFECTS: returns true if a blog called name is stored in the directory
+    public boolean exists(String name) {
+        return Files.isRegularFile(pathOf(name));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the blog called name, loading it if it is not open, and evicts blogs that have not
+    //          been used recently if that takes the workspace over its budget; throws IOException if the
+    //          blog cannot be loaded, and IllegalArgumentException if name is not a valid blog name
+    public OpenBlog open(String name) throws IOException {
+        return open(name, LoadListener.NONE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: like open(name), but if the blog has to be loaded, passes each article to listener as soon as
+    //          it has been read (see JournalStore.load(LoadListener)); nothing is opened if the thread is
+    //          interrupted while the blog is loading
+    public synchronized OpenBlog open(String name, LoadListener listener) throws IOException {
+        OpenBlog blog = open.get(name);
+        if (blog == null) {
+            JournalStore store = newStore(name);
+            blog = track(name, store.load(listener), store);
+        } else {
+            reweigh(blog);
+        }
+        evictOver(blog);
+        return blog;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the blog called name, open or stored, with a new empty blog with the given title,
+    //          schedules it to be written to the directory, and returns it
+    public synchronized OpenBlog create(String name, String title) throws IOException {
+        evict(name);
+        Files.createDirectories(directory);
+        JournalStore store = newStore(name);
+        Blog blog = new Blog(title);
+        store.start(blog);
+        OpenBlog created = track(name, blog, store);
+        created.getSaver().markDirty();
+        evictOver(created);
+        return created;
+    }
+
+    // EFFECTS: returns true if the blog called name is open in memory
+    public synchronized boolean isOpen(String name) {
+        return open.containsKey(name);
+    }
+
+    // EFFECTS: returns the names of the open blogs, least recently used first
+    public synchronized List<String> openBlogs() {
+        return new ArrayList<>(open.keySet());
+    }
+
+    // EFFECTS: returns the sum of the weights of the open blogs
+    public synchronized long weight() {
+        return weight;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves and closes the blog called name if it is open; throws IOException and leaves it open
+    //          if its changes cannot be saved
+    public synchronized void evict(String name) throws IOException {
+        OpenBlog blog = open.get(name);
+        if (blog != null) {
+            blog.close();
+            open.remove(name);
+            weight -= blog.getWeight();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves and closes every open blog; throws the first IOException if any blog cannot be saved,
+    //          after trying every one of them
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (String name : new ArrayList<>(open.keySet())) {
+            try {
+                evict(name);
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: evicts the least recently used blogs other than kept until the workspace is within its
+    //          budget; a blog that cannot be saved is kept and reported to the error handler
+    private void evictOver(OpenBlog kept) {
+        Iterator<OpenBlog> eldest = new ArrayList<>(open.values()).iterator();
+        while (weight > heapBudget && eldest.hasNext()) {
+            OpenBlog blog = eldest.next();
+            if (blog != kept) {
+                try {
+                    evict(blog.getName());
+                } catch (IOException e) {
+                    errorHandler.accept(e);
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens blog, stored in store, under name and returns it
+    private OpenBlog track(String name, Blog blog, JournalStore store) {
+        OpenBlog tracked = new OpenBlog(name, blog, store, new WriteBehindSaver(store, saveWindowMillis,
+                errorHandler));
+        open.put(name, tracked);
+        reweigh(tracked);
+        return tracked;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: weighs the open blog again
+    private void reweigh(OpenBlog blog) {
+        long previous = blog.getWeight();
+        blog.reweigh(weigher);
+        weight += blog.getWeight() - previous;
+    }
+
+    // EFFECTS: returns a store for the blog called name
+    private JournalStore newStore(String name) {
+        JournalStore store = new JournalStore(pathOf(name).toString());
+        store.setLazyContent(lazyContent);
+        return store;
+    }
+
+    // EFFECTS: returns the path of the snapshot of the blog called name; throws IllegalArgumentException if
+    //          name is not a valid blog name
+    private Path pathOf(String name) {
+        if (!NAME.matcher(name).matches() || name.contains("..")) {
+            throw new IllegalArgumentException("Invalid blog name: " + name);
+        }
+        return directory.resolve(name + EXTENSION);
+    }
+}
@@ -0,0 +1,162 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Saves the changes recorded in a JournalStore on a background thread, so that the thread making changes
+// never waits for the disk. Changes are reported with update() or markDirty(); the first change after a
+// save starts a window of windowMillis, and every change made within the window is committed together once
+// it ends. flush() ends the window early, await() waits until every change reported so far is durable, and
+// close() does both and stops the background thread.
+//
+// A commit may compact the journal, which writes out the whole blog. Compaction takes a snapshot of the blog
+// under the store's lock and writes it without the lock, so changes to the blog must be made inside update(),
+// which takes the same lock, for the snapshot to match the journal; they do not wait for the blog to be
+// written. Saves that fail are reported to the error handler on the background thread and retried
+// with the next change, flush() or await().
+public class WriteBehindSaver implements Closeable {
+    private final JournalStore store;
+    private final long windowMillis;
+    private final Consumer<IOException> errorHandler;
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> scheduled;
+    private boolean saving;
+    private long changedSeq;
+    private long savedSeq;
+    private IOException failure;
+    private boolean closed;
+
+    // REQUIRES: windowMillis >= 0
+    // EFFECTS: constructs a saver that commits store at most windowMillis after a change and reports
+    //          failed saves to errorHandler
+    public WriteBehindSaver(JournalStore store, long windowMillis, Consumer<IOException> errorHandler) {
+        this.store = store;
+        this.windowMillis = windowMillis;
+        this.errorHandler = errorHandler;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blog-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: runs change, which changes the blog and records the change in the store, while no save is
+    //          reading the blog, then schedules the change to be saved
+    public void update(Runnable change) {
+        update(() -> {
+            change.run();
+            return null;
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: like update(Runnable), but returns the result of change
+    public <T> T update(Supplier<T> change) {
+        T result;
+        synchronized (store) {
+            result = change.get();
+        }
+        markDirty();
+        return result;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: schedules a save of the changes recorded in the store; throws IllegalStateException if the
+    //          saver has been closed
+    public synchronized void markDirty() {
+        if (closed) {
+            throw new IllegalStateException("The saver has been closed");
+        }
+        changedSeq++;
+        if (scheduled == null) {
+            scheduled = executor.schedule(this::save, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts saving the changes reported so far right away instead of at the end of the window
+    public synchronized void flush() {
+        if (closed || changedSeq == savedSeq) {
+            return;
+        }
+        if (scheduled == null || scheduled.cancel(false)) {
+            scheduled = executor.schedule(this::save, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // EFFECTS: saves the changes reported so far and waits until they are durable; throws IOException if
+    //          the save fails
+    public synchronized void await() throws IOException {
+        long target = changedSeq;
+        flush();
+        while (savedSeq < target) {
+            if (failure != null && !saving && scheduled == null) {
+                throw new IOException("Unable to save the blog", failure);
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the blog to be saved");
+            }
+        }
+    }
+
+    // EFFECTS: returns true if there are changes that have not been saved yet
+    public synchronized boolean isDirty() {
+        return savedSeq < changedSeq;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves the changes reported so far, waits for them and stops the background thread; later
+    //          changes are rejected
+    @Override
+    public void close() throws IOException {
+        try {
+            await();
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+            executor.shutdown();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: commits the store; runs on the background thread
+    private void save() {
+        long target;
+        synchronized (this) {
+            scheduled = null;
+            saving = true;
+            target = changedSeq;
+        }
+        IOException error = null;
+        try {
+            store.commit();
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        }
+        synchronized (this) {
+            saving = false;
+            failure = error;
+            if (error == null) {
+                savedSeq = Math.max(savedSeq, target);
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            errorHandler.accept(error);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package render;
+
+// What an export of a blog as a static site did: how many pages the site has, how many of them were out of
+// date and rendered again, how many of those came out different and were written, and how many pages that
+// are no longer part of the site were deleted
+public class ExportSummary {
+    private final int pages;
+    private final int rendered;
+    private final int written;
+    private final int deleted;
+
+    // EFFECTS: constructs a summary of an export with the given counts
+    public ExportSummary(int pages, int rendered, int written, int deleted) {
+        this.pages = pages;
+        this.rendered = rendered;
+        this.written = written;
+        this.deleted = deleted;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public int getRendered() {
+        return rendered;
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pages: %d rendered, %d written, %d deleted", pages, rendered, written, deleted);
+    }
+}
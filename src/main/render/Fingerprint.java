@@ -0,0 +1,91 @@
+package render;
+
+// Builds a 128-bit hash of a sequence of values, to tell whether the inputs or the bytes of a page have
+// changed. Every string and byte array is preceded by its length, so two different sequences never feed the
+// hash the same values; ("ab", "c") and ("a", "bc") have different fingerprints.
+//
+// Stamping a site hashes the title of every article several times over, so the hash is a fast multiply-and-
+// rotate one, with two lanes that are mixed together at the end, rather than a cryptographic digest. It
+// tells apart inputs that differ, but is no defence against inputs crafted to collide. A fingerprint can be
+// reused for one sequence after another.
+final class Fingerprint {
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long MULTIPLIER_1 = 0x87C37B91114253D5L;
+    private static final long MULTIPLIER_2 = 0x4CF5AD432745937FL;
+
+    private long lane1 = SEED_1;
+    private long lane2 = SEED_2;
+    private long count;
+
+    // MODIFIES: this
+    // EFFECTS: adds n to the sequence and returns this
+    Fingerprint add(long n) {
+        lane1 = Long.rotateLeft(lane1 ^ (n * MULTIPLIER_1), 31) * MULTIPLIER_2;
+        lane2 = Long.rotateLeft(lane2 + (n * MULTIPLIER_2), 27) * MULTIPLIER_1 + lane1;
+        count++;
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds s to the sequence and returns this
+    Fingerprint add(String s) {
+        int length = s.length();
+        add(length);
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            add(((long) s.charAt(i) << 48) | ((long) s.charAt(i + 1) << 32) | ((long) s.charAt(i + 2) << 16)
+                    | s.charAt(i + 3));
+        }
+        for (; i < length; i++) {
+            add(s.charAt(i));
+        }
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds bytes to the sequence and returns this
+    Fingerprint add(byte[] bytes) {
+        add(bytes.length);
+        int i = 0;
+        for (; i + 8 <= bytes.length; i += 8) {
+            long n = 0;
+            for (int j = i; j < i + 8; j++) {
+                n = (n << 8) | (bytes[j] & 0xFF);
+            }
+            add(n);
+        }
+        for (; i < bytes.length; i++) {
+            add(bytes[i]);
+        }
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the hash of the sequence as 32 hex digits and starts a new, empty sequence
+    String toHex() {
+        long hash1 = mix(lane1 ^ count);
+        long hash2 = mix(lane2 ^ count);
+        hash1 += hash2;
+        hash2 += hash1;
+        lane1 = SEED_1;
+        lane2 = SEED_2;
+        count = 0;
+        return hex(hash1) + hex(hash2);
+    }
+
+    // EFFECTS: returns k with its bits mixed so that each one affects all of the others
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        return k ^ (k >>> 33);
+    }
+
+    // EFFECTS: returns n as 16 hex digits
+    private static String hex(long n) {
+        String digits = Long.toHexString(n);
+        return "0000000000000000".substring(digits.length()) + digits;
+    }
+}
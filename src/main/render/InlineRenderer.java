@@ -0,0 +1,400 @@
+package render;
+
+import java.util.Locale;
+
+// Renders the inline Markdown of one paragraph or heading: backslash escapes, code spans, emphasis and strong
+// emphasis with * or _, links, images, autolinks and hard line breaks. Everything else is escaped as text.
+//
+// Emphasis, code spans and links are matched by searching forward for the closing delimiter. Each search is
+// charged against a budget proportional to the length of the text, and once the budget is spent the rest
+// of the delimiters are left as plain text, so text full of unmatched delimiters cannot make rendering take
+// quadratic time. Spans nested deeper than MAX_DEPTH are likewise left as plain text.
+final class InlineRenderer {
+    private static final int MAX_DEPTH = 16;
+    private static final int BUDGET_PER_CHAR = 32;
+    private static final int MIN_BUDGET = 4096;
+    private static final String[] SAFE_SCHEMES = {"http", "https", "mailto", "ftp"};
+
+    private final String text;
+    private long budget;
+
+    // EFFECTS: constructs a renderer of the inline Markdown in text
+    InlineRenderer(String text) {
+        this.text = text;
+        this.budget = (long) text.length() * BUDGET_PER_CHAR + MIN_BUDGET;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends the text rendered as HTML to html
+    void render(StringBuilder html) {
+        span(0, text.length(), html, 0);
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends text[start, end) rendered as HTML to html
+    private void span(int start, int end, StringBuilder html, int depth) {
+        int i = start;
+        while (i < end) {
+            i = token(i, end, html, depth);
+        }
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the token starting at text[i] and returns the index just past it
+    private int token(int i, int end, StringBuilder html, int depth) {
+        char c = text.charAt(i);
+        switch (c) {
+            case '\\':
+                return backslash(i, end, html);
+            case '`':
+                return codeSpan(i, end, html);
+            case '*':
+            case '_':
+                return emphasis(i, end, html, depth);
+            case '!':
+                return bang(i, end, html, depth);
+            case '[':
+                return link(i, end, html, depth, false);
+            case '<':
+                return autolink(i, end, html);
+            case '\n':
+                lineBreak(html);
+                return i + 1;
+            default:
+                escape(c, html);
+                return i + 1;
+        }
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the image opened by the ! at text[i], or the ! if it does not open one, and returns
+    //          the index just past what was rendered
+    private int bang(int i, int end, StringBuilder html, int depth) {
+        if (i + 1 < end && text.charAt(i + 1) == '[') {
+            return link(i + 1, end, html, depth, true);
+        }
+        html.append('!');
+        return i + 1;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders a backslash escape or a hard line break and returns the index just past it
+    private int backslash(int i, int end, StringBuilder html) {
+        if (i + 1 < end && text.charAt(i + 1) == '\n') {
+            html.append("<br>\n");
+            return i + 2;
+        }
+        if (i + 1 < end && isPunctuation(text.charAt(i + 1))) {
+            escape(text.charAt(i + 1), html);
+            return i + 2;
+        }
+        html.append('\\');
+        return i + 1;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the line break at the end of a line; one that follows two or more spaces is kept
+    private void lineBreak(StringBuilder html) {
+        int spaces = 0;
+        while (spaces < html.length() && html.charAt(html.length() - 1 - spaces) == ' ') {
+            spaces++;
+        }
+        html.setLength(html.length() - spaces);
+        html.append(spaces >= 2 ? "<br>\n" : "\n");
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the code span opened by the backticks at text[i], or the backticks themselves if it
+    //          is never closed, and returns the index just past what was rendered
+    private int codeSpan(int i, int end, StringBuilder html) {
+        int run = runLength(i, end, '`');
+        int close = i + run;
+        while ((close = find('`', close, end)) >= 0 && runLength(close, end, '`') != run) {
+            close += runLength(close, end, '`');
+        }
+        if (close < 0) {
+            html.append(text, i, i + run);
+            return i + run;
+        }
+        String code = text.substring(i + run, close).replace('\n', ' ');
+        if (code.length() > 2 && code.startsWith(" ") && code.endsWith(" ") && !code.trim().isEmpty()) {
+            code = code.substring(1, code.length() - 1);
+        }
+        html.append("<code>");
+        escape(code, html);
+        html.append("</code>");
+        return close + run;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the emphasis opened by the run of * or _ at text[i], or the run itself if it does
+    //          not open emphasis, and returns the index just past what was rendered
+    private int emphasis(int i, int end, StringBuilder html, int depth) {
+        char delimiter = text.charAt(i);
+        int run = runLength(i, end, delimiter);
+        boolean opens = i + run < end && !Character.isWhitespace(text.charAt(i + run))
+                && (delimiter == '*' || i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+        int width = Math.min(run, 2);
+        int close = opens && depth < MAX_DEPTH ? findCloser(delimiter, width, i + width, end) : -1;
+        if (close < 0 && width == 2 && opens && depth < MAX_DEPTH) {
+            width = 1;
+            close = findCloser(delimiter, 1, i + 1, end);
+        }
+        if (close < 0) {
+            html.append(text, i, i + run);
+            return i + run;
+        }
+        String tag = width == 2 ? "strong" : "em";
+        html.append('<').append(tag).append('>');
+        span(i + width, close, html, depth + 1);
+        html.append("</").append(tag).append('>');
+        return close + width;
+    }
+
+    // EFFECTS: returns the position of the width delimiters that close emphasis whose content starts at
+    //          from, or -1 if there are none before end. A closing run follows a character other than
+    //          whitespace and is as long as the opening run, or is three or more long and closes with its
+    //          last delimiters; an _ run must also not be followed by a letter or digit.
+    private int findCloser(char delimiter, int width, int from, int end) {
+        int q = from;
+        while ((q = find(delimiter, q, end)) >= 0) {
+            int run = runLength(q, end, delimiter);
+            spend(run);
+            boolean flanking = q > from && !Character.isWhitespace(text.charAt(q - 1))
+                    && (delimiter == '*' || q + run == end || !Character.isLetterOrDigit(text.charAt(q + run)));
+            if (flanking && (run == width || run >= 3)) {
+                return q + run - width;
+            }
+            q += run;
+        }
+        return -1;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the link or image whose text is opened by the bracket at text[i], or the bracket
+    //          (and the ! of an image) if it is not one, and returns the index just past what was rendered
+    private int link(int i, int end, StringBuilder html, int depth, boolean image) {
+        int close = depth < MAX_DEPTH ? closingBracket(i, end) : -1;
+        int[] destination = close < 0 ? null : destination(close + 1, end);
+        if (destination == null) {
+            html.append(image ? "![" : "[");
+            return i + 1;
+        }
+        String url = safeUrl(text.substring(destination[0], destination[1]));
+        String title = destination[2] < 0 ? null : text.substring(destination[2], destination[3]);
+        if (image) {
+            appendImage(url, text.substring(i + 1, close), title, html);
+        } else {
+            openAnchor(url, title, html);
+            span(i + 1, close, html, depth + 1);
+            html.append(url == null ? "" : "</a>");
+        }
+        return destination[4];
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders an image of url with the given alt text and title, or just the alt text if url is null
+    private static void appendImage(String url, String alt, String title, StringBuilder html) {
+        if (url == null) {
+            escape(alt, html);
+            return;
+        }
+        html.append("<img src=\"");
+        escape(url, html);
+        html.append("\" alt=\"");
+        escape(alt, html);
+        html.append('"');
+        appendTitle(title, html);
+        html.append('>');
+    }
+
+    // MODIFIES: html
+    // EFFECTS: opens a link to url with the given title, or does nothing if url is null
+    private static void openAnchor(String url, String title, StringBuilder html) {
+        if (url == null) {
+            return;
+        }
+        html.append("<a href=\"");
+        escape(url, html);
+        html.append('"');
+        appendTitle(title, html);
+        html.append('>');
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends a title attribute, unless title is null
+    private static void appendTitle(String title, StringBuilder html) {
+        if (title != null) {
+            html.append(" title=\"");
+            escape(title, html);
+            html.append('"');
+        }
+    }
+
+    // EFFECTS: returns the position of the bracket that closes the one at text[open], skipping nested
+    //          brackets and escaped characters, or -1 if there is none before end
+    private int closingBracket(int open, int end) {
+        int nesting = 0;
+        for (int i = open; i < end && spend(1); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                nesting++;
+            } else if (c == ']' && --nesting == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: parses the destination of a link, (url "optional title"), starting at text[i], and returns
+    //          the bounds of the url, the bounds of the title or -1, and the index just past the closing
+    //          parenthesis; returns null if there is no destination there
+    private int[] destination(int i, int end) {
+        if (i >= end || text.charAt(i) != '(') {
+            return null;
+        }
+        int urlStart = skipSpaces(i + 1, end);
+        int urlEnd = urlEnd(urlStart, end);
+        int j = skipSpaces(urlEnd, end);
+        int titleStart = -1;
+        int titleEnd = -1;
+        if (j < end && text.charAt(j) == '"' && j > urlEnd) {
+            titleStart = j + 1;
+            titleEnd = find('"', titleStart, end);
+            if (titleEnd < 0) {
+                return null;
+            }
+            j = skipSpaces(titleEnd + 1, end);
+        }
+        if (j >= end || text.charAt(j) != ')') {
+            return null;
+        }
+        return new int[] {urlStart, urlEnd, titleStart, titleEnd, j + 1};
+    }
+
+    // EFFECTS: returns the index just past the url of a link destination starting at text[i]: the url ends
+    //          at whitespace or at a closing parenthesis that does not balance one inside it
+    private int urlEnd(int i, int end) {
+        int j = i;
+        int parentheses = 0;
+        for (; j < end && !Character.isWhitespace(text.charAt(j)) && spend(1); j++) {
+            if (text.charAt(j) == '(') {
+                parentheses++;
+            } else if (text.charAt(j) == ')' && parentheses-- == 0) {
+                break;
+            }
+        }
+        return j;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the autolink opened by the < at text[i], such as <https://example.com>, or the < itself
+    //          if it does not open one, and returns the index just past what was rendered
+    private int autolink(int i, int end, StringBuilder html) {
+        int close = i + 1;
+        while (close < end && "<> \t\n".indexOf(text.charAt(close)) < 0) {
+            close++;
+        }
+        String target = close < end && text.charAt(close) == '>' ? text.substring(i + 1, close) : "";
+        boolean email = target.indexOf('@') > 0 && target.indexOf(':') < 0;
+        String url = email ? "mailto:" + target : safeUrl(target);
+        if (url == null || (!email && target.indexOf(':') < 0)) {
+            html.append("&lt;");
+            return i + 1;
+        }
+        openAnchor(url, null, html);
+        escape(target, html);
+        html.append("</a>");
+        return close + 1;
+    }
+
+    // EFFECTS: returns url if it is relative or uses a scheme that is safe to follow, otherwise null
+    private static String safeUrl(String url) {
+        int colon = url.indexOf(':');
+        int path = url.length();
+        for (char c : new char[] {'/', '?', '#'}) {
+            path = url.indexOf(c) >= 0 ? Math.min(path, url.indexOf(c)) : path;
+        }
+        if (colon < 0 || colon > path) {
+            return url;
+        }
+        String scheme = url.substring(0, colon).toLowerCase(Locale.ROOT);
+        for (String safe : SAFE_SCHEMES) {
+            if (safe.equals(scheme)) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    // EFFECTS: returns the position of the first c in text[from, end), or -1 if there is none or the budget
+    //          for searching has been spent
+    private int find(char c, int from, int end) {
+        int at = from;
+        while (at < end && text.charAt(at) != c) {
+            at++;
+        }
+        return spend(at - from + 1) && at < end ? at : -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: charges cost to the budget for searching; returns false if the budget has been spent
+    private boolean spend(int cost) {
+        budget -= cost;
+        return budget >= 0;
+    }
+
+    // EFFECTS: returns the number of times c repeats from text[i] on, up to end
+    private int runLength(int i, int end, char c) {
+        int j = i;
+        while (j < end && text.charAt(j) == c) {
+            j++;
+        }
+        return j - i;
+    }
+
+    // EFFECTS: returns the index of the first character at or after i that is not a space
+    private int skipSpaces(int i, int end) {
+        int j = i;
+        while (j < end && (text.charAt(j) == ' ' || text.charAt(j) == '\n')) {
+            j++;
+        }
+        return j;
+    }
+
+    // EFFECTS: returns true if c is ASCII punctuation, which a backslash escapes
+    private static boolean isPunctuation(char c) {
+        return c < 128 && "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".indexOf(c) >= 0;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends s to html with the characters that are special in HTML escaped
+    static void escape(String s, StringBuilder html) {
+        for (int i = 0; i < s.length(); i++) {
+            escape(s.charAt(i), html);
+        }
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends c to html, escaped if it is special in HTML
+    private static void escape(char c, StringBuilder html) {
+        switch (c) {
+            case '&':
+                html.append("&amp;");
+                break;
+            case '<':
+                html.append("&lt;");
+                break;
+            case '>':
+                html.append("&gt;");
+                break;
+            case '"':
+                html.append("&quot;");
+                break;
+            default:
+                html.append(c);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package render;
+
+import java.util.ArrayList;
+
+// Renders the Markdown content of an article to HTML. The common subset of Markdown is supported: ATX
+// headings, paragraphs with hard line breaks, block quotes, bullet and ordered lists (nested by indenting),
+// fenced and indented code blocks and horizontal rules, with the inline spans handled by InlineRenderer.
+// Raw HTML in the content is escaped rather than passed through, so a rendered article shows exactly what
+// was written and can never run script in the viewer.
+//
+// The content is read a line at a time and every line is looked at a bounded number of times, so rendering
+// takes time linear in the length of the content; quotes and lists nested deeper than MAX_DEPTH are
+// rendered as plain paragraphs rather than recursed into.
+public class MarkdownRenderer {
+    // Bump whenever the HTML produced for the same Markdown changes, so that stored renders are not reused
+    public static final int VERSION = 1;
+    private static final int MAX_DEPTH = 16;
+    private static final int CODE_INDENT = 4;
+
+    // EFFECTS: returns markdown rendered as an HTML fragment
+    public String render(String markdown) {
+        StringBuilder html = new StringBuilder(markdown.length() + markdown.length() / 4 + 16);
+        String[] lines = lines(markdown);
+        renderBlocks(lines, 0, lines.length, html, 0, false);
+        return html.toString();
+    }
+
+    // EFFECTS: returns the lines of text, without line terminators and with leading tabs expanded to spaces
+    private static String[] lines(String text) {
+        String[] lines = text.split("\r\n|\r|\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].startsWith("\t") || lines[i].startsWith(" \t")) {
+                lines[i] = expandLeadingTabs(lines[i]);
+            }
+        }
+        return lines;
+    }
+
+    // EFFECTS: returns line with each tab before its first other character replaced by spaces up to the
+    //          next multiple of four columns
+    private static String expandLeadingTabs(String line) {
+        StringBuilder expanded = new StringBuilder();
+        int i = 0;
+        for (; i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t'); i++) {
+            expanded.append(' ');
+            while (line.charAt(i) == '\t' && expanded.length() % CODE_INDENT != 0) {
+                expanded.append(' ');
+            }
+        }
+        return expanded.append(line, i, line.length()).toString();
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders lines[from, to) as a sequence of blocks; in a tight list item, paragraphs are not
+    //          wrapped in <p> elements
+    private void renderBlocks(String[] lines, int from, int to, StringBuilder html, int depth, boolean tight) {
+        int i = from;
+        while (i < to) {
+            String line = lines[i];
+            if (isBlank(line)) {
+                i++;
+            } else if (fence(line) != null) {
+                i = renderFencedCode(lines, i, to, html);
+            } else if (indent(line) >= CODE_INDENT) {
+                i = renderIndentedCode(lines, i, to, html);
+            } else if (headingLevel(line) > 0) {
+                renderHeading(line, html);
+                i++;
+            } else if (isRule(line)) {
+                html.append("<hr>\n");
+                i++;
+            } else if (depth < MAX_DEPTH && isQuote(line)) {
+                i = renderQuote(lines, i, to, html, depth);
+            } else if (depth < MAX_DEPTH && ListMarker.of(line) != null) {
+                i = renderList(lines, i, to, html, depth);
+            } else {
+                i = renderParagraph(lines, i, to, html, tight);
+            }
+        }
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the paragraph starting at lines[from] and returns the index of the line after it
+    private int renderParagraph(String[] lines, int from, int to, StringBuilder html, boolean tight) {
+        int end = from + 1;
+        while (end < to && !isBlank(lines[end]) && !interruptsParagraph(lines[end])) {
+            end++;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = from; i < end; i++) {
+            text.append(i == from ? "" : "\n").append(lines[i], Math.min(indent(lines[i]), lines[i].length()),
+                    lines[i].length());
+        }
+        String trimmed = stripTrailingSpaces(text);
+        html.append(tight ? "" : "<p>");
+        new InlineRenderer(trimmed).render(html);
+        html.append(tight ? "\n" : "</p>\n");
+        return end;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders an ATX heading
+    private void renderHeading(String line, StringBuilder html) {
+        int level = headingLevel(line);
+        String text = line.trim().substring(level).trim();
+        int closing = text.length();
+        while (closing > 0 && text.charAt(closing - 1) == '#') {
+            closing--;
+        }
+        if (closing == 0 || text.charAt(closing - 1) == ' ') {
+            text = text.substring(0, closing).trim();
+        }
+        html.append("<h").append(level).append('>');
+        new InlineRenderer(text).render(html);
+        html.append("</h").append(level).append(">\n");
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the fenced code block starting at lines[from] and returns the index of the line after
+    //          it; a block that is never closed runs to the end of its container
+    private int renderFencedCode(String[] lines, int from, int to, StringBuilder html) {
+        String fence = fence(lines[from]);
+        int fenceIndent = indent(lines[from]);
+        String info = lines[from].trim().substring(fence.length()).trim();
+        html.append("<pre><code");
+        if (!info.isEmpty()) {
+            html.append(" class=\"language-");
+            InlineRenderer.escape(info.split("\\s+")[0], html);
+            html.append('"');
+        }
+        html.append('>');
+        int i = from + 1;
+        for (; i < to && !closesFence(lines[i], fence); i++) {
+            InlineRenderer.escape(stripIndent(lines[i], fenceIndent), html);
+            html.append('\n');
+        }
+        html.append("</code></pre>\n");
+        return Math.min(i + 1, to);
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the indented code block starting at lines[from] and returns the index of the line
+    //          after it
+    private int renderIndentedCode(String[] lines, int from, int to, StringBuilder html) {
+        int end = from;
+        int last = from;
+        while (end < to && (isBlank(lines[end]) || indent(lines[end]) >= CODE_INDENT)) {
+            if (!isBlank(lines[end])) {
+                last = end;
+            }
+            end++;
+        }
+        html.append("<pre><code>");
+        for (int i = from; i <= last; i++) {
+            InlineRenderer.escape(stripIndent(lines[i], CODE_INDENT), html);
+            html.append('\n');
+        }
+        html.append("</code></pre>\n");
+        return last + 1;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the block quote starting at lines[from] and returns the index of the line after it
+    private int renderQuote(String[] lines, int from, int to, StringBuilder html, int depth) {
+        ArrayList<String> quoted = new ArrayList<>();
+        int i = from;
+        for (; i < to && isQuote(lines[i]); i++) {
+            String line = lines[i].trim().substring(1);
+            quoted.add(line.startsWith(" ") ? line.substring(1) : line);
+        }
+        html.append("<blockquote>\n");
+        renderBlocks(quoted.toArray(new String[0]), 0, quoted.size(), html, depth + 1, false);
+        html.append("</blockquote>\n");
+        return i;
+    }
+
+    // MODIFIES: html
+    // EFFECTS: renders the list starting at lines[from] and returns the index of the line after it. A list
+    //          with a blank line between or inside its items is loose, and its paragraphs are wrapped in <p>
+    private int renderList(String[] lines, int from, int to, StringBuilder html, int depth) {
+        ListMarker first = ListMarker.of(lines[from]);
+        ArrayList<int[]> items = new ArrayList<>();
+        boolean loose = false;
+        int i = from;
+        while (i < to && first.sameListAs(ListMarker.of(lines[i]))) {
+            int width = indent(lines[i]) + ListMarker.of(lines[i]).width;
+            int end = itemEnd(lines, i, to, width);
+            items.add(new int[] {i, end, width});
+            int next = skipBlank(lines, end, to);
+            loose = loose || hasBlank(lines, i, end) || (next > end && next < to
+                    && first.sameListAs(ListMarker.of(lines[next])));
+            i = next < to && first.sameListAs(ListMarker.of(lines[next])) ? next : end;
+        }
+        html.append(first.openTag());
+        for (int[] item : items) {
+            html.append("<li>");
+            String[] content = itemLines(lines, item[0], item[1], item[2]);
+            renderBlocks(content, 0, content.length, html, depth + 1, !loose);
+            trimNewline(html);
+            html.append("</li>\n");
+        }
+        html.append(first.ordered ? "</ol>\n" : "</ul>\n");
+        return i;
+    }
+
+    // EFFECTS: returns the index of the line after the list item starting at lines[from], whose content is
+    //          indented by width. Indented lines and blank lines followed by them belong to the item, and so
+    //          do unindented lines that continue its paragraph.
+    private static int itemEnd(String[] lines, int from, int to, int width) {
+        int i = from + 1;
+        while (i < to) {
+            if (isBlank(lines[i])) {
+                int next = skipBlank(lines, i, to);
+                if (next == to || indent(lines[next]) < width) {
+                    return i;
+                }
+                i = next;
+            } else if (indent(lines[i]) >= width) {
+                i++;
+            } else if (isBlank(lines[i - 1]) || interruptsParagraph(lines[i]) || ListMarker.of(lines[i]) != null) {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    // EFFECTS: returns the lines of the list item lines[from, to) with the marker and indentation removed
+    private static String[] itemLines(String[] lines, int from, int to, int width) {
+        String[] content = new String[to - from];
+        String first = lines[from];
+        content[0] = first.length() > width ? first.substring(width) : "";
+        for (int i = from + 1; i < to; i++) {
+            content[i - from] = stripIndent(lines[i], width);
+        }
+        return content;
+    }
+
+    // EFFECTS: returns true if line starts a block that ends the paragraph before it
+    private static boolean interruptsParagraph(String line) {
+        return indent(line) < CODE_INDENT && (fence(line) != null || headingLevel(line) > 0 || isRule(line)
+                || isQuote(line) || ListMarker.of(line) != null);
+    }
+
+    // EFFECTS: returns the backtick or tilde fence that line opens a code block with, or null if it does not
+    private static String fence(String line) {
+        int start = indent(line);
+        if (start >= CODE_INDENT || start >= line.length()) {
+            return null;
+        }
+        char c = line.charAt(start);
+        int end = start;
+        while (end < line.length() && line.charAt(end) == c) {
+            end++;
+        }
+        if ((c != '`' && c != '~') || end - start < 3 || (c == '`' && line.indexOf('`', end) >= 0)) {
+            return null;
+        }
+        return line.substring(start, end);
+    }
+
+    // EFFECTS: returns true if line closes a code block opened with fence
+    private static boolean closesFence(String line, String fence) {
+        String trimmed = line.trim();
+        String opened = fence(line);
+        return opened != null && opened.charAt(0) == fence.charAt(0) && opened.length() >= fence.length()
+                && trimmed.length() == opened.length();
+    }
+
+    // EFFECTS: returns the level of the ATX heading on line, or 0 if it is not a heading
+    private static int headingLevel(String line) {
+        int start = indent(line);
+        if (start >= CODE_INDENT) {
+            return 0;
+        }
+        int end = start;
+        while (end < line.length() && line.charAt(end) == '#') {
+            end++;
+        }
+        int level = end - start;
+        boolean followed = end == line.length() || line.charAt(end) == ' ' || line.charAt(end) == '\t';
+        return level >= 1 && level <= 6 && followed ? level : 0;
+    }
+
+    // EFFECTS: returns true if line is a horizontal rule: three or more *, - or _ and nothing but spaces
+    private static boolean isRule(String line) {
+        if (indent(line) >= CODE_INDENT) {
+            return false;
+        }
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || "*-_".indexOf(trimmed.charAt(0)) < 0) {
+            return false;
+        }
+        int count = 0;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == trimmed.charAt(0)) {
+                count++;
+            } else if (c != ' ' && c != '\t') {
+                return false;
+            }
+        }
+        return count >= 3;
+    }
+
+    // EFFECTS: returns true if line is part of a block quote
+    private static boolean isQuote(String line) {
+        int start = indent(line);
+        return start < CODE_INDENT && start < line.length() && line.charAt(start) == '>';
+    }
+
+    // EFFECTS: returns true if line holds nothing but whitespace
+    private static boolean isBlank(String line) {
+        return line.trim().isEmpty();
+    }
+
+    // EFFECTS: returns true if any of lines[from, to) is blank
+    private static boolean hasBlank(String[] lines, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isBlank(lines[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // EFFECTS: returns the index of the first line at or after from that is not blank, or to if there is none
+    private static int skipBlank(String[] lines, int from, int to) {
+        int i = from;
+        while (i < to && isBlank(lines[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    // EFFECTS: returns the number of spaces at the start of line
+    static int indent(String line) {
+        int i = 0;
+        while (i < line.length() && line.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    // EFFECTS: returns line without up to n of its leading spaces
+    private static String stripIndent(String line, int n) {
+        return line.substring(Math.min(n, indent(line)));
+    }
+
+    // EFFECTS: returns text without the spaces at its end
+    private static String stripTrailingSpaces(StringBuilder text) {
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == ' ' || text.charAt(end - 1) == '\t')) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    // MODIFIES: html
+    // EFFECTS: removes a newline from the end of html, if there is one
+    private static void trimNewline(StringBuilder html) {
+        if (html.length() > 0 && html.charAt(html.length() - 1) == '\n') {
+            html.setLength(html.length() - 1);
+        }
+    }
+
+    // The marker that starts a list item: a bullet (-, + or *) or a number followed by . or ), and then a
+    // space or the end of the line
+    private static final class ListMarker {
+        private static final int MAX_DIGITS = 9;
+        private final boolean ordered;
+        private final char delimiter;
+        private final int width;
+        private final int start;
+
+        private ListMarker(boolean ordered, char delimiter, int width, int start) {
+            this.ordered = ordered;
+            this.delimiter = delimiter;
+            this.width = width;
+            this.start = start;
+        }
+
+        // EFFECTS: returns the marker at the start of line, or null if line does not start a list item
+        static ListMarker of(String line) {
+            int i = indent(line);
+            if (i >= CODE_INDENT || i >= line.length() || isRule(line)) {
+                return null;
+            }
+            char c = line.charAt(i);
+            if (c == '-' || c == '+' || c == '*') {
+                return followedBySpace(line, i + 1) ? new ListMarker(false, c, i + 2 - indent(line), 1) : null;
+            }
+            int digits = i;
+            while (digits < line.length() && digits - i < MAX_DIGITS && Character.isDigit(line.charAt(digits))) {
+                digits++;
+            }
+            if (digits == i || digits >= line.length() || (line.charAt(digits) != '.' && line.charAt(digits) != ')')
+                    || !followedBySpace(line, digits + 1)) {
+                return null;
+            }
+            int start = Integer.parseInt(line.substring(i, digits));
+            return new ListMarker(true, line.charAt(digits), digits + 2 - i, start);
+        }
+
+        // EFFECTS: returns true if line ends at i or has a space there
+        private static boolean followedBySpace(String line, int i) {
+            return i == line.length() || line.charAt(i) == ' ';
+        }
+
+        // EFFECTS: returns true if other starts an item of the same list as this
+        boolean sameListAs(ListMarker other) {
+            return other != null && other.ordered == ordered && other.delimiter == delimiter;
+        }
+
+        // EFFECTS: returns the tag that opens the list
+        String openTag() {
+            if (!ordered) {
+                return "<ul>\n";
+            }
+            return start == 1 ? "<ol>\n" : "<ol start=\"" + start + "\">\n";
+        }
+    }
+}
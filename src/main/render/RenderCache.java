@@ -0,0 +1,274 @@
+package render;
+
+import monitoring.BlogMetrics;
+import monitoring.RenderEvent;
+import persistence.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Caches the HTML that a MarkdownRenderer renders, keyed by a SHA-256 hash of the Markdown and the renderer
+// VERSION, so the same content is never rendered twice however many articles or revisions share it, and a
+// change to the renderer never serves HTML rendered by an older one. Renders are kept in memory, least
+// recently used first, while their total length is within maxChars.
+//
+// A cache can also be given a directory to persist renders in, one file per hash, so that they survive a
+// restart. The directory is kept within maxDiskBytes by deleting the least recently used files. Persisting is
+// only an optimization: a file that cannot be read or written is treated as missing and the content is
+// rendered again.
+public class RenderCache {
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final String SUFFIX = ".html";
+
+    private final MarkdownRenderer renderer;
+    private final long maxChars;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long chars;
+    private LinkedHashMap<String, Long> disk;
+    private long diskBytes;
+    private long hits;
+    private long misses;
+
+    // REQUIRES: maxChars > 0
+    // EFFECTS: constructs a cache of the renders of renderer that keeps up to maxChars characters of HTML in
+    //          memory
+    public RenderCache(MarkdownRenderer renderer, long maxChars) {
+        this(renderer, maxChars, null, 0);
+    }
+
+    // REQUIRES: maxChars > 0 and maxDiskBytes > 0
+    // EFFECTS: constructs a cache like RenderCache(renderer, maxChars) that also persists up to maxDiskBytes
+    //          of renders in directory
+    public RenderCache(MarkdownRenderer renderer, long maxChars, Path directory, long maxDiskBytes) {
+        this.renderer = renderer;
+        this.maxChars = maxChars;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns markdown rendered as HTML, from the cache if it has been rendered before
+    public String render(String markdown) {
+        String key = key(markdown);
+        String html = lookup(key);
+        if (html != null) {
+            return html;
+        }
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        long started = BlogMetrics.RENDER.start();
+        html = renderer.render(markdown);
+        BlogMetrics.RENDER.end(started, markdown.length(), 1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.markdownLength = markdown.length();
+            event.htmlLength = html.length();
+            event.commit();
+        }
+        store(key, html);
+        return html;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the HTML of markdown if it is held in memory, without rendering it or reading the disk,
+    //          otherwise null; fast enough to call on the event dispatch thread
+    public String getIfPresent(String markdown) {
+        String key = key(markdown);
+        synchronized (this) {
+            return memory.get(key);
+        }
+    }
+
+    // EFFECTS: returns the number of renders that were served from memory or disk
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    // EFFECTS: returns the number of renders that had to be rendered
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // EFFECTS: returns the number of characters of HTML held in memory
+    public synchronized long getChars() {
+        return chars;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the HTML stored under key in memory or on disk, or null if there is none
+    private synchronized String lookup(String key) {
+        String html = memory.get(key);
+        if (html == null && directory != null) {
+            html = readFile(key);
+            if (html != null) {
+                remember(key, html);
+            }
+        }
+        if (html == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return html;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stores html under key in memory and, if the cache is persisted, on disk
+    private synchronized void store(String key, String html) {
+        remember(key, html);
+        if (directory != null) {
+            writeFile(key, html);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: keeps html in memory under key, evicting the least recently used renders to stay within
+    //          maxChars; html that is too long to fit on its own is not kept
+    private void remember(String key, String html) {
+        long size = html.length() + ENTRY_OVERHEAD;
+        if (size > maxChars || memory.containsKey(key)) {
+            return;
+        }
+        memory.put(key, html);
+        chars += size;
+        Iterator<Map.Entry<String, String>> eldest = memory.entrySet().iterator();
+        while (chars > maxChars) {
+            chars -= eldest.next().getValue().length() + ENTRY_OVERHEAD;
+            eldest.remove();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the HTML stored on disk under key and marks it as recently used, or null if there is
+    //          none or it cannot be read
+    private String readFile(String key) {
+        if (!openDisk() || !disk.containsKey(key)) {
+            return null;
+        }
+        Path file = directory.resolve(key + SUFFIX);
+        try {
+            String html = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            // Looking the file up marks it as the most recently used
+            disk.get(key);
+            return html;
+        } catch (IOException e) {
+            forget(key);
+            return null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes html to disk under key and deletes the least recently used files to stay within
+    //          maxDiskBytes; a failure to write leaves the render in memory only
+    private void writeFile(String key, String html) {
+        if (!openDisk()) {
+            return;
+        }
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        Path file = directory.resolve(key + SUFFIX);
+        Path temp = directory.resolve(key + SUFFIX + ".tmp");
+        try {
+            Files.write(temp, bytes);
+            AtomicFiles.replace(temp, file);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            return;
+        }
+        Long replaced = disk.put(key, (long) bytes.length);
+        diskBytes += bytes.length - (replaced == null ? 0 : replaced);
+        Iterator<Map.Entry<String, Long>> eldest = new ArrayList<>(disk.entrySet()).iterator();
+        while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+            forget(eldest.next().getKey());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: deletes the file stored under key, if any, and stops tracking it
+    private void forget(String key) {
+        Long size = disk.remove(key);
+        if (size != null) {
+            diskBytes -= size;
+            deleteQuietly(directory.resolve(key + SUFFIX));
+        }
+    }
+
+    // EFFECTS: deletes file if it exists; a file that cannot be deleted is left behind, and is picked up
+    //          again, and can be evicted, the next time the cache is opened
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left behind
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: on first use, creates the directory and indexes the files already in it, least recently used
+    //          first, trimming them to maxDiskBytes; returns false if the directory cannot be used
+    private boolean openDisk() {
+        if (disk != null) {
+            return true;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                stream.forEach(files::add);
+            }
+            files.sort(Comparator.comparing(RenderCache::lastModified));
+            disk = new LinkedHashMap<>(16, 0.75f, true);
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                disk.put(name.substring(0, name.length() - SUFFIX.length()), Files.size(file));
+                diskBytes += Files.size(file);
+            }
+        } catch (IOException e) {
+            disk = null;
+            return false;
+        }
+        return true;
+    }
+
+    // EFFECTS: returns the time file was last modified, or the epoch if it cannot be read
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    // EFFECTS: returns the hex SHA-256 hash of the renderer version and markdown
+    private static String key(String markdown) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(ByteBuffer.allocate(4).putInt(MarkdownRenderer.VERSION).array());
+        byte[] hash = digest.digest(markdown.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,296 @@
+package render;
+
+import model.ArticleSnapshot;
+import model.Blog;
+import model.BlogSnapshot;
+import model.Tag;
+import persistence.AtomicFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Exports a blog as a static site of HTML pages (see SitePages), working out which pages are out of date and
+// rendering them in parallel on a fork-join pool.
+//
+// Exports are incremental. Every page has a stamp, a hash of everything it is rendered from: the title,
+// author, dates, revision count and tags of an article for its page, and the titles and dates of the
+// articles listed for the archive and tag pages. The stamps and a hash of the bytes of each page are kept in
+// a manifest in the site directory (see SiteManifest). Working out the stamps only takes the article data
+// that is held in memory, so an export renders, and reads the content of, only the pages whose stamps have
+// changed since the last export into the same directory, and writes only those that come out different.
+// Pages of articles, tags and months that are gone are deleted. Pages are trusted to be as the manifest
+// says; a site that has been changed by hand is rebuilt by deleting its manifest.
+public class SiteExporter {
+    // Bump whenever the pages written for the same blog change, so that every page is rendered again
+    public static final int VERSION = 1;
+    private static final int STAMP_BATCH = 1024;
+    private static final int RENDER_BATCH = 16;
+    private static final Comparator<ArticleSnapshot> NEWEST_FIRST =
+            Comparator.comparing(ArticleSnapshot::getDateCreated).thenComparing(ArticleSnapshot::getId).reversed();
+
+    private final MarkdownRenderer renderer;
+    private final ForkJoinPool pool;
+
+    // EFFECTS: constructs an exporter that renders content with renderer on the common fork-join pool
+    public SiteExporter(MarkdownRenderer renderer) {
+        this(renderer, ForkJoinPool.commonPool());
+    }
+
+    // EFFECTS: constructs an exporter that renders content with renderer on pool
+    public SiteExporter(MarkdownRenderer renderer, ForkJoinPool pool) {
+        this.renderer = renderer;
+        this.pool = pool;
+    }
+
+    // MODIFIES: the files in directory
+    // EFFECTS: brings the static site of blog, as it is now, in directory up to date and returns what was
+    //          done; throws IOException if a page or the manifest cannot be written, or content cannot be read
+    public ExportSummary export(Blog blog, Path directory) throws IOException {
+        return export(blog.snapshot(), directory);
+    }
+
+    // MODIFIES: the files in directory
+    // EFFECTS: brings the static site of the blog in snapshot in directory up to date and returns what was
+    //          done; throws IOException if a page or the manifest cannot be written, or content cannot be read
+    public ExportSummary export(BlogSnapshot snapshot, Path directory) throws IOException {
+        SiteManifest previous = SiteManifest.read(directory);
+        List<Page> pages = pages(snapshot);
+        forEach(pages, STAMP_BATCH, (page, fingerprint) -> page.stamp(fingerprint, previous));
+        List<Page> stale = new ArrayList<>();
+        for (Page page : pages) {
+            if (page.hash == null) {
+                stale.add(page);
+            }
+        }
+        createDirectories(directory, stale);
+        forEach(stale, RENDER_BATCH, (page, fingerprint) -> page.render(fingerprint, directory, previous));
+        SiteManifest manifest = new SiteManifest();
+        int written = 0;
+        for (Page page : pages) {
+            manifest.put(page.path, page.stamp, page.hash);
+            written += page.written ? 1 : 0;
+        }
+        int deleted = deleteRemoved(directory, previous, manifest);
+        manifest.write(directory);
+        return new ExportSummary(pages.size(), stale.size(), written, deleted);
+    }
+
+    // EFFECTS: returns every page of the site of blog, neither stamped nor rendered
+    private List<Page> pages(BlogSnapshot blog) {
+        String siteTitle = blog.getTitle();
+        TreeMap<YearMonth, List<ArticleSnapshot>> months = new TreeMap<>(Comparator.reverseOrder());
+        TreeMap<String, List<ArticleSnapshot>> tags = new TreeMap<>();
+        List<Page> pages = new ArrayList<>(blog.size() + 1);
+        for (ArticleSnapshot article : blog) {
+            pages.add(new Page(SitePages.articlePath(article.getId()), stamp -> articleStamp(stamp, siteTitle, article),
+                    () -> SitePages.article(siteTitle, article, renderer.render(article.getContent()))));
+            months.computeIfAbsent(YearMonth.from(article.getDateCreated()), m -> new ArrayList<>()).add(article);
+            for (Tag tag : article.getTags()) {
+                tags.computeIfAbsent(tag.getName(), t -> new ArrayList<>()).add(article);
+            }
+        }
+        for (Map.Entry<YearMonth, List<ArticleSnapshot>> month : months.entrySet()) {
+            pages.add(listingPage(siteTitle, SitePages.archivePath(month.getKey()), month.getKey().toString(),
+                    month.getValue()));
+        }
+        for (Map.Entry<String, List<ArticleSnapshot>> tag : tags.entrySet()) {
+            pages.add(listingPage(siteTitle, SitePages.tagPath(tag.getKey()), "Tagged " + tag.getKey(),
+                    tag.getValue()));
+        }
+        pages.add(new Page(SitePages.INDEX, stamp -> indexStamp(stamp, siteTitle, months, tags),
+                () -> SitePages.index(siteTitle, months, tags)));
+        return pages;
+    }
+
+    // MODIFIES: articles
+    // EFFECTS: returns the page at path that lists articles, newest first, under heading
+    private static Page listingPage(String siteTitle, String path, String heading,
+                                    List<ArticleSnapshot> articles) {
+        articles.sort(NEWEST_FIRST);
+        return new Page(path, stamp -> listingStamp(stamp, siteTitle, heading, articles),
+                () -> SitePages.listing(siteTitle, heading, articles));
+    }
+
+    // MODIFIES: stamp
+    // EFFECTS: returns the stamp of the page of article. Every edit records a revision, so the revision count
+    //          changes whenever the content may have, without the content having to be read.
+    private static String articleStamp(Fingerprint stamp, String siteTitle, ArticleSnapshot article) {
+        stamp.add(siteTitle).add(article.getId()).add(article.getTitle())
+                .add(article.getAuthor()).add(article.getDateCreated().toEpochDay())
+                .add(article.getDateEdited().toEpochDay()).add(article.getRevisionCount())
+                .add(article.getTags().size());
+        for (Tag tag : article.getTags()) {
+            stamp.add(tag.getName());
+        }
+        return stamp.toHex();
+    }
+
+    // MODIFIES: stamp
+    // EFFECTS: returns the stamp of a page that lists articles under heading
+    private static String listingStamp(Fingerprint stamp, String siteTitle, String heading,
+                                       List<ArticleSnapshot> articles) {
+        stamp.add(siteTitle).add(heading).add(articles.size());
+        for (ArticleSnapshot article : articles) {
+            stamp.add(article.getId()).add(article.getTitle()).add(article.getDateCreated().toEpochDay());
+        }
+        return stamp.toHex();
+    }
+
+    // MODIFIES: stamp
+    // EFFECTS: returns the stamp of the front page
+    private static String indexStamp(Fingerprint stamp, String siteTitle,
+                                     Map<YearMonth, List<ArticleSnapshot>> months,
+                                     Map<String, List<ArticleSnapshot>> tags) {
+        stamp.add(siteTitle).add(months.size());
+        for (Map.Entry<YearMonth, List<ArticleSnapshot>> month : months.entrySet()) {
+            stamp.add(month.getKey().toString()).add(month.getValue().size());
+        }
+        for (Map.Entry<String, List<ArticleSnapshot>> tag : tags.entrySet()) {
+            stamp.add(tag.getKey()).add(tag.getValue().size());
+        }
+        return stamp.toHex();
+    }
+
+    // MODIFIES: pages
+    // EFFECTS: applies action to every page on the pool, in tasks of up to batch pages; throws IOException if
+    //          action does
+    private void forEach(List<Page> pages, int batch, PageAction action) throws IOException {
+        try {
+            pool.invoke(new PageTask(pages, 0, pages.size(), batch, action));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // EFFECTS: creates directory and the directories within it that pages go in
+    private static void createDirectories(Path directory, List<Page> pages) throws IOException {
+        Set<Path> parents = new HashSet<>();
+        for (Page page : pages) {
+            parents.add(directory.resolve(page.path).getParent());
+        }
+        Files.createDirectories(directory);
+        for (Path parent : parents) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    // MODIFIES: the files in directory
+    // EFFECTS: deletes the pages in previous that are not in current and returns the number deleted; paths
+    //          that lead outside directory are never followed
+    private static int deleteRemoved(Path directory, SiteManifest previous, SiteManifest current)
+            throws IOException {
+        Set<String> removed = new HashSet<>(previous.paths());
+        removed.removeAll(current.paths());
+        int deleted = 0;
+        for (String path : removed) {
+            Path file = directory.resolve(path).normalize();
+            if (file.startsWith(directory.normalize()) && Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // One page of the site: where it goes and how to stamp and render it. The stamp, the hash and whether
+    // the page was written are filled in as the export goes on; a page whose hash is still null once it has
+    // been stamped is out of date.
+    private static final class Page {
+        private final String path;
+        private final Function<Fingerprint, String> stamper;
+        private final Supplier<String> html;
+        private String stamp;
+        private String hash;
+        private boolean written;
+
+        Page(String path, Function<Fingerprint, String> stamper, Supplier<String> html) {
+            this.path = path;
+            this.stamper = stamper;
+            this.html = html;
+        }
+
+        // MODIFIES: this, fingerprint
+        // EFFECTS: works out the stamp of this page and, if it is the one in previous, takes the hash from
+        //          there too
+        void stamp(Fingerprint fingerprint, SiteManifest previous) {
+            stamp = stamper.apply(fingerprint);
+            if (stamp.equals(previous.getStamp(path))) {
+                hash = previous.getHash(path);
+            }
+        }
+
+        // MODIFIES: this, fingerprint, the files in directory
+        // EFFECTS: renders this page and writes it, unless it is the same as when it was last written
+        void render(Fingerprint fingerprint, Path directory, SiteManifest previous) throws IOException {
+            byte[] bytes = html.get().getBytes(StandardCharsets.UTF_8);
+            hash = fingerprint.add(bytes).toHex();
+            if (hash.equals(previous.getHash(path))) {
+                return;
+            }
+            Path temp = directory.resolve(path + ".tmp");
+            Files.write(temp, bytes);
+            AtomicFiles.replace(temp, directory.resolve(path));
+            written = true;
+        }
+    }
+
+    // Something done to each page; each task has a fingerprint of its own to hash with
+    @FunctionalInterface
+    private interface PageAction {
+        void apply(Page page, Fingerprint fingerprint) throws IOException;
+    }
+
+    // Applies an action to a range of pages, splitting it in half until there are at most batch pages to a
+    // task
+    private static final class PageTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Page> pages;
+        private final int from;
+        private final int to;
+        private final int batch;
+        private final PageAction action;
+
+        PageTask(List<Page> pages, int from, int to, int batch, PageAction action) {
+            this.pages = pages;
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+            this.action = action;
+        }
+
+        // MODIFIES: pages
+        // EFFECTS: applies the action to the pages in the range; throws UncheckedIOException if it fails
+        @Override
+        protected void compute() {
+            if (to - from > batch) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PageTask(pages, from, middle, batch, action),
+                        new PageTask(pages, middle, to, batch, action));
+                return;
+            }
+            Fingerprint fingerprint = new Fingerprint();
+            try {
+                for (int i = from; i < to; i++) {
+                    action.apply(pages.get(i), fingerprint);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
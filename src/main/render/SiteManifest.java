@@ -0,0 +1,103 @@
+package render;
+
+import persistence.AtomicFiles;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// The pages of an exported site as they were last written. For each page it records the path of the page
+// within the site, a stamp of everything the page was rendered from and a hash of the bytes written. It is
+// kept in the site directory as FILE_NAME, one tab-separated line per page in the order the pages were put,
+// after a header naming the versions of the exporter and the renderer. The stamps of a manifest written by
+// other versions are ignored, so every page is rendered again, but pages that come out the same are still
+// not rewritten.
+final class SiteManifest {
+    static final String FILE_NAME = ".manifest";
+    private static final String HEADER = "site " + SiteExporter.VERSION + " " + MarkdownRenderer.VERSION;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    // EFFECTS: returns the manifest stored in directory, or an empty one if there is none or it cannot be
+    //          understood; throws IOException if it cannot be read
+    static SiteManifest read(Path directory) throws IOException {
+        SiteManifest manifest = new SiteManifest();
+        try (BufferedReader in = Files.newBufferedReader(directory.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (header == null || !header.startsWith("site ")) {
+                return manifest;
+            }
+            boolean current = header.equals(HEADER);
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 3) {
+                    manifest.put(fields[0], current ? fields[1] : "", fields[2]);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing has been exported to directory yet
+        }
+        return manifest;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the page at path was rendered from inputs with the given stamp and written with
+    //          the given hash
+    void put(String path, String stamp, String hash) {
+        entries.put(path, new Entry(stamp, hash));
+    }
+
+    // EFFECTS: returns the stamp of the page at path, or null if it is not in the manifest
+    String getStamp(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? null : entry.stamp;
+    }
+
+    // EFFECTS: returns the hash of the page at path, or null if it is not in the manifest
+    String getHash(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? null : entry.hash;
+    }
+
+    // EFFECTS: returns the paths of the pages in the manifest
+    Set<String> paths() {
+        return entries.keySet();
+    }
+
+    // EFFECTS: writes the manifest to directory, replacing the one there atomically if the file system
+    //          allows it; throws IOException if it cannot be written
+    void write(Path directory) throws IOException {
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.write(entry.getKey());
+                out.write('\t');
+                out.write(entry.getValue().stamp);
+                out.write('\t');
+                out.write(entry.getValue().hash);
+                out.newLine();
+            }
+        }
+        AtomicFiles.replace(temp, directory.resolve(FILE_NAME));
+    }
+
+    // The stamp and hash of one page
+    private static final class Entry {
+        private final String stamp;
+        private final String hash;
+
+        Entry(String stamp, String hash) {
+            this.stamp = stamp;
+            this.hash = hash;
+        }
+    }
+}
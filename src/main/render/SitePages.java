@@ -0,0 +1,158 @@
+package render;
+
+import model.ArticleSnapshot;
+import model.Tag;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+// The HTML of the pages of an exported site and where each of them goes. Every article has a page under
+// articles/, every tag a page under tags/ and every month an article was written in a page under archive/;
+// index.html links to the archive and tag pages. The pages link to each other with relative links, so the
+// site can be served from any directory or browsed straight from the disk.
+final class SitePages {
+    static final String INDEX = "index.html";
+    private static final int MAX_FILE_NAME = 120;
+
+    private SitePages() {
+    }
+
+    // EFFECTS: returns the path within the site of the page of the article with the given id
+    static String articlePath(int id) {
+        return "articles/" + id + ".html";
+    }
+
+    // EFFECTS: returns the path within the site of the archive page of month
+    static String archivePath(YearMonth month) {
+        return "archive/" + month + ".html";
+    }
+
+    // EFFECTS: returns the path within the site of the page of the tag with the given name. Letters other
+    //          than lower case ASCII are written as the hex of their code point between underscores, so
+    //          that names that differ only in case never share a file on a case-insensitive file system.
+    static String tagPath(String name) {
+        StringBuilder file = new StringBuilder();
+        name.codePoints().forEach(c -> {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-') {
+                file.appendCodePoint(c);
+            } else {
+                file.append('_').append(Integer.toHexString(c)).append('_');
+            }
+        });
+        if (file.length() == 0 || file.length() > MAX_FILE_NAME) {
+            // Names that fit always have an underscore after the hex of a code point, so this cannot clash
+            return "tags/_" + new Fingerprint().add(name).toHex() + ".html";
+        }
+        return "tags/" + file + ".html";
+    }
+
+    // EFFECTS: returns the page of article, whose content has been rendered as contentHtml
+    static String article(String siteTitle, ArticleSnapshot article, String contentHtml) {
+        StringBuilder html = new StringBuilder(contentHtml.length() + 1024);
+        open(html, siteTitle, article.getTitle(), "../");
+        html.append("<article>\n<h1>");
+        InlineRenderer.escape(article.getTitle(), html);
+        html.append("</h1>\n<p class=\"byline\">By ");
+        InlineRenderer.escape(article.getAuthor(), html);
+        html.append(", ");
+        appendDate(article.getDateCreated(), html);
+        if (!article.getDateEdited().equals(article.getDateCreated())) {
+            html.append(", edited ");
+            appendDate(article.getDateEdited(), html);
+        }
+        html.append("</p>\n").append(contentHtml);
+        if (!article.getTags().isEmpty()) {
+            html.append("<ul class=\"tags\">\n");
+            for (Tag tag : article.getTags()) {
+                appendLink("../" + tagPath(tag.getName()), tag.getName(), html);
+            }
+            html.append("</ul>\n");
+        }
+        html.append("</article>\n");
+        return close(html);
+    }
+
+    // REQUIRES: articles are in the order they are to be listed
+    // EFFECTS: returns a page headed heading that links to each of articles
+    static String listing(String siteTitle, String heading, List<ArticleSnapshot> articles) {
+        StringBuilder html = new StringBuilder(1024 + articles.size() * 96);
+        open(html, siteTitle, heading, "../");
+        html.append("<h1>");
+        InlineRenderer.escape(heading, html);
+        html.append("</h1>\n<ul class=\"articles\">\n");
+        for (ArticleSnapshot article : articles) {
+            html.append("<li><a href=\"../").append(articlePath(article.getId())).append("\">");
+            InlineRenderer.escape(article.getTitle(), html);
+            html.append("</a> ");
+            appendDate(article.getDateCreated(), html);
+            html.append("</li>\n");
+        }
+        html.append("</ul>\n");
+        return close(html);
+    }
+
+    // EFFECTS: returns the front page, which links to the archive page of each of months and the page of each
+    //          of tags along with the number of articles on it
+    static String index(String siteTitle, Map<YearMonth, List<ArticleSnapshot>> months,
+                        Map<String, List<ArticleSnapshot>> tags) {
+        StringBuilder html = new StringBuilder(1024 + (months.size() + tags.size()) * 64);
+        open(html, siteTitle, null, "");
+        html.append("<h1>");
+        InlineRenderer.escape(siteTitle, html);
+        html.append("</h1>\n<h2>Archive</h2>\n<ul class=\"archive\">\n");
+        for (Map.Entry<YearMonth, List<ArticleSnapshot>> month : months.entrySet()) {
+            appendCountedLink(archivePath(month.getKey()), month.getKey().toString(), month.getValue().size(), html);
+        }
+        html.append("</ul>\n<h2>Tags</h2>\n<ul class=\"tags\">\n");
+        for (Map.Entry<String, List<ArticleSnapshot>> tag : tags.entrySet()) {
+            appendCountedLink(tagPath(tag.getKey()), tag.getKey(), tag.getValue().size(), html);
+        }
+        html.append("</ul>\n");
+        return close(html);
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends the start of a page called title, or siteTitle if title is null, whose links back to
+    //          the front page are relative to root
+    private static void open(StringBuilder html, String siteTitle, String title, String root) {
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>");
+        if (title != null) {
+            InlineRenderer.escape(title, html);
+            html.append(" - ");
+        }
+        InlineRenderer.escape(siteTitle, html);
+        html.append("</title>\n</head>\n<body>\n<header><a href=\"").append(root).append(INDEX).append("\">");
+        InlineRenderer.escape(siteTitle, html);
+        html.append("</a></header>\n<main>\n");
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends the end of a page and returns the whole page
+    private static String close(StringBuilder html) {
+        return html.append("</main>\n</body>\n</html>\n").toString();
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends date as a time element
+    private static void appendDate(LocalDate date, StringBuilder html) {
+        html.append("<time datetime=\"").append(date).append("\">").append(date).append("</time>");
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends a list item that links to href with the given text
+    private static void appendLink(String href, String text, StringBuilder html) {
+        html.append("<li><a href=\"").append(href).append("\">");
+        InlineRenderer.escape(text, html);
+        html.append("</a></li>\n");
+    }
+
+    // MODIFIES: html
+    // EFFECTS: appends a list item that links to href with the given text, followed by count
+    private static void appendCountedLink(String href, String text, int count, StringBuilder html) {
+        html.append("<li><a href=\"").append(href).append("\">");
+        InlineRenderer.escape(text, html);
+        html.append("</a> (").append(count).append(")</li>\n");
+    }
+}
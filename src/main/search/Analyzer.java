@@ -0,0 +1,49 @@
+package search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Splits text into the terms that the search index stores. A term is a maximal run of letters and digits,
+// lower-cased; common English stop words are dropped. Positions count every word, including dropped stop
+// words, so that a phrase query matches the same gaps in the text that it has itself.
+public final class Analyzer {
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+            "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there", "these", "they",
+            "this", "to", "was", "will", "with"));
+
+    // Receives the terms of a text in order
+    public interface TermConsumer {
+        void accept(String term, int position);
+    }
+
+    private Analyzer() {
+    }
+
+    // EFFECTS: calls consumer with every term of text, numbering positions from firstPosition;
+    //          returns the position following the last word of text
+    public static int analyze(String text, int firstPosition, TermConsumer consumer) {
+        int position = firstPosition;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (start < i) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(term)) {
+                    consumer.accept(term, position);
+                }
+                position++;
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,207 @@
+package search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// A segment that was written to disk by a SegmentWriter and is read through a memory mapping. The file is
+// never modified after it is written, so it can be read by several threads at once.
+//
+// Layout, with ints big-endian and varints as written by VarintBuffer:
+//     header        MAGIC, VERSION (int)
+//     postings      for each term: document count (varint), then for each document its number as a delta
+//                   from the previous one and its frequency (varints), then the size of the positions that
+//                   follow in bytes (varint), then for each document its number of positions and the
+//                   positions as deltas (varints)
+//     documents     for each document: article id, weighted length (ints)
+//     tombstones    count (int), then the ids of articles removed from older segments (ints)
+//     dictionary    term count (int), the offset of each entry (ints), then the entries in increasing term
+//                   order: the term as a varint length and UTF-8 bytes, and the offset of its postings (int)
+//     footer        document count (int), offsets of the documents, tombstones and dictionary (longs)
+final class MappedSegment extends Segment {
+    static final byte[] MAGIC = "BLOGSRCH".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int FOOTER_SIZE = 28;
+
+    private final Path file;
+    private final ByteBuffer data;
+    private final int docCount;
+    private final int docTableOffset;
+    private final int tombstoneOffset;
+    private final int termCount;
+    private final int entryTableOffset;
+
+    // EFFECTS: constructs a segment over the mapped contents of file
+    private MappedSegment(Path file, ByteBuffer data) {
+        this.file = file;
+        this.data = data;
+        int footer = data.limit() - FOOTER_SIZE;
+        docCount = data.getInt(footer);
+        docTableOffset = (int) data.getLong(footer + 4);
+        tombstoneOffset = (int) data.getLong(footer + 12);
+        int dictionaryOffset = (int) data.getLong(footer + 20);
+        termCount = data.getInt(dictionaryOffset);
+        entryTableOffset = dictionaryOffset + 4;
+    }
+
+    // EFFECTS: maps the segment file at path; throws IOException if it cannot be read or is not a valid segment
+    static MappedSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Invalid search segment " + file);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer magic = data.duplicate();
+            magic.limit(MAGIC.length);
+            if (!magic.equals(ByteBuffer.wrap(MAGIC)) || data.getInt(MAGIC.length) != VERSION) {
+                throw new IOException("Not a search segment: " + file);
+            }
+            return new MappedSegment(file, data);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt search segment " + file, e);
+        }
+    }
+
+    // EFFECTS: returns the path of the segment file
+    Path file() {
+        return file;
+    }
+
+    // EFFECTS: returns the ids of the articles that this segment removes from older segments
+    int[] tombstones() {
+        int[] ids = new int[data.getInt(tombstoneOffset)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = data.getInt(tombstoneOffset + 4 + 4 * i);
+        }
+        return ids;
+    }
+
+    @Override
+    int docCount() {
+        return docCount;
+    }
+
+    @Override
+    int articleId(int doc) {
+        return data.getInt(docTableOffset + 8 * doc);
+    }
+
+    @Override
+    int docLength(int doc) {
+        return data.getInt(docTableOffset + 8 * doc + 4);
+    }
+
+    @Override
+    Postings postings(String term, boolean withPositions) {
+        int entry = find(term);
+        if (entry < 0) {
+            return null;
+        }
+        Cursor cursor = new Cursor(entryOffset(entry));
+        int termLength = cursor.varint();
+        cursor.position = data.getInt(cursor.position + termLength);
+        int size = cursor.varint();
+        Postings postings = new Postings(size);
+        int doc = 0;
+        for (int i = 0; i < size; i++) {
+            doc += cursor.varint();
+            postings.docs[i] = doc;
+            postings.freqs[i] = cursor.varint();
+        }
+        postings.size = size;
+        int positionBytes = cursor.varint();
+        if (withPositions) {
+            readPositions(cursor, postings, positionBytes);
+        }
+        return postings;
+    }
+
+    @Override
+    Iterable<String> terms() {
+        ArrayList<String> terms = new ArrayList<>(termCount);
+        for (int i = 0; i < termCount; i++) {
+            terms.add(term(i));
+        }
+        return terms;
+    }
+
+    // MODIFIES: postings
+    // EFFECTS: decodes the positions of every document in postings; positionBytes bounds their number
+    private void readPositions(Cursor cursor, Postings postings, int positionBytes) {
+        postings.positions = new int[Math.max(1, positionBytes)];
+        int next = 0;
+        for (int i = 0; i < postings.size; i++) {
+            int count = cursor.varint();
+            int position = 0;
+            for (int p = 0; p < count; p++) {
+                position += cursor.varint();
+                postings.positions[next++] = position;
+            }
+            postings.positionStarts[i + 1] = next;
+        }
+    }
+
+    // EFFECTS: returns the index of the dictionary entry for term, or -1 if the segment does not contain it
+    private int find(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = term(middle).compareTo(term);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the term of the i-th dictionary entry
+    private String term(int i) {
+        Cursor cursor = new Cursor(entryOffset(i));
+        int length = cursor.varint();
+        byte[] bytes = new byte[length];
+        ByteBuffer view = data.duplicate();
+        view.position(cursor.position);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // EFFECTS: returns the offset of the i-th dictionary entry
+    private int entryOffset(int i) {
+        return data.getInt(entryTableOffset + 4 * i);
+    }
+
+    // A read position in the mapped data, for decoding varints
+    private final class Cursor {
+        private int position;
+
+        // EFFECTS: constructs a cursor at position
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: decodes the varint at the cursor and moves past it
+        int varint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package search;
+
+import model.ArticleSnapshot;
+import model.Tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// The segment that newly indexed articles are added to. It lives in memory until the index is flushed,
+// when its live documents are written out as a MappedSegment.
+//
+// Words in the title count TITLE_WEIGHT times towards term frequency. Fields are separated by a gap in
+// positions, so a phrase never matches across the end of the title and the start of the content.
+final class MemorySegment extends Segment {
+    static final int TITLE_WEIGHT = 3;
+    private static final int FIELD_GAP = 8;
+
+    private final HashMap<String, Postings> terms = new HashMap<>();
+    private int[] articleIds = new int[16];
+    private int[] docLengths = new int[16];
+    private int docCount;
+
+    // MODIFIES: this
+    // EFFECTS: indexes the title, content, tags and author of article as a new document and returns its number
+    int add(ArticleSnapshot article) {
+        if (docCount == articleIds.length) {
+            articleIds = Arrays.copyOf(articleIds, docCount * 2);
+            docLengths = Arrays.copyOf(docLengths, docCount * 2);
+        }
+        DocumentBuilder builder = new DocumentBuilder(docCount, TITLE_WEIGHT);
+        int position = Analyzer.analyze(article.getTitle(), 0, builder);
+        builder.weight = 1;
+        position = Analyzer.analyze(article.getContent(), position + FIELD_GAP, builder);
+        for (Tag tag : article.getTags()) {
+            position = Analyzer.analyze(tag.getName(), position + FIELD_GAP, builder);
+        }
+        Analyzer.analyze(article.getAuthor(), position + FIELD_GAP, builder);
+        articleIds[docCount] = article.getId();
+        docLengths[docCount] = builder.length;
+        return docCount++;
+    }
+
+    // EFFECTS: returns the number of documents that have not been deleted
+    int liveDocCount() {
+        return docCount - deleted.cardinality();
+    }
+
+    @Override
+    int docCount() {
+        return docCount;
+    }
+
+    @Override
+    int articleId(int doc) {
+        return articleIds[doc];
+    }
+
+    @Override
+    int docLength(int doc) {
+        return docLengths[doc];
+    }
+
+    @Override
+    Postings postings(String term, boolean withPositions) {
+        return terms.get(term);
+    }
+
+    @Override
+    Iterable<String> terms() {
+        return new ArrayList<>(terms.keySet());
+    }
+
+    // Adds the terms of one document to the postings of the segment as they are analyzed
+    private final class DocumentBuilder implements Analyzer.TermConsumer {
+        private final int doc;
+        private int weight;
+        private int length;
+
+        // EFFECTS: constructs a builder for doc whose terms count weight times towards their frequency
+        DocumentBuilder(int doc, int weight) {
+            this.doc = doc;
+            this.weight = weight;
+        }
+
+        // MODIFIES: MemorySegment
+        // EFFECTS: records an occurrence of term at position in doc
+        @Override
+        public void accept(String term, int position) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+            }
+            postings.addOccurrence(doc, position, weight);
+            length += weight;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package search;
+
+import java.util.Arrays;
+
+// The postings of one term in one segment: the documents containing it in increasing order, how often the
+// term occurs in each, and the positions of those occurrences. Positions of all documents share one array,
+// and the positions of the i-th document are positions[positionStarts[i], positionStarts[i + 1]).
+// Postings decoded without positions have an empty positions array.
+final class Postings {
+    int[] docs;
+    int[] freqs;
+    int[] positionStarts;
+    int[] positions;
+    int size;
+
+    // EFFECTS: constructs empty postings
+    Postings() {
+        this(2);
+    }
+
+    // REQUIRES: capacity > 0
+    // EFFECTS: constructs empty postings with room for capacity documents
+    Postings(int capacity) {
+        docs = new int[capacity];
+        freqs = new int[capacity];
+        positionStarts = new int[capacity + 1];
+        positions = new int[4];
+    }
+
+    // REQUIRES: doc is at least the last document in these postings, and if it is that document,
+    //           position is greater than its positions so far
+    // MODIFIES: this
+    // EFFECTS: records an occurrence of the term in doc at position that counts weight times towards its
+    //          frequency; returns true if this is the first occurrence in doc
+    boolean addOccurrence(int doc, int position, int weight) {
+        boolean first = size == 0 || docs[size - 1] != doc;
+        if (first) {
+            startDoc(doc);
+        }
+        int end = positionStarts[size];
+        if (end == positions.length) {
+            positions = Arrays.copyOf(positions, end * 2);
+        }
+        positions[end] = position;
+        positionStarts[size] = end + 1;
+        freqs[size - 1] += weight;
+        return first;
+    }
+
+    // REQUIRES: doc is greater than every document already in these postings, and
+    //           termPositions[from, from + count) is sorted
+    // MODIFIES: this
+    // EFFECTS: appends doc with the given weighted frequency and positions
+    void add(int doc, int freq, int[] termPositions, int from, int count) {
+        startDoc(doc);
+        int start = positionStarts[size - 1];
+        if (start + count > positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(positions.length * 2, start + count));
+        }
+        System.arraycopy(termPositions, from, positions, start, count);
+        freqs[size - 1] = freq;
+        positionStarts[size] = start + count;
+    }
+
+    // EFFECTS: returns the index of doc in these postings, or a negative number if it does not contain it
+    int indexOf(int doc) {
+        return Arrays.binarySearch(docs, 0, size, doc);
+    }
+
+    // REQUIRES: 0 <= i < size
+    // EFFECTS: returns true if the i-th document has the term at position
+    boolean hasPosition(int i, int position) {
+        return Arrays.binarySearch(positions, positionStarts[i], positionStarts[i + 1], position) >= 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends doc with no occurrences yet
+    private void startDoc(int doc) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            freqs = Arrays.copyOf(freqs, size * 2);
+            positionStarts = Arrays.copyOf(positionStarts, size * 2 + 1);
+        }
+        docs[size] = doc;
+        freqs[size] = 0;
+        positionStarts[size + 1] = positionStarts[size];
+        size++;
+    }
+}
@@ -0,0 +1,629 @@
+package search;
+
+import model.Article;
+import model.ArticleSnapshot;
+import persistence.AtomicFiles;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+// An inverted index over the titles, content, tags and authors of articles, ranked with BM25.
+//
+// The index is a list of segments. Articles are indexed into an in-memory segment; flush() writes its live
+// documents to disk as a new immutable segment file, together with tombstones for the articles removed since
+// the last flush, so saving an edit costs a segment the size of the edit rather than a full reindex. Segment
+// files are memory-mapped and listed, oldest first, in a manifest that is replaced atomically on every change.
+// Later segments override earlier ones: editing an article indexes it as a new document and marks the old
+// one deleted. Once there are more than MAX_SEGMENTS segments on disk, the most recent ones are merged into
+// one in the background, dropping their deleted documents.
+//
+// The manifest records a stamp that the caller derives from the state of the blog the index was flushed
+// for. open() only uses a stored index whose stamp matches, so an index is never trusted for a blog that
+// was changed without it. All methods are thread-safe.
+public class SearchIndex implements Closeable {
+    private static final String MANIFEST = "manifest";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MAX_SEGMENTS = 8;
+    private static final int MIN_DELETED_FOR_REBUILD = 1024;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<Hit> RANKING = Comparator.<Hit>comparingDouble(hit -> hit.score)
+            .thenComparing(hit -> -hit.id);
+    private static final ExecutorService MERGER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-segment-merger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final IntFunction<Article> articles;
+    private final ArrayList<MappedSegment> segments = new ArrayList<>();
+    private MemorySegment buffer = new MemorySegment();
+    private final HashMap<Integer, Location> locations = new HashMap<>();
+    private final LinkedHashSet<Integer> tombstones = new LinkedHashSet<>();
+    private int liveDocs;
+    private long liveLength;
+    private Path directory;
+    private String stamp;
+    private int nextGeneration;
+    private boolean merging;
+    private boolean closed;
+
+    // EFFECTS: constructs an empty index that looks articles up by id with articles
+    public SearchIndex(IntFunction<Article> articles) {
+        this.articles = articles;
+    }
+
+    // EFFECTS: opens the index stored in directory if it was flushed with the given stamp, looking articles
+    //          up by id with articles; returns null if there is no such index. Throws IOException if the
+    //          stored index cannot be read.
+    public static SearchIndex open(Path directory, String stamp, IntFunction<Article> articles)
+            throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.isRegularFile(manifest)) {
+            return null;
+        }
+        SearchIndex index = new SearchIndex(articles);
+        ArrayList<String> names = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(manifest))) {
+            byte[] magic = new byte[MappedSegment.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MappedSegment.MAGIC) || in.readInt() != MappedSegment.VERSION
+                    || !in.readUTF().equals(stamp)) {
+                return null;
+            }
+            index.nextGeneration = in.readInt();
+            for (int i = in.readInt(); i > 0; i--) {
+                names.add(in.readUTF());
+            }
+        }
+        index.directory = directory;
+        index.stamp = stamp;
+        for (String name : names) {
+            index.attach(MappedSegment.open(directory.resolve(name)));
+        }
+        index.deleteUnreferencedFiles();
+        return index;
+    }
+
+    // EFFECTS: removes the stored index in directory, if any, so that it is not opened again
+    public static void invalidate(Path directory) {
+        try {
+            Files.deleteIfExists(directory.resolve(MANIFEST));
+        } catch (IOException e) {
+            // An index that cannot be removed is still rejected by the stamp of the next flush
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: indexes article as it is now, replacing the indexed version of it if there is one
+    public void add(Article article) {
+        add(article.snapshot());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: indexes the snapshot of an article, replacing the indexed version of it if there is one
+    public synchronized void add(ArticleSnapshot article) {
+        delete(article.getId());
+        int doc = buffer.add(article);
+        locations.put(article.getId(), new Location(buffer, doc));
+        liveDocs++;
+        liveLength += buffer.docLength(doc);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: re-indexes article after it has been edited or retagged
+    public void update(Article article) {
+        add(article);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: re-indexes the snapshot of an article taken after it was edited or retagged
+    public void update(ArticleSnapshot article) {
+        add(article);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the article with the given id from the index; returns false if it was not indexed
+    public synchronized boolean remove(int articleId) {
+        if (!locations.containsKey(articleId)) {
+            return false;
+        }
+        delete(articleId);
+        // Older versions of the article may be on disk even if the latest one is not
+        tombstones.add(articleId);
+        return true;
+    }
+
+    // EFFECTS: returns the number of articles in the index
+    public synchronized int size() {
+        return liveDocs;
+    }
+
+    // EFFECTS: returns the number of segments on disk
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    // REQUIRES: limit > 0
+    // EFFECTS: returns up to limit articles matching query, most relevant first. The words of the query
+    //          are ranked with BM25 and any article containing at least one of them matches; words in
+    //          double quotes form a phrase that matching articles must contain in that order.
+    public synchronized List<SearchResult> search(String query, int limit) {
+        ArrayList<SearchResult> results = new ArrayList<>();
+        for (Hit hit : rank(query, limit, true)) {
+            results.add(new SearchResult(hit.article, hit.score));
+        }
+        return results;
+    }
+
+    // EFFECTS: returns the ids of up to limit articles matching query, most relevant first, as search ranks
+    //          them, without looking the articles up. Since the index has a lock of its own, this can run
+    //          while the blog is being changed, without the lock that guards the blog.
+    public synchronized int[] searchIds(String query, int limit) {
+        List<Hit> hits = rank(query, limit, false);
+        int[] ids = new int[hits.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = hits.get(i).id;
+        }
+        return ids;
+    }
+
+    // EFFECTS: returns up to limit hits for the articles matching query, most relevant first, each with its
+    //          article if lookUp, in which case articles that cannot be looked up are left out
+    private List<Hit> rank(String query, int limit, boolean lookUp) {
+        ParsedQuery parsed = new ParsedQuery(query);
+        if (parsed.queryTerms.isEmpty() || liveDocs == 0) {
+            return new ArrayList<>();
+        }
+        ArrayList<Segment> all = new ArrayList<>(segments);
+        all.add(buffer);
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING);
+        double[][] scores = score(all, parsed);
+        for (int s = 0; s < all.size(); s++) {
+            for (int doc = 0; doc < scores[s].length; doc++) {
+                if (scores[s][doc] <= 0 || !parsed.matchesPhrases(s, doc)) {
+                    continue;
+                }
+                int id = all.get(s).articleId(doc);
+                Article article = lookUp ? articles.apply(id) : null;
+                if (article != null || !lookUp) {
+                    top.add(new Hit(id, article, scores[s][doc]));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+        ArrayList<Hit> hits = new ArrayList<>(top);
+        hits.sort(Collections.reverseOrder(RANKING));
+        return hits;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the articles indexed since the last flush to a new segment in directory and records
+    //          the segments in its manifest along with stamp; merges segments in the background if there
+    //          are too many of them
+    public synchronized void flush(Path directory, String stamp) throws IOException {
+        if (closed) {
+            throw new IOException("Search index is closed");
+        }
+        if (!directory.equals(this.directory)) {
+            startDirectory(directory);
+        }
+        if (buffer.liveDocCount() > 0 || !tombstones.isEmpty()) {
+            writeBuffer();
+        }
+        this.stamp = stamp;
+        writeManifest();
+        scheduleMerge();
+    }
+
+    // EFFECTS: waits until no merge is running
+    public synchronized void awaitMerges() throws InterruptedIOException {
+        while (merging) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a search segment merge");
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the index from writing to disk again and waits for a running merge to end
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        awaitMerges();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the indexed version of the article with the given id deleted, if there is one
+    private void delete(int articleId) {
+        Location location = locations.remove(articleId);
+        if (location != null) {
+            location.segment.deleted.set(location.doc);
+            liveDocs--;
+            liveLength -= location.segment.docLength(location.doc);
+            if (location.segment == buffer) {
+                rebuildBufferIfSparse();
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: re-indexes the live articles of the in-memory segment once most of its documents are deleted
+    private void rebuildBufferIfSparse() {
+        int deleted = buffer.docCount() - buffer.liveDocCount();
+        if (deleted < MIN_DELETED_FOR_REBUILD || deleted <= buffer.liveDocCount()) {
+            return;
+        }
+        MemorySegment old = buffer;
+        buffer = new MemorySegment();
+        for (int doc = 0; doc < old.docCount(); doc++) {
+            Article article = old.isLive(doc) ? articles.apply(old.articleId(doc)) : null;
+            if (article != null) {
+                locations.put(article.getId(), new Location(buffer, buffer.add(article.snapshot())));
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a segment read from disk to the end of the list, applying its tombstones first
+    private void attach(MappedSegment segment) {
+        for (int id : segment.tombstones()) {
+            delete(id);
+        }
+        for (int doc = 0; doc < segment.docCount(); doc++) {
+            delete(segment.articleId(doc));
+            locations.put(segment.articleId(doc), new Location(segment, doc));
+            liveDocs++;
+            liveLength += segment.docLength(doc);
+        }
+        segments.add(segment);
+    }
+
+    // EFFECTS: returns the BM25 score of every document of every segment in all, with 0 for deleted
+    //          documents and documents matching no term; keeps the postings of the terms in parsed
+    private double[][] score(List<Segment> all, ParsedQuery parsed) {
+        double[][] scores = new double[all.size()][];
+        for (int s = 0; s < all.size(); s++) {
+            scores[s] = new double[all.get(s).docCount()];
+        }
+        double averageLength = (double) liveLength / liveDocs;
+        for (String term : parsed.queryTerms) {
+            Postings[] postings = new Postings[all.size()];
+            int df = 0;
+            for (int s = 0; s < all.size(); s++) {
+                postings[s] = all.get(s).postings(term, parsed.phraseTerms.contains(term));
+                df += countLive(all.get(s), postings[s]);
+            }
+            parsed.postings.put(term, postings);
+            double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+            for (int s = 0; s < all.size() && df > 0; s++) {
+                addScores(scores[s], all.get(s), postings[s], idf, averageLength);
+            }
+        }
+        return scores;
+    }
+
+    // MODIFIES: scores
+    // EFFECTS: adds the BM25 contribution of a term with the given postings in segment to scores
+    private static void addScores(double[] scores, Segment segment, Postings postings, double idf,
+                                  double averageLength) {
+        for (int i = 0; postings != null && i < postings.size; i++) {
+            int doc = postings.docs[i];
+            if (segment.isLive(doc)) {
+                double tf = postings.freqs[i];
+                double norm = K1 * (1 - B + B * segment.docLength(doc) / averageLength);
+                scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+    }
+
+    // EFFECTS: returns the number of live documents of segment in postings
+    private static int countLive(Segment segment, Postings postings) {
+        int live = 0;
+        for (int i = 0; postings != null && i < postings.size; i++) {
+            if (segment.isLive(postings.docs[i])) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes directory the home of this index, replacing any index that was stored there before;
+    //          articles in segments stored elsewhere are indexed again so that they are written there
+    private void startDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        ArrayList<MappedSegment> old = new ArrayList<>(segments);
+        segments.clear();
+        for (MappedSegment segment : old) {
+            for (int doc = 0; doc < segment.docCount(); doc++) {
+                Article article = segment.isLive(doc) ? articles.apply(segment.articleId(doc)) : null;
+                if (article != null) {
+                    add(article);
+                }
+            }
+        }
+        tombstones.clear();
+        writeManifest();
+        deleteUnreferencedFiles();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the live documents of the in-memory segment and the pending tombstones to a new segment
+    private void writeBuffer() throws IOException {
+        Path file = directory.resolve(segmentName(nextGeneration++));
+        int[] removed = tombstones.stream().mapToInt(Integer::intValue).toArray();
+        SegmentWriter.Origins origins = SegmentWriter.writeLiveDocuments(file,
+                Collections.singletonList(buffer), Collections.singletonList(buffer.deleted), removed);
+        MappedSegment segment = MappedSegment.open(file);
+        for (int doc = 0; doc < origins.size; doc++) {
+            locations.put(segment.articleId(doc), new Location(segment, doc));
+        }
+        segments.add(segment);
+        buffer = new MemorySegment();
+        tombstones.clear();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts merging the most recent segments in the background if there are too many segments
+    //          and no merge is running. The merged run is the longest suffix in which no segment is more
+    //          than twice as large as all later ones together, so that large segments are rewritten rarely.
+    private void scheduleMerge() {
+        if (merging || closed || segments.size() <= MAX_SEGMENTS) {
+            return;
+        }
+        int from = segments.size() - 1;
+        long later = segments.get(from).docCount();
+        while (from > 0 && segments.get(from - 1).docCount() <= 2 * later) {
+            from--;
+            later += segments.get(from).docCount();
+        }
+        from = Math.min(from, segments.size() - 2);
+        ArrayList<Segment> sources = new ArrayList<>();
+        ArrayList<BitSet> deleted = new ArrayList<>();
+        HashSet<Integer> removed = new HashSet<>();
+        for (MappedSegment source : segments.subList(from, segments.size())) {
+            sources.add(source);
+            deleted.add((BitSet) source.deleted.clone());
+            // Tombstones only matter for articles in segments older than the merged ones
+            for (int id : from > 0 ? source.tombstones() : new int[0]) {
+                removed.add(id);
+            }
+        }
+        Path file = directory.resolve(segmentName(nextGeneration++));
+        int[] mergedTombstones = removed.stream().mapToInt(Integer::intValue).toArray();
+        merging = true;
+        MERGER.execute(() -> merge(file, sources, deleted, mergedTombstones));
+    }
+
+    // EFFECTS: writes sources into a single segment at file and swaps it in; runs on the merge thread
+    private void merge(Path file, List<Segment> sources, List<BitSet> deleted, int[] removed) {
+        try {
+            SegmentWriter.Origins origins = SegmentWriter.writeLiveDocuments(file, sources, deleted, removed);
+            installMerge(MappedSegment.open(file), sources, origins);
+        } catch (IOException | RuntimeException e) {
+            // Keep the unmerged segments; the partial file is removed when the index is next opened
+            finishMerge();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces sources with merged, whose documents came from sources as given by origins;
+    //          documents deleted while the merge was running are deleted in merged as well
+    private synchronized void installMerge(MappedSegment merged, List<Segment> sources,
+                                           SegmentWriter.Origins origins) throws IOException {
+        int from = segments.indexOf(sources.get(0));
+        if (from < 0) {
+            // The index has moved to another directory since the merge started
+            finishMerge();
+            return;
+        }
+        for (int doc = 0; doc < origins.size; doc++) {
+            Location location = locations.get(merged.articleId(doc));
+            if (location != null && location.segment == sources.get(origins.sources[doc])
+                    && location.doc == origins.docs[doc]) {
+                locations.put(merged.articleId(doc), new Location(merged, doc));
+            } else {
+                merged.deleted.set(doc);
+            }
+        }
+        segments.subList(from, from + sources.size()).clear();
+        segments.add(from, merged);
+        merging = false;
+        notifyAll();
+        if (!closed) {
+            writeManifest();
+            deleteUnreferencedFiles();
+            scheduleMerge();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the running merge has ended without being installed
+    private synchronized void finishMerge() {
+        merging = false;
+        notifyAll();
+    }
+
+    // EFFECTS: atomically replaces the manifest with one listing the current segments
+    private void writeManifest() throws IOException {
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.write(MappedSegment.MAGIC);
+            out.writeInt(MappedSegment.VERSION);
+            out.writeUTF(stamp == null ? "" : stamp);
+            out.writeInt(nextGeneration);
+            out.writeInt(segments.size());
+            for (MappedSegment segment : segments) {
+                out.writeUTF(segment.file().getFileName().toString());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        AtomicFiles.replace(temp, directory.resolve(MANIFEST));
+    }
+
+    // EFFECTS: deletes the segment files in the directory that the index does not use, such as merged
+    //          segments and the output of interrupted merges; nothing is deleted while a merge is running
+    private void deleteUnreferencedFiles() throws IOException {
+        if (merging) {
+            return;
+        }
+        HashSet<Path> used = new HashSet<>();
+        for (MappedSegment segment : segments) {
+            used.add(segment.file().getFileName());
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                if (!used.contains(file.getFileName())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // EFFECTS: returns the file name of the segment with the given generation
+    private static String segmentName(int generation) {
+        return String.format("segment-%06d%s", generation, SEGMENT_SUFFIX);
+    }
+
+    // An article that matched a search, with its score, and the article itself if it was looked up
+    private static final class Hit {
+        private final int id;
+        private final Article article;
+        private final double score;
+
+        Hit(int id, Article article, double score) {
+            this.id = id;
+            this.article = article;
+            this.score = score;
+        }
+    }
+
+    // Where the indexed version of an article is
+    private static final class Location {
+        private final Segment segment;
+        private final int doc;
+
+        // EFFECTS: constructs a location for doc in segment
+        Location(Segment segment, int doc) {
+            this.segment = segment;
+            this.doc = doc;
+        }
+    }
+
+    // A query split into the distinct terms to rank by and the phrases that results must contain, along
+    // with the postings of its terms in each segment once they have been looked up
+    private static final class ParsedQuery {
+        private final LinkedHashSet<String> queryTerms = new LinkedHashSet<>();
+        private final HashSet<String> phraseTerms = new HashSet<>();
+        private final ArrayList<Phrase> phrases = new ArrayList<>();
+        private final HashMap<String, Postings[]> postings = new HashMap<>();
+
+        // EFFECTS: parses query; text between a pair of double quotes is a phrase
+        ParsedQuery(String query) {
+            String[] parts = query.split("\"", -1);
+            for (int i = 0; i < parts.length; i++) {
+                ArrayList<String> terms = new ArrayList<>();
+                ArrayList<Integer> offsets = new ArrayList<>();
+                Analyzer.analyze(parts[i], 0, (term, position) -> {
+                    queryTerms.add(term);
+                    terms.add(term);
+                    offsets.add(position);
+                });
+                // Odd parts are inside quotes, unless the last quote is unmatched
+                boolean quoted = i % 2 == 1 && i < parts.length - 1;
+                if (quoted && terms.size() > 1) {
+                    phrases.add(new Phrase(terms, offsets));
+                    phraseTerms.addAll(terms);
+                }
+            }
+        }
+
+        // EFFECTS: returns true if doc of the s-th segment contains every phrase
+        boolean matchesPhrases(int s, int doc) {
+            for (Phrase phrase : phrases) {
+                if (!phrase.matches(postings, s, doc)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Terms that must occur at the given distances from each other
+    private static final class Phrase {
+        private final String[] terms;
+        private final int[] offsets;
+
+        // EFFECTS: constructs a phrase of terms at the given positions relative to each other
+        Phrase(List<String> terms, List<Integer> offsets) {
+            this.terms = terms.toArray(new String[0]);
+            this.offsets = new int[offsets.size()];
+            for (int i = 0; i < this.offsets.length; i++) {
+                this.offsets[i] = offsets.get(i) - offsets.get(0);
+            }
+        }
+
+        // EFFECTS: returns true if doc of the s-th segment contains this phrase, given the postings of
+        //          each term in every segment
+        boolean matches(HashMap<String, Postings[]> postingsByTerm, int s, int doc) {
+            Postings[] postings = new Postings[terms.length];
+            int[] entries = new int[terms.length];
+            for (int k = 0; k < terms.length; k++) {
+                postings[k] = postingsByTerm.get(terms[k])[s];
+                entries[k] = postings[k] == null ? -1 : postings[k].indexOf(doc);
+                if (entries[k] < 0) {
+                    return false;
+                }
+            }
+            Postings first = postings[0];
+            for (int p = first.positionStarts[entries[0]]; p < first.positionStarts[entries[0] + 1]; p++) {
+                if (occursAt(postings, entries, first.positions[p])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // EFFECTS: returns true if every term after the first occurs at its offset from start
+        private boolean occursAt(Postings[] postings, int[] entries, int start) {
+            for (int k = 1; k < terms.length; k++) {
+                if (!postings[k].hasPosition(entries[k], start + offsets[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
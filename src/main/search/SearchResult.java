@@ -0,0 +1,29 @@
+package search;
+
+import model.Article;
+
+// An article that matched a search, with its relevance score; higher scores are more relevant
+public class SearchResult {
+    private final Article article;
+    private final double score;
+
+    // EFFECTS: constructs a result for article with the given score
+    public SearchResult(Article article, double score) {
+        this.article = article;
+        this.score = score;
+    }
+
+    public Article getArticle() {
+        return article;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    // EFFECTS: returns a string representation of the result
+    @Override
+    public String toString() {
+        return String.format("%s (%.2f)", article, score);
+    }
+}
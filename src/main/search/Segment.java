@@ -0,0 +1,32 @@
+package search;
+
+import java.util.BitSet;
+
+// A set of indexed documents with their own numbering from 0. A document never changes once it has been
+// added; when its article is edited or removed, the document is only marked deleted.
+abstract class Segment {
+    final BitSet deleted = new BitSet();
+
+    // EFFECTS: returns the number of documents in the segment, including deleted ones
+    abstract int docCount();
+
+    // REQUIRES: 0 <= doc < docCount()
+    // EFFECTS: returns the id of the article that doc is a version of
+    abstract int articleId(int doc);
+
+    // REQUIRES: 0 <= doc < docCount()
+    // EFFECTS: returns the weighted number of terms in doc
+    abstract int docLength(int doc);
+
+    // EFFECTS: returns the postings of term, with positions only if withPositions is true,
+    //          or null if no document in the segment contains term
+    abstract Postings postings(String term, boolean withPositions);
+
+    // EFFECTS: returns every term that occurs in the segment
+    abstract Iterable<String> terms();
+
+    // EFFECTS: returns true if doc has not been deleted
+    boolean isLive(int doc) {
+        return !deleted.get(doc);
+    }
+}
@@ -0,0 +1,213 @@
+package search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+
+// Writes a segment file (see MappedSegment for the layout). Postings are written out term by term as they
+// are added, in increasing term order, so only the postings of one term are held in memory at a time.
+// Document numbers and positions are stored as varint-encoded deltas.
+final class SegmentWriter {
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final VarintBuffer postingsBuffer = new VarintBuffer();
+    private final VarintBuffer positionsBuffer = new VarintBuffer();
+    private final VarintBuffer dictionary = new VarintBuffer();
+    private int[] entryOffsets = new int[64];
+    private int termCount;
+    private int[] articleIds = new int[64];
+    private int[] docLengths = new int[64];
+    private int docCount;
+
+    // EFFECTS: creates the segment file, replacing any file already at that path
+    SegmentWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        out.write(MappedSegment.MAGIC);
+        out.writeInt(MappedSegment.VERSION);
+    }
+
+    // EFFECTS: writes the live documents of sources, in order, into a new segment file with the given
+    //          tombstones; deleted holds the documents of each source to leave out. Returns where each
+    //          document of the new segment came from.
+    static Origins writeLiveDocuments(Path file, List<Segment> sources, List<BitSet> deleted, int[] tombstones)
+            throws IOException {
+        SegmentWriter writer = new SegmentWriter(file);
+        try {
+            int[][] renumbered = new int[sources.size()][];
+            Origins origins = new Origins();
+            TreeSet<String> terms = new TreeSet<>();
+            for (int s = 0; s < sources.size(); s++) {
+                renumbered[s] = writer.addLiveDocuments(sources.get(s), deleted.get(s), s, origins);
+                sources.get(s).terms().forEach(terms::add);
+            }
+            for (String term : terms) {
+                writer.addTerm(term, mergePostings(term, sources, renumbered));
+            }
+            writer.finish(tombstones);
+            return origins;
+        } finally {
+            writer.close();
+        }
+    }
+
+    // MODIFIES: this, origins
+    // EFFECTS: adds the documents of source that are not in deleted, recording them in origins as coming
+    //          from sourceIndex; returns the new number of each document of source, or -1 if it was left out
+    private int[] addLiveDocuments(Segment source, BitSet deleted, int sourceIndex, Origins origins) {
+        int[] renumbered = new int[source.docCount()];
+        for (int doc = 0; doc < source.docCount(); doc++) {
+            if (deleted.get(doc)) {
+                renumbered[doc] = -1;
+            } else {
+                renumbered[doc] = addDocument(source.articleId(doc), source.docLength(doc));
+                origins.add(sourceIndex, doc);
+            }
+        }
+        return renumbered;
+    }
+
+    // EFFECTS: returns the postings of term in every source, with documents renumbered as in renumbered
+    //          and documents numbered -1 there left out
+    private static Postings mergePostings(String term, List<Segment> sources, int[][] renumbered) {
+        Postings merged = new Postings();
+        for (int s = 0; s < sources.size(); s++) {
+            Postings postings = sources.get(s).postings(term, true);
+            for (int i = 0; postings != null && i < postings.size; i++) {
+                int doc = renumbered[s][postings.docs[i]];
+                if (doc >= 0) {
+                    int start = postings.positionStarts[i];
+                    merged.add(doc, postings.freqs[i], postings.positions, start,
+                            postings.positionStarts[i + 1] - start);
+                }
+            }
+        }
+        return merged;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a document to the document table and returns its number in the segment
+    int addDocument(int articleId, int length) {
+        if (docCount == articleIds.length) {
+            articleIds = Arrays.copyOf(articleIds, docCount * 2);
+            docLengths = Arrays.copyOf(docLengths, docCount * 2);
+        }
+        articleIds[docCount] = articleId;
+        docLengths[docCount] = length;
+        return docCount++;
+    }
+
+    // REQUIRES: term is greater than every term added so far, and postings have positions
+    // MODIFIES: this
+    // EFFECTS: writes the postings of term; postings without documents are left out
+    void addTerm(String term, Postings postings) throws IOException {
+        if (postings.size == 0) {
+            return;
+        }
+        if (termCount == entryOffsets.length) {
+            entryOffsets = Arrays.copyOf(entryOffsets, termCount * 2);
+        }
+        entryOffsets[termCount++] = dictionary.size();
+        dictionary.writeString(term);
+        dictionary.writeInt(checkedOffset());
+
+        postingsBuffer.reset();
+        positionsBuffer.reset();
+        postingsBuffer.writeVarint(postings.size);
+        int previousDoc = 0;
+        for (int i = 0; i < postings.size; i++) {
+            postingsBuffer.writeVarint(postings.docs[i] - previousDoc);
+            postingsBuffer.writeVarint(postings.freqs[i]);
+            previousDoc = postings.docs[i];
+            encodePositions(postings, i);
+        }
+        postingsBuffer.writeVarint(positionsBuffer.size());
+        postingsBuffer.writeTo(out);
+        positionsBuffer.writeTo(out);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes the number of positions of the i-th document of postings and the positions as deltas
+    private void encodePositions(Postings postings, int i) {
+        int start = postings.positionStarts[i];
+        int end = postings.positionStarts[i + 1];
+        positionsBuffer.writeVarint(end - start);
+        int previousPosition = 0;
+        for (int p = start; p < end; p++) {
+            positionsBuffer.writeVarint(postings.positions[p] - previousPosition);
+            previousPosition = postings.positions[p];
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the document table, tombstones, term dictionary and footer, and syncs the file
+    void finish(int[] tombstones) throws IOException {
+        int docTableOffset = checkedOffset();
+        for (int doc = 0; doc < docCount; doc++) {
+            out.writeInt(articleIds[doc]);
+            out.writeInt(docLengths[doc]);
+        }
+        int tombstoneOffset = checkedOffset();
+        out.writeInt(tombstones.length);
+        for (int id : tombstones) {
+            out.writeInt(id);
+        }
+        int dictionaryOffset = checkedOffset();
+        int entriesOffset = dictionaryOffset + 4 + 4 * termCount;
+        out.writeInt(termCount);
+        for (int i = 0; i < termCount; i++) {
+            out.writeInt(entriesOffset + entryOffsets[i]);
+        }
+        dictionary.writeTo(out);
+        out.writeInt(docCount);
+        out.writeLong(docTableOffset);
+        out.writeLong(tombstoneOffset);
+        out.writeLong(dictionaryOffset);
+        out.flush();
+        channel.force(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the file
+    void close() throws IOException {
+        out.close();
+    }
+
+    // EFFECTS: returns the number of bytes written so far; throws IOException if the segment has grown
+    //          past the 2 GB that can be memory-mapped
+    private int checkedOffset() throws IOException {
+        int offset = out.size();
+        if (offset == Integer.MAX_VALUE) {
+            throw new IOException("Search segment is too large to map");
+        }
+        return offset;
+    }
+
+    // Where each document of a written segment came from: its source and its number there
+    static final class Origins {
+        int[] sources = new int[64];
+        int[] docs = new int[64];
+        int size;
+
+        // MODIFIES: this
+        // EFFECTS: records that the next document came from doc of the given source
+        void add(int source, int doc) {
+            if (size == docs.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            sources[size] = source;
+            docs[size] = doc;
+            size++;
+        }
+    }
+}
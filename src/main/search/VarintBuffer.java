@@ -0,0 +1,68 @@
+package search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// A growable byte buffer for encoding segment data. Varints store seven bits per byte, least significant
+// group first, with the high bit set on every byte but the last.
+final class VarintBuffer {
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    // MODIFIES: this
+    // EFFECTS: appends value as a varint
+    void writeVarint(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends value as four big-endian bytes
+    void writeInt(int value) {
+        ensureCapacity(4);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends value as its varint UTF-8 length followed by its bytes
+    void writeString(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(utf8.length);
+        ensureCapacity(utf8.length);
+        System.arraycopy(utf8, 0, bytes, size, utf8.length);
+        size += utf8.length;
+    }
+
+    // EFFECTS: returns the number of bytes in the buffer
+    int size() {
+        return size;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: empties the buffer
+    void reset() {
+        size = 0;
+    }
+
+    // EFFECTS: writes the contents of the buffer to out
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes room for at least extra more bytes
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.Article;
+import model.ArticlePage;
+import model.Blog;
+import model.TagQuery;
+import model.TimelineQuery;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Serves a blog read-only over HTTP as JSON, on the JDK's built-in HTTP server:
+//     GET /articles/<id>                               an article with its content and tags
+//     GET /articles?order=created|edited&newest=true|false&limit=<n>&after=<cursor>
+//                                                      a page of article summaries in the order of a timeline
+//     GET /tags/<name>?limit=<n>&after=<id>            a page of summaries of the articles with a tag, by id
+// A listing holds the cursor of its next page as "next", to be passed back as after. HEAD is answered too.
+//
+// Every response is serialized and gzipped once and kept in a ResponseCache until what it was built from
+// changes; each request only checks that it has not, which takes the blog's lock for a moment. Responses
+// carry a strong ETag, derived from the article id and dateEdited for an article and from the bytes of the
+// body, and a request whose If-None-Match names it is answered with 304 Not Modified.
+//
+// Requests are run on a virtual thread each when the JDK has them (Java 21 and later), and on a fixed pool
+// of threads otherwise. The server listens on the loopback address only, so that a blog is never served to
+// the network by accident. An application serving a blog should call enableNoDelay before it creates the
+// first server, since that JVM-wide setting is its to make.
+public class BlogServer implements Closeable {
+    public static final int MAX_LIMIT = 100;
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int POOL_THREADS = 32;
+    private static final int BACKLOG = 1024;
+    private static final long CACHE_BYTES = 64L << 20;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final Blog blog;
+    private final Object lock;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ResponseCache cache = new ResponseCache(CACHE_BYTES);
+
+    // REQUIRES: every change to blog is made while holding lock, as WriteBehindSaver.update does with the
+    //           blog's JournalStore
+    // EFFECTS: constructs a server for blog listening on port of the loopback address, or on a free port if
+    //          port is 0; throws IOException if the port cannot be bound
+    public BlogServer(Blog blog, Object lock, int port) throws IOException {
+        this.blog = blog;
+        this.lock = lock;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    // MODIFIES: the system properties
+    // EFFECTS: has the JDK's HTTP servers send each response without waiting, unless the application has already
+    //          chosen otherwise. Without TCP_NODELAY each response waits out a delayed ACK from the client after
+    //          its headers, which caps a keep-alive connection at about 25 requests a second. The setting is
+    //          JVM-wide and read once, when the first server in the JVM is created, so it is left to the
+    //          application to call this before then rather than done by constructing a server.
+    public static void enableNoDelay() {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts answering requests in the background
+    public void start() {
+        server.start();
+    }
+
+    // EFFECTS: returns the port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops listening and answering requests
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    // EFFECTS: returns an executor that runs each task on a virtual thread of its own if the JDK has them,
+    //          otherwise one that runs tasks on a fixed pool of POOL_THREADS daemon threads. The virtual thread
+    //          executor is looked up reflectively, since this code is built for Java 8.
+    static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(POOL_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "blog-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // EFFECTS: answers exchange, then closes it
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Only GET and HEAD are supported");
+                return;
+            }
+            CachedResponse response = route(exchange.getRequestURI());
+            if (response == null) {
+                sendError(exchange, 404, "Not found");
+            } else {
+                send(exchange, response);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // EFFECTS: returns the response for the resource uri names, or null if there is no such resource; throws
+    //          IllegalArgumentException if a parameter is not valid
+    private CachedResponse route(URI uri) {
+        String[] segments = uri.getPath().split("/", -1);
+        Map<String, String> parameters = parameters(uri.getRawQuery());
+        if (segments.length == 2 && segments[1].equals("articles")) {
+            return listing(parameters);
+        } else if (segments.length == 3 && segments[1].equals("articles")) {
+            return article(parseInt(segments[2], "article id"));
+        } else if (segments.length == 3 && segments[1].equals("tags") && !segments[2].isEmpty()) {
+            return tagged(segments[2], parameters);
+        }
+        return null;
+    }
+
+    // EFFECTS: returns the response for the article with the given id, or null if there is none
+    private CachedResponse article(int id) {
+        String key = "/articles/" + id;
+        CachedResponse cached = cache.get(key);
+        String stamp;
+        String prefix;
+        JSONObject json;
+        synchronized (lock) {
+            if (!blog.containsArticle(id)) {
+                return null;
+            }
+            Article article = blog.findArticleById(id);
+            stamp = stamp(article) + tagStamp(article);
+            if (cached != null && cached.isCurrent(stamp)) {
+                return cached;
+            }
+            prefix = id + "-" + article.getDateEdited() + "-";
+            json = articleToJson(article);
+        }
+        return remember(key, CachedResponse.of(stamp, json.toString(), prefix));
+    }
+
+    // EFFECTS: returns the response for a page of article summaries in the order of a timeline; throws
+    //          IllegalArgumentException if a parameter is not valid
+    private CachedResponse listing(Map<String, String> parameters) {
+        TimelineQuery query = timelineQuery(parameters);
+        int limit = limit(parameters);
+        String key = "/articles?" + query.getTimeline() + "&" + query.isNewestFirst() + "&" + limit + "&"
+                + parameters.get("after");
+        CachedResponse cached = cache.get(key);
+        String stamp;
+        JSONObject json;
+        synchronized (lock) {
+            ArticlePage page = blog.listArticles(query, limit);
+            String next = page.hasNext() ? Long.toString(page.getNext().getCursor()) : null;
+            stamp = summaryStamp(page.getArticles(), next);
+            if (cached != null && cached.isCurrent(stamp)) {
+                return cached;
+            }
+            json = summariesToJson(page.getArticles(), next);
+        }
+        return remember(key, CachedResponse.of(stamp, json.toString(), ""));
+    }
+
+    // EFFECTS: returns the response for a page of summaries of the articles with the tag called name, in
+    //          order of id; throws IllegalArgumentException if a parameter is not valid
+    private CachedResponse tagged(String name, Map<String, String> parameters) {
+        int after = parameters.containsKey("after") ? parseInt(parameters.get("after"), "after") : -1;
+        int limit = limit(parameters);
+        String key = "/tags/" + name + "?" + limit + "&" + after;
+        CachedResponse cached = cache.get(key);
+        String stamp;
+        JSONObject json;
+        synchronized (lock) {
+            // One id more than the page tells whether there is a next page
+            int[] ids = new int[limit + 1];
+            int count = blog.findArticleIds(TagQuery.tag(name), after, limit + 1, ids);
+            List<Article> articles = new ArrayList<>(Math.min(count, limit));
+            for (int i = 0; i < count && i < limit; i++) {
+                articles.add(blog.findArticleById(ids[i]));
+            }
+            String next = count > limit ? Integer.toString(ids[limit - 1]) : null;
+            stamp = summaryStamp(articles, next);
+            if (cached != null && cached.isCurrent(stamp)) {
+                return cached;
+            }
+            json = summariesToJson(articles, next);
+        }
+        return remember(key, CachedResponse.of(stamp, json.toString(), ""));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: keeps response in the cache under key and returns it
+    private CachedResponse remember(String key, CachedResponse response) {
+        cache.put(key, response);
+        return response;
+    }
+
+    // EFFECTS: returns a stamp that changes whenever the title, author or content of article does; every
+    //          edit records a revision, so the content never has to be read to tell
+    private static String stamp(Article article) {
+        return article.getId() + ":" + article.getDateEdited() + ":" + article.getRevisionCount() + ";";
+    }
+
+    // EFFECTS: returns a stamp that changes whenever the tags of article do
+    private static String tagStamp(Article article) {
+        StringBuilder stamp = new StringBuilder();
+        article.getTags().forEach(tag -> stamp.append(tag.getName().length()).append(':').append(tag.getName()));
+        return stamp.toString();
+    }
+
+    // EFFECTS: returns a stamp of a listing of the summaries of articles that continues at next
+    private static String summaryStamp(List<Article> articles, String next) {
+        StringBuilder stamp = new StringBuilder(articles.size() * 24 + 16);
+        for (Article article : articles) {
+            stamp.append(stamp(article));
+        }
+        return stamp.append(next).toString();
+    }
+
+    // EFFECTS: returns article as JSON
+    private static JSONObject articleToJson(Article article) {
+        JSONObject json = summaryToJson(article);
+        json.put("content", article.getContent());
+        JSONArray tags = new JSONArray();
+        article.getTags().forEach(tag -> tags.put(tag.getName()));
+        json.put("tags", tags);
+        json.put("revisions", article.getRevisionCount());
+        return json;
+    }
+
+    // EFFECTS: returns the summaries of articles as JSON, with the cursor of the next page if there is one
+    private static JSONObject summariesToJson(List<Article> articles, String next) {
+        JSONArray summaries = new JSONArray();
+        for (Article article : articles) {
+            summaries.put(summaryToJson(article));
+        }
+        JSONObject json = new JSONObject();
+        json.put("articles", summaries);
+        if (next != null) {
+            json.put("next", next);
+        }
+        return json;
+    }
+
+    // EFFECTS: returns the summary of article as JSON
+    private static JSONObject summaryToJson(Article article) {
+        JSONObject json = new JSONObject();
+        json.put("id", article.getId());
+        json.put("title", article.getTitle());
+        json.put("author", article.getAuthor());
+        json.put("dateCreated", article.getDateCreated().toString());
+        json.put("dateEdited", article.getDateEdited().toString());
+        return json;
+    }
+
+    // EFFECTS: sends response, or 304 Not Modified if the request already has it
+    private static void send(HttpExchange exchange, CachedResponse response) throws IOException {
+        Headers request = exchange.getRequestHeaders();
+        boolean gzip = response.hasGzip() && acceptsGzip(request.get("Accept-Encoding"));
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", response.etag(gzip));
+        headers.set("Vary", "Accept-Encoding");
+        headers.set("Cache-Control", "no-cache");
+        if (matches(request.get("If-None-Match"), response)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        headers.set("Content-Type", JSON);
+        if (gzip) {
+            headers.set("Content-Encoding", "gzip");
+        }
+        sendBody(exchange, 200, response.body(gzip));
+    }
+
+    // EFFECTS: sends a JSON error with the given status code and message
+    private static void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        sendBody(exchange, code, new JSONObject().put("error", message).toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // EFFECTS: sends body with the given status code, or only its length if the request is a HEAD
+    private static void sendBody(HttpExchange exchange, int code, byte[] body) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+            exchange.sendResponseHeaders(code, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // EFFECTS: returns true if one of the If-None-Match headers names either ETag of response, or is *
+    private static boolean matches(List<String> ifNoneMatch, CachedResponse response) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                // If-None-Match compares weakly, so W/"x" matches "x"
+                String trimmed = tag.trim().replaceFirst("^W/", "");
+                if (trimmed.equals("*") || trimmed.equals(response.etag(false))
+                        || trimmed.equals(response.etag(true))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // EFFECTS: returns true if the Accept-Encoding headers accept gzip
+    private static boolean acceptsGzip(List<String> acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String header : acceptEncoding) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                boolean refused = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+                if ((name.equalsIgnoreCase("gzip") || name.equals("*")) && !refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // EFFECTS: returns the timeline query named by the order, newest and after parameters; throws
+    //          IllegalArgumentException if one of them is not valid
+    private static TimelineQuery timelineQuery(Map<String, String> parameters) {
+        String order = parameters.getOrDefault("order", "created");
+        if (!order.equals("created") && !order.equals("edited")) {
+            throw new IllegalArgumentException("order must be created or edited");
+        }
+        TimelineQuery query = order.equals("created") ? TimelineQuery.created() : TimelineQuery.edited();
+        if (!parameters.getOrDefault("newest", "true").equals("false")) {
+            query = query.newestFirst();
+        }
+        if (parameters.containsKey("after")) {
+            query = query.resume(parseLong(parameters.get("after"), "after"));
+        }
+        return query;
+    }
+
+    // EFFECTS: returns the limit parameter, or DEFAULT_LIMIT if there is none; throws IllegalArgumentException
+    //          if it is not between 1 and MAX_LIMIT
+    private static int limit(Map<String, String> parameters) {
+        int limit = parameters.containsKey("limit") ? parseInt(parameters.get("limit"), "limit") : DEFAULT_LIMIT;
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    // EFFECTS: returns the parameters in the raw query string, decoded; an empty map if query is null
+    private static Map<String, String> parameters(String query) {
+        HashMap<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+            }
+        }
+        return parameters;
+    }
+
+    // EFFECTS: returns s with its URL escapes decoded; throws IllegalArgumentException if they are malformed
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // Every Java platform is required to support UTF-8
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // EFFECTS: returns s as an int; throws IllegalArgumentException naming what if it is not one
+    private static int parseInt(String s, String what) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(what + " must be a whole number");
+        }
+    }
+
+    // EFFECTS: returns s as a long; throws IllegalArgumentException naming what if it is not one
+    private static long parseLong(String s, String what) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(what + " must be a whole number");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+// A response body that has been serialized and compressed once, to be sent as often as it is asked for until
+// what it was built from changes. The stamp describes what it was built from; a response is only reused for
+// a request whose stamp is the same. The strong ETag is derived from the bytes of the body, with a different
+// one for the gzipped form, since the two are different representations of the same resource.
+final class CachedResponse {
+    private static final int OVERHEAD = 128;
+
+    private final String stamp;
+    private final byte[] plain;
+    private final byte[] gzipped;
+    private final String etag;
+
+    // EFFECTS: constructs a response built from data with the given stamp
+    private CachedResponse(String stamp, byte[] plain, byte[] gzipped, String etag) {
+        this.stamp = stamp;
+        this.plain = plain;
+        this.gzipped = gzipped;
+        this.etag = etag;
+    }
+
+    // EFFECTS: returns a response with body json, built from data with the given stamp, whose ETag starts
+    //          with prefix; the gzipped form is only kept if it is smaller
+    static CachedResponse of(String stamp, String json, String prefix) {
+        byte[] plain = json.getBytes(StandardCharsets.UTF_8);
+        byte[] gzipped = gzip(plain);
+        return new CachedResponse(stamp, plain, gzipped.length < plain.length ? gzipped : null,
+                prefix + hash(plain));
+    }
+
+    // EFFECTS: returns true if this response was built from data with the given stamp
+    boolean isCurrent(String stamp) {
+        return this.stamp.equals(stamp);
+    }
+
+    // EFFECTS: returns the body, gzipped if gzip is true and the body has a gzipped form
+    byte[] body(boolean gzip) {
+        return gzip && gzipped != null ? gzipped : plain;
+    }
+
+    // EFFECTS: returns true if the body has a gzipped form
+    boolean hasGzip() {
+        return gzipped != null;
+    }
+
+    // EFFECTS: returns the quoted strong ETag of the body, or of its gzipped form if gzip is true
+    String etag(boolean gzip) {
+        return "\"" + etag + (gzip ? "-gz" : "") + "\"";
+    }
+
+    // EFFECTS: returns the number of bytes the response takes up
+    long weight() {
+        return plain.length + (gzipped == null ? 0 : gzipped.length) + stamp.length() * 2L + OVERHEAD;
+    }
+
+    // EFFECTS: returns bytes compressed with gzip
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    // EFFECTS: returns the first 64 bits of the SHA-256 hash of bytes as hex
+    private static String hash(byte[] bytes) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        StringBuilder hex = new StringBuilder(16);
+        for (int i = 0; i < 8; i++) {
+            hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The responses a server has built, by the resource they are for, least recently used first while their
+// total weight is within maxBytes. Safe to use from many request threads at once.
+final class ResponseCache {
+    private final long maxBytes;
+    private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    // REQUIRES: maxBytes > 0
+    // EFFECTS: constructs a cache that holds up to maxBytes of responses
+    ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // EFFECTS: returns the response for key, or null if there is none
+    synchronized CachedResponse get(String key) {
+        return responses.get(key);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: keeps response for key in place of any earlier one, evicting the least recently used responses
+    //          to stay within maxBytes; a response too large to fit on its own is not kept
+    synchronized void put(String key, CachedResponse response) {
+        CachedResponse replaced = responses.remove(key);
+        if (replaced != null) {
+            bytes -= replaced.weight();
+        }
+        if (response.weight() > maxBytes) {
+            return;
+        }
+        responses.put(key, response);
+        bytes += response.weight();
+        Iterator<Map.Entry<String, CachedResponse>> eldest = responses.entrySet().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().getValue().weight();
+            eldest.remove();
+        }
+    }
+
+    // EFFECTS: returns the number of bytes of responses held
+    synchronized long getBytes() {
+        return bytes;
+    }
+}
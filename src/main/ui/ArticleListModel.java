@@ -1,72 +1,250 @@
 package ui;
 
 import model.Article;
+import model.ArticleSnapshot;
+import model.BlogChange;
+import model.ChangeKind;
+import model.IntIntMap;
 
 import javax.swing.*;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-// ArticleListModel represents a list of articles in the BlogApp GUI
-public class ArticleListModel extends AbstractListModel<Article> {
-    private ArrayList<Article> articles;
+// ArticleListModel represents a list of articles in the BlogApp GUI.
+// The model holds only a projection of each article, its id, title and author, in parallel arrays, and
+// hands out an ArticleRow for each row that the list asks for, so a list of hundreds of thousands of
+// articles neither keeps the articles alive nor allocates an object per row up front. An IntIntMap from id
+// to row makes finding and updating an article's row take constant time, and every change fires an event
+// for just the rows it touched rather than making the JList lay out every row again.
+//
+// The model can be narrowed to a filtered view, such as the results of a search. While it is filtered only
+// the matching rows are shown; the full list is kept aside, still following every change, and comes back
+// as it was when the filter is cleared.
+//
+// The rows can be kept up to date from the changes made to the blog (see model.ChangeCursor), which updates
+// the rows of the articles that were edited or removed without listing the articles again.
+public class ArticleListModel extends AbstractListModel<ArticleRow> {
+    private Rows all = new Rows();
+    private Rows matches;
 
-    // EFFECTS: constructs an ArticleListModel instance
-    public ArticleListModel(ArrayList<Article> input) {
-        articles = input;
+    // EFFECTS: constructs an ArticleListModel instance listing input
+    public ArticleListModel(List<Article> input) {
+        setArticles(input);
     }
 
     // MODIFIES: this
-    // EFFECTS: Adds article to list of articles in GUI
+    // EFFECTS: Adds article to the end of list of articles in GUI; it is not shown while the list is filtered
     public void add(Article a) {
-        articles.add(a);
+        all.add(a);
+        if (matches == null) {
+            fireIntervalAdded(this, all.size - 1, all.size - 1);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds articles to the end of the list of articles in GUI; they are not shown while the list
+    //          is filtered
+    public void addAll(List<Article> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        int first = all.size;
+        for (Article a : added) {
+            all.add(a);
+        }
+        if (matches == null) {
+            fireIntervalAdded(this, first, all.size - 1);
+        }
     }
 
     // MODIFIES: this
-    // EFFECTS: Removes article from list of articles in GUI
+    // EFFECTS: Removes article from list of articles in GUI, if it is there
     public void delete(Article a) {
-        articles.remove(a);
+        delete(a.getId());
     }
 
     // MODIFIES: this
-    // EFFECTS: Updates provided article
+    // EFFECTS: Removes the article with the given id from list of articles in GUI, if it is there
+    private void delete(int id) {
+        int index = all.remove(id);
+        if (matches != null) {
+            index = matches.remove(id);
+        }
+        if (index >= 0) {
+            fireIntervalRemoved(this, index, index);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Updates the row of provided article, if it is in the list
     public void update(Article a) {
-        int index = articles.indexOf(a);
-        articles.set(index, a);
+        update(a.getId(), a.getTitle(), a.getAuthor());
     }
 
-    // EFFECTS: Returns index of provided note
+    // MODIFIES: this
+    // EFFECTS: Updates the rows of the articles that changes edited or removed; articles that were added are
+    //          left to be listed where they belong by whoever lists the articles
+    public void changed(List<BlogChange> changes) {
+        for (BlogChange change : changes) {
+            if (change.getKind() == ChangeKind.ARTICLE_REMOVED) {
+                delete(change.getId());
+            } else if (change.getKind() == ChangeKind.ARTICLE_EDITED) {
+                ArticleSnapshot a = change.getArticle();
+                update(a.getId(), a.getTitle(), a.getAuthor());
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Updates the row of the article with the given id, if it is in the list
+    private void update(int id, String title, String author) {
+        int index = all.update(id, title, author);
+        if (matches != null) {
+            index = matches.update(id, title, author);
+        }
+        if (index >= 0) {
+            fireContentsChanged(this, index, index);
+        }
+    }
+
+    // EFFECTS: Returns index of provided article, or -1 if it is not in the list
     public int indexOf(Article a) {
-        return articles.indexOf(a);
+        return indexOf(a.getId());
+    }
+
+    // EFFECTS: Returns index of the article with the given id, or -1 if it is not shown
+    public int indexOf(int id) {
+        return shown().index.get(id);
     }
 
-    // EFFECTS: Returns size of underlying articles list
+    // EFFECTS: Returns number of articles shown in the list
     @Override
     public int getSize() {
-        return articles.size();
+        return shown().size;
     }
 
-    // EFFECTS: Returns article at provided index
+    // REQUIRES: 0 <= index < getSize()
+    // EFFECTS: Returns the row at provided index
     @Override
-    public Article getElementAt(int index) {
-        if (articles.isEmpty()) {
-            return null;
-        }
+    public ArticleRow getElementAt(int index) {
+        Rows rows = shown();
+        return new ArticleRow(rows.ids[index], rows.titles[index], rows.authors[index]);
+    }
 
-        return articles.get(index);
+    // MODIFIES: this
+    // EFFECTS: clears the filter, if any, and sets list of articles
+    public void setArticles(List<Article> articles) {
+        replace(new Rows(), null);
+        addAll(articles);
     }
 
-    // EFFECTS: Returns underlying list of articles
-    public ArrayList<Article> getArticles() {
-        return this.articles;
+    // MODIFIES: this
+    // EFFECTS: shows only the given articles, in the given order, until the filter is cleared or replaced
+    public void setFilter(List<Article> filtered) {
+        Rows rows = new Rows();
+        for (Article a : filtered) {
+            rows.add(a);
+        }
+        replace(all, rows);
     }
 
     // MODIFIES: this
-    // EFFECTS: sets list of articles
-    public void setArticles(ArrayList<Article> articles) {
-        this.articles = articles;
+    // EFFECTS: shows the full list of articles again, if the list is filtered
+    public void clearFilter() {
+        if (matches != null) {
+            replace(all, null);
+        }
+    }
+
+    // EFFECTS: Returns true if only the articles of a filter are shown
+    public boolean isFiltered() {
+        return matches != null;
     }
 
-    // EFFECTS: Returns true if there are no articles in the list
+    // EFFECTS: Returns true if there are no articles shown in the list
     public boolean isEmpty() {
-        return articles.isEmpty();
+        return getSize() == 0;
+    }
+
+    // EFFECTS: returns the rows that are shown
+    private Rows shown() {
+        return matches == null ? all : matches;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the full list and the filtered rows, firing events for the rows shown before and after
+    private void replace(Rows all, Rows matches) {
+        int removed = getSize();
+        this.all = all;
+        this.matches = matches;
+        if (removed > 0) {
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+        if (getSize() > 0) {
+            fireIntervalAdded(this, 0, getSize() - 1);
+        }
+    }
+
+    // The projections of a list of articles in parallel arrays, with an index from id to row
+    private static final class Rows {
+        private static final int MIN_CAPACITY = 16;
+
+        private int[] ids = new int[MIN_CAPACITY];
+        private String[] titles = new String[MIN_CAPACITY];
+        private String[] authors = new String[MIN_CAPACITY];
+        private int size;
+        private final IntIntMap index = new IntIntMap();
+
+        // MODIFIES: this
+        // EFFECTS: adds the projection of a as the last row
+        void add(Article a) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                titles = Arrays.copyOf(titles, size * 2);
+                authors = Arrays.copyOf(authors, size * 2);
+            }
+            set(size++, a.getId(), a.getTitle(), a.getAuthor());
+        }
+
+        // MODIFIES: this
+        // EFFECTS: removes the row of the article with the given id and returns where it was, or -1 if there
+        //          is no such row
+        int remove(int id) {
+            int row = index.get(id);
+            if (row < 0) {
+                return -1;
+            }
+            index.remove(id);
+            System.arraycopy(ids, row + 1, ids, row, size - row - 1);
+            System.arraycopy(titles, row + 1, titles, row, size - row - 1);
+            System.arraycopy(authors, row + 1, authors, row, size - row - 1);
+            size--;
+            titles[size] = null;
+            authors[size] = null;
+            for (int i = row; i < size; i++) {
+                index.put(ids[i], i);
+            }
+            return row;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: updates the row of the article with the given id and returns it, or returns -1 if it has
+        //          no row
+        int update(int id, String title, String author) {
+            int row = index.get(id);
+            if (row >= 0) {
+                set(row, id, title, author);
+            }
+            return row;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: stores the projection of an article in the given row
+        private void set(int row, int id, String title, String author) {
+            ids[row] = id;
+            titles[row] = title;
+            authors[row] = author;
+            index.put(id, row);
+        }
     }
 }
@@ -0,0 +1,44 @@
+package ui;
+
+// The part of an article that the list of articles shows: a lightweight projection that does not keep the
+// article, its content or its tags alive. Rows are equal if they are for the same article.
+public final class ArticleRow {
+    private final int id;
+    private final String title;
+    private final String author;
+
+    // EFFECTS: constructs the row of the article with the given id, title and author
+    public ArticleRow(int id, String title, String author) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    // EFFECTS: returns the row as the article's own toString() shows it
+    @Override
+    public String toString() {
+        return String.format("%s by %s", title, author);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ArticleRow && ((ArticleRow) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+}
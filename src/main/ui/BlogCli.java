@@ -2,27 +2,70 @@ package ui;
 
 import jdk.nashorn.internal.ir.debug.JSONWriter;
 import model.*;
-import persistence.JsonReader;
-import persistence.JsonWriter;
+import persistence.BlogWeigher;
+import persistence.JournalStore;
+import persistence.OpenBlog;
+import persistence.Workspace;
+import persistence.WriteBehindSaver;
+import render.ExportSummary;
+import render.MarkdownRenderer;
+import render.SiteExporter;
+import search.SearchResult;
+import server.BlogServer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 // User interface logic for a Blog application that runs on the command line
+// The console and the file the blog is stored in can be swapped out, so that the app can also be driven by
+// a script, as the soak test harness does. The other blogs in the same directory form a Workspace that the
+// user can switch between; the blogs used recently stay in memory, within a budget of half the heap.
 public class BlogCli {
     private static final String JSON_STORE = "./data/blog.json";
+    private static final int SEARCH_RESULTS = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final long SAVE_WINDOW_MILLIS = 500;
+    private static final int SERVER_PORT = 8210;
     private Blog blog;
     private Scanner input;
-    JsonWriter writer;
-    JsonReader reader;
-
-    // EFFECTS: runs the blog application
+    private final InputStream in;
+    private final PrintStream out;
+    private final String storePath;
+    private final Workspace workspace;
+    private final SiteExporter exporter = new SiteExporter(new MarkdownRenderer());
+    private String blogName;
+    private BlogServer server;
+    JournalStore store;
+    WriteBehindSaver saver;
+
+    // EFFECTS: runs the blog application on the console
     public BlogCli() {
-        writer = new JsonWriter(JSON_STORE);
-        reader = new JsonReader(JSON_STORE);
+        this(System.in, System.out, JSON_STORE);
+    }
+
+    // REQUIRES: storePath ends with Workspace.EXTENSION
+    // EFFECTS: runs the blog application, reading commands from in, writing to out and storing the blog
+    //          at storePath, until the user quits
+    public BlogCli(InputStream in, PrintStream out, String storePath) {
+        this.in = in;
+        this.out = out;
+        this.storePath = storePath;
+        Path path = Paths.get(storePath).toAbsolutePath();
+        String fileName = path.getFileName().toString();
+        blogName = fileName.substring(0, fileName.length() - Workspace.EXTENSION.length());
+        workspace = new Workspace(path.getParent(), Runtime.getRuntime().maxMemory() / 2, BlogWeigher.ESTIMATE,
+                SAVE_WINDOW_MILLIS, e -> out.println("Unable to save blog: " + e.getMessage()));
         runBlog();
     }
 
@@ -43,6 +86,7 @@ public class BlogCli {
 
             if (command.equals("q")) {
                 keepGoing = false;
+                closeWorkspace();
             } else {
                 parseMainMenuCommand(command);
             }
@@ -52,11 +96,11 @@ public class BlogCli {
     // MODIFIES: this
     // EFFECTS: Asks user if they want to load their existing blog, or create a new one
     private void initBlog() {
-        input = new Scanner(System.in);
+        input = new Scanner(in);
         input.useDelimiter("\n");
-        System.out.println("Welcome to the BloggingApp!\nPlease select an option:");
-        System.out.println("\tn -> create a new blog");
-        System.out.println("\tl -> load your existing blog");
+        out.println("Welcome to the BloggingApp!\nPlease select an option:");
+        out.println("\tn -> create a new blog");
+        out.println("\tl -> load your existing blog");
         String command = input.next();
         command = command.toLowerCase();
         parseInitCommand(command);
@@ -65,44 +109,135 @@ public class BlogCli {
     // MODIFIES: this
     // EFFECTS: creates a new blog with the name provided by the user
     private void createNewBlog() {
-        System.out.println("Welcome to the BloggingApp!\nPlease enter the name of your blog:");
+        out.println("Welcome to the BloggingApp!\nPlease enter the name of your blog:");
         String title = input.next();
-        blog = new Blog(title);
+        try {
+            use(workspace.create(blogName, title));
+        } catch (IOException e) {
+            out.println("Unable to create blog in " + storePath);
+        }
     }
 
     // MODIFIES: this
     // EFFECTS: loads existing blog from file
     private void loadBlog() {
         try {
-            blog = reader.read();
-            System.out.println(String.format("Successfully loaded \"%s\" from %s", blog.getTitle(), JSON_STORE));
+            use(workspace.open(blogName));
+            out.println(String.format("Successfully loaded \"%s\" from %s", blog.getTitle(), storePath));
         } catch (IOException e) {
-            System.out.println("Unable to read from file " + JSON_STORE);
+            out.println("Unable to read from file " + storePath);
         }
     }
 
-    // EFFECTS: saves blog to file
+    // EFFECTS: saves the changes made since the last save to file and waits for them to be written;
+    //          changes are also saved in the background shortly after they are made
     private void saveBlog() {
         try {
-            writer.open();
-            writer.write(blog);
-            writer.close();
-            System.out.println(String.format("Saved %s to %s", blog.getTitle(), JSON_STORE));
+            saver.await();
+            out.println(String.format("Saved %s to %s%s", blog.getTitle(), blogName, Workspace.EXTENSION));
+        } catch (IOException e) {
+            out.println("Unable to save blog to " + blogName + Workspace.EXTENSION);
+        }
+    }
+
+    // EFFECTS: writes the blog as a static website to the directory named after it next to its file; only
+    //          the pages affected by changes since the last export are written again
+    private void exportSite() {
+        Path directory = Paths.get(storePath).toAbsolutePath().resolveSibling(blogName + "-site");
+        try {
+            ExportSummary summary = exporter.export(blog, directory);
+            out.println(String.format("Exported %s to %s (%s)", blog.getTitle(), directory, summary));
+        } catch (IOException | UncheckedIOException e) {
+            out.println("Unable to export blog to " + directory);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts serving the blog read-only over HTTP on localhost, or stops if it is being served
+    private void toggleServer() {
+        if (server != null) {
+            stopServer();
+            out.println("Stopped serving " + blog.getTitle());
+            return;
+        }
+        try {
+            BlogServer.enableNoDelay();
+            // Changes are made inside saver.update(), which holds the store's lock
+            server = new BlogServer(blog, store, SERVER_PORT);
+            server.start();
+            out.println(String.format("Serving %s at http://localhost:%d/articles", blog.getTitle(),
+                    server.getPort()));
+        } catch (IOException e) {
+            server = null;
+            out.println("Unable to serve blog: " + e.getMessage());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops serving the blog, if it is being served
+    private void stopServer() {
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: asks the user for the name of a blog in the workspace and switches to it, creating it if
+    //          there is no blog with that name yet
+    private void switchBlog() {
+        try {
+            TreeSet<String> names = new TreeSet<>(workspace.listBlogs());
+            names.addAll(workspace.openBlogs());
+            out.println("Blogs in this workspace: " + String.join(", ", names));
+            String name = readNonEmptyString("Name of the blog to open or create:");
+            if (workspace.exists(name) || workspace.isOpen(name)) {
+                use(workspace.open(name));
+            } else {
+                use(workspace.create(name, readNonEmptyString("Title of the new blog:")));
+            }
+            out.println(String.format("Switched to \"%s\"", blog.getTitle()));
+        } catch (IOException | IllegalArgumentException e) {
+            out.println("Unable to open blog: " + e.getMessage());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes opened the blog that commands work on, and stops serving the one they worked on before
+    private void use(OpenBlog opened) {
+        stopServer();
+        blogName = opened.getName();
+        blog = opened.getBlog();
+        store = opened.getStore();
+        saver = opened.getSaver();
+    }
+
+    // EFFECTS: saves the changes to every open blog that are still waiting to be saved and stops saving in
+    //          the background
+    private void closeWorkspace() {
+        stopServer();
+        try {
+            workspace.close();
         } catch (IOException e) {
-            System.out.println("Unable to save blog to " + JSON_STORE);
+            out.println("Unable to save blog: " + e.getMessage());
         }
     }
 
     // EFFECTS: displays menu to user
     private void displayMainMenu() {
-        System.out.println("\nSelect from:");
-        System.out.println("\tn -> write new article");
-        System.out.println("\tl -> list existing articles");
-        System.out.println("\tr -> read an existing article");
-        System.out.println("\te -> edit an existing article");
-        System.out.println("\tt -> tag an existing article");
-        System.out.println("\ts -> save your blog to file");
-        System.out.println("\tq -> quit");
+        out.println("\nSelect from:");
+        out.println("\tn -> write new article");
+        out.println("\tl -> list existing articles");
+        out.println("\tr -> read an existing article");
+        out.println("\te -> edit an existing article");
+        out.println("\tt -> tag an existing article");
+        out.println("\tf -> find articles by title, tag or content");
+        out.println("\ts -> save your blog to file");
+        out.println("\th -> view or restore earlier revisions of an article");
+        out.println("\tx -> export your blog as a static website");
+        out.println("\tw -> start or stop serving your blog on localhost");
+        out.println("\to -> open or create another blog");
+        out.println("\tq -> quit");
     }
 
     // EFFECTS: evaluates command entered at the init menu and calls relevant function
@@ -115,7 +250,7 @@ public class BlogCli {
                 loadBlog();
                 break;
             default:
-                System.out.println("I don't recognize that command. Please try again.");
+                out.println("I don't recognize that command. Please try again.");
         }
     }
 
@@ -137,18 +272,33 @@ public class BlogCli {
             case "t":
                 tagArticle();
                 break;
+            case "f":
+                searchArticles();
+                break;
             case "s":
                 saveBlog();
                 break;
+            case "o":
+                switchBlog();
+                break;
+            case "h":
+                showHistory();
+                break;
+            case "x":
+                exportSite();
+                break;
+            case "w":
+                toggleServer();
+                break;
             default:
-                System.out.println("I don't recognize that command. Please try again.");
+                out.println("I don't recognize that command. Please try again.");
         }
     }
 
     // MODIFIES: this
     // EFFECTS: Creates a new blog article by collecting input from the user
     private void createNewArticle() {
-        System.out.println("Create a new article");
+        out.println("Create a new article");
 
         String title = readNonEmptyString("Title:");
 
@@ -157,23 +307,26 @@ public class BlogCli {
         String content = readNonEmptyString("Content:");
 
         Article newArticle = new Article(
-                Article.getNextId(),
+                blog.allocateId(),
                 title,
                 author,
                 content,
                 LocalDate.now()
         );
 
-        blog.addArticle(newArticle);
+        saver.update(() -> {
+            blog.addArticle(newArticle);
+            store.articleCreated(newArticle);
+        });
 
-        System.out.println("Successfully created new article:");
-        System.out.println(newArticle.toString());
+        out.println("Successfully created new article:");
+        out.println(newArticle.toString());
     }
 
     // REQUIRES: promptMessage is a nonempty string that describes the input wanted from the user
     // EFFECTS: Reads from stdin and returns result if it is nonempty
     private String readNonEmptyString(String promptMessage) {
-        System.out.println(promptMessage);
+        out.println(promptMessage);
         String in = "";
         while (in.equals("")) {
             in = input.next();
@@ -181,51 +334,114 @@ public class BlogCli {
         return in;
     }
 
-    // EFFECTS: Prints out list of articles
+    // EFFECTS: asks the user how to order the articles and which dates to list, then prints them a page at
+    //          a time
     private void listArticles() {
-        for (Article article : blog.getArticles()) {
+        out.println("List articles by:");
+        out.println("\tc -> date created, newest first");
+        out.println("\to -> date created, oldest first");
+        out.println("\te -> date edited, most recent first");
+        String order = input.next().toLowerCase();
+        TimelineQuery query = TimelineQuery.created().newestFirst();
+        if (order.equals("o")) {
+            query = TimelineQuery.created();
+        } else if (order.equals("e")) {
+            query = TimelineQuery.edited().newestFirst();
+        }
+        LocalDate from = readDate("From (yyyy-mm-dd, leave blank to start at the first article):");
+        LocalDate to = readDate("To (yyyy-mm-dd, leave blank to end at the last article):");
+        TimelineQuery next = printPage(query.between(from, to));
+        while (next != null && getInputOrDefault("Type n for the next page, or press enter to stop:", "").equals("n")) {
+            next = printPage(next);
+        }
+    }
+
+    // EFFECTS: prints the first page of articles listed by query; returns the query for the next page,
+    //          or null if there are no more articles
+    private TimelineQuery printPage(TimelineQuery query) {
+        ArticlePage page = blog.listArticles(query, PAGE_SIZE);
+        if (page.getArticles().isEmpty()) {
+            out.println("No articles to list");
+        }
+        for (Article article : page.getArticles()) {
             String tagString = article.getTags().stream().map(Tag::getName)
                     .collect(Collectors.joining(", "));
-            System.out.println(article.getId() + ": " + article.toString());
+            out.println(article.getId() + ": " + article.toString());
             if (article.getTags().size() > 0) {
-                System.out.println("\tTags: " + tagString);
+                out.println("\tTags: " + tagString);
+            }
+        }
+        return page.getNext();
+    }
+
+    // EFFECTS: prompts the user for a date until they enter a valid one; returns null if they leave it blank
+    private LocalDate readDate(String promptMessage) {
+        while (true) {
+            String in = getInputOrDefault(promptMessage, "");
+            if (in.isEmpty()) {
+                return null;
             }
+            try {
+                return LocalDate.parse(in);
+            } catch (DateTimeParseException e) {
+                out.println("Please enter a date such as 2021-03-31");
+            }
+        }
+    }
+
+    // EFFECTS: prompts the user for a search query and prints the best matching articles
+    private void searchArticles() {
+        String query = readNonEmptyString("Search for (put phrases in double quotes):");
+        List<SearchResult> results;
+        // The first search builds the index from the articles, which must not change meanwhile
+        synchronized (store) {
+            results = blog.search(query, SEARCH_RESULTS);
+        }
+        if (results.isEmpty()) {
+            out.println("No articles match your search");
+        }
+        for (SearchResult result : results) {
+            out.println(result.getArticle().getId() + ": " + result.getArticle().toString());
         }
     }
 
     // EFFECTS: prints the article to the screen for the user to read
     private void readArticle() {
-        System.out.println("Which article would you like to read?");
+        out.println("Which article would you like to read?");
         Article articleToRead = findArticle();
         if (articleToRead == null) {
             return;
         }
-        System.out.println(articleToRead.toString());
-        System.out.println(articleToRead.getContent());
-        System.out.print("\n");
+        out.println(articleToRead.toString());
+        out.println(articleToRead.getContent());
+        out.print("\n");
     }
 
-    // EFFECTS: Displays list of articles and asks user which one they would like to edit
-    //          Returns article if found, or displays prompt again. User can type 'q' to return
+    // EFFECTS: Displays the most recent articles a page at a time and asks user which one they would like
+    //          to edit. Returns article if found, or displays prompt again. User can type 'q' to return
     //          to main menu.
     private Article findArticle() {
-        listArticles();
+        TimelineQuery next = printPage(TimelineQuery.created().newestFirst());
 
         Article article = null;
         while (article == null) {
 
-            String id = readNonEmptyString(
-                    "Enter the id of the article or type q to return to the main menu:"
+            String id = readNonEmptyString(next == null
+                    ? "Enter the id of the article or type q to return to the main menu:"
+                    : "Enter the id of the article, n for more articles or q to return to the main menu:"
             );
 
             if (id.equals("q")) {
                 return null;
+            } else if (id.equals("n") && next != null) {
+                next = printPage(next);
+                continue;
             }
 
             try {
                 article = blog.findArticleById(Integer.parseInt(id));
-            } catch (NoSuchElementException e) {
-                System.out.println(e.getMessage());
+            } catch (NoSuchElementException | NumberFormatException e) {
+                out.println(e.getMessage());
             }
         }
 
@@ -235,7 +451,7 @@ public class BlogCli {
     // REQUIRES: promptMessage and defaultValue are nonempty
     // EFFECTS: Prompts user for input and returns the value. Returns defaultValue if the input is empty.
     private String getInputOrDefault(String promptMessage, String defaultValue) {
-        System.out.println(promptMessage);
+        out.println(promptMessage);
         String in = input.next();
         if (in.equals("")) {
             return defaultValue;
@@ -246,7 +462,7 @@ public class BlogCli {
     // MODIFIES: this
     // EFFECTS: prompts the user for a new title and content for the article they want to edit
     private void editArticle() {
-        System.out.println("Which article would you like to edit?");
+        out.println("Which article would you like to edit?");
         Article articleToEdit = findArticle();
 
         if (articleToEdit == null) {
@@ -268,17 +484,79 @@ public class BlogCli {
                 articleToEdit.getContent()
         );
 
-        articleToEdit.edit(
-                newTitle,
-                newAuthor,
-                newContent
-        );
+        saver.update(() -> {
+            articleToEdit.edit(
+                    newTitle,
+                    newAuthor,
+                    newContent
+            );
+            store.articleEdited(articleToEdit);
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lists the earlier revisions of the article the user picks and lets them view or restore one
+    private void showHistory() {
+        out.println("Which article's history would you like to see?");
+        Article article = findArticle();
+        if (article == null) {
+            return;
+        }
+        if (article.getRevisionCount() == 0) {
+            out.println("This article has not been edited yet.");
+            return;
+        }
+        for (Revision revision : article.getRevisions()) {
+            out.println(revision);
+        }
+        boolean done = false;
+        while (!done) {
+            done = handleRevisionChoice(article, readNonEmptyString(
+                    "Enter v<number> to view a revision, r<number> to restore it, or q to return to the main menu:"));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows or restores the revision of article named by choice, or explains what went wrong;
+    //          returns true once the user is done with the history
+    private boolean handleRevisionChoice(Article article, String choice) {
+        if (choice.equals("q")) {
+            return true;
+        }
+        int number = parseRevisionNumber(article, choice);
+        if (number < 0 || !(choice.startsWith("v") || choice.startsWith("r"))) {
+            out.println("Please enter v or r followed by a revision number between 0 and "
+                    + (article.getRevisionCount() - 1));
+            return false;
+        } else if (choice.startsWith("v")) {
+            Revision revision = article.getRevision(number);
+            out.println(revision);
+            out.println(revision.getContent());
+            return false;
+        }
+        saver.update(() -> {
+            article.restore(number);
+            store.articleEdited(article);
+        });
+        out.println("Restored revision " + number + " of " + article);
+        return true;
+    }
+
+    // EFFECTS: returns the revision number that follows the first character of choice, or -1 if it is not
+    //          the number of a revision of article
+    private static int parseRevisionNumber(Article article, String choice) {
+        try {
+            int number = Integer.parseInt(choice.substring(1));
+            return number < article.getRevisionCount() ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     // MODIFIES: this
     // EFFECTS: prompts the user for the article to tag and the name of the tag they would like to add
     private void tagArticle() {
-        System.out.println("Which article would you like to tag?");
+        out.println("Which article would you like to tag?");
         Article articleToTag = findArticle();
 
         if (articleToTag == null) {
@@ -292,10 +570,16 @@ public class BlogCli {
 
             Tag newTag = new Tag(tagName);
 
-            addedValidTag = articleToTag.addTag(newTag);
+            addedValidTag = saver.update(() -> {
+                boolean added = articleToTag.addTag(newTag);
+                if (added) {
+                    store.tagAdded(articleToTag, tagName);
+                }
+                return added;
+            });
 
             if (!addedValidTag) {
-                System.out.println("Please create a tag with a unique name");
+                out.println("Please create a tag with a unique name");
             }
         }
     }
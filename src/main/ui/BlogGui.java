@@ -1,67 +1,158 @@
 package ui;
 
 import model.Article;
+import model.ArticlePage;
 import model.Blog;
-import persistence.JsonReader;
-import persistence.JsonWriter;
+import model.BlogChange;
+import model.BlogSnapshot;
+import model.ChangeCursor;
+import model.ChangeListener;
+import model.TimelineQuery;
+import persistence.BlogEditor;
+import persistence.BlogWeigher;
+import persistence.JournalStore;
+import persistence.OpenBlog;
+import persistence.Workspace;
+import persistence.WriteBehindSaver;
+import render.MarkdownRenderer;
+import render.RenderCache;
+import search.SearchIndex;
 
 import javax.sound.sampled.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.html.HTMLEditorKit;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 // The BlogGui class is based on the following Notes app:
 // http://www.javaquizplayer.com/examples/notesapp-using-swing-h2database-JPA-example.html
 // BlogGui is a graphical user interface for the BlogApp
 public class BlogGui extends JPanel {
-    private static final String JSON_STORE = "./data/blog.json";
+    private static final Path DATA_DIRECTORY = Paths.get("./data");
+    private static final String DEFAULT_BLOG = "blog";
+    private static final int FILTER_RESULTS = 100;
+    private static final int FILTER_DELAY_MILLIS = 250;
+    private static final int PAGE_SIZE = 100;
+    private static final long SAVE_WINDOW_MILLIS = 500;
+    private static final long RENDER_CACHE_CHARS = 4L << 20;
+    private static final long RENDER_DISK_BYTES = 64L << 20;
+    private static final int PREVIEW_TAB = 0;
+    private static final int MARKDOWN_TAB = 1;
     private static final Font FONT_FOR_WIDGETS =
             new Font("SansSerif", Font.PLAIN, 16);
     private static final Font FONT_FOR_EDITOR =
             new Font("Comic Sans MS", Font.PLAIN, 16);
     private Blog blog;
     private JFrame frame;
-    private JList<Article> list;
+    private JList<ArticleRow> list;
     private JTextField title;
     private JTextField author;
     private JTextArea content;
+    private JTabbedPane contentTabs;
+    private JEditorPane preview;
+    private RenderCache renderCache;
+    private PreviewWorker previewWorker;
     private JButton newButton;
 //    private JButton deleteButton;
     private JButton saveButton;
-    private JButton loadButton;
+    private JButton openButton;
+    private JButton cancelButton;
+    private JProgressBar progressBar;
+    private BlogLoader loader;
+    private JTextField filterField;
+    private Timer filterTimer;
+    private FilterWorker filterWorker;
+    private JComboBox<ListOrder> orderBox;
+    private JButton moreButton;
+    private TimelineQuery nextPage;
     private JLabel messageLabel;
     private boolean updateFlag;
-    private JsonReader reader;
-    private JsonWriter writer;
+    private final Workspace workspace;
+    private String blogName;
+    private JournalStore store;
+    private WriteBehindSaver saver;
+    private BlogEditor editor;
+    private ChangeCursor changes;
+    private long editingVersion;
 
     enum MessageType { INFO, WARN, NONE }
 
-    enum ActionType { LOAD, CREATE, UPDATE, DELETE }
+    enum ActionType { LOAD, CREATE, UPDATE, DELETE, SAVE }
+
+    // The orders the list of articles can be shown in
+    enum ListOrder {
+        NEWEST("Newest"),
+        OLDEST("Oldest"),
+        EDITED("Recently edited");
+
+        private final String label;
+
+        // EFFECTS: constructs an order shown as label
+        ListOrder(String label) {
+            this.label = label;
+        }
+
+        // EFFECTS: returns the query listing articles in this order
+        TimelineQuery query() {
+            switch (this) {
+                case OLDEST:
+                    return TimelineQuery.created();
+                case EDITED:
+                    return TimelineQuery.edited().newestFirst();
+                default:
+                    return TimelineQuery.created().newestFirst();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
 
     // EFFECTS: Starts the Blog GUI
     public BlogGui() {
-        reader = new JsonReader(JSON_STORE);
-        writer = new JsonWriter(JSON_STORE);
-        blog = new Blog("My blog");
+        // Changes are saved in the background so that the window never waits for the disk
+        workspace = new Workspace(DATA_DIRECTORY, Runtime.getRuntime().maxMemory() / 2, BlogWeigher.ESTIMATE,
+                SAVE_WINDOW_MILLIS, e -> SwingUtilities.invokeLater(() -> alertUserToException(ActionType.SAVE)));
+        // Renders are kept next to the blogs so that reopening the app does not render every article again;
+        // they are looked up by their markdown, so every blog in the workspace shares them
+        renderCache = new RenderCache(new MarkdownRenderer(), RENDER_CACHE_CHARS,
+                DATA_DIRECTORY.resolve("render"), RENDER_DISK_BYTES);
 
         frame = new JFrame("BlogApp");
         addWidgetsToFrame(frame);
 
+        frame.addWindowListener(new WindowCloseListener());
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLocation(350, 50);
         frame.setResizable(true);
         frame.pack();
         frame.setVisible(true);
+        openDefaultBlog();
 
     }
 
@@ -71,21 +162,45 @@ public class BlogGui extends JPanel {
         Container pane = frame.getContentPane();
         pane.setLayout(new GridBagLayout());
 
-        pane.add(getListInScrollPane(), getConstraintsForList());
+        pane.add(getListWithFilter(), getConstraintsForList());
         pane.add(getTitleField(), getConstraintsForTitle());
         pane.add(getAuthorField(), getConstraintsForAuthor());
-        pane.add(getContentInScrollPane(), getConstraintsForContent());
+        pane.add(getContentTabs(), getConstraintsForContent());
         pane.add(getToolBarWithButtons(), getConstraintsForButtonToolBar());
         pane.add(getMessageLabel(), getConstraintsForMessageLabel());
     }
 
+    // MODIFIES: this
+    // EFFECTS: constructs and returns the list of articles with the filter box above it
+    private JPanel getListWithFilter() {
+        JPanel panel = new JPanel(new BorderLayout(0, 6));
+        panel.add(getFilterField(), BorderLayout.NORTH);
+        panel.add(getListInScrollPane(), BorderLayout.CENTER);
+        return panel;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: constructs and returns the filter box; the list is filtered by what is typed into it once
+    //          typing pauses for FILTER_DELAY_MILLIS
+    private JTextField getFilterField() {
+        filterField = new JTextField("", 20);
+        filterField.setToolTipText("Filter by title, author, tags and content; leave blank to list every article");
+        filterField.setFont(FONT_FOR_WIDGETS);
+        filterField.getDocument().addDocumentListener(new FilterListener());
+        filterTimer = new Timer(FILTER_DELAY_MILLIS, e -> startFilter());
+        filterTimer.setRepeats(false);
+        return filterField;
+    }
+
     // MODIFIES: this
     // EFFECTS: constructs and returns the list of articles
     private JScrollPane getListInScrollPane() {
-        list = new JList<Article>(new ArticleListModel(blog.getArticles()));
+        list = new JList<ArticleRow>(new ArticleListModel(new ArrayList<>()));
         list.setToolTipText("Articles: double click an Article to edit");
         list.setBorder(new EmptyBorder(5, 5, 5, 5));
+        // With a fixed cell size the list never measures every row to lay itself out
         list.setFixedCellHeight(26);
+        list.setFixedCellWidth(230);
         list.setFont(FONT_FOR_WIDGETS);
         list.addMouseListener(new ListMouseListener());
         list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -120,6 +235,37 @@ public class BlogGui extends JPanel {
         return author;
     }
 
+    // MODIFIES: this
+    // EFFECTS: constructs and returns the tabs that show the content rendered as HTML and as Markdown; the
+    //          preview is brought up to date whenever its tab is chosen
+    private JTabbedPane getContentTabs() {
+        contentTabs = new JTabbedPane();
+        contentTabs.setFont(FONT_FOR_WIDGETS);
+        contentTabs.addTab("Preview", getPreviewInScrollPane());
+        contentTabs.addTab("Markdown", getContentInScrollPane());
+        contentTabs.addChangeListener(e -> {
+            if (contentTabs.getSelectedIndex() == PREVIEW_TAB) {
+                startPreview();
+            }
+        });
+        return contentTabs;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: constructs and returns the preview of the content rendered as HTML
+    private JScrollPane getPreviewInScrollPane() {
+        preview = new JEditorPane();
+        preview.setEditable(false);
+        preview.setContentType("text/html");
+        preview.setMargin(new Insets(5, 5, 5, 5));
+
+        JScrollPane scroller = new JScrollPane(preview);
+        scroller.setPreferredSize(new Dimension(550, 0));
+        scroller.setVerticalScrollBarPolicy(
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
+        return scroller;
+    }
+
     // MODIFIES: this
     // EFFECTS: constructs and returns the content field
     private JScrollPane getContentInScrollPane() {
@@ -145,7 +291,9 @@ public class BlogGui extends JPanel {
 
         newButton = getButton("New");
         saveButton = getButton("Save");
-        loadButton = getButton("Load");
+        openButton = getButton("Open");
+        cancelButton = getButton("Cancel");
+        moreButton = getButton("More");
 //        deleteButton = getButton("Delete");
 
         JToolBar toolBar = getToolBarForButtons();
@@ -153,12 +301,38 @@ public class BlogGui extends JPanel {
         toolBar.addSeparator(new Dimension(2, 0));
         toolBar.add(saveButton);
         toolBar.addSeparator(new Dimension(2, 0));
-        toolBar.add(loadButton);
+        toolBar.add(openButton);
+        toolBar.add(getProgressBar());
+        toolBar.add(cancelButton);
+        toolBar.addSeparator(new Dimension(8, 0));
+        toolBar.add(getOrderBox());
+        toolBar.add(moreButton);
 //        toolBar.add(deleteButton);
 
         return toolBar;
     }
 
+    // MODIFIES: this
+    // EFFECTS: constructs and returns the progress bar shown while a blog is loading
+    private JProgressBar getProgressBar() {
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setToolTipText("Loading blog");
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        return progressBar;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: constructs and returns the box for choosing the order of the list; choosing an order lists
+    //          the first page of articles in that order
+    private JComboBox<ListOrder> getOrderBox() {
+        orderBox = new JComboBox<>(ListOrder.values());
+        orderBox.setToolTipText("Order of the list of articles");
+        orderBox.setFont(FONT_FOR_WIDGETS);
+        orderBox.addActionListener(e -> showAllArticles());
+        return orderBox;
+    }
+
     // MODIFIES: this
     // EFFECTS: instantiates and returns toolbar
     private JToolBar getToolBarForButtons() {
@@ -185,10 +359,22 @@ public class BlogGui extends JPanel {
                 button.setIcon(getIconForButton("save24.gif"));
                 button.addActionListener(new SaveActionListener());
                 break;
-            case "Load":
+            case "Open":
                 button.setEnabled(true);
                 button.setIcon(getIconForButton("open24.gif"));
-                button.addActionListener(new LoadActionListener());
+                button.addActionListener(new OpenActionListener());
+                break;
+            case "Cancel":
+                button.setVisible(false);
+                button.setText(label);
+                button.setFont(FONT_FOR_WIDGETS);
+                button.addActionListener(e -> loader.cancel(true));
+                break;
+            case "More":
+                button.setEnabled(false);
+                button.setText(label);
+                button.setFont(FONT_FOR_WIDGETS);
+                button.addActionListener(e -> showMoreArticles());
                 break;
             default:
                 throw new IllegalArgumentException("*** Invalid button label ***");
@@ -304,7 +490,7 @@ public class BlogGui extends JPanel {
                 return;
             }
 
-            if (getArticleListModel().isEmpty()) {
+            if (getArticleListModel().isEmpty() || list.getSelectedValue() == null) {
 
 //                deleteButton.setEnabled(false);
                 title.setText("");
@@ -312,18 +498,20 @@ public class BlogGui extends JPanel {
                 content.setText("");
             } else {
 //                deleteButton.setEnabled(true);
-                Article a = list.getSelectedValue();
-                title.setText(a.getTitle());
-                author.setText(a.getAuthor());
-                content.setText(a.getContent());
+                ArticleRow row = list.getSelectedValue();
+                Article a = getSelectedArticle();
+                title.setText(row.getTitle());
+                author.setText(row.getAuthor());
+                content.setText(a == null ? "" : a.getContent());
                 content.setCaretPosition(0);
             }
+            startPreview();
 
             displayMessage("", MessageType.NONE);
             title.setEditable(false);
             author.setEditable(false);
             content.setEditable(false);
-            newButton.setEnabled(true);
+            newButton.setEnabled(loader == null);
             saveButton.setEnabled(false);
             updateFlag = false;
         }
@@ -369,6 +557,7 @@ public class BlogGui extends JPanel {
             title.setEditable(true);
             author.setEditable(true);
             content.setEditable(true);
+            contentTabs.setSelectedIndex(MARKDOWN_TAB);
             title.setText("");
             author.setText("");
             content.setText("");
@@ -377,20 +566,326 @@ public class BlogGui extends JPanel {
         }
     }
 
-    // LoadActionListener handles loading a blog from file
-    private class LoadActionListener implements ActionListener {
+    // FilterListener restarts the filter delay whenever the text in the filter box changes, so that a query
+    // is only run once typing pauses
+    private class FilterListener implements DocumentListener {
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            filterTimer.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            filterTimer.restart();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            filterTimer.restart();
+        }
+    }
+
+    // FilterWorker searches the blog for the text of the filter box on a background thread. Only the most
+    // recently started worker shows its results; one that is overtaken by newer text is cancelled.
+    private class FilterWorker extends SwingWorker<List<Article>, Void> {
+        private final Blog target;
+        private final JournalStore targetStore;
+        private final String query;
+
+        // EFFECTS: constructs a worker that searches target, which is saved in targetStore, for query
+        FilterWorker(Blog target, JournalStore targetStore, String query) {
+            this.target = target;
+            this.targetStore = targetStore;
+            this.query = query;
+        }
+
+        // EFFECTS: returns the articles matching the query, most relevant first. The store's lock, which every
+        //          save takes on the event dispatch thread, is only held to look up the matching articles.
+        @Override
+        protected List<Article> doInBackground() {
+            int[] ids = searchIndex().searchIds(query, FILTER_RESULTS);
+            ArrayList<Article> matches = new ArrayList<>(ids.length);
+            synchronized (targetStore) {
+                for (int id : ids) {
+                    if (target.containsArticle(id)) {
+                        matches.add(target.findArticleById(id));
+                    }
+                }
+            }
+            return matches;
+        }
+
+        // MODIFIES: target
+        // EFFECTS: returns the search index of target, building it first if it has none. It is built from a
+        //          snapshot without the store's lock, which is only held to take the snapshot and to bring
+        //          the index up to date with the changes made meanwhile.
+        private SearchIndex searchIndex() {
+            BlogSnapshot snapshot;
+            ChangeCursor cursor;
+            synchronized (targetStore) {
+                if (target.getSearchIndex() != null) {
+                    return target.getSearchIndex();
+                }
+                snapshot = target.snapshot();
+                cursor = target.newChangeCursor();
+            }
+            SearchIndex built = target.buildSearchIndex(snapshot);
+            synchronized (targetStore) {
+                return target.installSearchIndex(built, cursor);
+            }
+        }
 
         // MODIFIES: BlogGui
-        // EFFECTS: Loads blog from file
+        // EFFECTS: shows the matching articles, unless the worker has been overtaken by newer text
+        @Override
+        protected void done() {
+            if (isCancelled() || filterWorker != this) {
+                return;
+            }
+            filterWorker = null;
+            try {
+                List<Article> matches = get();
+                getArticleListModel().setFilter(matches);
+                moreButton.setEnabled(false);
+                list.clearSelection();
+                displayMessage(String.format("%d matching article(s)", matches.size()), MessageType.INFO);
+            } catch (InterruptedException | ExecutionException e) {
+                displayMessage("Unable to search for " + query, MessageType.WARN);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: cancels the search for earlier text, if any, and starts one for the text now in the filter box
+    //          in the background; a blank filter box shows the full list again
+    private void startFilter() {
+        cancelFilter();
+        String query = filterField.getText().trim();
+        if (loader != null) {
+            return;
+        }
+        if (!query.isEmpty()) {
+            filterWorker = new FilterWorker(blog, store, query);
+            filterWorker.execute();
+        } else if (getArticleListModel().isFiltered()) {
+            getArticleListModel().clearFilter();
+            moreButton.setEnabled(nextPage != null);
+            displayMessage("", MessageType.NONE);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the filter delay and cancels the search that is running, if any
+    private void cancelFilter() {
+        filterTimer.stop();
+        if (filterWorker != null) {
+            filterWorker.cancel(true);
+            filterWorker = null;
+        }
+    }
+
+    // PreviewWorker renders Markdown as HTML and lays it out as a document on a background thread, so that
+    // selecting a long article never holds up the window. Only the most recently started worker shows its
+    // document; one that is overtaken by a newer selection is cancelled.
+    private class PreviewWorker extends SwingWorker<Document, Void> {
+        private final String markdown;
+
+        // EFFECTS: constructs a worker that renders markdown
+        PreviewWorker(String markdown) {
+            this.markdown = markdown;
+        }
+
+        // EFFECTS: returns markdown rendered through the cache and parsed into an HTML document
+        @Override
+        protected Document doInBackground() throws IOException, BadLocationException {
+            String html = renderCache.render(markdown);
+            HTMLEditorKit kit = new HTMLEditorKit();
+            Document document = kit.createDefaultDocument();
+            kit.read(new StringReader("<html><body>" + html + "</body></html>"), document, 0);
+            return document;
+        }
+
+        // MODIFIES: BlogGui
+        // EFFECTS: shows the document, unless the worker has been overtaken by a newer selection
+        @Override
+        protected void done() {
+            if (isCancelled() || previewWorker != this) {
+                return;
+            }
+            previewWorker = null;
+            try {
+                preview.setDocument(get());
+                preview.setCaretPosition(0);
+            } catch (InterruptedException | ExecutionException e) {
+                preview.setText("");
+                displayMessage("Unable to preview the article", MessageType.WARN);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: cancels the preview of earlier content, if any, and starts rendering the content now shown in
+    //          the background
+    private void startPreview() {
+        if (previewWorker != null) {
+            previewWorker.cancel(false);
+        }
+        previewWorker = new PreviewWorker(content.getText());
+        previewWorker.execute();
+    }
+
+    // WindowCloseListener saves the changes that are still waiting to be saved before the app exits
+    private class WindowCloseListener extends WindowAdapter {
+
+        // EFFECTS: waits for every open blog to be saved
+        @Override
+        public void windowClosing(WindowEvent e) {
+            try {
+                workspace.close();
+            } catch (IOException exception) {
+                alertUserToException(ActionType.SAVE);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the blog the app starts with, loading it in the background, or creates it if it has
+    //          never been saved
+    private void openDefaultBlog() {
+        if (workspace.exists(DEFAULT_BLOG)) {
+            startLoading(DEFAULT_BLOG);
+            return;
+        }
+        try {
+            use(workspace.create(DEFAULT_BLOG, "My blog"));
+            showOpenedBlog();
+        } catch (IOException e) {
+            alertUserToException(ActionType.CREATE);
+        }
+    }
+
+    // OpenActionListener handles switching to another blog in the workspace, or to a new one
+    private class OpenActionListener implements ActionListener {
+
+        // MODIFIES: BlogGui
+        // EFFECTS: asks for the name of a blog and switches to it: a blog that is open is shown straight away,
+        //          a stored one is loaded in the background, and for any other name a new blog is created
         @Override
         public void actionPerformed(ActionEvent e) {
+            String name = askForBlogName();
+            if (name == null || name.equals(blogName)) {
+                return;
+            }
             try {
-                blog = reader.read();
+                if (workspace.isOpen(name)) {
+                    use(workspace.open(name));
+                    showOpenedBlog();
+                    displayMessage("Switched to " + blog.getTitle(), MessageType.INFO);
+                } else if (workspace.exists(name)) {
+                    startLoading(name);
+                } else {
+                    createBlog(name);
+                }
             } catch (IOException exception) {
                 alertUserToException(ActionType.LOAD);
+            } catch (IllegalArgumentException exception) {
+                displayMessage("Invalid blog name: " + name, MessageType.WARN);
+            }
+        }
+
+        // EFFECTS: asks for the name of a blog, offering those in the workspace, and returns it, or returns
+        //          null if none is given
+        private String askForBlogName() {
+            TreeSet<String> names = new TreeSet<>(workspace.openBlogs());
+            try {
+                names.addAll(workspace.listBlogs());
+            } catch (IOException exception) {
+                // The open blogs can still be chosen, and any other name can be typed in
+            }
+            JComboBox<String> choice = new JComboBox<>(names.toArray(new String[0]));
+            choice.setEditable(true);
+            choice.setFont(FONT_FOR_WIDGETS);
+            choice.setSelectedItem(blogName);
+            int answer = JOptionPane.showConfirmDialog(frame, choice, "Open or create a blog",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            Object name = choice.getSelectedItem();
+            if (answer != JOptionPane.OK_OPTION || name == null || name.toString().trim().isEmpty()) {
+                return null;
             }
-            getArticleListModel().setArticles(blog.getArticles());
-            list.updateUI();
+            return name.toString().trim();
+        }
+
+        // MODIFIES: BlogGui
+        // EFFECTS: asks for the title of a new blog called name and switches to it, unless no title is given
+        private void createBlog(String name) throws IOException {
+            String title = JOptionPane.showInputDialog(frame, "Title of the new blog \"" + name + "\":");
+            if (title == null || title.trim().isEmpty()) {
+                return;
+            }
+            use(workspace.create(name, title.trim()));
+            showOpenedBlog();
+            displayMessage("Created " + blog.getTitle(), MessageType.INFO);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts loading the blog called name from file in the background
+    private void startLoading(String name) {
+        setLoading(true);
+        getArticleListModel().setArticles(new ArrayList<>());
+        displayMessage("Loading " + name + " from file", MessageType.INFO);
+        loader = new BlogLoader(name);
+        loader.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                progressBar.setValue((Integer) event.getNewValue());
+            }
+        });
+        loader.execute();
+    }
+
+    // BlogLoader opens a blog of the workspace on a background thread, adding its articles to the list in
+    // chunks as they are read so that the first of them show up while the rest of the file is still being read
+    private class BlogLoader extends SwingWorker<OpenBlog, Article> {
+        private final String name;
+
+        // EFFECTS: constructs a loader of the blog called name
+        BlogLoader(String name) {
+            this.name = name;
+        }
+
+        // EFFECTS: loads the blog from file, publishing each article as soon as it has been read
+        @Override
+        protected OpenBlog doInBackground() throws IOException {
+            return workspace.open(name, (article, position, size) -> {
+                publish(article);
+                setProgress((int) (100 * position / Math.max(1, size)));
+            });
+        }
+
+        // MODIFIES: BlogGui
+        // EFFECTS: adds a chunk of the articles read so far to the end of the list
+        @Override
+        protected void process(List<Article> chunk) {
+            if (!isCancelled()) {
+                getArticleListModel().addAll(chunk);
+            }
+        }
+
+        // MODIFIES: BlogGui
+        // EFFECTS: shows the loaded blog, or goes back to the current blog if loading was cancelled
+        @Override
+        protected void done() {
+            setLoading(false);
+            try {
+                use(get());
+            } catch (CancellationException e) {
+                goBack();
+                return;
+            } catch (InterruptedException | ExecutionException e) {
+                alertUserToException(ActionType.LOAD);
+            }
+            showOpenedBlog();
             displayMessage("Blog loaded from file", MessageType.INFO);
             try {
                 playSoundEffect("./sound/load.wav");
@@ -398,7 +893,64 @@ public class BlogGui extends JPanel {
                     | LineUnavailableException exception) {
                 exception.printStackTrace();
             }
-            loadButton.setEnabled(false);
+        }
+
+        // MODIFIES: BlogGui
+        // EFFECTS: shows the blog that was shown before loading started
+        private void goBack() {
+            try {
+                // A load that finished just as it was cancelled may have evicted that blog from the workspace
+                use(workspace.open(blogName));
+            } catch (IOException e) {
+                alertUserToException(ActionType.LOAD);
+            }
+            showOpenedBlog();
+            displayMessage("Loading was cancelled", MessageType.WARN);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes opened the blog that the window shows and edits
+    private void use(OpenBlog opened) {
+        blogName = opened.getName();
+        blog = opened.getBlog();
+        store = opened.getStore();
+        saver = opened.getSaver();
+        editor = new BlogEditor(blog, store, saver);
+        changes = blog.newChangeCursor();
+        frame.setTitle("BlogApp - " + blog.getTitle());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lists the articles of the blog that was just opened, with none of them being edited
+    private void showOpenedBlog() {
+        updateFlag = false;
+        title.setEditable(false);
+        author.setEditable(false);
+        content.setEditable(false);
+        newButton.setEnabled(true);
+        saveButton.setEnabled(false);
+        showAllArticles();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows the progress of a load and disables everything that changes the blog while it runs
+    private void setLoading(boolean loading) {
+        openButton.setEnabled(!loading);
+        newButton.setEnabled(!loading);
+        saveButton.setEnabled(false);
+        orderBox.setEnabled(!loading);
+        filterField.setEnabled(!loading);
+        if (loading) {
+            cancelFilter();
+        }
+        moreButton.setEnabled(false);
+        progressBar.setValue(0);
+        progressBar.setVisible(loading);
+        // The blog the app starts with has no blog to go back to if its load is cancelled
+        cancelButton.setVisible(loading && blog != null);
+        if (!loading) {
+            loader = null;
         }
     }
 
@@ -409,44 +961,57 @@ public class BlogGui extends JPanel {
         // EFFECTS: Saves new/updated article and persists to file
         @Override
         public void actionPerformed(ActionEvent e) {
-            String titleText = title.getText();
+            String titleText = (title.getText() == null) ? "" : title.getText().trim();
             String authorText = author.getText();
             String contentText = content.getText();
 
-            titleText = (titleText == null) ? "" : titleText.trim();
-
             int i = 0;
 
             if (updateFlag) {
                 // Update article
-                Article originalArticle = list.getSelectedValue();
-                originalArticle.edit(titleText, authorText, contentText);
-                persistBlog(ActionType.UPDATE);
+                Article originalArticle = getSelectedArticle();
+                if (!saveEdit(originalArticle, titleText, authorText, contentText)) {
+                    return;
+                }
                 i = getArticleListModel().indexOf(originalArticle);
             } else {
                 Article newArticle = new Article(
-                        Article.getNextId(), titleText, authorText, contentText, LocalDate.now()
+                        blog.allocateId(), titleText, authorText, contentText, LocalDate.now()
                 );
-                getArticleListModel().add(newArticle);
-                persistBlog(ActionType.CREATE);
-                i = getArticleListModel().indexOf(newArticle);
+                saver.update(() -> {
+                    blog.addArticle(newArticle);
+                    store.articleCreated(newArticle);
+                });
+                i = showArticlesFrom(newArticle);
             }
-
+            followChanges();
             updateListAfterSave(i);
         }
 
+        // MODIFIES: BlogGui
+        // EFFECTS: edits article unless it has changed since editing started, and returns true if it was
+        //          edited. Otherwise the text being edited is kept and the next save replaces the changes.
+        private boolean saveEdit(Article article, String titleText, String authorText, String contentText) {
+            long version = editor.edit(article.getId(), editingVersion, titleText, authorText, contentText);
+            if (version == BlogEditor.CONFLICT) {
+                editingVersion = article.getVersion();
+                displayMessage("The article was changed while you were editing it; save again to replace "
+                        + "those changes", MessageType.WARN);
+                return false;
+            }
+            return true;
+        }
+
         // MODIFIES: BlogGui
         // EFFECTS: updates list of articles with newly added/edited article
         private void updateListAfterSave(int i) {
-            list.updateUI();
-
-
             list.setSelectedIndex(i);
             list.ensureIndexIsVisible(i);
 
             title.setEditable(false);
             author.setEditable(false);
             content.setEditable(false);
+            contentTabs.setSelectedIndex(PREVIEW_TAB);
             newButton.setEnabled(true);
             saveButton.setEnabled(false);
             updateFlag = false;
@@ -457,32 +1022,24 @@ public class BlogGui extends JPanel {
     // MODIFIES: this
     // EFFECTS: helper function to update UI when user double clicks an article
     private void doubleClickActionRoutine() {
+        if (getSelectedArticle() == null) {
+            return;
+        }
 
         displayMessage("Article is being edited", MessageType.INFO);
         newButton.setEnabled(false);
         saveButton.setEnabled(true);
 //        deleteButton.setEnabled(false);
         updateFlag = true;
+        editingVersion = getSelectedArticle().getVersion();
         title.setEditable(true);
         author.setEditable(true);
         content.setEditable(true);
+        contentTabs.setSelectedIndex(MARKDOWN_TAB);
         title.setCaretPosition(0);
         title.requestFocusInWindow();
     }
 
-    // MODIFIES: this
-    // EFFECTS: persists updated blog state to file
-    private void persistBlog(ActionType action) {
-        try {
-            blog.setArticles(getArticleListModel().getArticles());
-            writer.open();
-            writer.write(blog);
-            writer.close();
-        } catch (FileNotFoundException e) {
-            alertUserToException(action);
-        }
-    }
-
     // EFFECTS: displays error message to user
     private void alertUserToException(ActionType action) {
         String s = "";
@@ -495,6 +1052,8 @@ public class BlogGui extends JPanel {
                 break;
             case LOAD: s = "loading ";
                 break;
+            case SAVE: s = " saving ";
+                break;
             default:
                 throw new IllegalArgumentException("Invalid action: " + action);
         }
@@ -509,6 +1068,75 @@ public class BlogGui extends JPanel {
         System.exit(1);
     }
 
+    // MODIFIES: this
+    // EFFECTS: updates the list of articles with the changes made to the blog since it last was, or lists the
+    //          articles again if those changes are no longer known
+    private void followChanges() {
+        changes.deliver(new ListFollower());
+    }
+
+    // ListFollower keeps the list of articles up to date with the changes made to the blog
+    private class ListFollower implements ChangeListener {
+
+        // MODIFIES: BlogGui
+        // EFFECTS: updates the rows of the articles that were edited or removed
+        @Override
+        public void changed(List<BlogChange> changes) {
+            getArticleListModel().changed(changes);
+        }
+
+        // MODIFIES: BlogGui
+        // EFFECTS: lists the articles again
+        @Override
+        public void reset(BlogSnapshot snapshot) {
+            showAllArticles();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: clears the filter and lists the first page of articles in the chosen order
+    private void showAllArticles() {
+        cancelFilter();
+        filterField.setText("");
+        getArticleListModel().setArticles(new ArrayList<>());
+        nextPage = ((ListOrder) orderBox.getSelectedItem()).query();
+        showMoreArticles();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: clears the filter and lists the page of articles in the chosen order that starts at article,
+    //          which is the first page when the newest are listed first, and returns the row of article
+    private int showArticlesFrom(Article article) {
+        cancelFilter();
+        filterField.setText("");
+        getArticleListModel().setArticles(new ArrayList<>());
+        nextPage = ((ListOrder) orderBox.getSelectedItem()).query().startingAt(article);
+        showMoreArticles();
+        return getArticleListModel().indexOf(article);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the next page of articles to the end of the list
+    private void showMoreArticles() {
+        if (nextPage == null) {
+            return;
+        }
+        ArticlePage page = blog.listArticles(nextPage, PAGE_SIZE);
+        getArticleListModel().addAll(page.getArticles());
+        nextPage = page.getNext();
+        moreButton.setEnabled(nextPage != null);
+    }
+
+    // EFFECTS: returns the article in the selected row, or null if no row is selected or the rows are those
+    //          of a blog that is still loading
+    private Article getSelectedArticle() {
+        ArticleRow row = list.getSelectedValue();
+        if (row == null || loader != null || !blog.containsArticle(row.getId())) {
+            return null;
+        }
+        return blog.findArticleById(row.getId());
+    }
+
     // EFFECTS: Retrieves ArticleListModel
     private ArticleListModel getArticleListModel() {
         return (ArticleListModel) list.getModel();
@@ -0,0 +1,85 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArticleIdIndexTest {
+    ArticleIdIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ArticleIdIndex();
+    }
+
+    private Article article(int id) {
+        return new Article(id, "Article #" + id, "Han Solo", "Content", LocalDate.now());
+    }
+
+    @Test
+    public void testPutAndGet() {
+        Article article = article(7);
+        assertNull(index.put(article));
+        assertSame(article, index.get(7));
+        assertTrue(index.contains(7));
+        assertFalse(index.contains(8));
+        assertNull(index.get(8));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testPutReplaces() {
+        Article first = article(3);
+        Article second = article(3);
+        index.put(first);
+        assertSame(first, index.put(second));
+        assertSame(second, index.get(3));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testZeroAndNegativeIds() {
+        index.put(article(0));
+        index.put(article(-5));
+        assertEquals(0, index.get(0).getId());
+        assertEquals(-5, index.get(-5).getId());
+        assertEquals(2, index.size());
+        assertEquals(0, index.remove(0).getId());
+        assertFalse(index.contains(0));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testManyIdsWithRemovals() {
+        HashMap<Integer, Article> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(id), index.remove(id));
+            } else {
+                Article article = article(id);
+                assertSame(expected.put(id, article), index.put(article));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        for (int id = 0; id < 5000; id++) {
+            assertSame(expected.get(id), index.get(id));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 1; i <= 100; i++) {
+            index.put(article(i));
+        }
+        index.clear();
+        assertEquals(0, index.size());
+        assertFalse(index.contains(50));
+    }
+}
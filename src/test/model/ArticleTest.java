@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import java.awt.Color;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,17 +30,6 @@ public class ArticleTest {
         assertEquals(article.getDateCreated(), LocalDate.now().minusDays(1));
     }
 
-    @Test
-    public void testGetNextID() {
-        int first_id = Article.getNextId();
-        int second_id = Article.getNextId();
-        int third_id = Article.getNextId();
-        int fourth_id = Article.getNextId();
-        assertEquals(second_id, first_id + 1);
-        assertEquals(third_id, first_id + 2);
-        assertEquals(fourth_id, first_id + 3);
-    }
-
     @Test
     public void testEditArticle() {
         article.edit(
@@ -106,4 +97,131 @@ public class ArticleTest {
         assertTrue(article.toString().contains(article.getAuthor()));
     }
 
+    @Test
+    public void testLazyContent() {
+        int[] loads = new int[1];
+        ContentSource source = (offset, length) -> {
+            loads[0]++;
+            return "Content at " + offset + " of length " + length;
+        };
+        Article lazy = new Article(2, "Lazy", "Obi-Wan Kenobi", source, 40, 12,
+                LocalDate.now().minusDays(2), LocalDate.now().minusDays(1));
+        assertEquals(0, loads[0]);
+        assertEquals("Content at 40 of length 12", lazy.getContent());
+        assertEquals(1, loads[0]);
+
+        // The content being replaced is read once more to keep it as a revision
+        lazy.edit("Lazy", "Obi-Wan Kenobi", "Now in memory");
+        assertEquals(2, loads[0]);
+        assertEquals("Now in memory", lazy.getContent());
+        assertEquals("Content at 40 of length 12", lazy.getRevision(0).getContent());
+        assertEquals(2, loads[0]);
+    }
+
+    @Test
+    public void testRevisions() {
+        LocalDate created = article.getDateCreated();
+        assertEquals(0, article.getRevisionCount());
+        assertTrue(article.getRevisions().isEmpty());
+        article.edit("How to destroy the Death Star", "Luke Skywalker",
+                "Fire two photon torpedoes into the exhaust vent.", created.plusDays(1));
+        article.edit("How to destroy the second Death Star", "Lando Calrissian",
+                "Fly into the reactor core.", created.plusDays(2));
+
+        assertEquals(2, article.getRevisionCount());
+        Revision original = article.getRevision(0);
+        assertEquals(0, original.getNumber());
+        assertEquals("Fire a photon torpedo into the exhaust vent.", original.getContent());
+        assertEquals(created, original.getDateEdited());
+        Revision second = article.getRevision(1);
+        assertEquals("Luke Skywalker", second.getAuthor());
+        assertEquals(created.plusDays(1), second.getDateEdited());
+        List<Revision> revisions = article.getRevisions();
+        assertEquals(2, revisions.size());
+        assertEquals(original.getContent(), revisions.get(0).getContent());
+        assertEquals(second.getContent(), revisions.get(1).getContent());
+    }
+
+    @Test
+    public void testRestore() {
+        String original = article.getContent();
+        article.edit("How to destroy the Death Star", "Luke Skywalker", "Use the Force.");
+        article.restore(0);
+        assertEquals(original, article.getContent());
+        assertEquals(2, article.getRevisionCount());
+        assertEquals("Use the Force.", article.getRevision(1).getContent());
+    }
+
+    @Test
+    public void testLongHistoryIsStoredAsDeltas() {
+        StringBuilder content = new StringBuilder(article.getContent());
+        ArrayList<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(content.toString());
+            content.insert(content.length() / 2, " " + i);
+            article.edit(article.getTitle(), article.getAuthor(), content.toString());
+        }
+        RevisionHistory history = article.getHistory();
+        int keyframes = 0;
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(expected.get(i), article.getRevision(i).getContent());
+            keyframes += history.getContent(i).isReplacement() ? 1 : 0;
+        }
+        assertEquals(200 / RevisionHistory.KEYFRAME_INTERVAL, keyframes);
+        List<Revision> revisions = article.getRevisions();
+        for (int i = 0; i < revisions.size(); i++) {
+            assertEquals(expected.get(i), revisions.get(i).getContent());
+        }
+    }
+
+    @Test
+    public void testTextDelta() {
+        TextDelta delta = TextDelta.between("The quick brown fox", "The quick red fox");
+        assertEquals(10, delta.getPrefix());
+        assertEquals(4, delta.getSuffix());
+        assertEquals("red", delta.getInserted());
+        assertEquals("The quick red fox", delta.applyTo("The quick brown fox"));
+        assertEquals("same", TextDelta.between("same", "same").applyTo("same"));
+        assertEquals("new", TextDelta.replacing("new").applyTo("anything"));
+
+        // A surrogate pair is never split between the shared text and the inserted text
+        TextDelta emoji = TextDelta.between("a\uD83D\uDE00b", "a\uD83D\uDE03b");
+        assertEquals("\uD83D\uDE03", emoji.getInserted());
+        assertEquals("a\uD83D\uDE03b", emoji.applyTo("a\uD83D\uDE00b"));
+    }
+
+    @Test
+    public void testVersionCountsChanges() {
+        assertEquals(0, article.getVersion());
+        article.edit("Title", "Author", "Content");
+        assertEquals(1, article.getVersion());
+        assertTrue(article.addTag(new Tag("Tutorials")));
+        assertFalse(article.addTag(new Tag("Tutorials")));
+        assertEquals(2, article.getVersion());
+        assertFalse(article.deleteTag("Stories"));
+        assertTrue(article.deleteTag("Tutorials"));
+        assertEquals(3, article.getVersion());
+    }
+
+    @Test
+    public void testPreparedEdit() {
+        ArticleEdit edit = article.prepareEdit("How to destroy the Death Star", "Luke Skywalker",
+                "Fire two photon torpedoes into the exhaust vent.", LocalDate.now());
+        assertEquals("Fire a photon torpedo into the exhaust vent.", article.getContent());
+        assertEquals(0, edit.getRevision());
+        assertEquals("two photon torpedoes", edit.getContentDelta().getInserted());
+        assertEquals("", edit.getTitleDelta().getInserted());
+        assertTrue(edit.isCurrent());
+        edit.apply();
+        assertEquals("Fire two photon torpedoes into the exhaust vent.", article.getContent());
+        assertEquals("Fire a photon torpedo into the exhaust vent.", article.getRevision(0).getContent());
+
+        // An edit worked out before the article changed can no longer be made
+        ArticleEdit stale = article.prepareEdit("Title", "Author", "Content", LocalDate.now());
+        article.addTag(new Tag("Tutorials"));
+        assertFalse(stale.isCurrent());
+        assertThrows(IllegalStateException.class, stale::apply);
+        assertEquals("Fire two photon torpedoes into the exhaust vent.", article.getContent());
+    }
+
 }
@@ -0,0 +1,104 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlogSnapshotTest {
+    private Blog blog;
+
+    @BeforeEach
+    public void setUp() {
+        blog = new Blog("Captain's Log");
+        for (int id = 1; id <= 3; id++) {
+            blog.addArticle(new Article(id, "Post " + id, "Adam Mitha", "Content " + id, LocalDate.of(2021, 1, id)));
+        }
+    }
+
+    private List<Integer> ids(BlogSnapshot snapshot) {
+        List<Integer> ids = new ArrayList<>();
+        for (ArticleSnapshot article : snapshot) {
+            ids.add(article.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testSnapshotDoesNotChange() {
+        BlogSnapshot before = blog.snapshot();
+        Article article = blog.findArticleById(2);
+        article.edit("Post 2, edited", "Han Solo", "New content");
+        article.addTag(new Tag("Stories"));
+        blog.removeArticle(blog.findArticleById(3));
+        blog.addArticle(new Article(4, "Post 4", "Adam Mitha", "Content 4", LocalDate.of(2021, 1, 4)));
+        blog.setTitle("Ship's Log");
+
+        assertEquals("Captain's Log", before.getTitle());
+        assertEquals(3, before.size());
+        assertEquals(Arrays.asList(1, 2, 3), ids(before));
+        assertEquals("Post 2", before.findArticleById(2).getTitle());
+        assertEquals("Content 2", before.findArticleById(2).getContent());
+        assertEquals(0, before.findArticleById(2).getRevisionCount());
+        assertTrue(before.findArticleById(2).getTags().isEmpty());
+
+        BlogSnapshot after = blog.snapshot();
+        assertEquals("Ship's Log", after.getTitle());
+        assertEquals(Arrays.asList(1, 2, 4), ids(after));
+        ArticleSnapshot edited = after.findArticleById(2);
+        assertEquals("New content", edited.getContent());
+        assertEquals("Content 2", edited.getRevision(0).getContent());
+        assertEquals("Stories", edited.getTags().get(0).getName());
+        assertEquals(article.getVersion(), edited.getVersion());
+        assertFalse(after.containsArticle(3));
+        assertThrows(NoSuchElementException.class, () -> after.findArticleById(3));
+    }
+
+    @Test
+    public void testRevisionsAfterSnapshotAreIgnored() {
+        Article article = blog.findArticleById(1);
+        article.edit("Post 1", "Adam Mitha", "Second");
+        ArticleSnapshot snapshot = blog.snapshot().findArticleById(1);
+        for (int i = 0; i < 2 * RevisionHistory.KEYFRAME_INTERVAL; i++) {
+            article.edit("Post 1", "Adam Mitha", "Edit " + i);
+        }
+        assertEquals(1, snapshot.getRevisionCount());
+        assertEquals("Content 1", snapshot.getRevision(0).getContent());
+        assertEquals("Second", snapshot.getContent());
+    }
+
+    @Test
+    public void testSparseAndLargeIds() {
+        int[] ids = {40, 1024, 33, 1 << 20, (1 << 20) + 1};
+        for (int id : ids) {
+            blog.addArticle(new Article(id, "Post " + id, "Adam Mitha", "Content", LocalDate.of(2021, 2, 1)));
+        }
+        BlogSnapshot snapshot = blog.snapshot();
+        assertEquals(Arrays.asList(1, 2, 3, 33, 40, 1024, 1 << 20, (1 << 20) + 1), ids(snapshot));
+        assertEquals("Post 1024", snapshot.findArticleById(1024).getTitle());
+        assertFalse(snapshot.containsArticle(1025));
+        assertFalse(snapshot.containsArticle(-1));
+
+        for (int id : ids) {
+            blog.removeArticle(blog.findArticleById(id));
+        }
+        blog.removeArticle(blog.findArticleById(2));
+        assertEquals(Arrays.asList(1, 3), ids(blog.snapshot()));
+        assertEquals(2, blog.snapshot().size());
+        assertEquals(8, snapshot.size());
+    }
+
+    @Test
+    public void testEmptyBlog() {
+        BlogSnapshot snapshot = new Blog("Empty").snapshot();
+        assertEquals(0, snapshot.size());
+        assertFalse(snapshot.iterator().hasNext());
+        assertThrows(NoSuchElementException.class, () -> snapshot.iterator().next());
+    }
+}
@@ -2,9 +2,12 @@ package model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import search.SearchIndex;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -76,4 +79,209 @@ class BlogTest {
             assertEquals(e.getMessage(), "Could not find article with id 6");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddDuplicateId() {
+        Article first = new Article(1, "First", "Han Solo", "Content", LocalDate.now());
+        Article duplicate = new Article(1, "Duplicate", "Han Solo", "Content", LocalDate.now());
+        assertTrue(blog.addArticle(first));
+        assertFalse(blog.addArticle(duplicate));
+        assertEquals(1, blog.getArticles().size());
+        assertSame(first, blog.findArticleById(1));
+    }
+
+    @Test
+    public void testRemoveArticle() {
+        Article first = new Article(1, "First", "Han Solo", "Content", LocalDate.now());
+        Article second = new Article(2, "Second", "Han Solo", "Content", LocalDate.now());
+        blog.addArticle(first);
+        blog.addArticle(second);
+        assertTrue(blog.removeArticle(first));
+        assertFalse(blog.removeArticle(first));
+        assertEquals(1, blog.getArticles().size());
+        assertFalse(blog.containsArticle(1));
+        assertSame(second, blog.findArticleById(2));
+    }
+
+    @Test
+    public void testAllocateId() {
+        assertEquals(1, blog.findNextID());
+        int first = blog.allocateId();
+        int second = blog.allocateId();
+        assertEquals(first + 1, second);
+        blog.addArticle(new Article(10, "Imported", "Han Solo", "Content", LocalDate.now()));
+        assertEquals(11, blog.findNextID());
+        assertEquals(11, blog.allocateId());
+    }
+
+    @Test
+    public void testSetArticlesRebuildsIndex() {
+        ArrayList<Article> articles = new ArrayList<>();
+        articles.add(new Article(5, "Five", "Han Solo", "Content", LocalDate.now()));
+        blog.setArticles(articles);
+        assertEquals("Five", blog.findArticleById(5).getTitle());
+        assertEquals(6, blog.findNextID());
+    }
+
+    @Test
+    public void testTagsAreInterned() {
+        Article first = new Article(1, "First", "Han Solo", "Content", LocalDate.now());
+        Article second = new Article(2, "Second", "Han Solo", "Content", LocalDate.now());
+        first.addTag(new Tag("Travel"));
+        blog.addArticle(first);
+        blog.addArticle(second);
+        second.addTag(new Tag("Travel"));
+        assertSame(first.getTags().get(0), second.getTags().get(0));
+        assertEquals(2, blog.getTagIndex().countArticlesWith("Travel"));
+        assertFalse(second.addTag(new Tag("Travel")));
+        assertEquals(1, second.getTags().size());
+    }
+
+    @Test
+    public void testFindArticlesByTagQuery() {
+        for (int i = 1; i <= 6; i++) {
+            Article article = new Article(i, "Article #" + i, "Han Solo", "Content", LocalDate.now());
+            blog.addArticle(article);
+            if (i % 2 == 0) {
+                article.addTag(new Tag("Even"));
+            }
+            if (i % 3 == 0) {
+                article.addTag(new Tag("Three"));
+            }
+        }
+        assertArrayEquals(new int[] {6}, blog.findArticleIds(
+                TagQuery.and(TagQuery.tag("Even"), TagQuery.tag("Three"))).toArray());
+        assertArrayEquals(new int[] {2, 3, 4, 6}, blog.findArticleIds(
+                TagQuery.or(TagQuery.tag("Even"), TagQuery.tag("Three"))).toArray());
+        assertArrayEquals(new int[] {1, 5}, blog.findArticleIds(
+                TagQuery.not(TagQuery.or(TagQuery.tag("Even"), TagQuery.tag("Three")))).toArray());
+        assertTrue(blog.findArticles(TagQuery.tag("Missing")).isEmpty());
+
+        ArrayList<Article> threes = blog.findArticles(TagQuery.tag("Three"));
+        assertEquals(2, threes.size());
+        assertEquals(3, threes.get(0).getId());
+        assertEquals(6, threes.get(1).getId());
+    }
+
+    @Test
+    public void testTagIndexFollowsChanges() {
+        Article article = new Article(1, "First", "Han Solo", "Content", LocalDate.now());
+        blog.addArticle(article);
+        article.addTag(new Tag("Draft"));
+        assertEquals(1, blog.findArticles(TagQuery.tag("Draft")).size());
+        assertTrue(article.deleteTag("Draft"));
+        assertFalse(article.deleteTag("Draft"));
+        assertTrue(blog.findArticles(TagQuery.tag("Draft")).isEmpty());
+
+        article.addTag(new Tag("Draft"));
+        blog.removeArticle(article);
+        assertTrue(blog.findArticles(TagQuery.tag("Draft")).isEmpty());
+        assertTrue(blog.findArticles(TagQuery.not(TagQuery.tag("Draft"))).isEmpty());
+        assertNull(article.getBlog());
+    }
+
+    @Test
+    public void testSearch() {
+        Article first = new Article(1, "Tatooine", "Luke Skywalker", "Two suns and a lot of sand", LocalDate.now());
+        Article second = new Article(2, "Dagobah", "Luke Skywalker", "A swamp with a small green master",
+                LocalDate.now());
+        blog.addArticle(first);
+        blog.addArticle(second);
+        assertEquals(1, blog.search("sand", 10).size());
+        assertSame(first, blog.search("sand", 10).get(0).getArticle());
+
+        blog.addArticle(new Article(3, "Endor", "Luke Skywalker", "Sand free forest moon", LocalDate.now()));
+        second.edit("Dagobah", "Luke Skywalker", "Swamp, sand and a master");
+        second.addTag(new Tag("Training"));
+        assertEquals(3, blog.search("sand", 10).size());
+        assertSame(second, blog.search("training", 10).get(0).getArticle());
+        second.deleteTag("Training");
+        assertTrue(blog.search("training", 10).isEmpty());
+
+        blog.removeArticle(first);
+        assertEquals(2, blog.search("sand", 10).size());
+    }
+
+    @Test
+    public void testListArticlesByDate() {
+        for (int i = 1; i <= 30; i++) {
+            blog.addArticle(new Article(i, "Article " + i, "Han Solo", "Content", LocalDate.of(2021, 1, 1)
+                    .plusDays(i * 3)));
+        }
+        ArticlePage page = blog.listArticles(TimelineQuery.created(), 10);
+        assertEquals(10, page.getArticles().size());
+        assertEquals(1, page.getArticles().get(0).getId());
+        assertTrue(page.hasNext());
+
+        // A new article before the cursor does not shift the next page
+        blog.addArticle(new Article(31, "Article 31", "Han Solo", "Content", LocalDate.of(2020, 1, 1)));
+        page = blog.listArticles(page.getNext(), 10);
+        assertEquals(11, page.getArticles().get(0).getId());
+        page = blog.listArticles(page.getNext(), 10);
+        assertEquals(21, page.getArticles().get(0).getId());
+        assertFalse(page.hasNext());
+
+        ArticlePage march = blog.listArticles(TimelineQuery.created()
+                .between(LocalDate.of(2021, 3, 1), LocalDate.of(2021, 3, 31)).newestFirst(), 5);
+        assertEquals(5, march.getArticles().size());
+        assertEquals(29, march.getArticles().get(0).getId());
+        assertEquals(5, blog.listArticles(march.getNext(), 5).getArticles().size());
+        assertFalse(blog.listArticles(march.getNext(), 5).hasNext());
+        assertEquals(20, blog.listArticles(march.getNext(), 5).getArticles().get(4).getId());
+
+        blog.findArticleById(5).edit("Edited", "Han Solo", "Content", LocalDate.of(2022, 1, 1));
+        blog.removeArticle(blog.findArticleById(29));
+        ArticlePage edited = blog.listArticles(TimelineQuery.edited().newestFirst(), 2);
+        assertEquals(5, edited.getArticles().get(0).getId());
+        assertEquals(30, edited.getArticles().get(1).getId());
+        assertEquals(28, blog.listArticles(edited.getNext(), 1).getArticles().get(0).getId());
+    }
+
+    @Test
+    public void testSearchIndexBuiltFromSnapshot() {
+        Article first = new Article(1, "Tatooine", "Luke Skywalker", "Sand everywhere", LocalDate.now());
+        Article second = new Article(2, "Hoth", "Han Solo", "Snow everywhere", LocalDate.now());
+        blog.addArticle(first);
+        blog.addArticle(second);
+        BlogSnapshot snapshot = blog.snapshot();
+        ChangeCursor cursor = blog.newChangeCursor();
+        SearchIndex built = blog.buildSearchIndex(snapshot);
+
+        // Changes made while the index is built are caught up on when it is installed
+        blog.removeArticle(second);
+        blog.addArticle(new Article(3, "Jakku", "Rey", "More sand", LocalDate.now()));
+        first.edit("Tatooine", "Luke Skywalker", "Twin suns");
+        assertNull(blog.getSearchIndex());
+        assertSame(built, blog.installSearchIndex(built, cursor));
+        assertSame(built, blog.getSearchIndex());
+        assertEquals(3, blog.search("sand", 10).get(0).getArticle().getId());
+        assertEquals(2, blog.search("sand suns snow", 10).size());
+        assertTrue(blog.search("snow", 10).isEmpty());
+
+        // A blog that has an index keeps it
+        assertSame(built, blog.installSearchIndex(blog.buildSearchIndex(blog.snapshot()), blog.newChangeCursor()));
+    }
+
+    @Test
+    public void testListArticlesStartingAt() {
+        for (int i = 1; i <= 30; i++) {
+            blog.addArticle(new Article(i, "Article " + i, "Han Solo", "Content", LocalDate.of(2021, 1, 1)
+                    .plusDays(i / 2)));
+        }
+        Article article = blog.findArticleById(25);
+        ArticlePage oldest = blog.listArticles(TimelineQuery.created().startingAt(article), 3);
+        assertEquals(Arrays.asList(25, 26, 27), ids(oldest.getArticles()));
+        assertEquals(28, blog.listArticles(oldest.getNext(), 3).getArticles().get(0).getId());
+        ArticlePage newest = blog.listArticles(TimelineQuery.created().newestFirst().startingAt(article), 3);
+        assertEquals(Arrays.asList(25, 24, 23), ids(newest.getArticles()));
+    }
+
+    // EFFECTS: returns the ids of articles, in order
+    private static List<Integer> ids(List<Article> articles) {
+        List<Integer> ids = new ArrayList<>();
+        for (Article article : articles) {
+            ids.add(article.getId());
+        }
+        return ids;
+    }
+}
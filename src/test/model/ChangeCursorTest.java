@@ -0,0 +1,179 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeCursorTest {
+    private Blog blog;
+    private ChangeCursor cursor;
+    private Recorder recorder;
+
+    // Keeps every batch and reset it is given
+    private static class Recorder implements ChangeListener {
+        private final List<List<BlogChange>> batches = new ArrayList<>();
+        private final List<BlogSnapshot> resets = new ArrayList<>();
+
+        @Override
+        public void changed(List<BlogChange> changes) {
+            batches.add(changes);
+        }
+
+        @Override
+        public void reset(BlogSnapshot snapshot) {
+            resets.add(snapshot);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        blog = new Blog("Captain's Log");
+        blog.addArticle(article(1));
+        cursor = blog.newChangeCursor();
+        recorder = new Recorder();
+    }
+
+    private Article article(int id) {
+        return new Article(id, "Post " + id, "Adam Mitha", "Content " + id, LocalDate.of(2021, 1, 1));
+    }
+
+    private List<ChangeKind> kinds(List<BlogChange> changes) {
+        List<ChangeKind> kinds = new ArrayList<>();
+        for (BlogChange change : changes) {
+            kinds.add(change.getKind());
+        }
+        return kinds;
+    }
+
+    @Test
+    public void testChangesAreDeliveredInOneBatch() {
+        Article added = article(2);
+        blog.addArticle(added);
+        added.edit("Post 2, edited", "Han Solo", "New content");
+        added.addTag(new Tag("Stories"));
+        added.deleteTag("Stories");
+        blog.removeArticle(blog.findArticleById(1));
+        blog.setTitle("Ship's Log");
+
+        cursor.deliver(recorder);
+        assertEquals(1, recorder.batches.size());
+        List<BlogChange> changes = recorder.batches.get(0);
+        assertEquals(Arrays.asList(ChangeKind.ARTICLE_ADDED, ChangeKind.ARTICLE_EDITED, ChangeKind.TAG_ADDED,
+                ChangeKind.TAG_REMOVED, ChangeKind.ARTICLE_REMOVED, ChangeKind.TITLE_CHANGED), kinds(changes));
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(1 + i, changes.get(i).getSequence());
+        }
+
+        assertNull(changes.get(0).getPrevious());
+        assertEquals("Post 2", changes.get(1).getPrevious().getTitle());
+        assertEquals("Post 2, edited", changes.get(1).getArticle().getTitle());
+        assertEquals("Stories", changes.get(2).getName());
+        assertEquals(1, changes.get(2).getArticle().getTags().size());
+        assertTrue(changes.get(3).getArticle().getTags().isEmpty());
+        assertEquals(1, changes.get(4).getId());
+        assertNull(changes.get(4).getArticle());
+        assertEquals("Ship's Log", changes.get(5).getName());
+
+        assertEquals(blog.snapshot().getChangeCount(), cursor.getPosition());
+        cursor.deliver(recorder);
+        assertEquals(1, recorder.batches.size());
+        assertTrue(recorder.resets.isEmpty());
+    }
+
+    @Test
+    public void testCursorStartsNow() {
+        assertEquals(1, blog.snapshot().getChangeCount());
+        cursor.deliver(recorder);
+        assertTrue(recorder.batches.isEmpty());
+        blog.findArticleById(1).addTag(new Tag("Stories"));
+        blog.findArticleById(1).addTag(new Tag("Stories"));
+        cursor.deliver(recorder);
+        assertEquals(Arrays.asList(ChangeKind.TAG_ADDED), kinds(recorder.batches.get(0)));
+    }
+
+    @Test
+    public void testCursorLeftBehindIsReset() {
+        Article article = blog.findArticleById(1);
+        for (int i = 0; i <= ChangeLog.CAPACITY; i++) {
+            article.addTag(new Tag("Tag " + i));
+        }
+        cursor.deliver(recorder);
+        assertTrue(recorder.batches.isEmpty());
+        assertEquals(1, recorder.resets.size());
+        assertEquals(ChangeLog.CAPACITY + 1, recorder.resets.get(0).findArticleById(1).getTags().size());
+
+        article.deleteTag("Tag 0");
+        cursor.deliver(recorder);
+        assertEquals(Arrays.asList(ChangeKind.TAG_REMOVED), kinds(recorder.batches.get(0)));
+    }
+
+    @Test
+    public void testReplacingArticlesResets() {
+        blog.setArticles(new ArrayList<>(Arrays.asList(article(5), article(6))));
+        cursor.deliver(recorder);
+        assertEquals(1, recorder.resets.size());
+        assertEquals(2, recorder.resets.get(0).size());
+
+        ChangeCursor later = blog.newChangeCursor();
+        blog.findArticleById(5).edit("Post 5", "Adam Mitha", "Edited");
+        later.deliver(recorder);
+        assertEquals(1, recorder.batches.size());
+    }
+
+    @Test
+    public void testReaderOnAnotherThreadKeepsUp() throws InterruptedException {
+        Map<Integer, String> titles = new HashMap<>();
+        ChangeListener replica = new ChangeListener() {
+            @Override
+            public void changed(List<BlogChange> changes) {
+                for (BlogChange change : changes) {
+                    if (change.getArticle() == null) {
+                        titles.remove(change.getId());
+                    } else {
+                        titles.put(change.getId(), change.getArticle().getTitle());
+                    }
+                }
+            }
+
+            @Override
+            public void reset(BlogSnapshot snapshot) {
+                titles.clear();
+                for (ArticleSnapshot article : snapshot) {
+                    titles.put(article.getId(), article.getTitle());
+                }
+            }
+        };
+        cursor.deliver(replica);
+        Thread writer = new Thread(() -> {
+            for (int id = 2; id < 5000; id++) {
+                blog.addArticle(article(id));
+                if (blog.containsArticle(id / 2)) {
+                    blog.findArticleById(id / 2).edit("Edited " + id, "Adam Mitha", "Content");
+                }
+                if (id % 3 == 0) {
+                    blog.removeArticle(blog.findArticleById(id));
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            cursor.deliver(replica);
+        }
+        writer.join();
+        cursor.deliver(replica);
+
+        Map<Integer, String> expected = new HashMap<>();
+        for (ArticleSnapshot article : blog.snapshot()) {
+            expected.put(article.getId(), article.getTitle());
+        }
+        assertEquals(expected, titles);
+    }
+}
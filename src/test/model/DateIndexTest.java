@@ -0,0 +1,69 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DateIndexTest {
+    private static final LocalDate START = LocalDate.of(2021, 1, 1);
+
+    private static void assertRange(TreeSet<Long> expected, DateIndex index, long from, long to) {
+        long[] keys = new long[expected.size() + 1];
+        int count = index.range(from, to, false, keys.length, keys);
+        assertArrayEquals(expected.subSet(from, true, to, true).stream().mapToLong(Long::longValue).toArray(),
+                Arrays.copyOf(keys, count));
+        count = index.range(from, to, true, keys.length, keys);
+        assertArrayEquals(expected.descendingSet().subSet(to, true, from, true).stream()
+                .mapToLong(Long::longValue).toArray(), Arrays.copyOf(keys, count));
+    }
+
+    @Test
+    public void testAddRemove() {
+        DateIndex index = new DateIndex();
+        assertTrue(index.add(START, 2));
+        assertTrue(index.add(START, 1));
+        assertFalse(index.add(START, 2));
+        assertTrue(index.add(START.minusDays(1), 3));
+        assertEquals(3, index.size());
+
+        long[] keys = new long[3];
+        assertEquals(3, index.range(DateIndex.FIRST, DateIndex.LAST, false, 3, keys));
+        assertEquals(3, DateIndex.idOf(keys[0]));
+        assertEquals(1, DateIndex.idOf(keys[1]));
+        assertEquals(2, DateIndex.idOf(keys[2]));
+        assertEquals(1, index.range(DateIndex.firstKeyOn(START), DateIndex.LAST, true, 1, keys));
+        assertEquals(2, DateIndex.idOf(keys[0]));
+
+        assertTrue(index.remove(START, 1));
+        assertFalse(index.remove(START, 1));
+        assertEquals(2, index.size());
+        index.clear();
+        assertEquals(0, index.range(DateIndex.FIRST, DateIndex.LAST, false, 3, keys));
+    }
+
+    @Test
+    public void testRandomChangesAcrossBlocks() {
+        Random random = new Random(210);
+        DateIndex index = new DateIndex();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            LocalDate date = START.plusDays(random.nextInt(400));
+            int id = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(DateIndex.key(date, id)), index.remove(date, id));
+            } else {
+                assertEquals(expected.add(DateIndex.key(date, id)), index.add(date, id));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        assertRange(expected, index, DateIndex.FIRST, DateIndex.LAST);
+        assertRange(expected, index, DateIndex.firstKeyOn(START.plusDays(100)),
+                DateIndex.lastKeyOn(START.plusDays(130)));
+        assertRange(expected, index, DateIndex.key(START.plusDays(7), 2500), DateIndex.key(START.plusDays(7), 2600));
+    }
+}
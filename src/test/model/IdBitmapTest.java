@@ -0,0 +1,129 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdBitmapTest {
+
+    private static IdBitmap bitmapOf(TreeSet<Integer> ids) {
+        IdBitmap bitmap = new IdBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    private static void assertSameIds(TreeSet<Integer> expected, IdBitmap actual) {
+        assertEquals(expected.size(), actual.cardinality());
+        int[] ids = actual.toArray();
+        int i = 0;
+        for (int id : expected) {
+            assertEquals(id, ids[i++]);
+        }
+    }
+
+    @Test
+    public void testAddRemoveContains() {
+        IdBitmap bitmap = new IdBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(5));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.add(70000));
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(6));
+        assertEquals(2, bitmap.cardinality());
+        assertTrue(bitmap.remove(5));
+        assertFalse(bitmap.remove(5));
+        assertTrue(bitmap.remove(70000));
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void testDenseContainer() {
+        IdBitmap bitmap = new IdBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int id = 0; id < 10000; id += 2) {
+            bitmap.add(id);
+            expected.add(id);
+        }
+        assertSameIds(expected, bitmap);
+        for (int id = 0; id < 10000; id += 4) {
+            assertTrue(bitmap.remove(id));
+            expected.remove(id);
+        }
+        assertSameIds(expected, bitmap);
+        assertFalse(bitmap.contains(4));
+        assertTrue(bitmap.contains(6));
+    }
+
+    @Test
+    public void testSetOperationsAgainstTreeSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            int range = round % 2 == 0 ? 20000 : 300000;
+            TreeSet<Integer> left = new TreeSet<>();
+            TreeSet<Integer> right = new TreeSet<>();
+            for (int i = 0; i < 8000; i++) {
+                left.add(random.nextInt(range));
+                right.add(random.nextInt(range));
+            }
+            IdBitmap a = bitmapOf(left);
+            IdBitmap b = bitmapOf(right);
+
+            TreeSet<Integer> and = new TreeSet<>(left);
+            and.retainAll(right);
+            assertSameIds(and, a.and(b));
+
+            TreeSet<Integer> or = new TreeSet<>(left);
+            or.addAll(right);
+            assertSameIds(or, a.or(b));
+
+            TreeSet<Integer> andNot = new TreeSet<>(left);
+            andNot.removeAll(right);
+            assertSameIds(andNot, a.andNot(b));
+
+            assertSameIds(left, a);
+            assertSameIds(right, b);
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(1);
+        IdBitmap copy = bitmap.copy();
+        copy.add(2);
+        assertFalse(bitmap.contains(2));
+        assertTrue(copy.contains(1));
+    }
+
+    @Test
+    public void testIdsAfterAgainstTreeSet() {
+        Random random = new Random(11);
+        TreeSet<Integer> expected = new TreeSet<>();
+        // A dense group, a sparse one and a group with nothing in it between them
+        for (int i = 0; i < 10000; i++) {
+            expected.add(random.nextInt(65536));
+            expected.add(3 * 65536 + random.nextInt(65536) / 100);
+        }
+        IdBitmap bitmap = bitmapOf(expected);
+        int[] ids = new int[50];
+        for (int after : new int[] {-1, 0, 63, 64, 65535, 65536, 2 * 65536, 3 * 65536 + 77, 4 * 65536}) {
+            int count = bitmap.idsAfter(after, ids.length, ids);
+            int i = 0;
+            for (int id : expected.tailSet(after, false)) {
+                if (i == ids.length) {
+                    break;
+                }
+                assertEquals(id, ids[i++]);
+            }
+            assertEquals(i, count);
+        }
+        assertEquals(0, bitmap.idsAfter(Integer.MAX_VALUE, ids.length, ids));
+    }
+}
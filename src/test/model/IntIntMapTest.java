@@ -0,0 +1,63 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTest {
+    IntIntMap map;
+
+    @BeforeEach
+    public void setUp() {
+        map = new IntIntMap();
+    }
+
+    @Test
+    public void testPutGetAndRemove() {
+        assertEquals(IntIntMap.NONE, map.put(7, 0));
+        assertEquals(0, map.put(7, 3));
+        assertEquals(3, map.get(7));
+        assertEquals(IntIntMap.NONE, map.get(8));
+        assertEquals(3, map.remove(7));
+        assertEquals(IntIntMap.NONE, map.remove(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testZeroKey() {
+        map.put(0, 5);
+        map.put(-1, 6);
+        assertEquals(5, map.get(0));
+        assertEquals(2, map.size());
+        assertEquals(5, map.remove(0));
+        assertEquals(IntIntMap.NONE, map.get(0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testManyKeysWithRemovals() {
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? IntIntMap.NONE : removed, map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 5000; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? IntIntMap.NONE : value, map.get(key));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+    }
+}
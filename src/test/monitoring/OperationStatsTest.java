@@ -0,0 +1,84 @@
+package monitoring;
+
+import model.Article;
+import model.ArticleEdit;
+import model.Blog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationStatsTest {
+    OperationStats stats;
+
+    @BeforeEach
+    public void setUp() {
+        stats = new OperationStats("test", 1);
+    }
+
+    @Test
+    public void testRecord() {
+        for (int i = 0; i < 98; i++) {
+            stats.record(1000, 10, 1);
+        }
+        stats.record(100_000, 10, 1);
+        stats.record(5_000_000, 10, 1);
+        OperationSnapshot snapshot = stats.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(100, snapshot.getTimedCount());
+        assertEquals(1000, snapshot.getBytes());
+        assertEquals(100, snapshot.getArticles());
+        // 1000 ns falls in the bucket [512, 1024) ns, 100 us in [65.5, 131) us
+        assertEquals(1.024, snapshot.getP50Micros(), 1e-9);
+        assertEquals(131.072, snapshot.getP99Micros(), 1e-9);
+        assertEquals(5000, snapshot.getMaxMicros(), 1e-9);
+        assertEquals((98 * 1000 + 100_000 + 5_000_000) / 1e3 / 100, snapshot.getMeanMicros(), 1e-9);
+        assertEquals(98, snapshot.getHistogram()[OperationStats.bucket(1000)]);
+
+        stats.reset();
+        assertEquals(0, stats.snapshot().getCount());
+        assertEquals(0, stats.snapshot().getP99Micros());
+    }
+
+    @Test
+    public void testSampling() {
+        OperationStats sampled = new OperationStats("sampled", 4);
+        for (int i = 0; i < 10_000; i++) {
+            sampled.end(sampled.start(), 0, 1);
+        }
+        OperationSnapshot snapshot = sampled.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertTrue(snapshot.getTimedCount() > 1000 && snapshot.getTimedCount() < 5000);
+    }
+
+    @Test
+    public void testOperationsAreServedOverJmx() throws Exception {
+        Blog blog = new Blog("Blog");
+        Article article = new Article(blog.allocateId(), "Title", "Author", "Content", LocalDate.now());
+        blog.addArticle(article);
+        BlogMetrics.EDIT.reset();
+        article.edit("New title", "Author", "New content");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        CompositeData edit = (CompositeData) server.getAttribute(new ObjectName(BlogMetrics.OBJECT_NAME), "Edit");
+        assertEquals(1L, edit.get("count"));
+        assertEquals((long) "New content".length(), edit.get("bytes"));
+    }
+
+    @Test
+    public void testEditTurnedDownIsNotCounted() {
+        Article article = new Article(1, "Title", "Author", "Content", LocalDate.now());
+        BlogMetrics.EDIT.reset();
+        ArticleEdit stale = article.prepareEdit("Stale title", "Author", "Stale content", LocalDate.now());
+        article.edit("New title", "Author", "New content");
+        assertFalse(stale.isCurrent());
+        assertThrows(IllegalStateException.class, stale::apply);
+        assertEquals(1, BlogMetrics.EDIT.snapshot().getCount());
+    }
+}
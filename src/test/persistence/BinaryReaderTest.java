@@ -0,0 +1,98 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryReaderTest {
+
+    @Test
+    public void testReaderNonexistentFile() {
+        try {
+            new BinaryReader("./data/doesnotexist.blog").read();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Should catch IOException
+        }
+    }
+
+    @Test
+    public void testReaderJsonFile() throws IOException {
+        assertFalse(BinaryReader.isBinarySnapshot("./data/testReaderBlog.json"));
+        try {
+            new BinaryReader("./data/testReaderBlog.json").read();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Should catch IOException
+        }
+    }
+
+    @Test
+    public void testReaderNewerVersion() throws IOException {
+        Path file = Files.createTempFile("testBinaryReaderVersion", ".blog");
+        ByteBuffer header = ByteBuffer.allocate(BinaryWriter.MAGIC.length + 12);
+        header.put(BinaryWriter.MAGIC).putInt(BinaryWriter.VERSION + 1).putLong(0);
+        Files.write(file, header.array());
+        try {
+            new BinaryReader(file.toString()).read();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Unsupported snapshot version"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReaderTruncatedFile() throws IOException {
+        Path file = Files.createTempFile("testBinaryReaderTruncated", ".blog");
+        SnapshotConverter.toBinary("./data/testReaderBlog.json", file.toString());
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] truncated = new byte[bytes.length / 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        Files.write(file, truncated);
+        try {
+            Blog blog = new BinaryReader(file.toString()).read();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Should catch IOException
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReaderDuplicateIds() throws IOException {
+        Path file = Files.createTempFile("testBinaryReaderDuplicates", ".blog");
+        LocalDate date = LocalDate.of(2022, 3, 1);
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            BinaryOutput output = new BinaryOutput(stream);
+            output.writeRaw(BinaryWriter.MAGIC);
+            output.writeInt(BinaryWriter.VERSION);
+            output.writeString("Duplicates");
+            output.writeInt(3);
+            output.writeRecord(new Article(1, "First", "Author", "Content", date));
+            output.writeRecord(new Article(1, "Duplicate", "Author", "Content", date));
+            output.writeRecord(new Article(2, "Second", "Author", "Content", date));
+            output.finish();
+        }
+        try {
+            Blog blog = new BinaryReader(file.toString()).read();
+            assertEquals(3, blog.getArticles().size());
+            assertEquals("First", blog.findArticleById(1).getTitle());
+            assertEquals("Second", blog.findArticleById(2).getTitle());
+            assertEquals("Duplicate", blog.findArticleById(3).getTitle());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryWriterTest extends JsonTest {
+
+    @Test
+    void testWriterInvalidFile() {
+        try {
+            BinaryWriter writer = new BinaryWriter("\"./data/my\0illegal:fileName.blog\"");
+            writer.open();
+            fail("IOException was expected");
+        } catch (IOException e) {
+            // Should catch an IOException
+        }
+    }
+
+    @Test
+    void testWriterEmptyBlog() throws IOException {
+        Path file = Files.createTempFile("testBinaryWriterEmptyBlog", ".blog");
+        BinaryWriter writer = new BinaryWriter(file.toString());
+        writer.open();
+        writer.write(new Blog("My Blog"));
+        writer.close();
+
+        Blog blog = new BinaryReader(file.toString()).read();
+        Files.delete(file);
+        assertEquals("My Blog", blog.getTitle());
+        assertEquals(0, blog.getArticles().size());
+    }
+
+    @Test
+    void testWriterNonemptyBlog() throws IOException {
+        Path file = Files.createTempFile("testBinaryWriterBlog", ".blog");
+        Blog blog = new Blog("My Other Blog");
+        blog.addArticle(new Article(1, "A blog post", "Adam Mitha", "Some content",
+                LocalDate.of(2021, 1, 2), LocalDate.of(2021, 3, 4)));
+        Article article2 = new Article(2, "Another post", "Han Solo", "I shot first \u2615", LocalDate.now());
+        article2.addTag(new Tag("Tag 1"));
+        article2.addTag(new Tag("Tag 2"));
+        blog.addArticle(article2);
+        BinaryWriter writer = new BinaryWriter(file.toString());
+        writer.open();
+        writer.write(blog);
+        writer.close();
+
+        assertTrue(BinaryReader.isBinarySnapshot(file.toString()));
+        // JsonReader detects the binary format on its own
+        blog = new JsonReader(file.toString()).read();
+        Files.delete(file);
+        assertEquals("My Other Blog", blog.getTitle());
+        ArrayList<Article> articles = blog.getArticles();
+        assertEquals(2, articles.size());
+        checkArticle("A blog post", "Adam Mitha", "Some content", articles.get(0));
+        assertEquals(LocalDate.of(2021, 1, 2), articles.get(0).getDateCreated());
+        assertEquals(LocalDate.of(2021, 3, 4), articles.get(0).getDateEdited());
+        checkArticle("Another post", "Han Solo", "I shot first \u2615", articles.get(1));
+        checkTags(new ArrayList<String>(Arrays.asList("Tag 1", "Tag 2")), articles.get(1).getTags());
+    }
+
+    @Test
+    void testWriterRevisions() throws IOException {
+        Path file = Files.createTempFile("testBinaryWriterRevisions", ".blog");
+        Blog blog = new Blog("My Other Blog");
+        Article article = new Article(1, "A blog post", "Adam Mitha", "Some content", LocalDate.of(2021, 1, 2));
+        blog.addArticle(article);
+        for (int i = 0; i < 40; i++) {
+            article.edit("A blog post", "Adam Mitha", "Some content, edited " + i + " times", LocalDate.now());
+        }
+        BinaryWriter writer = new BinaryWriter(file.toString());
+        writer.open();
+        writer.write(blog);
+        writer.close();
+
+        Article read = new BinaryReader(file.toString(), true).read().findArticleById(1);
+        Files.delete(file);
+        assertEquals(40, read.getRevisionCount());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(article.getRevision(i).getContent(), read.getRevision(i).getContent());
+            assertEquals(article.getRevision(i).getDateEdited(), read.getRevision(i).getDateEdited());
+        }
+    }
+
+    @Test
+    void testConvertRoundTrip() throws IOException {
+        Path binary = Files.createTempFile("testConvert", ".blog");
+        Path json = Files.createTempFile("testConvert", ".json");
+        SnapshotConverter.toBinary("./data/testReaderBlog.json", binary.toString());
+        SnapshotConverter.toJson(binary.toString(), json.toString());
+        assertFalse(BinaryReader.isBinarySnapshot(json.toString()));
+
+        Blog blog = new JsonReader(json.toString()).read();
+        Files.delete(binary);
+        Files.delete(json);
+        assertEquals("Captain's Log", blog.getTitle());
+        checkArticle("My second blog post", "Han Solo", "Some other content goes here", blog.getArticles().get(1));
+        checkTags(new ArrayList<String>(Arrays.asList("Tag 1", "Tag 2")), blog.getArticles().get(1).getTags());
+    }
+
+    @Test
+    void testReadLazyContent() throws IOException {
+        Path file = Files.createTempFile("testBinaryLazy", ".blog");
+        SnapshotConverter.toBinary("./data/testReaderBlog.json", file.toString());
+        Blog blog = new BinaryReader(file.toString(), true).read();
+        Files.delete(file);
+        checkArticle("My first blog post", "Adam Mitha", "Some content goes here", blog.getArticles().get(0));
+        checkArticle("My second blog post", "Han Solo", "Some other content goes here", blog.getArticles().get(1));
+    }
+
+    @Test
+    void testOutputCountsBytesWritten() throws IOException {
+        Blog blog = new Blog("Counted");
+        Article article = new Article(1, "Title", "Author", "Content \u2615", LocalDate.now());
+        article.addTag(new Tag("Tag"));
+        blog.addArticle(article);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryOutput output = new BinaryOutput(bytes);
+        output.writeRaw(BinaryWriter.MAGIC);
+        blog.writeBinary(output);
+        output.finish();
+        assertEquals(bytes.size(), output.size());
+    }
+}
@@ -0,0 +1,157 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlogEditorTest {
+    private Path dir;
+    private String snapshot;
+    private ArrayList<IOException> errors;
+    private JournalStore store;
+    private Blog blog;
+    private WriteBehindSaver saver;
+    private BlogEditor editor;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("blogEditorTest");
+        snapshot = dir.resolve("blog.json").toString();
+        Files.copy(Paths.get("./data/testReaderBlog.json"), Paths.get(snapshot), StandardCopyOption.REPLACE_EXISTING);
+        errors = new ArrayList<>();
+        store = new JournalStore(snapshot);
+        blog = store.load();
+        saver = new WriteBehindSaver(store, 10, errors::add);
+        editor = new BlogEditor(blog, store, saver, 4);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        saver.close();
+        store.close();
+        Files.deleteIfExists(Paths.get(snapshot));
+        Files.deleteIfExists(Paths.get(snapshot + ".journal"));
+        Files.deleteIfExists(dir);
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void testEditWithCurrentVersion() {
+        long version = editor.getVersion(1);
+        long edited = editor.edit(1, version, "Title", "Author", "Some new content goes here");
+        assertEquals(version + 1, edited);
+        assertEquals(edited, editor.getVersion(1));
+        Article article = blog.findArticleById(1);
+        assertEquals("Some new content goes here", article.getContent());
+        assertEquals("Some content goes here", article.getRevision(0).getContent());
+        assertEquals(LocalDate.now(), article.getDateEdited());
+    }
+
+    @Test
+    public void testEditWithStaleVersionConflicts() {
+        long version = editor.getVersion(1);
+        editor.edit(1, version, "Title", "Author", "First");
+        assertEquals(BlogEditor.CONFLICT, editor.edit(1, version, "Title", "Author", "Second"));
+        assertEquals("First", blog.findArticleById(1).getContent());
+        assertEquals(1, blog.findArticleById(1).getRevisionCount());
+
+        // Changes made without the editor bump the version too
+        long current = editor.getVersion(1);
+        saver.update(() -> blog.findArticleById(1).edit("Title", "Author", "Third"));
+        assertEquals(BlogEditor.CONFLICT, editor.edit(1, current, "Title", "Author", "Fourth"));
+        assertEquals("Third", blog.findArticleById(1).getContent());
+    }
+
+    @Test
+    public void testTags() {
+        long version = editor.getVersion(1);
+        long tagged = editor.addTag(1, version, "Tutorials");
+        assertEquals(version + 1, tagged);
+        assertEquals(tagged, editor.addTag(1, tagged, "Tutorials"));
+        assertEquals(BlogEditor.CONFLICT, editor.addTag(1, version, "Stories"));
+        assertEquals(1, blog.findArticleById(1).getTags().size());
+        assertEquals(BlogEditor.CONFLICT, editor.deleteTag(1, version, "Tutorials"));
+        assertEquals(tagged, editor.deleteTag(1, tagged, "Stories"));
+        assertEquals(tagged + 1, editor.deleteTag(1, tagged, "Tutorials"));
+        assertTrue(blog.findArticleById(1).getTags().isEmpty());
+    }
+
+    @Test
+    public void testUnknownArticle() {
+        assertThrows(NoSuchElementException.class, () -> editor.getVersion(99));
+        assertThrows(NoSuchElementException.class, () -> editor.edit(99, 0, "Title", "Author", "Content"));
+        assertThrows(NoSuchElementException.class, () -> editor.addTag(99, 0, "Tutorials"));
+    }
+
+    @Test
+    public void testChangesAreJournaled() throws IOException {
+        long version = editor.getVersion(2);
+        version = editor.edit(2, version, "My second blog post, edited", "Han Solo", "Some other content went here");
+        version = editor.addTag(2, version, "Tag 3");
+        editor.deleteTag(2, version, "Tag 1");
+        saver.await();
+        Blog reloaded = new JournalStore(snapshot).load();
+        Article article = reloaded.findArticleById(2);
+        assertEquals("My second blog post, edited", article.getTitle());
+        assertEquals("Some other content went here", article.getContent());
+        assertEquals("Some other content goes here", article.getRevision(0).getContent());
+        assertEquals(2, article.getTags().size());
+        assertEquals("Tag 3", article.getTags().get(1).getName());
+    }
+
+    @Test
+    public void testConcurrentEditorsLoseNothing() throws Exception {
+        int threads = 4;
+        int edits = 200;
+        ArrayList<Thread> editors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // Two threads share each article, so their edits conflict and are retried
+            int id = 1 + t % 2;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < edits; i++) {
+                    increment(id);
+                }
+            });
+            editors.add(thread);
+            thread.start();
+        }
+        for (Thread thread : editors) {
+            thread.join();
+        }
+        for (int id = 1; id <= 2; id++) {
+            assertEquals(String.valueOf(threads / 2 * edits), blog.findArticleById(id).getContent());
+            assertEquals(threads / 2 * edits, blog.findArticleById(id).getRevisionCount());
+        }
+    }
+
+    // EFFECTS: adds one to the number held as the content of the article with the given id, retrying until
+    //          no other editor gets in the way
+    private void increment(int id) {
+        while (true) {
+            long version;
+            String content;
+            synchronized (store) {
+                Article article = blog.findArticleById(id);
+                version = article.getVersion();
+                content = article.getContent();
+            }
+            int count = content.matches("[0-9]+") ? Integer.parseInt(content) : 0;
+            if (editor.edit(id, version, "Counter", "Adam Mitha", String.valueOf(count + 1)) != BlogEditor.CONFLICT) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalStoreTest extends JsonTest {
+    private Path dir;
+    private String snapshot;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journalStoreTest");
+        snapshot = dir.resolve("blog.json").toString();
+        Files.copy(Paths.get("./data/testReaderBlog.json"), Paths.get(snapshot), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(snapshot));
+        Files.deleteIfExists(Paths.get(snapshot + ".journal"));
+        Path search = Paths.get(snapshot + ".search");
+        if (Files.isDirectory(search)) {
+            try (Stream<Path> files = Files.list(search)) {
+                for (Path file : files.toArray(Path[]::new)) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(search);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    public void testCommitAppendsToJournal() throws IOException {
+        byte[] snapshotBefore = Files.readAllBytes(Paths.get(snapshot));
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+
+        Article created = new Article(3, "Third post", "Leia Organa", "Help me", LocalDate.of(2021, 4, 1));
+        created.addTag(new Tag("Rebels"));
+        blog.addArticle(created);
+        store.articleCreated(created);
+
+        Article first = blog.findArticleById(1);
+        first.edit("Edited first post", "Adam Mitha", "New content", LocalDate.of(2021, 4, 2));
+        store.articleEdited(first);
+        first.addTag(new Tag("Edited"));
+        store.tagAdded(first, "Edited");
+
+        Article second = blog.findArticleById(2);
+        second.deleteTag("Tag 1");
+        store.tagDeleted(second, "Tag 1");
+        store.commit();
+        store.close();
+
+        assertArrayEquals(snapshotBefore, Files.readAllBytes(Paths.get(snapshot)));
+        assertTrue(Files.size(Paths.get(snapshot + ".journal")) > 0);
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertEquals(3, reloaded.getArticles().size());
+        checkArticle("Edited first post", "Adam Mitha", "New content", reloaded.findArticleById(1));
+        assertEquals(LocalDate.of(2021, 4, 2), reloaded.findArticleById(1).getDateEdited());
+        checkTags(new ArrayList<>(Arrays.asList("Edited")), reloaded.findArticleById(1).getTags());
+        checkTags(new ArrayList<>(Arrays.asList("Tag 2")), reloaded.findArticleById(2).getTags());
+        checkArticle("Third post", "Leia Organa", "Help me", reloaded.findArticleById(3));
+        checkTags(new ArrayList<>(Arrays.asList("Rebels")), reloaded.findArticleById(3).getTags());
+    }
+
+    @Test
+    public void testDeleteArticle() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        blog.removeArticle(first);
+        store.articleDeleted(first);
+        store.commit();
+        store.close();
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertEquals(1, reloaded.getArticles().size());
+        try {
+            reloaded.findArticleById(1);
+            fail("Should throw a NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // Article 1 was deleted
+        }
+    }
+
+    @Test
+    public void testUncommittedRecordsAreDiscarded() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        first.edit("Never saved", "Adam Mitha", "Lost", LocalDate.now());
+        store.articleEdited(first);
+        store.close();
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        checkArticle("My first blog post", "Adam Mitha", "Some content goes here", reloaded.findArticleById(1));
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        first.edit("Saved edit", "Adam Mitha", "Durable", LocalDate.now());
+        store.articleEdited(first);
+        store.commit();
+        store.close();
+
+        Path journal = Paths.get(snapshot + ".journal");
+        long validSize = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.APPEND)) {
+            // A header promising 100 bytes of payload followed by only a few of them
+            ByteBuffer torn = ByteBuffer.allocate(12).putInt(100).putInt(42).putInt(7);
+            torn.flip();
+            channel.write(torn);
+        }
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        checkArticle("Saved edit", "Adam Mitha", "Durable", reloaded.findArticleById(1));
+        assertEquals(validSize, Files.size(journal));
+    }
+
+    @Test
+    public void testCompactionWritesSnapshot() throws IOException {
+        JournalStore store = new JournalStore(snapshot, 1);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        first.edit("Compacted", "Adam Mitha", "In the snapshot", LocalDate.now());
+        store.articleEdited(first);
+        store.commit();
+        store.close();
+
+        assertEquals(0, Files.size(Paths.get(snapshot + ".journal")));
+        Blog snapshotOnly = new JsonReader(snapshot).read();
+        checkArticle("Compacted", "Adam Mitha", "In the snapshot", snapshotOnly.findArticleById(1));
+    }
+
+    @Test
+    public void testCompactionWhileContentIsMapped() throws IOException {
+        JournalStore store = new JournalStore(snapshot, 1);
+        store.setLazyContent(true);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        for (int i = 0; i < 2; i++) {
+            // Each commit moves a new snapshot over the file that the second article's content is mapped from
+            first.edit("Compacted", "Adam Mitha", "Saved " + i, LocalDate.now());
+            store.articleEdited(first);
+            store.commit();
+        }
+        store.close();
+
+        assertEquals("Some other content goes here", blog.findArticleById(2).getContent());
+        Blog reloaded = new JsonReader(snapshot).read();
+        checkArticle("Compacted", "Adam Mitha", "Saved 1", reloaded.findArticleById(1));
+        checkArticle("My second blog post", "Han Solo", "Some other content goes here",
+                reloaded.findArticleById(2));
+    }
+
+    @Test
+    public void testSmallEditsAreJournaledAsDeltas() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 10000) {
+            content.append("A long article that is edited a little at a time. ");
+        }
+        first.edit("Long", "Adam Mitha", content.toString(), LocalDate.now());
+        store.articleEdited(first);
+        store.commit();
+        long before = Files.size(Paths.get(snapshot + ".journal"));
+
+        for (int i = 0; i < 1000; i++) {
+            content.replace(i * 7, i * 7 + 1, "#");
+            first.edit("Long", "Adam Mitha", content.toString(), LocalDate.now());
+            store.articleEdited(first);
+        }
+        store.commit();
+        store.close();
+        // A copy of the article per edit would take 10 MB
+        assertTrue(Files.size(Paths.get(snapshot + ".journal")) - before < 100 * 1000);
+
+        Article reloaded = new JournalStore(snapshot).load().findArticleById(1);
+        assertEquals(content.toString(), reloaded.getContent());
+        assertEquals(1001, reloaded.getRevisionCount());
+        assertEquals("Some content goes here", reloaded.getRevision(0).getContent());
+        assertEquals(first.getRevision(500).getContent(), reloaded.getRevision(500).getContent());
+    }
+
+    @Test
+    public void testRevisionsAreSnapshotted() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        Article first = blog.findArticleById(1);
+        first.edit("Edited once", "Adam Mitha", "Some content goes here, edited", LocalDate.now());
+        store.articleEdited(first);
+        first.edit("Edited twice", "Adam Mitha", "Brand new content", LocalDate.now());
+        store.articleEdited(first);
+        store.commit();
+        byte[] journal = Files.readAllBytes(Paths.get(snapshot + ".journal"));
+        store.compact();
+        store.close();
+
+        // A crash after the snapshot was written but before the journal was emptied replays the edits
+        // over a snapshot that already has them
+        Files.write(Paths.get(snapshot + ".journal"), journal);
+        Article reloaded = new JournalStore(snapshot).load().findArticleById(1);
+        checkArticle("Edited twice", "Adam Mitha", "Brand new content", reloaded);
+        assertEquals(2, reloaded.getRevisionCount());
+        assertEquals("Some content goes here", reloaded.getRevision(0).getContent());
+        assertEquals("Edited once", reloaded.getRevision(1).getTitle());
+
+        reloaded.restore(0);
+        checkArticle("My first blog post", "Adam Mitha", "Some content goes here", reloaded);
+    }
+
+    @Test
+    public void testNewBlogIsSnapshottedOnFirstCommit() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = new Blog("Brand new");
+        store.start(blog);
+        Article article = new Article(1, "Hello", "Me", "World", LocalDate.now());
+        blog.addArticle(article);
+        store.articleCreated(article);
+        assertEquals("Captain's Log", new JsonReader(snapshot).read().getTitle());
+
+        store.commit();
+        store.close();
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertEquals("Brand new", reloaded.getTitle());
+        assertEquals(1, reloaded.getArticles().size());
+    }
+
+    @Test
+    public void testSearchIndexIsStored() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        assertNull(blog.getSearchIndex());
+        assertEquals(1, blog.search("\"first blog post\"", 10).size());
+        Article created = new Article(3, "Third post", "Leia Organa", "Help me Obi-Wan", LocalDate.now());
+        blog.addArticle(created);
+        store.articleCreated(created);
+        store.commit();
+        store.close();
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertNotNull(reloaded.getSearchIndex());
+        assertEquals(3, reloaded.getSearchIndex().size());
+        assertSame(reloaded.findArticleById(3), reloaded.search("obi-wan", 10).get(0).getArticle());
+
+        // A change made without the index makes the stored one stale
+        JournalStore other = new JournalStore(snapshot);
+        Blog changed = other.load();
+        changed.setSearchIndex(null);
+        changed.removeArticle(changed.findArticleById(3));
+        other.articleDeleted(created);
+        other.commit();
+        other.close();
+        Blog stale = new JournalStore(snapshot).load();
+        assertNull(stale.getSearchIndex());
+        assertTrue(stale.search("obi-wan", 10).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentCommits() throws Exception {
+        JournalStore store = new JournalStore(snapshot);
+        store.load();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int base = 100 + t * 50;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    store.articleCreated(new Article(base + i, "Post", "Author", "Content", LocalDate.now()));
+                    try {
+                        store.commit();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        store.close();
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertEquals(202, reloaded.getArticles().size());
+    }
+
+    @Test
+    public void testChangesDuringCompactionAreKept() throws Exception {
+        // Every commit compacts, and the snapshot is written without the store's lock
+        JournalStore store = new JournalStore(snapshot, 1);
+        Blog blog = store.load();
+        Thread committer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                try {
+                    store.commit();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        committer.start();
+        for (int id = 100; id < 300; id++) {
+            Article article = new Article(id, "Post " + id, "Author", "Content", LocalDate.now());
+            synchronized (store) {
+                blog.addArticle(article);
+                store.articleCreated(article);
+            }
+        }
+        committer.join();
+        store.commit();
+        store.close();
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertEquals(202, reloaded.getArticles().size());
+        assertEquals("Post 299", reloaded.findArticleById(299).getTitle());
+    }
+}
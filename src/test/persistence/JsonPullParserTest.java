@@ -0,0 +1,93 @@
+package persistence;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonPullParserTest {
+
+    private JsonPullParser parserFor(String json) {
+        return new JsonPullParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testReadObject() throws IOException {
+        JsonPullParser parser = parserFor("{\"id\": 12, \"title\": \"Hello\", \"ok\": true, \"tags\": []}");
+        parser.beginObject();
+        assertEquals("id", parser.nextName());
+        assertEquals(12, parser.nextInt());
+        assertEquals("title", parser.nextName());
+        assertEquals("Hello", parser.nextString());
+        assertEquals("ok", parser.nextName());
+        assertTrue(parser.nextBoolean());
+        assertEquals("tags", parser.nextName());
+        parser.beginArray();
+        assertFalse(parser.hasNext());
+        parser.endArray();
+        assertFalse(parser.hasNext());
+        parser.endObject();
+        assertEquals(JsonPullParser.Token.END_DOCUMENT, parser.peek());
+    }
+
+    @Test
+    public void testEscapesAndUnicode() throws IOException {
+        JsonPullParser parser = parserFor("[\"a\\n\\\"b\\\"\\u00e9\", \"caf\u00e9 \u2615 \uD83D\uDE00\"]");
+        parser.beginArray();
+        assertEquals("a\n\"b\"\u00e9", parser.nextString());
+        assertEquals("caf\u00e9 \u2615 \uD83D\uDE00", parser.nextString());
+        parser.endArray();
+    }
+
+    @Test
+    public void testSkipNestedValue() throws IOException {
+        JsonPullParser parser = parserFor("{\"skip\": {\"a\": [1, {\"b\": null}, \"]\"]}, \"keep\": 3}");
+        parser.beginObject();
+        assertEquals("skip", parser.nextName());
+        parser.skipValue();
+        assertEquals("keep", parser.nextName());
+        assertEquals(3, parser.nextInt());
+        parser.endObject();
+    }
+
+    @Test
+    public void testLongStringAcrossBuffers() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            expected.append("\u00e9x");
+        }
+        JsonPullParser parser = parserFor("\"" + expected + "\"");
+        assertEquals(expected.toString(), parser.nextString());
+    }
+
+    @Test
+    public void testMalformedDocument() throws IOException {
+        JsonPullParser parser = parserFor("{\"title\" \"missing colon\"}");
+        parser.beginObject();
+        parser.nextName();
+        try {
+            parser.nextString();
+            fail("Expected JSONException");
+        } catch (JSONException e) {
+            // Should catch JSONException
+        }
+    }
+
+    @Test
+    public void testUnterminatedArray() throws IOException {
+        JsonPullParser parser = parserFor("[1, 2");
+        parser.beginArray();
+        assertEquals(1, parser.nextInt());
+        assertEquals(2, parser.nextInt());
+        try {
+            parser.peek();
+            fail("Expected JSONException");
+        } catch (JSONException e) {
+            // Should catch JSONException
+        }
+    }
+}
@@ -2,9 +2,13 @@ package persistence;
 
 import model.Article;
 import model.Blog;
+import org.json.JSONException;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -52,10 +56,101 @@ public class JsonReaderTest extends JsonTest {
                     "Some other content goes here", articles.get(1));
             assertEquals(0, articles.get(0).getTags().size());
             checkTags(new ArrayList<String>(Arrays.asList("Tag 1", "Tag 2")), articles.get(1).getTags());
-            Article.setNextId(blog.findNextID());
-            assertEquals(Article.getNextId(), 3);
+            assertEquals(3, blog.findNextID());
+            assertEquals(3, blog.allocateId());
+            assertEquals(4, blog.findNextID());
         } catch (IOException e) {
             fail("Couldn't read from file");
         }
     }
+
+    @Test
+    public void testReaderReorderedBlog() {
+        JsonReader reader = new JsonReader("./data/testReaderReorderedBlog.json");
+        try {
+            Blog blog = reader.read();
+            assertEquals("Reordered", blog.getTitle());
+            ArrayList<Article> articles = blog.getArticles();
+            assertEquals(1, articles.size());
+            assertEquals(7, articles.get(0).getId());
+            checkArticle("Out of order", "Leia Organa",
+                    "Line one\nLine \"two\" \u2014 caf\u00e9 \u2615", articles.get(0));
+            checkTags(new ArrayList<String>(Arrays.asList("Caf\u00e9")), articles.get(0).getTags());
+        } catch (IOException e) {
+            fail("Couldn't read from file");
+        }
+    }
+
+    @Test
+    public void testReaderLazyContent() {
+        JsonReader reader = new JsonReader("./data/testReaderReorderedBlog.json", true);
+        try {
+            Blog blog = reader.read();
+            checkArticle("Out of order", "Leia Organa",
+                    "Line one\nLine \"two\" \u2014 caf\u00e9 \u2615", blog.getArticles().get(0));
+        } catch (IOException e) {
+            fail("Couldn't read from file");
+        }
+    }
+
+    @Test
+    public void testReaderDuplicateIds() {
+        JsonReader reader = new JsonReader("./data/testReaderDuplicateIdsBlog.json");
+        try {
+            Blog blog = reader.read();
+            ArrayList<Article> articles = blog.getArticles();
+            assertEquals(3, articles.size());
+            // The article that has id 2 in the file keeps it, and the duplicate of id 1 gets an id above both
+            assertEquals("An edited post", blog.findArticleById(1).getTitle());
+            assertEquals("Post 3", blog.findArticleById(2).getTitle());
+            assertEquals("post 2", blog.findArticleById(3).getTitle());
+            assertEquals(4, blog.findNextID());
+        } catch (IOException e) {
+            fail("Couldn't read from file");
+        }
+    }
+
+    @Test
+    public void testReaderReportsProgress() throws IOException {
+        ArrayList<Integer> ids = new ArrayList<>();
+        long[] last = new long[2];
+        Blog blog = new JsonReader("./data/testReaderBlog.json").read((article, position, size) -> {
+            ids.add(article.getId());
+            assertTrue(position > last[0] && position <= size);
+            last[0] = position;
+            last[1] = size;
+        });
+        assertEquals(Arrays.asList(1, 2), ids);
+        assertEquals(blog.findArticleById(2).getTitle(), "My second blog post");
+        assertTrue(last[1] - last[0] < 10);
+    }
+
+    @Test
+    public void testReaderCancelled() {
+        JsonReader reader = new JsonReader("./data/testReaderBlog.json");
+        try {
+            reader.read((article, position, size) -> Thread.currentThread().interrupt());
+            fail("Expected InterruptedIOException");
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        } catch (IOException e) {
+            fail("Expected InterruptedIOException");
+        }
+    }
+
+    @Test
+    public void testReaderMissingTags() throws IOException {
+        Path file = Files.createTempFile("testReaderMissingTags", ".json");
+        Files.write(file, ("{\"title\": \"Blog\", \"articles\": [{\"id\": 1, \"title\": \"Title\", "
+                + "\"author\": \"Author\", \"content\": \"Content\", \"dateCreated\": \"2022-03-01\", "
+                + "\"dateEdited\": \"2022-03-01\"}]}").getBytes());
+        try {
+            new JsonReader(file.toString()).read();
+            fail("Expected JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().contains("tags"));
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
@@ -7,6 +7,9 @@ import model.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -71,4 +74,79 @@ public class JsonWriterTest extends JsonTest {
             fail("Exception should not have been thrown");
         }
     }
+
+    @Test
+    void testWriterManyArticlesInParallelChunks() {
+        try {
+            Path file = Files.createTempFile("testWriterManyArticles", ".json");
+            Blog blog = new Blog("A \"big\" blog");
+            for (int i = 1; i <= 2000; i++) {
+                Article article = new Article(i, "Post #" + i, "Author " + (i % 7),
+                        "Line 1\nLine 2\t\u00e9\u2615 " + i, LocalDate.now());
+                article.addTag(new Tag("Tag " + (i % 3)));
+                blog.addArticle(article);
+            }
+            JsonWriter writer = new JsonWriter(file.toString());
+            writer.open();
+            writer.write(blog);
+            writer.close();
+
+            Blog read = new JsonReader(file.toString()).read();
+            Files.delete(file);
+            assertEquals("A \"big\" blog", read.getTitle());
+            assertEquals(2000, read.getArticles().size());
+            for (int i = 0; i < 2000; i++) {
+                Article article = read.getArticles().get(i);
+                assertEquals(i + 1, article.getId());
+                checkArticle("Post #" + (i + 1), "Author " + ((i + 1) % 7),
+                        "Line 1\nLine 2\t\u00e9\u2615 " + (i + 1), article);
+                checkTags(new ArrayList<String>(Arrays.asList("Tag " + ((i + 1) % 3))), article.getTags());
+            }
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testWriterLongStringAcrossChunks() {
+        try {
+            Path file = Files.createTempFile("testWriterLongString", ".json");
+            // Starting with one char puts surrogate pairs across the boundaries between chunks
+            StringBuilder content = new StringBuilder("x");
+            for (int i = 0; i < 3000; i++) {
+                content.append(i % 2 == 0 ? "\"\u0001" : "\ud83d\ude00");
+            }
+            Blog blog = new Blog("Long");
+            blog.addArticle(new Article(1, "Long post", "Author", content.toString(), LocalDate.now()));
+            JsonWriter writer = new JsonWriter(file.toString());
+            writer.open();
+            writer.write(blog);
+            writer.close();
+
+            Blog read = new JsonReader(file.toString()).read();
+            Files.delete(file);
+            checkArticle("Long post", "Author", content.toString(), read.getArticles().get(0));
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testWriterFailedWriteLeavesNoTemporaryFile() throws IOException {
+        Path file = Files.createTempFile("testWriterFailed", ".json");
+        Files.write(file, "previous".getBytes());
+        Blog blog = new Blog("Broken");
+        blog.addArticle(new Article(1, null, "Author", "Content", LocalDate.now()));
+        JsonWriter writer = new JsonWriter(file.toString());
+        writer.open();
+        try {
+            writer.write(blog);
+            fail("NullPointerException was expected");
+        } catch (NullPointerException e) {
+            // Should catch a NullPointerException for the missing title
+        }
+        assertFalse(Files.exists(Paths.get(file + ".tmp")));
+        assertEquals("previous", new String(Files.readAllBytes(file)));
+        Files.delete(file);
+    }
 }
@@ -0,0 +1,63 @@
+package persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyContentSourceTest {
+
+    @Test
+    public void testDecodeUtf8() {
+        byte[] bytes = "xxcaf\u00e9yy".getBytes(StandardCharsets.UTF_8);
+        LazyContentSource source = new LazyContentSource(ByteBuffer.wrap(bytes),
+                LazyContentSource.Encoding.UTF8, 100);
+        assertEquals("caf\u00e9", source.loadContent(2, 5));
+    }
+
+    @Test
+    public void testDecodeJsonString() {
+        byte[] bytes = "{\"content\": \"a\\nb \\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+        LazyContentSource source = new LazyContentSource(ByteBuffer.wrap(bytes),
+                LazyContentSource.Encoding.JSON_STRING, 100);
+        assertEquals("a\nb \u00e9", source.loadContent(13, 11));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        byte[] bytes = "aaaaabbbbbccccc".getBytes(StandardCharsets.UTF_8);
+        LazyContentSource source = new LazyContentSource(ByteBuffer.wrap(bytes),
+                LazyContentSource.Encoding.UTF8, 10);
+        assertEquals("aaaaa", source.loadContent(0, 5));
+        assertEquals("bbbbb", source.loadContent(5, 5));
+        assertEquals(10, source.getCachedChars());
+        // Touch the first body so that the second one is least recently used
+        assertSame(source.loadContent(0, 5), source.loadContent(0, 5));
+        assertEquals("ccccc", source.loadContent(10, 5));
+        assertEquals(10, source.getCachedChars());
+    }
+
+    @Test
+    public void testBodyLargerThanCacheIsNotCached() {
+        byte[] bytes = "aaaaabbbbb".getBytes(StandardCharsets.UTF_8);
+        LazyContentSource source = new LazyContentSource(ByteBuffer.wrap(bytes),
+                LazyContentSource.Encoding.UTF8, 4);
+        assertEquals("aaaaabbbbb", source.loadContent(0, 10));
+        assertEquals(0, source.getCachedChars());
+    }
+
+    @Test
+    public void testContentAcrossRegions() {
+        byte[] bytes = "aaaaabbbbbccc".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer[] regions = new ByteBuffer[3];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = ByteBuffer.wrap(bytes, i * 5, Math.min(5, bytes.length - i * 5)).slice();
+        }
+        LazyContentSource source = new LazyContentSource(regions, 5, LazyContentSource.Encoding.UTF8, 100);
+        assertEquals("bb", source.loadContent(5, 2));
+        assertEquals("aabbbbbc", source.loadContent(3, 8));
+        assertEquals("bccc", source.loadContent(9, 4));
+    }
+}
@@ -0,0 +1,143 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkspaceTest {
+    private Path dir;
+    private ArrayList<IOException> errors;
+    private Workspace workspace;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("workspaceTest");
+        errors = new ArrayList<>();
+        // Every blog weighs 100, so two fit in the budget and a third evicts the least recently used
+        workspace = new Workspace(dir, 250, blog -> 100, 60000, errors::add);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        workspace.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+        assertTrue(errors.isEmpty());
+    }
+
+    private void create(OpenBlog open, String title) {
+        Blog blog = open.getBlog();
+        Article article = new Article(blog.allocateId(), title, "Leia Organa", "Content", LocalDate.now());
+        open.getSaver().update(() -> {
+            blog.addArticle(article);
+            open.getStore().articleCreated(article);
+        });
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException {
+        workspace.create("first", "First");
+        workspace.create("second", "Second");
+        assertEquals(200, workspace.weight());
+        workspace.open("first");
+        workspace.create("third", "Third");
+        assertEquals(Arrays.asList("first", "third"), workspace.openBlogs());
+        assertFalse(workspace.isOpen("second"));
+        assertEquals(200, workspace.weight());
+    }
+
+    @Test
+    public void testOpenReportsArticlesAsTheyAreLoaded() throws IOException {
+        OpenBlog created = workspace.create("first", "First");
+        create(created, "Loaded");
+        workspace.evict("first");
+
+        ArrayList<String> loaded = new ArrayList<>();
+        OpenBlog opened = workspace.open("first", (article, position, size) -> loaded.add(article.getTitle()));
+        assertEquals(Arrays.asList("Loaded"), loaded);
+        // A blog that is already open is not loaded again
+        assertSame(opened, workspace.open("first", (article, position, size) -> fail("loaded again")));
+    }
+
+    @Test
+    public void testChangesAreSavedBeforeEviction() throws IOException {
+        OpenBlog first = workspace.create("first", "First");
+        create(first, "Saved on eviction");
+        assertTrue(first.getSaver().isDirty());
+        workspace.create("second", "Second");
+        workspace.create("third", "Third");
+        assertFalse(workspace.isOpen("first"));
+
+        OpenBlog reopened = workspace.open("first");
+        assertNotSame(first, reopened);
+        assertEquals("First", reopened.getBlog().getTitle());
+        assertEquals(1, reopened.getBlog().getArticles().size());
+        assertEquals("Saved on eviction", reopened.getBlog().getArticles().get(0).getTitle());
+    }
+
+    @Test
+    public void testBlogOverBudgetStaysOpen() throws IOException {
+        Workspace small = new Workspace(dir, 50, blog -> 100, 0, errors::add);
+        OpenBlog only = small.create("only", "Only");
+        assertTrue(small.isOpen("only"));
+        assertSame(only, small.open("only"));
+        small.create("other", "Other");
+        assertEquals(Arrays.asList("other"), small.openBlogs());
+        small.close();
+    }
+
+    @Test
+    public void testEstimateFollowsChanges() throws IOException {
+        Workspace estimated = new Workspace(dir, Long.MAX_VALUE, BlogWeigher.ESTIMATE, 60000, errors::add);
+        OpenBlog open = estimated.create("estimated", "Estimated");
+        Blog blog = open.getBlog();
+        assertEquals(BlogWeigher.BLOG_OVERHEAD, estimated.weight());
+        create(open, "First");
+        create(open, "Second");
+        Article first = blog.getArticles().get(0);
+        open.getSaver().update(() -> {
+            first.edit("First, edited", "Leia Organa", "Some longer content");
+            first.addTag(new Tag("Stories"));
+            blog.removeArticle(blog.getArticles().get(1));
+        });
+        estimated.open("estimated");
+        assertEquals(BlogWeigher.ESTIMATE.weigh(blog), estimated.weight());
+        assertTrue(estimated.weight() > BlogWeigher.BLOG_OVERHEAD + BlogWeigher.ARTICLE_OVERHEAD);
+        estimated.close();
+    }
+
+    @Test
+    public void testListBlogs() throws IOException {
+        assertTrue(workspace.listBlogs().isEmpty());
+        workspace.create("b", "B").getSaver().await();
+        workspace.create("a", "A").getSaver().await();
+        assertEquals(Arrays.asList("a", "b"), workspace.listBlogs());
+        assertTrue(workspace.exists("a"));
+        assertFalse(workspace.exists("c"));
+    }
+
+    @Test
+    public void testInvalidNames() {
+        assertThrows(IllegalArgumentException.class, () -> workspace.open("../escape"));
+        assertThrows(IllegalArgumentException.class, () -> workspace.create("a/b", "Nested"));
+        assertThrows(IllegalArgumentException.class, () -> workspace.open(".hidden"));
+        assertThrows(IllegalArgumentException.class, () -> workspace.exists("a..b"));
+    }
+}
@@ -0,0 +1,101 @@
+package persistence;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindSaverTest {
+    private Path dir;
+    private String snapshot;
+    private ArrayList<IOException> errors;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("writeBehindSaverTest");
+        snapshot = dir.resolve("blog.json").toString();
+        Files.copy(Paths.get("./data/testReaderBlog.json"), Paths.get(snapshot), StandardCopyOption.REPLACE_EXISTING);
+        errors = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(snapshot));
+        Files.deleteIfExists(Paths.get(snapshot + ".journal"));
+        Files.deleteIfExists(dir);
+        assertTrue(errors.isEmpty());
+    }
+
+    private void create(WriteBehindSaver saver, JournalStore store, Blog blog, int id) {
+        Article article = new Article(id, "Post " + id, "Leia Organa", "Content", LocalDate.now());
+        saver.update(() -> {
+            blog.addArticle(article);
+            store.articleCreated(article);
+        });
+    }
+
+    @Test
+    public void testChangesAreSavedInTheBackground() throws Exception {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        WriteBehindSaver saver = new WriteBehindSaver(store, 10, errors::add);
+        assertFalse(saver.isDirty());
+        create(saver, store, blog, 3);
+        assertTrue(saver.isDirty());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (saver.isDirty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertFalse(saver.isDirty());
+        assertTrue(Files.size(Paths.get(snapshot + ".journal")) > 0);
+        saver.close();
+        store.close();
+    }
+
+    @Test
+    public void testChangesWaitForTheWindow() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        WriteBehindSaver saver = new WriteBehindSaver(store, 60000, errors::add);
+        for (int id = 3; id < 53; id++) {
+            create(saver, store, blog, id);
+        }
+        assertTrue(saver.isDirty());
+        assertEquals(0, Files.size(Paths.get(snapshot + ".journal")));
+        saver.await();
+        assertFalse(saver.isDirty());
+
+        create(saver, store, blog, 53);
+        saver.close();
+        assertFalse(saver.isDirty());
+        assertThrows(IllegalStateException.class, () -> saver.markDirty());
+        store.close();
+
+        Blog reloaded = new JournalStore(snapshot).load();
+        assertEquals(53, reloaded.getArticles().size());
+    }
+
+    @Test
+    public void testUpdateReturnsResult() throws IOException {
+        JournalStore store = new JournalStore(snapshot);
+        Blog blog = store.load();
+        WriteBehindSaver saver = new WriteBehindSaver(store, 0, errors::add);
+        Article first = blog.findArticleById(1);
+        assertTrue(saver.update(() -> first.addTag(new Tag("Rebels"))));
+        assertFalse(saver.update(() -> first.addTag(new Tag("Rebels"))));
+        saver.close();
+        store.close();
+    }
+}
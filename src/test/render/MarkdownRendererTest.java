@@ -0,0 +1,67 @@
+package render;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarkdownRendererTest {
+    private MarkdownRenderer renderer;
+
+    @BeforeEach
+    public void setUp() {
+        renderer = new MarkdownRenderer();
+    }
+
+    @Test
+    public void testHeadingsAndParagraphs() {
+        assertEquals("<h1>Title</h1>\n<p>Some <em>emphasis</em> and <strong>strong</strong> text.</p>\n",
+                renderer.render("# Title\n\nSome *emphasis* and **strong** text."));
+        assertEquals("<h2>Sub</h2>\n<p>one\ntwo</p>\n", renderer.render("## Sub\none\ntwo"));
+        assertEquals("<p>line<br>\nbreak</p>\n", renderer.render("line  \nbreak"));
+        assertEquals("", renderer.render(""));
+    }
+
+    @Test
+    public void testLists() {
+        assertEquals("<ul>\n<li>one</li>\n<li>two\n<ul>\n<li>nested</li>\n</ul></li>\n</ul>\n",
+                renderer.render("- one\n- two\n  - nested"));
+        assertEquals("<ol>\n<li>a</li>\n<li>b</li>\n</ol>\n<blockquote>\n<p>quote</p>\n</blockquote>\n",
+                renderer.render("1. a\n2. b\n\n> quote"));
+    }
+
+    @Test
+    public void testCode() {
+        assertEquals("<pre><code class=\"language-java\">int x = 1 &lt; 2;\n</code></pre>\n",
+                renderer.render("```java\nint x = 1 < 2;\n```"));
+        assertEquals("<p>a <code>*not emphasis*</code></p>\n", renderer.render("a `*not emphasis*`"));
+    }
+
+    @Test
+    public void testLinks() {
+        assertEquals("<p>a <a href=\"http://x.com\" title=\"t\">link</a></p>\n",
+                renderer.render("a [link](http://x.com \"t\")"));
+        assertEquals("<p>click</p>\n", renderer.render("[click](javascript:alert(1))"));
+    }
+
+    @Test
+    public void testHtmlIsEscaped() {
+        assertEquals("<p>&lt;script&gt;alert(1)&lt;/script&gt;</p>\n",
+                renderer.render("<script>alert(1)</script>"));
+    }
+
+    @Test
+    public void testPathologicalInputIsRenderedQuickly() {
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            markdown.append("*[`_");
+        }
+        for (int i = 0; i < 5000; i++) {
+            markdown.append("\n").append(new String(new char[i % 200]).replace('\0', '>')).append(" - x");
+        }
+        long started = System.nanoTime();
+        String html = renderer.render(markdown.toString());
+        assertTrue(System.nanoTime() - started < 5_000_000_000L);
+        assertFalse(html.isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package render;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderCacheTest {
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("renderCacheTest");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        RenderCache cache = new RenderCache(new MarkdownRenderer(), 10000);
+        assertNull(cache.getIfPresent("*a*"));
+        assertEquals("<p><em>a</em></p>\n", cache.render("*a*"));
+        assertEquals("<p><em>a</em></p>\n", cache.render("*a*"));
+        assertEquals("<p><em>a</em></p>\n", cache.getIfPresent("*a*"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testMemoryIsBounded() {
+        RenderCache cache = new RenderCache(new MarkdownRenderer(), 300);
+        for (int i = 0; i < 20; i++) {
+            cache.render("article " + i);
+        }
+        assertTrue(cache.getChars() <= 300);
+        assertNull(cache.getIfPresent("article 0"));
+        assertNotNull(cache.getIfPresent("article 19"));
+    }
+
+    @Test
+    public void testRendersArePersisted() {
+        RenderCache cache = new RenderCache(new MarkdownRenderer(), 10000, dir, 100000);
+        cache.render("# kept");
+        RenderCache reopened = new RenderCache(new MarkdownRenderer(), 10000, dir, 100000);
+        assertEquals("<h1>kept</h1>\n", reopened.render("# kept"));
+        assertEquals(0, reopened.getMisses());
+        assertEquals(1, reopened.getHits());
+    }
+
+    @Test
+    public void testDiskIsBounded() throws IOException {
+        RenderCache cache = new RenderCache(new MarkdownRenderer(), 10000, dir, 200);
+        for (int i = 0; i < 20; i++) {
+            cache.render("article " + i);
+        }
+        long total = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                total += Files.size(file);
+            }
+        }
+        assertTrue(total <= 200);
+        RenderCache reopened = new RenderCache(new MarkdownRenderer(), 10000, dir, 200);
+        reopened.render("article 19");
+        assertEquals(1, reopened.getHits());
+    }
+}
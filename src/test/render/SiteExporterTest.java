@@ -0,0 +1,125 @@
+package render;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SiteExporterTest {
+    private Path dir;
+    private Blog blog;
+    private Article first;
+    private Article second;
+    private SiteExporter exporter;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("siteExporterTest");
+        blog = new Blog("My <blog>");
+        first = new Article(blog.allocateId(), "First", "Ann", "# Hello\n\n*hi*", LocalDate.of(2023, 1, 5));
+        second = new Article(blog.allocateId(), "Second", "Bob", "text", LocalDate.of(2023, 2, 7));
+        first.addTag(new Tag("java"));
+        second.addTag(new Tag("java"));
+        second.addTag(new Tag("Java"));
+        blog.addArticle(first);
+        blog.addArticle(second);
+        exporter = new SiteExporter(new MarkdownRenderer());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        ExportSummary summary = exporter.export(blog, dir);
+        // Two articles, two months, two tags and the index
+        assertEquals(7, summary.getPages());
+        assertEquals(7, summary.getWritten());
+        String page = read("articles/" + first.getId() + ".html");
+        assertTrue(page.contains("<title>First - My &lt;blog&gt;</title>"));
+        assertTrue(page.contains("<h1>Hello</h1>\n<p><em>hi</em></p>"));
+        assertTrue(page.contains("<a href=\"../tags/java.html\">java</a>"));
+        assertTrue(read("tags/_4a_ava.html").contains("<a href=\"../articles/" + second.getId() + ".html\">Second"));
+        String archive = read("archive/2023-01.html");
+        assertTrue(archive.contains("First") && !archive.contains("Second"));
+        String index = read("index.html");
+        assertTrue(index.contains("<a href=\"archive/2023-02.html\">2023-02</a> (1)"));
+        assertTrue(index.contains("<a href=\"tags/java.html\">java</a> (2)"));
+    }
+
+    @Test
+    public void testExportIsIncremental() throws IOException {
+        exporter.export(blog, dir);
+        ExportSummary unchanged = exporter.export(blog, dir);
+        assertEquals(7, unchanged.getPages());
+        assertEquals(0, unchanged.getRendered());
+        assertEquals(0, unchanged.getWritten());
+
+        first.edit("First", "Ann", "changed");
+        ExportSummary edited = exporter.export(blog, dir);
+        // The content of an article only appears on its own page
+        assertEquals(1, edited.getRendered());
+        assertEquals(1, edited.getWritten());
+        assertTrue(read("articles/" + first.getId() + ".html").contains("<p>changed</p>"));
+
+        first.edit("Renamed", "Ann", "changed");
+        ExportSummary renamed = exporter.export(blog, dir);
+        // Its page, its month and its tag list the title; the index does not
+        assertEquals(3, renamed.getRendered());
+        assertEquals(3, renamed.getWritten());
+        assertTrue(read("tags/java.html").contains("Renamed"));
+    }
+
+    @Test
+    public void testUnchangedPagesAreNotRewritten() throws IOException {
+        exporter.export(blog, dir);
+        first.edit("First", "Ann", "# Hello\n\n*hi*", first.getDateEdited());
+        ExportSummary summary = exporter.export(blog, dir);
+        assertEquals(1, summary.getRendered());
+        assertEquals(0, summary.getWritten());
+    }
+
+    @Test
+    public void testRemovedPagesAreDeleted() throws IOException {
+        exporter.export(blog, dir);
+        blog.removeArticle(second);
+        ExportSummary summary = exporter.export(blog, dir);
+        // The article, its month and the tag only it had
+        assertEquals(3, summary.getDeleted());
+        assertFalse(Files.exists(dir.resolve("articles/" + second.getId() + ".html")));
+        assertFalse(Files.exists(dir.resolve("archive/2023-02.html")));
+        assertFalse(Files.exists(dir.resolve("tags/_4a_ava.html")));
+        assertTrue(Files.exists(dir.resolve("tags/java.html")));
+        assertFalse(read("index.html").contains("2023-02"));
+    }
+
+    @Test
+    public void testTagPaths() {
+        assertEquals("tags/java.html", SitePages.tagPath("java"));
+        assertEquals("tags/_4a_ava.html", SitePages.tagPath("Java"));
+        assertEquals("tags/c_2b__2b_.html", SitePages.tagPath("c++"));
+        assertEquals("tags/_2e__2e__2f_x.html", SitePages.tagPath("../x"));
+        assertNotEquals(SitePages.tagPath(""), SitePages.tagPath(" "));
+    }
+
+    // EFFECTS: returns the page at path in the site
+    private String read(String path) throws IOException {
+        return new String(Files.readAllBytes(dir.resolve(path)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,28 @@
+package search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalyzerTest {
+
+    @Test
+    public void testAnalyze() {
+        ArrayList<String> terms = new ArrayList<>();
+        ArrayList<Integer> positions = new ArrayList<>();
+        int next = Analyzer.analyze("How to destroy the Death-Star, in 2 shots!", 5, (term, position) -> {
+            terms.add(term);
+            positions.add(position);
+        });
+        assertEquals(14, next);
+        assertEquals("[how, destroy, death, star, 2, shots]", terms.toString());
+        assertEquals("[5, 7, 9, 10, 12, 13]", positions.toString());
+    }
+
+    @Test
+    public void testAnalyzeNoWords() {
+        assertEquals(3, Analyzer.analyze("  ... !!", 3, (term, position) -> fail("No terms expected")));
+    }
+}
@@ -0,0 +1,173 @@
+package search;
+
+import model.Article;
+import model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+    SearchIndex index;
+    HashMap<Integer, Article> articles;
+    Path dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        articles = new HashMap<>();
+        dir = Files.createTempDirectory("searchIndexTest");
+        index = new SearchIndex(articles::get);
+        index.add(article(1, "Death Star plans", "The rebels steal the plans of the death star."));
+        index.add(article(2, "Cloud City", "Lando betrays the rebels to the empire."));
+        index.add(article(3, "Hoth", "The star of this story is the snow. Death by cold is near."));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private Article article(int id, String title, String content) {
+        Article article = new Article(id, title, "Han Solo", content, LocalDate.now());
+        articles.put(id, article);
+        return article;
+    }
+
+    private int[] ids(List<SearchResult> results) {
+        return results.stream().mapToInt(result -> result.getArticle().getId()).toArray();
+    }
+
+    @Test
+    public void testRanking() {
+        List<SearchResult> results = index.search("death star", 10);
+        assertArrayEquals(new int[] {1, 3}, ids(results));
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+        assertArrayEquals(new int[] {2, 1}, ids(index.search("rebels empire", 10)));
+        assertArrayEquals(new int[] {1}, ids(index.search("DEATH star", 1)));
+        assertTrue(index.search("wookiee", 10).isEmpty());
+        assertTrue(index.search("the", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchIds() {
+        assertArrayEquals(new int[] {1, 3}, index.searchIds("death star", 10));
+        assertArrayEquals(new int[] {1}, index.searchIds("death star", 1));
+        assertEquals(0, index.searchIds("wookiee", 10).length);
+    }
+
+    @Test
+    public void testPhrase() {
+        assertArrayEquals(new int[] {1}, ids(index.search("\"death star\"", 10)));
+        assertArrayEquals(new int[] {3}, ids(index.search("\"death by cold\"", 10)));
+        assertTrue(index.search("\"star death\"", 10).isEmpty());
+        // A phrase does not run from the title into the content
+        assertTrue(index.search("\"hoth star\"", 10).isEmpty());
+    }
+
+    @Test
+    public void testAuthor() {
+        Article article = new Article(4, "Kessel Run", "Chewbacca", "Less than twelve parsecs.", LocalDate.now());
+        articles.put(4, article);
+        index.add(article);
+        assertArrayEquals(new int[] {4}, ids(index.search("chewbacca", 10)));
+        assertEquals(3, index.search("solo", 10).size());
+        // The author is a field of its own, so a phrase does not run into it
+        assertTrue(index.search("\"parsecs chewbacca\"", 10).isEmpty());
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        Article article = article(2, "Cloud City", "Lando betrays the rebels to the empire.");
+        article.edit("Bespin", "Han Solo", "Carbonite freezing");
+        article.addTag(new Tag("Frozen"));
+        articles.put(2, article);
+        index.update(article);
+        assertEquals(3, index.size());
+        assertTrue(index.search("lando", 10).isEmpty());
+        assertArrayEquals(new int[] {2}, ids(index.search("carbonite frozen", 10)));
+
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertEquals(2, index.size());
+        assertTrue(index.search("carbonite", 10).isEmpty());
+    }
+
+    @Test
+    public void testCompaction() {
+        for (int i = 0; i < 3000; i++) {
+            index.add(article(2, "Cloud City " + i, "Version " + i + " of the story"));
+        }
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[] {2}, ids(index.search("2999", 10)));
+        assertTrue(index.search("1500", 10).isEmpty());
+        assertArrayEquals(new int[] {1, 3}, ids(index.search("death star", 10)));
+        assertArrayEquals(new int[] {1}, ids(index.search("\"death star\"", 10)));
+    }
+
+    @Test
+    public void testFlushAndOpen() throws IOException {
+        index.flush(dir, "v1");
+        assertEquals(1, index.segmentCount());
+        assertArrayEquals(new int[] {1, 3}, ids(index.search("death star", 10)));
+
+        SearchIndex reopened = SearchIndex.open(dir, "v1", articles::get);
+        assertEquals(3, reopened.size());
+        assertArrayEquals(new int[] {1, 3}, ids(reopened.search("death star", 10)));
+        assertArrayEquals(new int[] {1}, ids(reopened.search("\"death star\"", 10)));
+        assertArrayEquals(new int[] {2, 1}, ids(reopened.search("rebels empire", 10)));
+        assertNull(SearchIndex.open(dir, "v2", articles::get));
+        SearchIndex.invalidate(dir);
+        assertNull(SearchIndex.open(dir, "v1", articles::get));
+    }
+
+    @Test
+    public void testFlushWritesOnlyChanges() throws IOException {
+        index.flush(dir, "v1");
+        index.update(article(2, "Bespin", "Carbonite freezing"));
+        index.remove(3);
+        index.flush(dir, "v2");
+        assertEquals(2, index.segmentCount());
+
+        SearchIndex reopened = SearchIndex.open(dir, "v2", articles::get);
+        assertEquals(2, reopened.size());
+        assertArrayEquals(new int[] {2}, ids(reopened.search("carbonite", 10)));
+        assertTrue(reopened.search("lando", 10).isEmpty());
+        assertTrue(reopened.search("snow", 10).isEmpty());
+        assertArrayEquals(new int[] {1}, ids(reopened.search("death star", 10)));
+    }
+
+    @Test
+    public void testMerge() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            index.update(article(4 + i % 5, "Endor " + i, "Ewoks and version " + i));
+            index.remove(3);
+            index.flush(dir, "v" + i);
+            index.awaitMerges();
+            assertTrue(index.segmentCount() <= 9);
+        }
+        assertEquals(7, index.size());
+        assertArrayEquals(new int[] {8}, ids(index.search("39", 10)));
+        assertTrue(index.search("34", 10).isEmpty());
+        assertEquals(5, index.search("ewoks", 10).size());
+
+        SearchIndex reopened = SearchIndex.open(dir, "v39", articles::get);
+        assertEquals(7, reopened.size());
+        assertEquals(index.segmentCount(), reopened.segmentCount());
+        assertArrayEquals(new int[] {8}, ids(reopened.search("39", 10)));
+        assertArrayEquals(new int[] {1}, ids(reopened.search("death star", 10)));
+        assertEquals(index.segmentCount() + 1, dir.toFile().list().length);
+    }
+}
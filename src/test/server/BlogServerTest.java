@@ -0,0 +1,188 @@
+package server;
+
+import model.Article;
+import model.Blog;
+import model.Tag;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlogServerTest {
+    private Blog blog;
+    private Object lock;
+    private BlogServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        blog = new Blog("My blog");
+        for (int i = 0; i < 5; i++) {
+            Article article = new Article(blog.allocateId(), "Title " + i, "Ann", "Content " + i,
+                    LocalDate.of(2023, 1, 1 + i));
+            if (i % 2 == 0) {
+                article.addTag(new Tag("even"));
+            }
+            blog.addArticle(article);
+        }
+        lock = new Object();
+        BlogServer.enableNoDelay();
+        server = new BlogServer(blog, lock, 0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testEnableNoDelayKeepsSetting() {
+        String previous = System.getProperty("sun.net.httpserver.nodelay");
+        try {
+            System.setProperty("sun.net.httpserver.nodelay", "false");
+            BlogServer.enableNoDelay();
+            assertEquals("false", System.getProperty("sun.net.httpserver.nodelay"));
+        } finally {
+            System.setProperty("sun.net.httpserver.nodelay", previous);
+        }
+    }
+
+    @Test
+    public void testArticle() throws IOException {
+        HttpURLConnection connection = open("/articles/1");
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getHeaderField("Content-Type").startsWith("application/json"));
+        assertTrue(connection.getHeaderField("ETag").startsWith("\"1-2023-01-01-"));
+        JSONObject article = new JSONObject(read(connection));
+        assertEquals("Title 0", article.getString("title"));
+        assertEquals("Content 0", article.getString("content"));
+        assertEquals("even", article.getJSONArray("tags").getString(0));
+    }
+
+    @Test
+    public void testNotModified() throws IOException {
+        String etag = open("/articles/1").getHeaderField("ETag");
+        HttpURLConnection connection = open("/articles/1");
+        connection.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, connection.getResponseCode());
+        assertEquals(etag, connection.getHeaderField("ETag"));
+
+        synchronized (lock) {
+            blog.findArticleById(1).edit("Title 1", "Ann", "Changed", LocalDate.of(2023, 1, 2));
+        }
+        connection = open("/articles/1");
+        connection.setRequestProperty("If-None-Match", etag);
+        assertEquals(200, connection.getResponseCode());
+        assertNotEquals(etag, connection.getHeaderField("ETag"));
+        assertEquals("Changed", new JSONObject(read(connection)).getString("content"));
+    }
+
+    @Test
+    public void testTagChangeChangesETag() throws IOException {
+        String etag = open("/articles/1").getHeaderField("ETag");
+        synchronized (lock) {
+            blog.findArticleById(1).addTag(new Tag("odd"));
+        }
+        HttpURLConnection connection = open("/articles/1");
+        connection.setRequestProperty("If-None-Match", etag);
+        assertEquals(200, connection.getResponseCode());
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        synchronized (lock) {
+            blog.findArticleById(2).edit("Title 2", "Ann", new String(new char[2000]).replace('\0', 'x'));
+        }
+        HttpURLConnection connection = open("/articles/2");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        String etag = connection.getHeaderField("ETag");
+        assertTrue(etag.endsWith("-gz\""));
+        try (InputStream in = new GZIPInputStream(connection.getInputStream())) {
+            assertEquals(2000, new JSONObject(readAll(in)).getString("content").length());
+        }
+        HttpURLConnection identity = open("/articles/2");
+        identity.setRequestProperty("Accept-Encoding", "gzip;q=0");
+        assertNull(identity.getHeaderField("Content-Encoding"));
+        assertNotEquals(etag, identity.getHeaderField("ETag"));
+    }
+
+    @Test
+    public void testListing() throws IOException {
+        JSONObject first = new JSONObject(read(open("/articles?limit=2")));
+        JSONArray articles = first.getJSONArray("articles");
+        assertEquals(2, articles.length());
+        assertEquals(5, articles.getJSONObject(0).getInt("id"));
+        assertEquals(4, articles.getJSONObject(1).getInt("id"));
+        JSONObject second = new JSONObject(read(open("/articles?limit=2&after=" + first.getString("next"))));
+        assertEquals(3, second.getJSONArray("articles").getJSONObject(0).getInt("id"));
+        JSONObject oldest = new JSONObject(read(open("/articles?order=edited&newest=false&limit=100")));
+        assertEquals(5, oldest.getJSONArray("articles").length());
+        assertFalse(oldest.has("next"));
+    }
+
+    @Test
+    public void testTag() throws IOException {
+        JSONObject first = new JSONObject(read(open("/tags/even?limit=2")));
+        assertEquals(2, first.getJSONArray("articles").length());
+        assertEquals("3", first.getString("next"));
+        JSONObject rest = new JSONObject(read(open("/tags/even?limit=2&after=3")));
+        assertEquals(5, rest.getJSONArray("articles").getJSONObject(0).getInt("id"));
+        assertFalse(rest.has("next"));
+        assertEquals(0, new JSONObject(read(open("/tags/none"))).getJSONArray("articles").length());
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        assertEquals(404, open("/articles/99").getResponseCode());
+        assertEquals(404, open("/nowhere").getResponseCode());
+        assertEquals(400, open("/articles/abc").getResponseCode());
+        assertEquals(400, open("/articles?limit=1000").getResponseCode());
+        HttpURLConnection post = open("/articles/0");
+        post.setRequestMethod("POST");
+        assertEquals(405, post.getResponseCode());
+        assertEquals("GET, HEAD", post.getHeaderField("Allow"));
+    }
+
+    @Test
+    public void testExecutor() {
+        // Java 8 has no virtual threads, so requests run on the pool
+        assertNotNull(BlogServer.newExecutor());
+    }
+
+    // EFFECTS: opens a connection to path on the server
+    private HttpURLConnection open(String path) throws IOException {
+        URL url = new URL("http", "127.0.0.1", server.getPort(), path);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    // EFFECTS: returns the body of the response to connection
+    private static String read(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return readAll(in);
+        }
+    }
+
+    // EFFECTS: returns what is left in in as UTF-8
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
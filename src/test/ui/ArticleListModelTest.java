@@ -0,0 +1,149 @@
+package ui;
+
+import model.Article;
+import model.Blog;
+import model.BlogChange;
+import model.BlogSnapshot;
+import model.ChangeCursor;
+import model.ChangeListener;
+import model.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArticleListModelTest {
+    ArticleListModel model;
+    ArrayList<String> events;
+
+    @BeforeEach
+    public void setUp() {
+        model = new ArticleListModel(Arrays.asList(article(1), article(2), article(3)));
+        events = new ArrayList<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+        });
+    }
+
+    private Article article(int id) {
+        return new Article(id, "Title " + id, "Author " + id, "Content", LocalDate.now());
+    }
+
+    @Test
+    public void testRowsAreProjections() {
+        assertEquals(3, model.getSize());
+        ArticleRow row = model.getElementAt(1);
+        assertEquals(2, row.getId());
+        assertEquals("Title 2 by Author 2", row.toString());
+        assertEquals(row, model.getElementAt(1));
+    }
+
+    @Test
+    public void testChangesFireIntervalEvents() {
+        model.add(article(4));
+        model.addAll(Arrays.asList(article(5), article(6)));
+        model.addAll(new ArrayList<>());
+        Article edited = article(2);
+        edited.edit("New title", "Author 2", "Content");
+        model.update(edited);
+        model.update(article(99));
+        model.delete(article(1));
+        model.delete(article(99));
+        assertEquals(Arrays.asList("added 3-3", "added 4-5", "changed 1-1", "removed 0-0"), events);
+
+        assertEquals(5, model.getSize());
+        assertEquals("New title", model.getElementAt(0).getTitle());
+        for (int id = 2; id <= 6; id++) {
+            assertEquals(id - 2, model.indexOf(id));
+        }
+        assertEquals(-1, model.indexOf(1));
+    }
+
+    @Test
+    public void testRowsFollowChanges() {
+        Blog blog = new Blog("Captain's Log");
+        for (int id = 1; id <= 3; id++) {
+            blog.addArticle(article(id));
+        }
+        ChangeCursor changes = blog.newChangeCursor();
+        blog.findArticleById(2).edit("New title", "New author", "Content");
+        blog.findArticleById(3).addTag(new Tag("Stories"));
+        blog.removeArticle(blog.findArticleById(1));
+        blog.addArticle(article(4));
+        changes.deliver(new ChangeListener() {
+            @Override
+            public void changed(List<BlogChange> batch) {
+                model.changed(batch);
+            }
+
+            @Override
+            public void reset(BlogSnapshot snapshot) {
+                fail("No changes were missed");
+            }
+        });
+        assertEquals(Arrays.asList("changed 1-1", "removed 0-0"), events);
+        assertEquals(2, model.getSize());
+        assertEquals("New title by New author", model.getElementAt(0).toString());
+        assertEquals(-1, model.indexOf(4));
+    }
+
+    @Test
+    public void testSetArticles() {
+        List<Article> articles = new ArrayList<>();
+        for (int id = 100; id < 1100; id++) {
+            articles.add(article(id));
+        }
+        model.setArticles(articles);
+        assertEquals(Arrays.asList("removed 0-2", "added 0-999"), events);
+        assertEquals(1000, model.getSize());
+        assertEquals(500, model.indexOf(600));
+        assertEquals(-1, model.indexOf(2));
+        model.setArticles(new ArrayList<>());
+        assertTrue(model.isEmpty());
+    }
+
+    @Test
+    public void testFilter() {
+        model.setFilter(Arrays.asList(article(3), article(7)));
+        assertTrue(model.isFiltered());
+        assertEquals(2, model.getSize());
+        assertEquals(1, model.indexOf(7));
+        assertEquals(-1, model.indexOf(1));
+
+        // Changes reach the full list while it is hidden, and the shown rows only when they are there
+        model.add(article(4));
+        Article edited = article(3);
+        edited.edit("New title", "Author 3", "Content");
+        model.update(edited);
+        model.delete(article(1));
+        assertEquals(Arrays.asList("removed 0-2", "added 0-1", "changed 0-0"), events);
+
+        events.clear();
+        model.clearFilter();
+        assertFalse(model.isFiltered());
+        assertEquals(Arrays.asList("removed 0-1", "added 0-2"), events);
+        assertEquals(3, model.getSize());
+        assertEquals("New title", model.getElementAt(1).getTitle());
+        assertEquals(2, model.indexOf(4));
+    }
+}